@@ -0,0 +1,329 @@
+package com.automobile.service.controller;
+
+import com.automobile.service.model.Customer;
+import com.automobile.service.model.JobCard;
+import com.automobile.service.model.Page;
+import com.automobile.service.model.Service;
+import com.automobile.service.model.Vehicle;
+import com.automobile.service.service.CustomerService;
+import com.automobile.service.service.JobCardService;
+import com.automobile.service.service.ServiceCatalogService;
+import com.automobile.service.service.VehicleService;
+import com.automobile.service.util.EntityVersions.Entity;
+import com.automobile.service.util.JsonWriter;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * ApiController servlet serving customers, vehicles, job cards and services as JSON.
+ * Lists are keyset-paginated like the HTML pages, and each row is written to the response
+ * as it is read from the database, so a page is never held in memory.
+ * A list response is {"items": [...], "nextCursor": "..."}; pass nextCursor back as
+ * the cursor parameter to get the next page. It is null on the last page.
+ * Responses carry an ETag of their entity type's version and are answered with 304
+ * Not Modified while that type has not changed.
+ */
+@WebServlet(value = "/api/*", asyncSupported = true)
+public class ApiController extends AsyncHttpServlet {
+    
+    // First path segments handled below, used to name routes
+    private static final Set<String> ROUTE_SEGMENTS = new HashSet<>(Arrays.asList("/customers", "/vehicles", "/jobcards", "/services"));
+    
+    private CustomerService customerService;
+    private VehicleService vehicleService;
+    private JobCardService jobCardService;
+    private ServiceCatalogService serviceCatalogService;
+    
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        customerService = new CustomerService();
+        vehicleService = new VehicleService();
+        jobCardService = new JobCardService();
+        serviceCatalogService = new ServiceCatalogService();
+    }
+    
+    @Override
+    protected Set<String> getRouteSegments() {
+        return ROUTE_SEGMENTS;
+    }
+    
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        
+        String pathInfo = request.getPathInfo();
+        if (pathInfo == null) {
+            pathInfo = "/";
+        }
+        
+        Entity entity = entityOf(pathInfo);
+        if (entity != null && ConditionalGet.isNotModified(request, response, entity)) {
+            return;
+        }
+        
+        String cursor = extractCursor(request);
+        int pageSize = extractPageSize(request);
+        
+        try {
+            if (pathInfo.equals("/customers")) {
+                // List customers, optionally filtered by name and city
+                String name = extractText(request, "name");
+                String city = extractText(request, "city");
+                writePage(response, action -> customerService.forEachCustomerOnPage(name, city, cursor, pageSize, action),
+                        ApiController::writeCustomer);
+                
+            } else if (pathInfo.startsWith("/customers/")) {
+                writeEntity(response, customerService.getCustomerById(parseId(pathInfo, "/customers/")),
+                        ApiController::writeCustomer, "Customer not found");
+                
+            } else if (pathInfo.equals("/vehicles")) {
+                // List vehicles, optionally filtered by owner and make
+                int customerId = extractId(request, "customerId");
+                String make = extractText(request, "make");
+                writePage(response, action -> vehicleService.forEachVehicleOnPage(customerId, make, cursor, pageSize, action),
+                        ApiController::writeVehicle);
+                
+            } else if (pathInfo.startsWith("/vehicles/")) {
+                writeEntity(response, vehicleService.getVehicleById(parseId(pathInfo, "/vehicles/")),
+                        ApiController::writeVehicle, "Vehicle not found");
+                
+            } else if (pathInfo.equals("/jobcards")) {
+                // List job cards, newest first, optionally filtered by status and vehicle
+                String status = extractText(request, "status");
+                int vehicleId = extractId(request, "vehicleId");
+                writePage(response, action -> jobCardService.forEachJobCardOnPage(status, vehicleId, cursor, pageSize, action),
+                        ApiController::writeJobCard);
+                
+            } else if (pathInfo.startsWith("/jobcards/")) {
+                writeEntity(response, jobCardService.getJobCardById(parseId(pathInfo, "/jobcards/")),
+                        ApiController::writeJobCard, "Job card not found");
+                
+            } else if (pathInfo.equals("/services")) {
+                // List catalog services, optionally filtered by name
+                String name = extractText(request, "name");
+                writePage(response, action -> serviceCatalogService.forEachServiceOnPage(name, cursor, pageSize, action),
+                        ApiController::writeService);
+                
+            } else if (pathInfo.startsWith("/services/")) {
+                writeEntity(response, serviceCatalogService.getServiceById(parseId(pathInfo, "/services/")),
+                        ApiController::writeService, "Service not found");
+                
+            } else {
+                sendError(response, HttpServletResponse.SC_NOT_FOUND, "Unknown resource");
+            }
+            
+        } catch (IllegalArgumentException e) {
+            // Malformed ID, filter or cursor; NumberFormatException is one too
+            sendError(response, HttpServletResponse.SC_BAD_REQUEST, e instanceof NumberFormatException
+                    ? "Invalid number" : e.getMessage());
+        } catch (UncheckedIOException e) {
+            // Writing a row failed, usually because the client went away
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * Runs a paginated query, passing each row of the page to a consumer
+     */
+    private interface PageQuery<T> {
+        Page<T> run(Consumer<? super T> action);
+    }
+    
+    /**
+     * Writes one entity as a JSON object
+     */
+    private interface EntityWriter<T> {
+        void write(JsonWriter json, T entity) throws IOException;
+    }
+    
+    /**
+     * Write one page of a list, serializing each row as the query reads it.
+     * If the query fails before the response is committed an error is sent instead;
+     * after that the response can only be cut short.
+     */
+    private <T> void writePage(HttpServletResponse response, PageQuery<T> query, EntityWriter<T> writer)
+            throws IOException {
+        JsonWriter json = startJson(response);
+        json.beginObject().name("items").beginArray();
+        
+        Page<T> page;
+        try {
+            page = query.run(entity -> {
+                try {
+                    writer.write(json, entity);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            response.resetBuffer();
+            throw e;
+        }
+        
+        if (page == null) {
+            if (!response.isCommitted()) {
+                response.resetBuffer();
+                sendError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Query failed");
+            }
+            return;
+        }
+        
+        json.endArray();
+        json.name("nextCursor").value(page.getNextCursor());
+        json.endObject();
+        json.flush();
+    }
+    
+    private <T> void writeEntity(HttpServletResponse response, T entity, EntityWriter<T> writer, String notFound)
+            throws IOException {
+        if (entity == null) {
+            sendError(response, HttpServletResponse.SC_NOT_FOUND, notFound);
+            return;
+        }
+        
+        JsonWriter json = startJson(response);
+        writer.write(json, entity);
+        json.flush();
+    }
+    
+    private void sendError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        JsonWriter json = startJson(response);
+        json.beginObject().name("error").value(message).endObject();
+        json.flush();
+    }
+    
+    private JsonWriter startJson(HttpServletResponse response) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        return new JsonWriter(response.getWriter());
+    }
+    
+    private static void writeCustomer(JsonWriter json, Customer customer) throws IOException {
+        json.beginObject()
+                .name("customerId").value(customer.getCustomerId())
+                .name("firstName").value(customer.getFirstName())
+                .name("lastName").value(customer.getLastName())
+                .name("phone").value(customer.getPhone())
+                .name("email").value(customer.getEmail())
+                .name("address").value(customer.getAddress())
+                .name("city").value(customer.getCity())
+                .name("state").value(customer.getState())
+                .name("zipCode").value(customer.getZipCode())
+                .name("registrationDate").value(customer.getRegistrationDate())
+                .endObject();
+    }
+    
+    private static void writeVehicle(JsonWriter json, Vehicle vehicle) throws IOException {
+        json.beginObject()
+                .name("vehicleId").value(vehicle.getVehicleId())
+                .name("customerId").value(vehicle.getCustomerId())
+                .name("make").value(vehicle.getMake())
+                .name("model").value(vehicle.getModel())
+                .name("year").value(vehicle.getYear())
+                .name("licensePlate").value(vehicle.getLicensePlate())
+                .name("vin").value(vehicle.getVin())
+                .name("color").value(vehicle.getColor())
+                .name("mileage").value(vehicle.getMileage())
+                .name("lastServiceDate").value(vehicle.getLastServiceDate())
+                .endObject();
+    }
+    
+    private static void writeJobCard(JsonWriter json, JobCard jobCard) throws IOException {
+        json.beginObject()
+                .name("jobCardId").value(jobCard.getJobCardId())
+                .name("vehicleId").value(jobCard.getVehicleId())
+                .name("openDate").value(jobCard.getOpenDate())
+                .name("closeDate").value(jobCard.getCloseDate())
+                .name("status").value(jobCard.getStatus())
+                .name("customerComplaints").value(jobCard.getCustomerComplaints())
+                .name("technicianNotes").value(jobCard.getTechnicianNotes())
+                .endObject();
+    }
+    
+    private static void writeService(JsonWriter json, Service service) throws IOException {
+        json.beginObject()
+                .name("serviceId").value(service.getServiceId())
+                .name("serviceName").value(service.getServiceName())
+                .name("description").value(service.getDescription())
+                .name("standardPrice").value(service.getStandardPrice())
+                .name("estimatedHours").value(service.getEstimatedHours())
+                .endObject();
+    }
+    
+    /**
+     * Get the entity type a resource path reads
+     * @return entity type, or null for an unknown resource
+     */
+    private static Entity entityOf(String pathInfo) {
+        if (pathInfo.startsWith("/customers")) {
+            return Entity.CUSTOMERS;
+        } else if (pathInfo.startsWith("/vehicles")) {
+            return Entity.VEHICLES;
+        } else if (pathInfo.startsWith("/jobcards")) {
+            return Entity.JOB_CARDS;
+        } else if (pathInfo.startsWith("/services")) {
+            return Entity.SERVICES;
+        }
+        return null;
+    }
+    
+    /**
+     * Parse the ID following a resource prefix, e.g. 42 in /customers/42
+     * @throws NumberFormatException if the rest of the path is not a number
+     */
+    private int parseId(String pathInfo, String prefix) {
+        return Integer.parseInt(pathInfo.substring(prefix.length()));
+    }
+    
+    /**
+     * Extract an optional ID filter from request parameters
+     * @return ID, or 0 if the parameter is absent
+     * @throws NumberFormatException if the parameter is not a number
+     */
+    private int extractId(HttpServletRequest request, String name) {
+        String value = extractText(request, name);
+        return value != null ? Integer.parseInt(value) : 0;
+    }
+    
+    /**
+     * Extract an optional text filter from request parameters
+     * @return trimmed value, or null if the parameter is absent or blank
+     */
+    private String extractText(HttpServletRequest request, String name) {
+        String value = request.getParameter(name);
+        return value != null && !value.trim().isEmpty() ? value.trim() : null;
+    }
+    
+    /**
+     * Extract the keyset pagination cursor from request parameters
+     * @param request HttpServletRequest containing the cursor parameter
+     * @return cursor token, or null for the first page
+     */
+    private String extractCursor(HttpServletRequest request) {
+        return extractText(request, "cursor");
+    }
+    
+    /**
+     * Extract the requested page size from request parameters
+     * @param request HttpServletRequest containing the size parameter
+     * @return requested page size, or 0 for the default
+     */
+    private int extractPageSize(HttpServletRequest request) {
+        try {
+            return Integer.parseInt(request.getParameter("size"));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.automobile.service.controller;
+
+import com.automobile.service.service.StockLedger;
+import com.automobile.service.util.DBConnectionUtil;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Configures shared resources when the application starts and releases them when it is stopped.
+ * The request executor's limits can be set with the context parameters request.threads,
+ * request.queueSize and request.routeLimit, e.g. in the container's context.xml.
+ * With request.mode=virtual requests run on virtual threads instead, limited by
+ * request.maxInFlight and request.routeLimit; it needs Java 21 or later.
+ */
+@WebListener
+public class ApplicationLifecycleListener implements ServletContextListener {
+    
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        ServletContext context = event.getServletContext();
+        RequestExecutor executor = null;
+        
+        String mode = context.getInitParameter("request.mode");
+        if ("virtual".equalsIgnoreCase(mode == null ? null : mode.trim())) {
+            int maxInFlight = intParameter(context, "request.maxInFlight", RequestExecutor.DEFAULT_MAX_IN_FLIGHT);
+            executor = RequestExecutor.virtual(maxInFlight,
+                    intParameter(context, "request.routeLimit", Math.max(1, maxInFlight / 2)));
+            if (executor == null) {
+                context.log("Virtual threads need Java 21 or later, using platform threads for requests");
+            }
+        } else if (mode != null && !"platform".equalsIgnoreCase(mode.trim())) {
+            context.log("Ignoring invalid context parameter request.mode=" + mode);
+        }
+        
+        if (executor == null) {
+            executor = new RequestExecutor(
+                    intParameter(context, "request.threads", RequestExecutor.DEFAULT_THREADS),
+                    intParameter(context, "request.queueSize", RequestExecutor.DEFAULT_QUEUE_SIZE),
+                    intParameter(context, "request.routeLimit", RequestExecutor.DEFAULT_ROUTE_LIMIT));
+        }
+        RequestExecutor.configureShared(executor);
+    }
+    
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        // Let accepted requests finish before their resources go away
+        RequestExecutor.shutdownShared();
+        
+        // Write pending part stock changes while the connection pool is still open
+        if (!StockLedger.getInstance().shutdown()) {
+            System.err.println("Error writing part stock levels on shutdown");
+        }
+        
+        DBConnectionUtil.closeConnection();
+    }
+    
+    private static int intParameter(ServletContext context, String name, int defaultValue) {
+        String value = context.getInitParameter(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            context.log("Ignoring invalid context parameter " + name + "=" + value);
+            return defaultValue;
+        }
+    }
+}
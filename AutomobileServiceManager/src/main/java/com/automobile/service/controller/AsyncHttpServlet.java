@@ -0,0 +1,157 @@
+package com.automobile.service.controller;
+
+import com.automobile.service.util.Metrics;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Base class for controllers whose requests do blocking database work. Each request is
+ * handed to the shared RequestExecutor as an asynchronous request, so the container's
+ * thread returns at once. When the request's route or the executor is full the request
+ * is answered with 503 and a Retry-After header instead of waiting for a thread.
+ * Subclasses implement doGet/doPost as usual and must be mapped with asyncSupported = true.
+ * Each request's processing time is recorded in Metrics under its route. Route names
+ * are built only from the path segments a subclass declares in getRouteSegments(), so
+ * the number of routes stays fixed whatever paths clients send.
+ */
+public abstract class AsyncHttpServlet extends HttpServlet {
+    
+    // Longer than the connection pool's acquire timeout, so a request waiting for a
+    // connection fails on its own before the container gives up on it
+    private static final long ASYNC_TIMEOUT_MILLIS = 120000;
+    
+    private static final String RETRY_AFTER_SECONDS = "2";
+    
+    // Route segment, and method, of requests outside the declared ones
+    private static final String OTHER = "other";
+    
+    private static final Set<String> HTTP_METHODS = new HashSet<>(Arrays.asList(
+            "GET", "POST", "PUT", "DELETE", "HEAD", "OPTIONS", "TRACE", "PATCH"));
+    
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        
+        String route = routeOf(request);
+        
+        if (!request.isAsyncSupported()) {
+            // Some filter in the chain does not support async processing
+            long start = System.nanoTime();
+            try {
+                super.service(request, response);
+            } finally {
+                Metrics.recordLatency(route, System.nanoTime() - start);
+            }
+            return;
+        }
+        
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(ASYNC_TIMEOUT_MILLIS);
+        asyncContext.addListener(new TimeoutListener(response));
+        
+        boolean accepted = RequestExecutor.getShared().submit(route, () -> Metrics.timed(route, () -> {
+            try {
+                super.service(request, response);
+            } catch (ServletException | IOException | RuntimeException e) {
+                log("Error processing " + request.getMethod() + " " + request.getRequestURI(), e);
+                Metrics.recordError();
+                sendErrorIfPossible(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            } finally {
+                complete(asyncContext);
+            }
+        }));
+        
+        if (!accepted) {
+            response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+            sendErrorIfPossible(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            complete(asyncContext);
+        }
+    }
+    
+    /**
+     * First path segments this controller handles, such as "/search" or "/view". Requests
+     * whose first segment is not listed count against a single "other" route.
+     * @return Set of segments, each starting with "/"
+     */
+    protected Set<String> getRouteSegments() {
+        return Collections.emptySet();
+    }
+    
+    /**
+     * Name of the route a request counts against: the controller, the HTTP method and
+     * the first segment of the path, e.g. "CustomerController GET /search"
+     * @param request HttpServletRequest being processed
+     * @return route name
+     */
+    protected String routeOf(HttpServletRequest request) {
+        String pathInfo = request.getPathInfo();
+        String segment = "/";
+        if (pathInfo != null && pathInfo.length() > 1) {
+            int end = pathInfo.indexOf('/', 1);
+            segment = end > 0 ? pathInfo.substring(0, end) : pathInfo;
+            if (!getRouteSegments().contains(segment)) {
+                segment = OTHER;
+            }
+        }
+        String method = HTTP_METHODS.contains(request.getMethod()) ? request.getMethod() : OTHER;
+        return getClass().getSimpleName() + " " + method + " " + segment;
+    }
+    
+    private static void sendErrorIfPossible(HttpServletResponse response, int status) {
+        try {
+            if (!response.isCommitted()) {
+                response.sendError(status);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client is gone or the request already timed out
+        }
+    }
+    
+    private static void complete(AsyncContext asyncContext) {
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException e) {
+            // Already completed by the timeout listener or a dispatch
+        }
+    }
+    
+    /**
+     * Answers requests that are still running when the async timeout expires
+     */
+    private static class TimeoutListener implements AsyncListener {
+        private final HttpServletResponse response;
+        
+        TimeoutListener(HttpServletResponse response) {
+            this.response = response;
+        }
+        
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            sendErrorIfPossible(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            complete(event.getAsyncContext());
+        }
+        
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+        
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+        
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
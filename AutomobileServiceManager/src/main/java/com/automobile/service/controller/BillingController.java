@@ -0,0 +1,151 @@
+package com.automobile.service.controller;
+
+import com.automobile.service.model.Billing;
+import com.automobile.service.service.BillingService;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * BillingController servlet for handling billing-related HTTP requests
+ */
+@WebServlet(value = "/billing/*", asyncSupported = true)
+public class BillingController extends AsyncHttpServlet {
+    
+    // First path segments handled below, used to name routes
+    private static final Set<String> ROUTE_SEGMENTS = new HashSet<>(Arrays.asList("/create", "/payment", "/view", "/end-of-day"));
+    
+    private BillingService billingService;
+    
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        billingService = new BillingService();
+    }
+    
+    @Override
+    protected Set<String> getRouteSegments() {
+        return ROUTE_SEGMENTS;
+    }
+    
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        
+        String pathInfo = request.getPathInfo();
+        
+        if (pathInfo != null && pathInfo.startsWith("/view/")) {
+            // Show bill details
+            try {
+                int billId = Integer.parseInt(pathInfo.substring(6));
+                Billing billing = billingService.getBillingById(billId);
+                
+                if (billing != null) {
+                    request.setAttribute("billing", billing);
+                    request.getRequestDispatcher("/WEB-INF/views/billing-view.jsp").forward(request, response);
+                } else {
+                    response.sendError(HttpServletResponse.SC_NOT_FOUND, "Bill not found");
+                }
+            } catch (NumberFormatException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid bill ID");
+            }
+            
+        } else if (pathInfo != null && pathInfo.startsWith("/create/")) {
+            // Show the computed bill for a job card before it is saved
+            try {
+                int jobCardId = Integer.parseInt(pathInfo.substring(8));
+                Billing existing = billingService.getBillingByJobCardId(jobCardId);
+                
+                if (existing != null) {
+                    response.sendRedirect(request.getContextPath() + "/billing/view/" + existing.getBillId());
+                    return;
+                }
+                
+                Billing billing = billingService.calculateBill(jobCardId, extractDiscount(request));
+                if (billing != null) {
+                    request.setAttribute("billing", billing);
+                    request.getRequestDispatcher("/WEB-INF/views/billing-create.jsp").forward(request, response);
+                } else {
+                    response.sendError(HttpServletResponse.SC_NOT_FOUND, "Job card not found");
+                }
+            } catch (NumberFormatException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid job card ID or discount");
+            }
+            
+        } else {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+    
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        
+        String pathInfo = request.getPathInfo();
+        
+        if (pathInfo == null || pathInfo.equals("/")) {
+            // Default POST not supported
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            
+        } else if (pathInfo.startsWith("/create/")) {
+            // Save the bill for a job card
+            try {
+                int jobCardId = Integer.parseInt(pathInfo.substring(8));
+                Billing billing = billingService.createBill(jobCardId, extractDiscount(request));
+                
+                if (billing != null) {
+                    response.sendRedirect(request.getContextPath() + "/billing/view/" + billing.getBillId());
+                } else {
+                    request.setAttribute("billing", billingService.calculateBill(jobCardId, extractDiscount(request)));
+                    request.setAttribute("errorMessage", "Failed to create bill. The job card must be completed and not billed yet.");
+                    request.getRequestDispatcher("/WEB-INF/views/billing-create.jsp").forward(request, response);
+                }
+            } catch (NumberFormatException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid job card ID or discount");
+            }
+            
+        } else if (pathInfo.startsWith("/payment/")) {
+            // Record a payment
+            try {
+                int billId = Integer.parseInt(pathInfo.substring(9));
+                String paymentStatus = request.getParameter("paymentStatus");
+                String paymentMethod = request.getParameter("paymentMethod");
+                
+                if (billingService.recordPayment(billId, paymentStatus, paymentMethod)) {
+                    response.sendRedirect(request.getContextPath() + "/billing/view/" + billId);
+                } else {
+                    response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Failed to record payment");
+                }
+            } catch (NumberFormatException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid bill ID");
+            }
+            
+        } else if (pathInfo.equals("/end-of-day")) {
+            // Bill every completed job card that has no bill yet
+            int billed = billingService.runEndOfDayBilling();
+            request.setAttribute("billedCount", billed);
+            request.getRequestDispatcher("/WEB-INF/views/billing-end-of-day.jsp").forward(request, response);
+            
+        } else {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+    
+    /**
+     * Extract the discount amount from request parameters
+     * @param request HttpServletRequest containing the discount parameter
+     * @return discount amount, or null if none was given
+     * @throws NumberFormatException if the discount is not a number
+     */
+    private BigDecimal extractDiscount(HttpServletRequest request) {
+        String discount = request.getParameter("discount");
+        return discount != null && !discount.trim().isEmpty() ? new BigDecimal(discount.trim()) : null;
+    }
+}
@@ -0,0 +1,85 @@
+package com.automobile.service.controller;
+
+import com.automobile.service.util.EntityVersions;
+import com.automobile.service.util.EntityVersions.Entity;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Conditional GET for responses built only from whole entity types, such as list pages.
+ * The response is tagged with the entity versions it is built from and marked no-cache,
+ * so browsers revalidate on every load and get 304 Not Modified while nothing changed.
+ */
+public class ConditionalGet {
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private ConditionalGet() {
+        // Private constructor to prevent instantiation
+    }
+    
+    /**
+     * Set the validators of a response and answer 304 if the client's copy is current.
+     * Call before querying, so the tag never claims newer data than the response holds.
+     * @param request HttpServletRequest with the client's validators
+     * @param response HttpServletResponse to set the validators on
+     * @param entities entity types the response is built from
+     * @return true if 304 was set and the response must not be built, false otherwise
+     */
+    public static boolean isNotModified(HttpServletRequest request, HttpServletResponse response,
+                                        Entity... entities) {
+        String etag = EntityVersions.etag(entities);
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", "no-cache");
+        
+        // Last-Modified has whole seconds, so it is only given once the second of the latest
+        // change is over; a later change then always falls after it
+        long lastModified = (EntityVersions.lastModified(entities) / 1000 + 1) * 1000;
+        boolean lastModifiedSent = System.currentTimeMillis() >= lastModified;
+        if (lastModifiedSent) {
+            response.setDateHeader("Last-Modified", lastModified);
+        }
+        
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            // Takes precedence over If-Modified-Since
+            if (matches(ifNoneMatch, etag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return true;
+            }
+            return false;
+        }
+        
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getDateHeader("If-Modified-Since");
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (lastModifiedSent && ifModifiedSince >= lastModified) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Weak comparison of an If-None-Match list with an entity tag
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeak(tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -1,22 +1,29 @@
 package com.automobile.service.controller;
 
 import com.automobile.service.model.Customer;
+import com.automobile.service.model.Page;
 import com.automobile.service.service.CustomerService;
+import com.automobile.service.util.EntityVersions.Entity;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
-import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * CustomerController servlet for handling customer-related HTTP requests
  */
-@WebServlet("/customers/*")
-public class CustomerController extends HttpServlet {
+@WebServlet(value = "/customers/*", asyncSupported = true)
+public class CustomerController extends AsyncHttpServlet {
+    
+    // First path segments handled below, used to name routes
+    private static final Set<String> ROUTE_SEGMENTS = new HashSet<>(Arrays.asList("/add", "/search", "/view", "/edit", "/delete"));
     
     private CustomerService customerService;
     
@@ -26,6 +33,11 @@ public class CustomerController extends HttpServlet {
         customerService = new CustomerService();
     }
     
+    @Override
+    protected Set<String> getRouteSegments() {
+        return ROUTE_SEGMENTS;
+    }
+    
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) 
             throws ServletException, IOException {
@@ -33,9 +45,21 @@ public class CustomerController extends HttpServlet {
         String pathInfo = request.getPathInfo();
         
         if (pathInfo == null || pathInfo.equals("/")) {
-            // List all customers
-            List<Customer> customers = customerService.getAllCustomers();
-            request.setAttribute("customers", customers);
+            // List customers one page at a time
+            if (ConditionalGet.isNotModified(request, response, Entity.CUSTOMERS)) {
+                return;
+            }
+            
+            Page<Customer> page;
+            try {
+                page = customerService.getCustomersPage(extractCursor(request), extractPageSize(request));
+            } catch (IllegalArgumentException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid page cursor");
+                return;
+            }
+            
+            request.setAttribute("customers", page.getItems());
+            request.setAttribute("nextCursor", page.getNextCursor());
             request.getRequestDispatcher("/WEB-INF/views/customers.jsp").forward(request, response);
             
         } else if (pathInfo.equals("/add")) {
@@ -170,4 +194,27 @@ public class CustomerController extends HttpServlet {
         
         return customer;
     }
+    
+    /**
+     * Extract the keyset pagination cursor from request parameters
+     * @param request HttpServletRequest containing the cursor parameter
+     * @return cursor token, or null for the first page
+     */
+    private String extractCursor(HttpServletRequest request) {
+        String cursor = request.getParameter("cursor");
+        return cursor != null && !cursor.trim().isEmpty() ? cursor.trim() : null;
+    }
+    
+    /**
+     * Extract the requested page size from request parameters
+     * @param request HttpServletRequest containing the size parameter
+     * @return requested page size, or 0 for the default
+     */
+    private int extractPageSize(HttpServletRequest request) {
+        try {
+            return Integer.parseInt(request.getParameter("size"));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
 }
@@ -0,0 +1,82 @@
+package com.automobile.service.controller;
+
+import com.automobile.service.model.ImportResult;
+import com.automobile.service.service.ImportService;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * ImportController servlet for bulk-importing customers and vehicles.
+ * CSV files are posted as the request body (Content-Type: text/csv).
+ */
+@WebServlet(value = "/import/*", asyncSupported = true)
+public class ImportController extends AsyncHttpServlet {
+    
+    // First path segments handled below, used to name routes
+    private static final Set<String> ROUTE_SEGMENTS = new HashSet<>(Arrays.asList("/customers", "/vehicles"));
+    
+    private ImportService importService;
+    
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        importService = new ImportService();
+    }
+    
+    @Override
+    protected Set<String> getRouteSegments() {
+        return ROUTE_SEGMENTS;
+    }
+    
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        
+        String pathInfo = request.getPathInfo();
+        
+        if (pathInfo == null || pathInfo.equals("/")) {
+            // Show import page
+            request.getRequestDispatcher("/WEB-INF/views/import.jsp").forward(request, response);
+        } else {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+    
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        
+        String pathInfo = request.getPathInfo();
+        
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding("UTF-8");
+        }
+        
+        ImportResult result;
+        try {
+            if ("/customers".equals(pathInfo)) {
+                // Import customers
+                result = importService.importCustomers(request.getReader());
+            } else if ("/vehicles".equals(pathInfo)) {
+                // Import vehicles
+                result = importService.importVehicles(request.getReader());
+            } else {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        
+        request.setAttribute("importResult", result);
+        request.getRequestDispatcher("/WEB-INF/views/import-result.jsp").forward(request, response);
+    }
+}
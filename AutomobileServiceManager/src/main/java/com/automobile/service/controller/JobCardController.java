@@ -1,30 +1,45 @@
 package com.automobile.service.controller;
 
+import com.automobile.service.model.Customer;
 import com.automobile.service.model.JobCard;
+import com.automobile.service.model.JobCardDetail;
+import com.automobile.service.model.Page;
 import com.automobile.service.model.Service;
 import com.automobile.service.model.Vehicle;
+import com.automobile.service.service.CustomerService;
 import com.automobile.service.service.JobCardService;
+import com.automobile.service.service.PartsInventoryService;
 import com.automobile.service.service.ServiceCatalogService;
 import com.automobile.service.service.VehicleService;
+import com.automobile.service.util.EntityVersions.Entity;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
-import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * JobCardController servlet for handling job card-related HTTP requests
  */
-@WebServlet("/jobcards/*")
-public class JobCardController extends HttpServlet {
+@WebServlet(value = "/jobcards/*", asyncSupported = true)
+public class JobCardController extends AsyncHttpServlet {
+    
+    // First path segments handled below, used to name routes
+    private static final Set<String> ROUTE_SEGMENTS = new HashSet<>(Arrays.asList("/add", "/counts", "/filter", "/view", "/edit", "/cancel", "/parts", "/complete"));
     
     private JobCardService jobCardService;
     private VehicleService vehicleService;
     private ServiceCatalogService serviceCatalogService;
+    private CustomerService customerService;
+    private PartsInventoryService partsInventoryService;
     
     @Override
     public void init() throws ServletException {
@@ -32,6 +47,13 @@ public class JobCardController extends HttpServlet {
         jobCardService = new JobCardService();
         vehicleService = new VehicleService();
         serviceCatalogService = new ServiceCatalogService();
+        customerService = new CustomerService();
+        partsInventoryService = new PartsInventoryService();
+    }
+    
+    @Override
+    protected Set<String> getRouteSegments() {
+        return ROUTE_SEGMENTS;
     }
     
     @Override
@@ -41,13 +63,52 @@ public class JobCardController extends HttpServlet {
         String pathInfo = request.getPathInfo();
         
         if (pathInfo == null || pathInfo.equals("/")) {
-            // List all job cards
-            List<JobCard> jobCards = jobCardService.getAllJobCards();
-            request.setAttribute("jobCards", jobCards);
+            // List job cards one page at a time, newest first, with their vehicles and owners
+            if (ConditionalGet.isNotModified(request, response, Entity.JOB_CARDS, Entity.VEHICLES, Entity.CUSTOMERS)) {
+                return;
+            }
+            
+            Page<JobCard> page;
+            try {
+                page = jobCardService.getJobCardsPage(null, extractCursor(request), extractPageSize(request));
+            } catch (IllegalArgumentException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid page cursor");
+                return;
+            }
+            
+            setJobCardListAttributes(request, page);
             request.getRequestDispatcher("/WEB-INF/views/jobcards.jsp").forward(request, response);
             
+        } else if (pathInfo.equals("/counts")) {
+            // Number of job cards in each status as JSON, for the dashboard
+            if (ConditionalGet.isNotModified(request, response, Entity.JOB_CARDS)) {
+                return;
+            }
+            
+            Map<String, Long> counts = jobCardService.getStatusCounts();
+            if (counts == null) {
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Job card counts are not available");
+                return;
+            }
+            
+            StringBuilder json = new StringBuilder("{");
+            long total = 0;
+            for (Map.Entry<String, Long> count : counts.entrySet()) {
+                json.append('"').append(count.getKey()).append("\":").append(count.getValue()).append(',');
+                total += count.getValue();
+            }
+            json.append("\"TOTAL\":").append(total).append('}');
+            
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write(json.toString());
+            
         } else if (pathInfo.equals("/add")) {
-            // Show add job card form
+            // Show add job card form, listing vehicles and catalog services
+            if (ConditionalGet.isNotModified(request, response, Entity.VEHICLES, Entity.SERVICES)) {
+                return;
+            }
+            
             request.setAttribute("vehicles", vehicleService.getAllVehicles());
             request.setAttribute("services", serviceCatalogService.getAllServices());
             request.getRequestDispatcher("/WEB-INF/views/jobcards-add.jsp").forward(request, response);
@@ -56,13 +117,11 @@ public class JobCardController extends HttpServlet {
             // Show edit job card form
             try {
                 int jobCardId = Integer.parseInt(pathInfo.substring(6));
-                JobCard jobCard = jobCardService.getJobCardById(jobCardId);
+                JobCardDetail detail = jobCardService.getJobCardDetail(jobCardId);
                 
-                if (jobCard != null) {
-                    request.setAttribute("jobCard", jobCard);
-                    request.setAttribute("vehicle", vehicleService.getVehicleById(jobCard.getVehicleId()));
+                if (detail != null) {
+                    setJobCardDetailAttributes(request, detail);
                     request.setAttribute("services", serviceCatalogService.getAllServices());
-                    request.setAttribute("jobServices", jobCardService.getServicesForJobCard(jobCardId));
                     request.getRequestDispatcher("/WEB-INF/views/jobcards-edit.jsp").forward(request, response);
                 } else {
                     response.sendError(HttpServletResponse.SC_NOT_FOUND, "Job card not found");
@@ -75,12 +134,10 @@ public class JobCardController extends HttpServlet {
             // Show job card details
             try {
                 int jobCardId = Integer.parseInt(pathInfo.substring(6));
-                JobCard jobCard = jobCardService.getJobCardById(jobCardId);
+                JobCardDetail detail = jobCardService.getJobCardDetail(jobCardId);
                 
-                if (jobCard != null) {
-                    request.setAttribute("jobCard", jobCard);
-                    request.setAttribute("vehicle", vehicleService.getVehicleById(jobCard.getVehicleId()));
-                    request.setAttribute("jobServices", jobCardService.getServicesForJobCard(jobCardId));
+                if (detail != null) {
+                    setJobCardDetailAttributes(request, detail);
                     request.getRequestDispatcher("/WEB-INF/views/jobcards-view.jsp").forward(request, response);
                 } else {
                     response.sendError(HttpServletResponse.SC_NOT_FOUND, "Job card not found");
@@ -94,8 +151,19 @@ public class JobCardController extends HttpServlet {
             String status = request.getParameter("status");
             
             if (status != null && !status.equals("all")) {
-                List<JobCard> jobCards = jobCardService.getJobCardsByStatus(status);
-                request.setAttribute("jobCards", jobCards);
+                if (ConditionalGet.isNotModified(request, response, Entity.JOB_CARDS, Entity.VEHICLES, Entity.CUSTOMERS)) {
+                    return;
+                }
+                
+                Page<JobCard> page;
+                try {
+                    page = jobCardService.getJobCardsPage(status, extractCursor(request), extractPageSize(request));
+                } catch (IllegalArgumentException e) {
+                    response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+                    return;
+                }
+                
+                setJobCardListAttributes(request, page);
                 request.setAttribute("statusFilter", status);
                 request.getRequestDispatcher("/WEB-INF/views/jobcards.jsp").forward(request, response);
             } else {
@@ -121,28 +189,35 @@ public class JobCardController extends HttpServlet {
             // Add new job card
             JobCard jobCard = extractJobCardFromRequest(request);
             
-            int jobCardId = jobCardService.addJobCard(jobCard);
-            if (jobCardId > 0) {
-                // Add selected services to the job card
-                String[] serviceIds = request.getParameterValues("selectedServices");
-                if (serviceIds != null) {
-                    for (String serviceIdStr : serviceIds) {
-                        try {
-                            int serviceId = Integer.parseInt(serviceIdStr);
-                            jobCardService.addServiceToJobCard(jobCardId, serviceId);
-                        } catch (NumberFormatException e) {
-                            // Skip invalid service IDs
-                        }
+            List<Integer> selectedServiceIds = new ArrayList<>();
+            String[] serviceIds = request.getParameterValues("selectedServices");
+            if (serviceIds != null) {
+                for (String serviceIdStr : serviceIds) {
+                    try {
+                        selectedServiceIds.add(Integer.parseInt(serviceIdStr));
+                    } catch (NumberFormatException e) {
+                        // Skip invalid service IDs
                     }
                 }
-                
-                response.sendRedirect(request.getContextPath() + "/jobcards/view/" + jobCardId);
+            }
+            
+            // Services can be removed from the catalog while the form is open
+            List<Integer> unknownServiceIds = jobCardService.getUnknownServiceIds(selectedServiceIds);
+            if (!unknownServiceIds.isEmpty()) {
+                forwardToAddForm(request, response, jobCard, "These services are no longer in the catalog: "
+                        + unknownServiceIds + ". Please review the selected services and try again.");
+                return;
+            }
+            
+            int jobCardId = jobCardService.addJobCard(jobCard);
+            if (jobCardId <= 0) {
+                forwardToAddForm(request, response, jobCard, "Failed to create job card. Please check the form and try again.");
+            } else if (!selectedServiceIds.isEmpty() && !jobCardService.addServicesToJobCard(jobCardId, selectedServiceIds)) {
+                // Don't leave an open job card without the services it was created for
+                jobCardService.updateJobCardStatus(jobCardId, "CANCELLED");
+                forwardToAddForm(request, response, jobCard, "Failed to add the selected services to the job card. Please try again.");
             } else {
-                request.setAttribute("jobCard", jobCard);
-                request.setAttribute("vehicles", vehicleService.getAllVehicles());
-                request.setAttribute("services", serviceCatalogService.getAllServices());
-                request.setAttribute("errorMessage", "Failed to create job card. Please check the form and try again.");
-                request.getRequestDispatcher("/WEB-INF/views/jobcards-add.jsp").forward(request, response);
+                response.sendRedirect(request.getContextPath() + "/jobcards/view/" + jobCardId);
             }
             
         } else if (pathInfo.startsWith("/edit/")) {
@@ -186,6 +261,35 @@ public class JobCardController extends HttpServlet {
                 response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid job card ID");
             }
             
+        } else if (pathInfo.startsWith("/parts/")) {
+            // Use a part on one of the job card's services
+            try {
+                int jobCardId = Integer.parseInt(pathInfo.substring(7));
+                int jobServiceId = Integer.parseInt(request.getParameter("jobServiceId"));
+                int partId = Integer.parseInt(request.getParameter("partId"));
+                int quantity = Integer.parseInt(request.getParameter("quantity"));
+                
+                // The job service comes from the form, so check it is on this job card
+                JobCard jobCard = jobCardService.getJobCardForJobService(jobServiceId);
+                if (jobCard == null || jobCard.getJobCardId() != jobCardId) {
+                    response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Service is not on this job card");
+                    return;
+                }
+                // Parts used after completion would never be billed
+                if (!jobCardService.isOpenForWork(jobCard)) {
+                    response.sendError(HttpServletResponse.SC_CONFLICT, "Parts can only be used on open or in-progress job cards");
+                    return;
+                }
+                
+                if (partsInventoryService.usePart(jobServiceId, partId, quantity) != null) {
+                    response.sendRedirect(request.getContextPath() + "/jobcards/view/" + jobCardId);
+                } else {
+                    response.sendError(HttpServletResponse.SC_CONFLICT, "Part not found or not enough in stock");
+                }
+            } catch (NumberFormatException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid job card, service, part or quantity");
+            }
+            
         } else if (pathInfo.startsWith("/complete/")) {
             // Mark job card as completed
             try {
@@ -211,6 +315,60 @@ public class JobCardController extends HttpServlet {
         }
     }
     
+    /**
+     * Show the add form again with the submitted job card and an error message
+     * @param request HttpServletRequest to populate
+     * @param response HttpServletResponse
+     * @param jobCard JobCard as submitted
+     * @param errorMessage message explaining what went wrong
+     */
+    private void forwardToAddForm(HttpServletRequest request, HttpServletResponse response, JobCard jobCard,
+                                  String errorMessage) throws ServletException, IOException {
+        request.setAttribute("jobCard", jobCard);
+        request.setAttribute("vehicles", vehicleService.getAllVehicles());
+        request.setAttribute("services", serviceCatalogService.getAllServices());
+        request.setAttribute("errorMessage", errorMessage);
+        request.getRequestDispatcher("/WEB-INF/views/jobcards-add.jsp").forward(request, response);
+    }
+    
+    /**
+     * Expose a page of job cards to the view, with the vehicles and customers shown on
+     * each row loaded by two batch queries instead of one lookup per row
+     * @param request HttpServletRequest to populate
+     * @param page Page of job cards
+     */
+    private void setJobCardListAttributes(HttpServletRequest request, Page<JobCard> page) {
+        Set<Integer> vehicleIds = new HashSet<>();
+        for (JobCard jobCard : page.getItems()) {
+            vehicleIds.add(jobCard.getVehicleId());
+        }
+        Map<Integer, Vehicle> vehiclesById = vehicleService.getVehiclesByIds(vehicleIds);
+        
+        Set<Integer> customerIds = new HashSet<>();
+        for (Vehicle vehicle : vehiclesById.values()) {
+            customerIds.add(vehicle.getCustomerId());
+        }
+        Map<Integer, Customer> customersById = customerService.getCustomersByIds(customerIds);
+        
+        request.setAttribute("jobCards", page.getItems());
+        request.setAttribute("nextCursor", page.getNextCursor());
+        request.setAttribute("vehiclesById", vehiclesById);
+        request.setAttribute("customersById", customersById);
+    }
+    
+    /**
+     * Expose a loaded job card detail to the view as separate request attributes
+     * @param request HttpServletRequest to populate
+     * @param detail JobCardDetail loaded in one round trip, parts used included
+     */
+    private void setJobCardDetailAttributes(HttpServletRequest request, JobCardDetail detail) {
+        request.setAttribute("jobCard", detail.getJobCard());
+        request.setAttribute("vehicle", detail.getVehicle());
+        request.setAttribute("customer", detail.getCustomer());
+        request.setAttribute("jobServices", detail.getJobServices());
+        request.setAttribute("partUsages", detail.getPartUsages());
+    }
+    
     /**
      * Extract job card data from request parameters
      * @param request HttpServletRequest containing form data
@@ -230,4 +388,27 @@ public class JobCardController extends HttpServlet {
         
         return jobCard;
     }
+    
+    /**
+     * Extract the keyset pagination cursor from request parameters
+     * @param request HttpServletRequest containing the cursor parameter
+     * @return cursor token, or null for the first page
+     */
+    private String extractCursor(HttpServletRequest request) {
+        String cursor = request.getParameter("cursor");
+        return cursor != null && !cursor.trim().isEmpty() ? cursor.trim() : null;
+    }
+    
+    /**
+     * Extract the requested page size from request parameters
+     * @param request HttpServletRequest containing the size parameter
+     * @return requested page size, or 0 for the default
+     */
+    private int extractPageSize(HttpServletRequest request) {
+        try {
+            return Integer.parseInt(request.getParameter("size"));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
 }
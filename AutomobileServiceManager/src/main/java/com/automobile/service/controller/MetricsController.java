@@ -0,0 +1,178 @@
+package com.automobile.service.controller;
+
+import com.automobile.service.util.DBConnectionUtil;
+import com.automobile.service.util.Metrics;
+import com.automobile.service.util.Metrics.LatencyHistogram;
+import com.automobile.service.util.Metrics.Stats;
+import com.automobile.service.util.SqlTracer;
+import com.automobile.service.util.SqlTracer.SqlStats;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+
+/**
+ * MetricsController servlet exposing the per-operation statistics in Metrics in the
+ * Prometheus text format. Operations are DAO and service methods, named like
+ * "CustomerDAO.searchCustomersByName", and controller routes. Per-SQL totals from the
+ * connection pool's SqlTracer follow, labelled with the SQL text.
+ * It reads only in-memory counters, so it runs on the container's thread and is
+ * answered even when the request executor is full.
+ */
+@WebServlet("/metrics")
+public class MetricsController extends HttpServlet {
+    
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    
+    // Histogram bucket bounds in microseconds, 64 us to about 16.8 s; powers of two,
+    // so the counts are exact
+    private static final int MIN_BUCKET_EXPONENT = 6;
+    private static final int MAX_BUCKET_EXPONENT = 24;
+    
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        
+        response.setContentType(CONTENT_TYPE);
+        response.setHeader("Cache-Control", "no-store");
+        
+        Map<String, Stats> snapshot = Metrics.snapshot();
+        PrintWriter out = response.getWriter();
+        
+        out.println("# HELP autoservice_operation_duration_seconds Time taken by each operation.");
+        out.println("# TYPE autoservice_operation_duration_seconds histogram");
+        for (Map.Entry<String, Stats> entry : snapshot.entrySet()) {
+            writeHistogram(out, label(entry.getKey()), entry.getValue());
+        }
+        
+        out.println("# HELP autoservice_operation_duration_quantile_seconds Upper bound of the bucket holding each quantile of operation time.");
+        out.println("# TYPE autoservice_operation_duration_quantile_seconds gauge");
+        for (Map.Entry<String, Stats> entry : snapshot.entrySet()) {
+            LatencyHistogram latency = entry.getValue().getLatency();
+            for (double quantile : QUANTILES) {
+                out.println("autoservice_operation_duration_quantile_seconds{" + label(entry.getKey())
+                        + ",quantile=\"" + quantile + "\"} " + seconds(latency.valueAtQuantile(quantile)));
+            }
+        }
+        
+        out.println("# HELP autoservice_operation_errors_total Operation calls that failed.");
+        out.println("# TYPE autoservice_operation_errors_total counter");
+        for (Map.Entry<String, Stats> entry : snapshot.entrySet()) {
+            out.println("autoservice_operation_errors_total{" + label(entry.getKey()) + "} "
+                    + entry.getValue().getErrors());
+        }
+        
+        out.println("# HELP autoservice_operation_rows_total Rows returned by each operation.");
+        out.println("# TYPE autoservice_operation_rows_total counter");
+        for (Map.Entry<String, Stats> entry : snapshot.entrySet()) {
+            out.println("autoservice_operation_rows_total{" + label(entry.getKey()) + "} "
+                    + entry.getValue().getRows());
+        }
+        
+        SqlTracer tracer = DBConnectionUtil.getSqlTracer();
+        if (tracer != null) {
+            writeSqlStats(out, tracer);
+        }
+        
+        out.flush();
+    }
+    
+    /**
+     * Write the cumulative buckets, sum and count of one operation
+     */
+    private void writeHistogram(PrintWriter out, String label, Stats stats) {
+        LatencyHistogram latency = stats.getLatency();
+        // Calls recorded while this runs may reach the buckets but not the count;
+        // buckets are capped at the count so they never exceed +Inf
+        long count = stats.getCalls();
+        long totalNanos = stats.getTotalNanos();
+        
+        for (int exponent = MIN_BUCKET_EXPONENT; exponent <= MAX_BUCKET_EXPONENT; exponent++) {
+            long bound = 1L << exponent;
+            out.println("autoservice_operation_duration_seconds_bucket{" + label + ",le=\"" + seconds(bound) + "\"} "
+                    + Math.min(count, latency.countBelow(bound)));
+        }
+        out.println("autoservice_operation_duration_seconds_bucket{" + label + ",le=\"+Inf\"} " + count);
+        out.println("autoservice_operation_duration_seconds_sum{" + label + "} " + totalNanos / 1e9);
+        out.println("autoservice_operation_duration_seconds_count{" + label + "} " + count);
+    }
+    
+    /**
+     * Write the totals of each SQL text traced by the connection pool
+     */
+    private void writeSqlStats(PrintWriter out, SqlTracer tracer) {
+        Map<String, SqlStats> snapshot = tracer.snapshot();
+        
+        out.println("# HELP autoservice_sql_executions_total Executions of each SQL statement.");
+        out.println("# TYPE autoservice_sql_executions_total counter");
+        for (Map.Entry<String, SqlStats> entry : snapshot.entrySet()) {
+            out.println("autoservice_sql_executions_total{" + sqlLabel(entry.getKey()) + "} "
+                    + entry.getValue().getExecutions());
+        }
+        
+        out.println("# HELP autoservice_sql_errors_total Executions of each SQL statement that failed.");
+        out.println("# TYPE autoservice_sql_errors_total counter");
+        for (Map.Entry<String, SqlStats> entry : snapshot.entrySet()) {
+            out.println("autoservice_sql_errors_total{" + sqlLabel(entry.getKey()) + "} "
+                    + entry.getValue().getErrors());
+        }
+        
+        out.println("# HELP autoservice_sql_rows_total Rows fetched or affected by each SQL statement.");
+        out.println("# TYPE autoservice_sql_rows_total counter");
+        for (Map.Entry<String, SqlStats> entry : snapshot.entrySet()) {
+            out.println("autoservice_sql_rows_total{" + sqlLabel(entry.getKey()) + "} "
+                    + entry.getValue().getRows());
+        }
+        
+        out.println("# HELP autoservice_sql_duration_seconds_total Time spent executing each SQL statement and fetching its rows.");
+        out.println("# TYPE autoservice_sql_duration_seconds_total counter");
+        for (Map.Entry<String, SqlStats> entry : snapshot.entrySet()) {
+            out.println("autoservice_sql_duration_seconds_total{" + sqlLabel(entry.getKey()) + "} "
+                    + entry.getValue().getTotalNanos() / 1e9);
+        }
+        
+        out.println("# HELP autoservice_sql_duration_max_seconds Longest execution of each SQL statement.");
+        out.println("# TYPE autoservice_sql_duration_max_seconds gauge");
+        for (Map.Entry<String, SqlStats> entry : snapshot.entrySet()) {
+            out.println("autoservice_sql_duration_max_seconds{" + sqlLabel(entry.getKey()) + "} "
+                    + entry.getValue().getMaxNanos() / 1e9);
+        }
+        
+        out.println("# HELP autoservice_sql_slow_queries_total Executions over the slow-query threshold.");
+        out.println("# TYPE autoservice_sql_slow_queries_total counter");
+        out.println("autoservice_sql_slow_queries_total " + tracer.getSlowQueries());
+        
+        out.println("# HELP autoservice_sql_slow_query_log_dropped_total Slow queries left out of the log because it fell behind.");
+        out.println("# TYPE autoservice_sql_slow_query_log_dropped_total counter");
+        out.println("autoservice_sql_slow_query_log_dropped_total " + tracer.getSlowQueryLogDropped());
+    }
+    
+    /**
+     * Build the operation label, escaping the name as the text format requires
+     */
+    private static String label(String operation) {
+        return "operation=\"" + escape(operation) + "\"";
+    }
+    
+    /**
+     * Build the SQL label, with runs of whitespace collapsed to one space
+     */
+    private static String sqlLabel(String sql) {
+        return "sql=\"" + escape(sql.replaceAll("\\s+", " ").trim()) + "\"";
+    }
+    
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+    
+    private static String seconds(long micros) {
+        return Double.toString(micros / 1e6);
+    }
+}
@@ -0,0 +1,122 @@
+package com.automobile.service.controller;
+
+import com.automobile.service.service.RollupService;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * ReportController servlet for handling job and revenue report requests
+ */
+@WebServlet(value = "/reports/*", asyncSupported = true)
+public class ReportController extends AsyncHttpServlet {
+    
+    // First path segments handled below, used to name routes
+    private static final Set<String> ROUTE_SEGMENTS = new HashSet<>(Arrays.asList("/daily", "/monthly", "/yearly"));
+    
+    // Longest range a daily report may cover
+    private static final int MAX_DAILY_REPORT_DAYS = 366;
+    
+    // Years whose reports, up to the first day of the following year, fit MySQL's DATE range
+    private static final int MIN_REPORT_YEAR = 1000;
+    private static final int MAX_REPORT_YEAR = 9998;
+    
+    private RollupService rollupService;
+    
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        rollupService = new RollupService();
+    }
+    
+    @Override
+    protected Set<String> getRouteSegments() {
+        return ROUTE_SEGMENTS;
+    }
+    
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        
+        String pathInfo = request.getPathInfo();
+        
+        if (pathInfo == null || pathInfo.equals("/") || pathInfo.equals("/monthly")) {
+            // Totals per month of one year, the current year by default
+            try {
+                String yearParam = request.getParameter("year");
+                int year = yearParam != null ? Integer.parseInt(yearParam) : LocalDate.now().getYear();
+                
+                if (!isReportYear(year)) {
+                    response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid year");
+                    return;
+                }
+                
+                request.setAttribute("year", year);
+                request.setAttribute("rollups", rollupService.getMonthlyReport(year));
+                request.getRequestDispatcher("/WEB-INF/views/reports-monthly.jsp").forward(request, response);
+            } catch (NumberFormatException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid year");
+            }
+            
+        } else if (pathInfo.equals("/yearly")) {
+            // Totals per year, the last ten years by default
+            try {
+                int toYear = request.getParameter("toYear") != null
+                        ? Integer.parseInt(request.getParameter("toYear")) : LocalDate.now().getYear();
+                int fromYear = request.getParameter("fromYear") != null
+                        ? Integer.parseInt(request.getParameter("fromYear")) : toYear - 9;
+                
+                if (!isReportYear(fromYear) || !isReportYear(toYear) || fromYear > toYear) {
+                    response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid year range");
+                    return;
+                }
+                
+                request.setAttribute("rollups", rollupService.getYearlyReport(fromYear, toYear));
+                request.getRequestDispatcher("/WEB-INF/views/reports-yearly.jsp").forward(request, response);
+            } catch (NumberFormatException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid year");
+            }
+            
+        } else if (pathInfo.equals("/daily")) {
+            // Totals per day of a date range, the last 30 days by default
+            try {
+                LocalDate to = request.getParameter("to") != null
+                        ? LocalDate.parse(request.getParameter("to")) : LocalDate.now();
+                LocalDate from = request.getParameter("from") != null
+                        ? LocalDate.parse(request.getParameter("from")) : to.minusDays(29);
+                
+                if (from.isAfter(to) || from.plusDays(MAX_DAILY_REPORT_DAYS).isBefore(to)) {
+                    response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid date range");
+                    return;
+                }
+                
+                request.setAttribute("from", from);
+                request.setAttribute("to", to);
+                request.setAttribute("rollups", rollupService.getDailyReport(from, to));
+                request.getRequestDispatcher("/WEB-INF/views/reports-daily.jsp").forward(request, response);
+            } catch (DateTimeParseException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid date");
+            }
+            
+        } else {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+    
+    /**
+     * Check that a year can be reported on
+     * @param year calendar year
+     * @return true if the year is within the supported range
+     */
+    private static boolean isReportYear(int year) {
+        return year >= MIN_REPORT_YEAR && year <= MAX_REPORT_YEAR;
+    }
+}
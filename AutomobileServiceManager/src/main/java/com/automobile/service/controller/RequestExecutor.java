@@ -0,0 +1,239 @@
+package com.automobile.service.controller;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded executor that runs controller work off the container's request threads.
+ * In platform mode a fixed number of worker threads takes tasks from a bounded queue.
+ * In virtual mode, available on Java 21 and later, every task gets its own virtual thread
+ * and only the number of tasks in flight is bounded; a task blocked on a query or on the
+ * connection pool's permits parks its virtual thread instead of holding a platform thread.
+ * In both modes each route may hold only a limited number of running and queued tasks,
+ * so a burst of slow requests on one route is refused instead of starving every other route.
+ */
+public class RequestExecutor {
+    
+    /**
+     * How tasks are given threads
+     */
+    public enum Mode {
+        PLATFORM, VIRTUAL
+    }
+    
+    public static final int DEFAULT_THREADS = 32;
+    public static final int DEFAULT_QUEUE_SIZE = 200;
+    // At most half the workers, so one slow route always leaves threads for the others
+    public static final int DEFAULT_ROUTE_LIMIT = 16;
+    
+    // Virtual threads are cheap, so the bound is on memory held by waiting requests;
+    // database work is still limited to the connection pool's size by its permits
+    public static final int DEFAULT_MAX_IN_FLIGHT = 10000;
+    
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    
+    // A lock rather than synchronized, so a virtual thread waiting for it does not pin its carrier
+    private static final ReentrantLock SHARED_LOCK = new ReentrantLock();
+    private static volatile RequestExecutor shared;
+    
+    private final ExecutorService executor;
+    private final Mode mode;
+    // Bounds tasks in virtual mode, where the executor itself accepts any number; null otherwise
+    private final Semaphore inFlight;
+    private final ConcurrentHashMap<String, Semaphore> routePermits = new ConcurrentHashMap<>();
+    private final int routeLimit;
+    
+    /**
+     * Create a platform-thread executor
+     * @param threads number of worker threads
+     * @param queueSize number of tasks that may wait for a worker
+     * @param routeLimit number of tasks of one route that may be running or waiting
+     */
+    public RequestExecutor(int threads, int queueSize, int routeLimit) {
+        this(new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), new WorkerThreadFactory()), Mode.PLATFORM, null, routeLimit);
+    }
+    
+    private RequestExecutor(ExecutorService executor, Mode mode, Semaphore inFlight, int routeLimit) {
+        this.executor = executor;
+        this.mode = mode;
+        this.inFlight = inFlight;
+        this.routeLimit = routeLimit;
+    }
+    
+    /**
+     * Create an executor that runs each task on its own virtual thread
+     * @param maxInFlight number of tasks that may be running at once
+     * @param routeLimit number of tasks of one route that may be running at once
+     * @return RequestExecutor instance, or null if this JVM has no virtual threads
+     */
+    public static RequestExecutor virtual(int maxInFlight, int routeLimit) {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        if (executor == null) {
+            return null;
+        }
+        return new RequestExecutor(executor, Mode.VIRTUAL, new Semaphore(maxInFlight), routeLimit);
+    }
+    
+    /**
+     * Check whether this JVM supports virtual threads
+     * @return true on Java 21 and later
+     */
+    public static boolean isVirtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Get the executor shared by all controllers, creating it with default limits if
+     * it was not configured
+     * @return RequestExecutor instance
+     */
+    public static RequestExecutor getShared() {
+        RequestExecutor current = shared;
+        if (current == null) {
+            SHARED_LOCK.lock();
+            try {
+                if (shared == null) {
+                    shared = new RequestExecutor(DEFAULT_THREADS, DEFAULT_QUEUE_SIZE, DEFAULT_ROUTE_LIMIT);
+                }
+                current = shared;
+            } finally {
+                SHARED_LOCK.unlock();
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * Replace the shared executor. Tasks already accepted by the previous one still run.
+     * @param executor executor to share
+     */
+    public static void configureShared(RequestExecutor executor) {
+        RequestExecutor previous;
+        SHARED_LOCK.lock();
+        try {
+            previous = shared;
+            shared = executor;
+        } finally {
+            SHARED_LOCK.unlock();
+        }
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+    
+    /**
+     * Stop the shared executor, waiting a limited time for the tasks it has accepted
+     */
+    public static void shutdownShared() {
+        RequestExecutor previous;
+        SHARED_LOCK.lock();
+        try {
+            previous = shared;
+            shared = null;
+        } finally {
+            SHARED_LOCK.unlock();
+        }
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+    
+    /**
+     * Get how this executor gives tasks threads
+     * @return PLATFORM or VIRTUAL
+     */
+    public Mode getMode() {
+        return mode;
+    }
+    
+    /**
+     * Run a task for a route unless the route or the executor is full
+     * @param route name of the route the task belongs to
+     * @param task task to run
+     * @return true if the task was accepted, false if it was refused
+     */
+    public boolean submit(String route, Runnable task) {
+        Semaphore permits = routePermits.computeIfAbsent(route, key -> new Semaphore(routeLimit));
+        if (!permits.tryAcquire()) {
+            return false;
+        }
+        if (inFlight != null && !inFlight.tryAcquire()) {
+            permits.release();
+            return false;
+        }
+        
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    release(permits);
+                }
+            });
+            return true;
+            
+        } catch (RejectedExecutionException e) {
+            release(permits);
+            return false;
+        }
+    }
+    
+    /**
+     * Stop accepting tasks and wait a limited time for accepted tasks to finish
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void release(Semaphore permits) {
+        permits.release();
+        if (inFlight != null) {
+            inFlight.release();
+        }
+    }
+    
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor is looked up at run time, so the
+     * application still builds for and runs on Java 8
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+    
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "request-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
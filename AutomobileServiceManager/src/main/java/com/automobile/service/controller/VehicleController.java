@@ -1,23 +1,32 @@
 package com.automobile.service.controller;
 
+import com.automobile.service.model.Customer;
+import com.automobile.service.model.Page;
 import com.automobile.service.model.Vehicle;
 import com.automobile.service.service.VehicleService;
 import com.automobile.service.service.CustomerService;
+import com.automobile.service.util.EntityVersions.Entity;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
-import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * VehicleController servlet for handling vehicle-related HTTP requests
  */
-@WebServlet("/vehicles/*")
-public class VehicleController extends HttpServlet {
+@WebServlet(value = "/vehicles/*", asyncSupported = true)
+public class VehicleController extends AsyncHttpServlet {
+    
+    // First path segments handled below, used to name routes
+    private static final Set<String> ROUTE_SEGMENTS = new HashSet<>(Arrays.asList("/add", "/customer", "/view", "/edit", "/delete"));
     
     private VehicleService vehicleService;
     private CustomerService customerService;
@@ -29,6 +38,11 @@ public class VehicleController extends HttpServlet {
         customerService = new CustomerService();
     }
     
+    @Override
+    protected Set<String> getRouteSegments() {
+        return ROUTE_SEGMENTS;
+    }
+    
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) 
             throws ServletException, IOException {
@@ -36,9 +50,29 @@ public class VehicleController extends HttpServlet {
         String pathInfo = request.getPathInfo();
         
         if (pathInfo == null || pathInfo.equals("/")) {
-            // List all vehicles
-            List<Vehicle> vehicles = vehicleService.getAllVehicles();
-            request.setAttribute("vehicles", vehicles);
+            // List vehicles one page at a time, with their owners
+            if (ConditionalGet.isNotModified(request, response, Entity.VEHICLES, Entity.CUSTOMERS)) {
+                return;
+            }
+            
+            Page<Vehicle> page;
+            try {
+                page = vehicleService.getVehiclesPage(extractCursor(request), extractPageSize(request));
+            } catch (IllegalArgumentException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid page cursor");
+                return;
+            }
+            
+            // Load the owners shown on each row with one batch query
+            Set<Integer> customerIds = new HashSet<>();
+            for (Vehicle vehicle : page.getItems()) {
+                customerIds.add(vehicle.getCustomerId());
+            }
+            Map<Integer, Customer> customersById = customerService.getCustomersByIds(customerIds);
+            
+            request.setAttribute("vehicles", page.getItems());
+            request.setAttribute("nextCursor", page.getNextCursor());
+            request.setAttribute("customersById", customersById);
             request.getRequestDispatcher("/WEB-INF/views/vehicles.jsp").forward(request, response);
             
         } else if (pathInfo.equals("/add")) {
@@ -193,4 +227,27 @@ public class VehicleController extends HttpServlet {
         
         return vehicle;
     }
+    
+    /**
+     * Extract the keyset pagination cursor from request parameters
+     * @param request HttpServletRequest containing the cursor parameter
+     * @return cursor token, or null for the first page
+     */
+    private String extractCursor(HttpServletRequest request) {
+        String cursor = request.getParameter("cursor");
+        return cursor != null && !cursor.trim().isEmpty() ? cursor.trim() : null;
+    }
+    
+    /**
+     * Extract the requested page size from request parameters
+     * @param request HttpServletRequest containing the size parameter
+     * @return requested page size, or 0 for the default
+     */
+    private int extractPageSize(HttpServletRequest request) {
+        try {
+            return Integer.parseInt(request.getParameter("size"));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
 }
@@ -0,0 +1,325 @@
+package com.automobile.service.dao;
+
+import com.automobile.service.model.Billing;
+import com.automobile.service.util.DBConnectionUtil;
+import com.automobile.service.util.EntityVersions;
+import com.automobile.service.util.EntityVersions.Entity;
+import com.automobile.service.util.JdbcBatches;
+import com.automobile.service.util.Metrics;
+import com.automobile.service.util.SqlUtil;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BillingDAO class for handling database operations related to Billing
+ */
+public class BillingDAO {
+    
+    // Service and parts totals per job card. Correlated sums keep parts rows from
+    // multiplying service prices, as a plain join of both tables would.
+    private static final String TOTALS_SQL =
+            "SELECT jc.job_card_id, " +
+            "COALESCE((SELECT SUM(js.actual_price) FROM job_services js " +
+            "          WHERE js.job_card_id = jc.job_card_id), 0) AS total_service_cost, " +
+            "COALESCE((SELECT SUM(pu.quantity * pu.price_per_unit) FROM parts_used pu " +
+            "          JOIN job_services js ON pu.job_service_id = js.job_service_id " +
+            "          WHERE js.job_card_id = jc.job_card_id), 0) AS total_parts_cost " +
+            "FROM job_cards jc ";
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO billing (job_card_id, total_service_cost, total_parts_cost, tax_amount, " +
+            "discount_amount, grand_total, payment_status, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    /**
+     * Add a new bill to the database
+     * @param billing Billing object to add
+     * @return true if successful, false otherwise
+     */
+    public boolean addBilling(Billing billing) {
+        return Metrics.timed("BillingDAO.addBilling", () -> {
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                bindBilling(stmt, billing);
+                
+                int rowsAffected = stmt.executeUpdate();
+                EntityVersions.bump(Entity.BILLING);
+                
+                if (rowsAffected > 0) {
+                    // Get the generated bill ID
+                    ResultSet rs = stmt.getGeneratedKeys();
+                    if (rs.next()) {
+                        billing.setBillId(rs.getInt(1));
+                    }
+                    return true;
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error adding bill", e);
+            }
+            
+            return false;
+        });
+    }
+    
+    /**
+     * Add several bills in one batched transaction. Generated IDs are stored in
+     * the Billing objects that were inserted.
+     * @param billings Billing objects to add
+     * @return Map of list index to error message for bills that were not added
+     */
+    public Map<Integer, String> addBillings(List<Billing> billings) {
+        return Metrics.timed("BillingDAO.addBillings", () -> {
+            try {
+                Map<Integer, String> failures = JdbcBatches.insert(INSERT_SQL, billings, BillingDAO::bindBilling,
+                        Billing::setBillId);
+                EntityVersions.bump(Entity.BILLING);
+                return failures;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error adding bills", e);
+                
+                Map<Integer, String> failures = new HashMap<>();
+                for (int i = 0; i < billings.size(); i++) {
+                    failures.put(i, e.getMessage());
+                }
+                return failures;
+            }
+        });
+    }
+    
+    /**
+     * Record a payment against a bill
+     * @param billId ID of the bill
+     * @param paymentStatus New payment status (PENDING, PARTIAL, PAID)
+     * @param paymentMethod Payment method
+     * @return true if successful, false otherwise
+     */
+    public boolean updatePayment(int billId, String paymentStatus, String paymentMethod) {
+        return Metrics.timed("BillingDAO.updatePayment", () -> {
+            String sql = "UPDATE billing SET payment_status = ?, payment_method = ?, " +
+                         "payment_date = CASE WHEN ? = 'PENDING' THEN NULL ELSE CURRENT_TIMESTAMP END " +
+                         "WHERE bill_id = ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, paymentStatus);
+                stmt.setString(2, paymentMethod);
+                stmt.setString(3, paymentStatus);
+                stmt.setInt(4, billId);
+                
+                int rowsAffected = stmt.executeUpdate();
+                EntityVersions.bump(Entity.BILLING);
+                return rowsAffected > 0;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error updating bill payment", e);
+            }
+            
+            return false;
+        });
+    }
+    
+    /**
+     * Get a bill by ID
+     * @param billId ID of the bill to retrieve
+     * @return Billing object if found, null otherwise
+     */
+    public Billing getBillingById(int billId) {
+        return Metrics.timed("BillingDAO.getBillingById", () -> {
+            String sql = "SELECT * FROM billing WHERE bill_id = ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, billId);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                if (rs.next()) {
+                    return extractBillingFromResultSet(rs);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting bill", e);
+            }
+            
+            return null;
+        });
+    }
+    
+    /**
+     * Get the bill for a job card
+     * @param jobCardId ID of the job card
+     * @return Billing object if found, null otherwise
+     */
+    public Billing getBillingByJobCardId(int jobCardId) {
+        return Metrics.timed("BillingDAO.getBillingByJobCardId", () -> {
+            String sql = "SELECT * FROM billing WHERE job_card_id = ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, jobCardId);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                if (rs.next()) {
+                    return extractBillingFromResultSet(rs);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting bill by job card", e);
+            }
+            
+            return null;
+        });
+    }
+    
+    /**
+     * Compute the service and parts totals of a job card in one aggregate query
+     * @param jobCardId ID of the job card
+     * @return Billing object with jobCardId, totalServiceCost and totalPartsCost set,
+     *         or null if the job card does not exist
+     */
+    public Billing calculateTotals(int jobCardId) {
+        return Metrics.timed("BillingDAO.calculateTotals", () -> {
+            String sql = TOTALS_SQL + "WHERE jc.job_card_id = ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, jobCardId);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                if (rs.next()) {
+                    return extractTotalsFromResultSet(rs);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error calculating bill totals", e);
+            }
+            
+            return null;
+        });
+    }
+    
+    /**
+     * Compute the service and parts totals of many job cards, one aggregate query per chunk of IDs
+     * @param jobCardIds IDs of the job cards
+     * @return Map of job card ID to Billing object with the totals set
+     */
+    public Map<Integer, Billing> calculateTotals(Collection<Integer> jobCardIds) {
+        return Metrics.timed("BillingDAO.calculateTotals", () -> {
+            Map<Integer, Billing> totals = new HashMap<>();
+            
+            try (Connection connection = DBConnectionUtil.getConnection()) {
+                for (List<Integer> chunk : SqlUtil.chunkIds(jobCardIds)) {
+                    String sql = TOTALS_SQL + "WHERE jc.job_card_id IN (" + SqlUtil.placeholders(chunk.size()) + ")";
+                    
+                    try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            stmt.setInt(i + 1, chunk.get(i));
+                        }
+                        
+                        ResultSet rs = stmt.executeQuery();
+                        
+                        while (rs.next()) {
+                            Billing billing = extractTotalsFromResultSet(rs);
+                            totals.put(billing.getJobCardId(), billing);
+                        }
+                    }
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error calculating bill totals", e);
+            }
+            
+            return totals;
+        });
+    }
+    
+    /**
+     * Get the IDs of completed or delivered job cards that have no bill yet, the job
+     * cards BillingService.createBill accepts
+     * @return List of job card IDs in ascending order
+     */
+    public List<Integer> getUnbilledJobCardIds() {
+        return Metrics.timed("BillingDAO.getUnbilledJobCardIds", () -> {
+            List<Integer> jobCardIds = new ArrayList<>();
+            String sql = "SELECT jc.job_card_id FROM job_cards jc " +
+                         "LEFT JOIN billing b ON b.job_card_id = jc.job_card_id " +
+                         "WHERE jc.status IN ('COMPLETED', 'DELIVERED') AND b.bill_id IS NULL " +
+                         "ORDER BY jc.job_card_id";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                ResultSet rs = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    jobCardIds.add(rs.getInt("job_card_id"));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting unbilled job cards", e);
+            }
+            
+            return jobCardIds;
+        });
+    }
+    
+    private static void bindBilling(PreparedStatement stmt, Billing billing) throws SQLException {
+        stmt.setInt(1, billing.getJobCardId());
+        stmt.setBigDecimal(2, billing.getTotalServiceCost());
+        stmt.setBigDecimal(3, billing.getTotalPartsCost());
+        stmt.setBigDecimal(4, billing.getTaxAmount());
+        stmt.setBigDecimal(5, billing.getDiscountAmount());
+        stmt.setBigDecimal(6, billing.getGrandTotal());
+        stmt.setString(7, billing.getPaymentStatus());
+        stmt.setString(8, billing.getNotes());
+    }
+    
+    private Billing extractTotalsFromResultSet(ResultSet rs) throws SQLException {
+        Billing billing = new Billing();
+        billing.setJobCardId(rs.getInt("job_card_id"));
+        billing.setTotalServiceCost(rs.getBigDecimal("total_service_cost"));
+        billing.setTotalPartsCost(rs.getBigDecimal("total_parts_cost"));
+        return billing;
+    }
+    
+    /**
+     * Helper method to extract a Billing object from a ResultSet
+     * @param rs ResultSet containing billing data
+     * @return Billing object
+     * @throws SQLException if a database access error occurs
+     */
+    private Billing extractBillingFromResultSet(ResultSet rs) throws SQLException {
+        Billing billing = new Billing();
+        billing.setBillId(rs.getInt("bill_id"));
+        billing.setJobCardId(rs.getInt("job_card_id"));
+        
+        Timestamp billDate = rs.getTimestamp("bill_date");
+        if (billDate != null) {
+            billing.setBillDate(billDate.toLocalDateTime());
+        }
+        
+        billing.setTotalServiceCost(rs.getBigDecimal("total_service_cost"));
+        billing.setTotalPartsCost(rs.getBigDecimal("total_parts_cost"));
+        billing.setTaxAmount(rs.getBigDecimal("tax_amount"));
+        billing.setDiscountAmount(rs.getBigDecimal("discount_amount"));
+        billing.setGrandTotal(rs.getBigDecimal("grand_total"));
+        billing.setPaymentStatus(rs.getString("payment_status"));
+        billing.setPaymentMethod(rs.getString("payment_method"));
+        
+        Timestamp paymentDate = rs.getTimestamp("payment_date");
+        if (paymentDate != null) {
+            billing.setPaymentDate(paymentDate.toLocalDateTime());
+        }
+        
+        billing.setNotes(rs.getString("notes"));
+        
+        return billing;
+    }
+}
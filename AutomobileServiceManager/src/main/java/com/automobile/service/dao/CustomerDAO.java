@@ -1,63 +1,107 @@
 package com.automobile.service.dao;
 
 import com.automobile.service.model.Customer;
+import com.automobile.service.model.Page;
+import com.automobile.service.util.CursorCodec;
 import com.automobile.service.util.DBConnectionUtil;
+import com.automobile.service.util.EntityVersions;
+import com.automobile.service.util.EntityVersions.Entity;
+import com.automobile.service.util.JdbcBatches;
+import com.automobile.service.util.JdbcStreams;
+import com.automobile.service.util.Metrics;
+import com.automobile.service.util.SqlUtil;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * CustomerDAO class for handling database operations related to Customer
  */
 public class CustomerDAO {
     
-    private Connection connection;
-    
-    public CustomerDAO() {
-        try {
-            this.connection = DBConnectionUtil.getConnection();
-        } catch (SQLException e) {
-            System.err.println("Error initializing CustomerDAO: " + e.getMessage());
-        }
-    }
-    
     /**
      * Add a new customer to the database
      * @param customer Customer object to add
      * @return true if successful, false otherwise
      */
     public boolean addCustomer(Customer customer) {
-        String sql = "INSERT INTO customers (first_name, last_name, phone, email, address, city, state, zip_code) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setString(1, customer.getFirstName());
-            stmt.setString(2, customer.getLastName());
-            stmt.setString(3, customer.getPhone());
-            stmt.setString(4, customer.getEmail());
-            stmt.setString(5, customer.getAddress());
-            stmt.setString(6, customer.getCity());
-            stmt.setString(7, customer.getState());
-            stmt.setString(8, customer.getZipCode());
-            
-            int rowsAffected = stmt.executeUpdate();
+        return Metrics.timed("CustomerDAO.addCustomer", () -> {
+            String sql = "INSERT INTO customers (first_name, last_name, phone, email, address, city, state, zip_code) " +
+                         "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
             
-            if (rowsAffected > 0) {
-                // Get the generated customer ID
-                ResultSet rs = stmt.getGeneratedKeys();
-                if (rs.next()) {
-                    customer.setCustomerId(rs.getInt(1));
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, customer.getFirstName());
+                stmt.setString(2, customer.getLastName());
+                stmt.setString(3, customer.getPhone());
+                stmt.setString(4, customer.getEmail());
+                stmt.setString(5, customer.getAddress());
+                stmt.setString(6, customer.getCity());
+                stmt.setString(7, customer.getState());
+                stmt.setString(8, customer.getZipCode());
+                
+                int rowsAffected = stmt.executeUpdate();
+                EntityVersions.bump(Entity.CUSTOMERS);
+                
+                if (rowsAffected > 0) {
+                    // Get the generated customer ID
+                    ResultSet rs = stmt.getGeneratedKeys();
+                    if (rs.next()) {
+                        customer.setCustomerId(rs.getInt(1));
+                    }
+                    return true;
                 }
-                return true;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error adding customer", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error adding customer: " + e.getMessage());
-        }
-        
-        return false;
+            return false;
+        });
+    }
+    
+    /**
+     * Add several customers in one batched transaction. Generated IDs are stored in
+     * the Customer objects that were inserted.
+     * @param customers Customer objects to add
+     * @return Map of list index to error message for customers that were not added
+     */
+    public Map<Integer, String> addCustomers(List<Customer> customers) {
+        return Metrics.timed("CustomerDAO.addCustomers", () -> {
+            String sql = "INSERT INTO customers (first_name, last_name, phone, email, address, city, state, zip_code) " +
+                         "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+            
+            try {
+                Map<Integer, String> failures = JdbcBatches.insert(sql, customers, (stmt, customer) -> {
+                    stmt.setString(1, customer.getFirstName());
+                    stmt.setString(2, customer.getLastName());
+                    stmt.setString(3, customer.getPhone());
+                    stmt.setString(4, customer.getEmail());
+                    stmt.setString(5, customer.getAddress());
+                    stmt.setString(6, customer.getCity());
+                    stmt.setString(7, customer.getState());
+                    stmt.setString(8, customer.getZipCode());
+                }, Customer::setCustomerId);
+                EntityVersions.bump(Entity.CUSTOMERS);
+                return failures;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error adding customers", e);
+                
+                Map<Integer, String> failures = new HashMap<>();
+                for (int i = 0; i < customers.size(); i++) {
+                    failures.put(i, e.getMessage());
+                }
+                return failures;
+            }
+        });
     }
     
     /**
@@ -66,29 +110,33 @@ public class CustomerDAO {
      * @return true if successful, false otherwise
      */
     public boolean updateCustomer(Customer customer) {
-        String sql = "UPDATE customers SET first_name = ?, last_name = ?, phone = ?, " +
-                     "email = ?, address = ?, city = ?, state = ?, zip_code = ? " +
-                     "WHERE customer_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, customer.getFirstName());
-            stmt.setString(2, customer.getLastName());
-            stmt.setString(3, customer.getPhone());
-            stmt.setString(4, customer.getEmail());
-            stmt.setString(5, customer.getAddress());
-            stmt.setString(6, customer.getCity());
-            stmt.setString(7, customer.getState());
-            stmt.setString(8, customer.getZipCode());
-            stmt.setInt(9, customer.getCustomerId());
+        return Metrics.timed("CustomerDAO.updateCustomer", () -> {
+            String sql = "UPDATE customers SET first_name = ?, last_name = ?, phone = ?, " +
+                         "email = ?, address = ?, city = ?, state = ?, zip_code = ? " +
+                         "WHERE customer_id = ?";
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, customer.getFirstName());
+                stmt.setString(2, customer.getLastName());
+                stmt.setString(3, customer.getPhone());
+                stmt.setString(4, customer.getEmail());
+                stmt.setString(5, customer.getAddress());
+                stmt.setString(6, customer.getCity());
+                stmt.setString(7, customer.getState());
+                stmt.setString(8, customer.getZipCode());
+                stmt.setInt(9, customer.getCustomerId());
+                
+                int rowsAffected = stmt.executeUpdate();
+                EntityVersions.bump(Entity.CUSTOMERS);
+                return rowsAffected > 0;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error updating customer", e);
+            }
             
-        } catch (SQLException e) {
-            System.err.println("Error updating customer: " + e.getMessage());
-        }
-        
-        return false;
+            return false;
+        });
     }
     
     /**
@@ -97,19 +145,25 @@ public class CustomerDAO {
      * @return true if successful, false otherwise
      */
     public boolean deleteCustomer(int customerId) {
-        String sql = "DELETE FROM customers WHERE customer_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, customerId);
+        return Metrics.timed("CustomerDAO.deleteCustomer", () -> {
+            String sql = "DELETE FROM customers WHERE customer_id = ?";
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, customerId);
+                
+                int rowsAffected = stmt.executeUpdate();
+                // The delete cascades to the customer's vehicles and everything recorded for them
+                EntityVersions.bump(Entity.CUSTOMERS, Entity.VEHICLES, Entity.JOB_CARDS, Entity.JOB_SERVICES,
+                        Entity.PARTS_USED, Entity.BILLING);
+                return rowsAffected > 0;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error deleting customer", e);
+            }
             
-        } catch (SQLException e) {
-            System.err.println("Error deleting customer: " + e.getMessage());
-        }
-        
-        return false;
+            return false;
+        });
     }
     
     /**
@@ -118,22 +172,64 @@ public class CustomerDAO {
      * @return Customer object if found, null otherwise
      */
     public Customer getCustomerById(int customerId) {
-        String sql = "SELECT * FROM customers WHERE customer_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, customerId);
+        return Metrics.timed("CustomerDAO.getCustomerById", () -> {
+            String sql = "SELECT * FROM customers WHERE customer_id = ?";
             
-            ResultSet rs = stmt.executeQuery();
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, customerId);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                if (rs.next()) {
+                    return extractCustomerFromResultSet(rs);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting customer by ID", e);
+            }
+            
+            return null;
+        });
+    }
+    
+    /**
+     * Get customers for a set of IDs using chunked IN-list queries on one connection
+     * @param customerIds IDs of the customers to retrieve
+     * @return Map of customer ID to Customer object; IDs that were not found are absent
+     */
+    public Map<Integer, Customer> getCustomersByIds(Collection<Integer> customerIds) {
+        return Metrics.timed("CustomerDAO.getCustomersByIds", () -> {
+            Map<Integer, Customer> customers = new HashMap<>();
+            List<List<Integer>> chunks = SqlUtil.chunkIds(customerIds);
+            if (chunks.isEmpty()) {
+                return customers;
+            }
             
-            if (rs.next()) {
-                return extractCustomerFromResultSet(rs);
+            try (Connection connection = DBConnectionUtil.getConnection()) {
+                for (List<Integer> chunk : chunks) {
+                    String sql = "SELECT * FROM customers WHERE customer_id IN (" + SqlUtil.placeholders(chunk.size()) + ")";
+                    
+                    try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            stmt.setInt(i + 1, chunk.get(i));
+                        }
+                        
+                        ResultSet rs = stmt.executeQuery();
+                        
+                        while (rs.next()) {
+                            Customer customer = extractCustomerFromResultSet(rs);
+                            customers.put(customer.getCustomerId(), customer);
+                        }
+                    }
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting customers by IDs", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error getting customer by ID: " + e.getMessage());
-        }
-        
-        return null;
+            return customers;
+        });
     }
     
     /**
@@ -142,22 +238,25 @@ public class CustomerDAO {
      * @return Customer object if found, null otherwise
      */
     public Customer getCustomerByPhone(String phone) {
-        String sql = "SELECT * FROM customers WHERE phone = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, phone);
-            
-            ResultSet rs = stmt.executeQuery();
+        return Metrics.timed("CustomerDAO.getCustomerByPhone", () -> {
+            String sql = "SELECT * FROM customers WHERE phone = ?";
             
-            if (rs.next()) {
-                return extractCustomerFromResultSet(rs);
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, phone);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                if (rs.next()) {
+                    return extractCustomerFromResultSet(rs);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting customer by phone", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error getting customer by phone: " + e.getMessage());
-        }
-        
-        return null;
+            return null;
+        });
     }
     
     /**
@@ -166,22 +265,25 @@ public class CustomerDAO {
      * @return Customer object if found, null otherwise
      */
     public Customer getCustomerByEmail(String email) {
-        String sql = "SELECT * FROM customers WHERE email = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, email);
-            
-            ResultSet rs = stmt.executeQuery();
+        return Metrics.timed("CustomerDAO.getCustomerByEmail", () -> {
+            String sql = "SELECT * FROM customers WHERE email = ?";
             
-            if (rs.next()) {
-                return extractCustomerFromResultSet(rs);
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, email);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                if (rs.next()) {
+                    return extractCustomerFromResultSet(rs);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting customer by email", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error getting customer by email: " + e.getMessage());
-        }
-        
-        return null;
+            return null;
+        });
     }
     
     /**
@@ -189,21 +291,191 @@ public class CustomerDAO {
      * @return List of Customer objects
      */
     public List<Customer> getAllCustomers() {
-        List<Customer> customers = new ArrayList<>();
-        String sql = "SELECT * FROM customers ORDER BY last_name, first_name";
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        return Metrics.timed("CustomerDAO.getAllCustomers", () -> {
+            List<Customer> customers = new ArrayList<>();
+            String sql = "SELECT * FROM customers ORDER BY last_name, first_name";
             
-            while (rs.next()) {
-                customers.add(extractCustomerFromResultSet(rs));
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                
+                while (rs.next()) {
+                    customers.add(extractCustomerFromResultSet(rs));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting all customers", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error getting all customers: " + e.getMessage());
-        }
-        
-        return customers;
+            return customers;
+        });
+    }
+    
+    /**
+     * Get one page of customers ordered by name, using keyset pagination.
+     * Each page seeks past the last row of the previous one, so page N costs the same as page 1.
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param pageSize Maximum number of customers to return
+     * @return Page of Customer objects
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Page<Customer> getCustomersPage(String cursor, int pageSize) {
+        return Metrics.timed("CustomerDAO.getCustomersPage", () -> {
+            List<Customer> customers = new ArrayList<>();
+            
+            String[] key = null;
+            int afterCustomerId = 0;
+            if (cursor != null) {
+                key = CursorCodec.decode(cursor, 3);
+                try {
+                    afterCustomerId = Integer.parseInt(key[2]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+            }
+            
+            String sql = cursor == null
+                    ? "SELECT * FROM customers ORDER BY last_name, first_name, customer_id LIMIT ?"
+                    : "SELECT * FROM customers WHERE last_name >= ? AND (last_name > ? OR " +
+                      "(first_name > ? OR (first_name = ? AND customer_id > ?))) " +
+                      "ORDER BY last_name, first_name, customer_id LIMIT ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                int index = 1;
+                if (key != null) {
+                    stmt.setString(index++, key[0]);
+                    stmt.setString(index++, key[0]);
+                    stmt.setString(index++, key[1]);
+                    stmt.setString(index++, key[1]);
+                    stmt.setInt(index++, afterCustomerId);
+                }
+                stmt.setInt(index, pageSize + 1);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    customers.add(extractCustomerFromResultSet(rs));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting customers page", e);
+            }
+            
+            return Page.of(customers, pageSize, customer -> CursorCodec.encode(
+                    customer.getLastName(), customer.getFirstName(), String.valueOf(customer.getCustomerId())));
+        });
+    }
+    
+    /**
+     * Stream all customers ordered by name without loading them all into memory.
+     * The stream holds a database connection until it is closed, so use it in a
+     * try-with-resources block.
+     * @return Stream of Customer objects; empty if the query fails
+     */
+    public Stream<Customer> streamAllCustomers() {
+        return Metrics.timed("CustomerDAO.streamAllCustomers", () -> {
+            String sql = "SELECT * FROM customers ORDER BY last_name, first_name, customer_id";
+            
+            try {
+                return JdbcStreams.stream(sql, stmt -> { }, CustomerDAO::extractCustomerFromResultSet);
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error streaming customers", e);
+            }
+            
+            return Stream.empty();
+        });
+    }
+    
+    /**
+     * Pass each customer, ordered by name, to a consumer as it is read
+     * @param action Consumer receiving each Customer
+     * @return number of customers processed, or -1 if the query failed
+     */
+    public int forEachCustomer(Consumer<? super Customer> action) {
+        return Metrics.timed("CustomerDAO.forEachCustomer", () -> {
+            String sql = "SELECT * FROM customers ORDER BY last_name, first_name, customer_id";
+            
+            try {
+                return JdbcStreams.forEach(sql, stmt -> { }, CustomerDAO::extractCustomerFromResultSet, action);
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error processing customers", e);
+            }
+            
+            return -1;
+        });
+    }
+    
+    /**
+     * Pass one page of customers ordered by name to a consumer as rows are read, using
+     * keyset pagination, so a page of any size is handled without collecting it in memory
+     * @param name Text the first or last name must contain, or null for any name
+     * @param city City to filter by, or null for all cities
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param pageSize Maximum number of customers to pass on
+     * @param action Consumer receiving each Customer
+     * @return Page holding only the next cursor, or null if the query failed
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Page<Customer> forEachCustomerOnPage(String name, String city, String cursor, int pageSize,
+                                                Consumer<? super Customer> action) {
+        return Metrics.timed("CustomerDAO.forEachCustomerOnPage", () -> {
+            String[] key = null;
+            int afterCustomerId = 0;
+            if (cursor != null) {
+                key = CursorCodec.decode(cursor, 3);
+                try {
+                    afterCustomerId = Integer.parseInt(key[2]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+            }
+            
+            StringBuilder sql = new StringBuilder("SELECT * FROM customers WHERE 1 = 1");
+            if (name != null) {
+                sql.append(" AND (first_name LIKE ? OR last_name LIKE ?)");
+            }
+            if (city != null) {
+                sql.append(" AND city = ?");
+            }
+            if (key != null) {
+                sql.append(" AND last_name >= ? AND (last_name > ? OR first_name > ? OR (first_name = ? AND customer_id > ?))");
+            }
+            sql.append(" ORDER BY last_name, first_name, customer_id LIMIT ?");
+            
+            final String[] afterKey = key;
+            final int afterId = afterCustomerId;
+            try {
+                String nextCursor = JdbcStreams.forEachInPage(sql.toString(), stmt -> {
+                    int index = 1;
+                    if (name != null) {
+                        String searchPattern = "%" + name + "%";
+                        stmt.setString(index++, searchPattern);
+                        stmt.setString(index++, searchPattern);
+                    }
+                    if (city != null) {
+                        stmt.setString(index++, city);
+                    }
+                    if (afterKey != null) {
+                        stmt.setString(index++, afterKey[0]);
+                        stmt.setString(index++, afterKey[0]);
+                        stmt.setString(index++, afterKey[1]);
+                        stmt.setString(index++, afterKey[1]);
+                        stmt.setInt(index++, afterId);
+                    }
+                    stmt.setInt(index, pageSize + 1);
+                }, CustomerDAO::extractCustomerFromResultSet, pageSize, customer -> CursorCodec.encode(
+                        customer.getLastName(), customer.getFirstName(), String.valueOf(customer.getCustomerId())), action);
+                return Page.streamed(nextCursor);
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error processing customers page", e);
+            }
+            
+            return null;
+        });
     }
     
     /**
@@ -212,26 +484,29 @@ public class CustomerDAO {
      * @return List of matching Customer objects
      */
     public List<Customer> searchCustomersByName(String name) {
-        List<Customer> customers = new ArrayList<>();
-        String sql = "SELECT * FROM customers WHERE first_name LIKE ? OR last_name LIKE ? " +
-                     "ORDER BY last_name, first_name";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            String searchPattern = "%" + name + "%";
-            stmt.setString(1, searchPattern);
-            stmt.setString(2, searchPattern);
-            
-            ResultSet rs = stmt.executeQuery();
+        return Metrics.timed("CustomerDAO.searchCustomersByName", () -> {
+            List<Customer> customers = new ArrayList<>();
+            String sql = "SELECT * FROM customers WHERE first_name LIKE ? OR last_name LIKE ? " +
+                         "ORDER BY last_name, first_name";
             
-            while (rs.next()) {
-                customers.add(extractCustomerFromResultSet(rs));
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                String searchPattern = "%" + name + "%";
+                stmt.setString(1, searchPattern);
+                stmt.setString(2, searchPattern);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    customers.add(extractCustomerFromResultSet(rs));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error searching customers by name", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error searching customers by name: " + e.getMessage());
-        }
-        
-        return customers;
+            return customers;
+        });
     }
     
     /**
@@ -240,7 +515,7 @@ public class CustomerDAO {
      * @return Customer object
      * @throws SQLException if there's an error accessing the ResultSet
      */
-    private Customer extractCustomerFromResultSet(ResultSet rs) throws SQLException {
+    static Customer extractCustomerFromResultSet(ResultSet rs) throws SQLException {
         Customer customer = new Customer();
         customer.setCustomerId(rs.getInt("customer_id"));
         customer.setFirstName(rs.getString("first_name"));
@@ -1,125 +1,201 @@
 package com.automobile.service.dao;
 
+import com.automobile.service.model.Customer;
 import com.automobile.service.model.JobCard;
+import com.automobile.service.model.JobCardDetail;
 import com.automobile.service.model.JobService;
+import com.automobile.service.model.Page;
 import com.automobile.service.model.Service;
+import com.automobile.service.model.Vehicle;
+import com.automobile.service.util.CursorCodec;
 import com.automobile.service.util.DBConnectionUtil;
+import com.automobile.service.util.EntityVersions;
+import com.automobile.service.util.EntityVersions.Entity;
+import com.automobile.service.util.JdbcStreams;
+import com.automobile.service.util.Metrics;
+import com.automobile.service.util.SqlUtil;
 
+import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * JobCardDAO class for handling database operations related to JobCard
  */
 public class JobCardDAO {
     
-    private Connection connection;
-    
-    public JobCardDAO() {
-        try {
-            this.connection = DBConnectionUtil.getConnection();
-        } catch (SQLException e) {
-            System.err.println("Error initializing JobCardDAO: " + e.getMessage());
-        }
-    }
-    
     /**
      * Add a new job card to the database
      * @param jobCard JobCard object to add
      * @return ID of the newly created job card, or -1 if failed
      */
     public int addJobCard(JobCard jobCard) {
-        String sql = "INSERT INTO job_cards (vehicle_id, open_date, status, technician_notes, customer_complaints) " +
-                     "VALUES (?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setInt(1, jobCard.getVehicleId());
-            
-            if (jobCard.getOpenDate() != null) {
-                stmt.setTimestamp(2, Timestamp.valueOf(jobCard.getOpenDate()));
-            } else {
-                stmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
-            }
+        return Metrics.timed("JobCardDAO.addJobCard", () -> {
+            String sql = "INSERT INTO job_cards (vehicle_id, open_date, status, technician_notes, customer_complaints) " +
+                         "VALUES (?, ?, ?, ?, ?)";
             
-            stmt.setString(3, jobCard.getStatus());
-            stmt.setString(4, jobCard.getTechnicianNotes());
-            stmt.setString(5, jobCard.getCustomerComplaints());
-            
-            int rowsAffected = stmt.executeUpdate();
-            
-            if (rowsAffected > 0) {
-                // Get the generated job card ID
-                ResultSet rs = stmt.getGeneratedKeys();
-                if (rs.next()) {
-                    return rs.getInt(1);
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setInt(1, jobCard.getVehicleId());
+                
+                if (jobCard.getOpenDate() != null) {
+                    stmt.setTimestamp(2, Timestamp.valueOf(jobCard.getOpenDate()));
+                } else {
+                    stmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                }
+                
+                stmt.setString(3, jobCard.getStatus());
+                stmt.setString(4, jobCard.getTechnicianNotes());
+                stmt.setString(5, jobCard.getCustomerComplaints());
+                
+                int rowsAffected = stmt.executeUpdate();
+                EntityVersions.bump(Entity.JOB_CARDS);
+                
+                if (rowsAffected > 0) {
+                    // Get the generated job card ID
+                    ResultSet rs = stmt.getGeneratedKeys();
+                    if (rs.next()) {
+                        return rs.getInt(1);
+                    }
                 }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error adding job card", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error adding job card: " + e.getMessage());
-        }
-        
-        return -1;
+            return -1;
+        });
     }
     
     /**
-     * Update an existing job card in the database
+     * Update an existing job card in the database. The status is changed only through
+     * updateJobCardStatus so that every status change is seen by the status counters.
      * @param jobCard JobCard object with updated information
      * @return true if successful, false otherwise
      */
     public boolean updateJobCard(JobCard jobCard) {
-        String sql = "UPDATE job_cards SET vehicle_id = ?, status = ?, " +
-                     "technician_notes = ?, customer_complaints = ? " +
-                     "WHERE job_card_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, jobCard.getVehicleId());
-            stmt.setString(2, jobCard.getStatus());
-            stmt.setString(3, jobCard.getTechnicianNotes());
-            stmt.setString(4, jobCard.getCustomerComplaints());
-            stmt.setInt(5, jobCard.getJobCardId());
+        return Metrics.timed("JobCardDAO.updateJobCard", () -> {
+            String sql = "UPDATE job_cards SET vehicle_id = ?, " +
+                         "technician_notes = ?, customer_complaints = ? " +
+                         "WHERE job_card_id = ?";
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, jobCard.getVehicleId());
+                stmt.setString(2, jobCard.getTechnicianNotes());
+                stmt.setString(3, jobCard.getCustomerComplaints());
+                stmt.setInt(4, jobCard.getJobCardId());
+                
+                int rowsAffected = stmt.executeUpdate();
+                EntityVersions.bump(Entity.JOB_CARDS);
+                return rowsAffected > 0;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error updating job card", e);
+            }
             
-        } catch (SQLException e) {
-            System.err.println("Error updating job card: " + e.getMessage());
-        }
-        
-        return false;
+            return false;
+        });
     }
     
     /**
-     * Update job card status
+     * Update job card status, locking the row so the previous state returned is the
+     * one this update replaced
      * @param jobCardId ID of the job card
      * @param status New status
      * @param closeDate Close date (if status is COMPLETED or DELIVERED)
-     * @return true if successful, false otherwise
+     * @return JobCard with the ID, status and close date before the update,
+     *         or null if the job card does not exist or the update fails
      */
-    public boolean updateJobCardStatus(int jobCardId, String status, LocalDateTime closeDate) {
-        String sql = "UPDATE job_cards SET status = ?, close_date = ? WHERE job_card_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, status);
+    public JobCard updateJobCardStatus(int jobCardId, String status, LocalDateTime closeDate) {
+        return Metrics.timed("JobCardDAO.updateJobCardStatus", () -> {
+            String selectSql = "SELECT status, close_date FROM job_cards WHERE job_card_id = ? FOR UPDATE";
+            String updateSql = "UPDATE job_cards SET status = ?, close_date = ? WHERE job_card_id = ?";
             
-            if (closeDate != null) {
-                stmt.setTimestamp(2, Timestamp.valueOf(closeDate));
-            } else {
-                stmt.setNull(2, Types.TIMESTAMP);
+            try (Connection connection = DBConnectionUtil.getConnection()) {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                
+                try (PreparedStatement selectStmt = connection.prepareStatement(selectSql);
+                     PreparedStatement updateStmt = connection.prepareStatement(updateSql)) {
+                    selectStmt.setInt(1, jobCardId);
+                    
+                    ResultSet rs = selectStmt.executeQuery();
+                    if (!rs.next()) {
+                        connection.rollback();
+                        return null;
+                    }
+                    JobCard previous = new JobCard();
+                    previous.setJobCardId(jobCardId);
+                    previous.setStatus(rs.getString("status"));
+                    
+                    Timestamp previousCloseDate = rs.getTimestamp("close_date");
+                    if (previousCloseDate != null) {
+                        previous.setCloseDate(previousCloseDate.toLocalDateTime());
+                    }
+                    
+                    updateStmt.setString(1, status);
+                    
+                    if (closeDate != null) {
+                        updateStmt.setTimestamp(2, Timestamp.valueOf(closeDate));
+                    } else {
+                        updateStmt.setNull(2, Types.TIMESTAMP);
+                    }
+                    
+                    updateStmt.setInt(3, jobCardId);
+                    updateStmt.executeUpdate();
+                    
+                    connection.commit();
+                    EntityVersions.bump(Entity.JOB_CARDS);
+                    return previous;
+                    
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error updating job card status", e);
             }
             
-            stmt.setInt(3, jobCardId);
+            return null;
+        });
+    }
+    
+    /**
+     * Count job cards by status in one aggregate query
+     * @return Map of status to number of job cards, without statuses that have none,
+     *         or null if the query fails
+     */
+    public Map<String, Integer> countJobCardsByStatus() {
+        return Metrics.timed("JobCardDAO.countJobCardsByStatus", () -> {
+            Map<String, Integer> counts = new HashMap<>();
+            String sql = "SELECT status, COUNT(*) AS job_card_count FROM job_cards GROUP BY status";
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                ResultSet rs = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    counts.put(rs.getString("status"), rs.getInt("job_card_count"));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error counting job cards by status", e);
+                return null;
+            }
             
-        } catch (SQLException e) {
-            System.err.println("Error updating job card status: " + e.getMessage());
-        }
-        
-        return false;
+            return counts;
+        });
     }
     
     /**
@@ -128,22 +204,119 @@ public class JobCardDAO {
      * @return JobCard object if found, null otherwise
      */
     public JobCard getJobCardById(int jobCardId) {
-        String sql = "SELECT * FROM job_cards WHERE job_card_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, jobCardId);
+        return Metrics.timed("JobCardDAO.getJobCardById", () -> {
+            String sql = "SELECT * FROM job_cards WHERE job_card_id = ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, jobCardId);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                if (rs.next()) {
+                    return extractJobCardFromResultSet(rs);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting job card by ID", e);
+            }
             
-            ResultSet rs = stmt.executeQuery();
+            return null;
+        });
+    }
+    
+    /**
+     * Get the job card a job service belongs to
+     * @param jobServiceId ID of the job service
+     * @return JobCard object if found, null otherwise
+     */
+    public JobCard getJobCardForJobService(int jobServiceId) {
+        return Metrics.timed("JobCardDAO.getJobCardForJobService", () -> {
+            String sql = "SELECT jc.* FROM job_cards jc " +
+                         "JOIN job_services js ON js.job_card_id = jc.job_card_id " +
+                         "WHERE js.job_service_id = ?";
             
-            if (rs.next()) {
-                return extractJobCardFromResultSet(rs);
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, jobServiceId);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                if (rs.next()) {
+                    return extractJobCardFromResultSet(rs);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting job card for job service", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error getting job card by ID: " + e.getMessage());
-        }
-        
-        return null;
+            return null;
+        });
+    }
+    
+    /**
+     * Get a job card together with its vehicle, the vehicle's owner, the services
+     * performed and the parts used on them, in a single joined query
+     * @param jobCardId ID of the job card to retrieve
+     * @return JobCardDetail object if found, null otherwise
+     */
+    public JobCardDetail getJobCardDetail(int jobCardId) {
+        return Metrics.timed("JobCardDAO.getJobCardDetail", () -> {
+            String sql = "SELECT jc.job_card_id, jc.vehicle_id, jc.open_date, jc.close_date, jc.status, " +
+                         "jc.technician_notes, jc.customer_complaints, " +
+                         "v.customer_id, v.make, v.model, v.year, v.license_plate, v.vin, v.color, " +
+                         "v.mileage, v.last_service_date, " +
+                         "c.first_name, c.last_name, c.phone, c.email, c.address, c.city, c.state, " +
+                         "c.zip_code, c.registration_date, " +
+                         "js.job_service_id, js.service_id, js.actual_price, js.actual_hours, js.notes, " +
+                         "js.status AS job_service_status, s.service_name, s.description, " +
+                         "pu.parts_used_id, pu.part_id, pu.quantity, pu.price_per_unit, p.part_name, p.part_number " +
+                         "FROM job_cards jc " +
+                         "JOIN vehicles v ON v.vehicle_id = jc.vehicle_id " +
+                         "JOIN customers c ON c.customer_id = v.customer_id " +
+                         "LEFT JOIN job_services js ON js.job_card_id = jc.job_card_id " +
+                         "LEFT JOIN services s ON s.service_id = js.service_id " +
+                         "LEFT JOIN parts_used pu ON pu.job_service_id = js.job_service_id " +
+                         "LEFT JOIN parts p ON p.part_id = pu.part_id " +
+                         "WHERE jc.job_card_id = ? ORDER BY js.job_service_id, pu.parts_used_id";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, jobCardId);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                JobCardDetail detail = null;
+                int lastJobServiceId = 0;
+                while (rs.next()) {
+                    if (detail == null) {
+                        // Job card, vehicle and customer columns repeat on every row
+                        detail = new JobCardDetail();
+                        detail.setJobCard(extractJobCardFromResultSet(rs));
+                        detail.setVehicle(VehicleDAO.extractVehicleFromResultSet(rs));
+                        detail.setCustomer(CustomerDAO.extractCustomerFromResultSet(rs));
+                    }
+                    
+                    // A job card without services yields a single row with null job service columns,
+                    // and a service repeats on one row per part used on it
+                    int jobServiceId = rs.getInt("job_service_id");
+                    if (!rs.wasNull() && jobServiceId != lastJobServiceId) {
+                        detail.getJobServices().add(extractJobServiceFromResultSet(rs, "job_service_status"));
+                        lastJobServiceId = jobServiceId;
+                    }
+                    if (rs.getObject("parts_used_id") != null) {
+                        detail.getPartUsages().add(PartDAO.extractPartUsageFromResultSet(rs));
+                    }
+                }
+                
+                return detail;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting job card detail", e);
+            }
+            
+            return null;
+        });
     }
     
     /**
@@ -151,21 +324,204 @@ public class JobCardDAO {
      * @return List of JobCard objects
      */
     public List<JobCard> getAllJobCards() {
-        List<JobCard> jobCards = new ArrayList<>();
-        String sql = "SELECT * FROM job_cards ORDER BY open_date DESC";
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        return Metrics.timed("JobCardDAO.getAllJobCards", () -> {
+            List<JobCard> jobCards = new ArrayList<>();
+            String sql = "SELECT * FROM job_cards ORDER BY open_date DESC";
             
-            while (rs.next()) {
-                jobCards.add(extractJobCardFromResultSet(rs));
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                
+                while (rs.next()) {
+                    jobCards.add(extractJobCardFromResultSet(rs));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting all job cards", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error getting all job cards: " + e.getMessage());
-        }
-        
-        return jobCards;
+            return jobCards;
+        });
+    }
+    
+    /**
+     * Get one page of job cards, newest first, using keyset pagination.
+     * Each page seeks past the last row of the previous one, so page N costs the same as page 1.
+     * @param status Status to filter by, or null for all job cards
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param pageSize Maximum number of job cards to return
+     * @return Page of JobCard objects
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Page<JobCard> getJobCardsPage(String status, String cursor, int pageSize) {
+        return Metrics.timed("JobCardDAO.getJobCardsPage", () -> {
+            List<JobCard> jobCards = new ArrayList<>();
+            
+            StringBuilder sql = new StringBuilder("SELECT * FROM job_cards WHERE 1 = 1");
+            if (status != null) {
+                sql.append(" AND status = ?");
+            }
+            
+            Timestamp afterOpenDate = null;
+            int afterJobCardId = 0;
+            if (cursor != null) {
+                String[] key = CursorCodec.decode(cursor, 2);
+                try {
+                    afterOpenDate = Timestamp.valueOf(LocalDateTime.parse(key[0]));
+                    afterJobCardId = Integer.parseInt(key[1]);
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                sql.append(" AND open_date <= ? AND (open_date < ? OR job_card_id < ?)");
+            }
+            sql.append(" ORDER BY open_date DESC, job_card_id DESC LIMIT ?");
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+                int index = 1;
+                if (status != null) {
+                    stmt.setString(index++, status);
+                }
+                if (cursor != null) {
+                    stmt.setTimestamp(index++, afterOpenDate);
+                    stmt.setTimestamp(index++, afterOpenDate);
+                    stmt.setInt(index++, afterJobCardId);
+                }
+                stmt.setInt(index, pageSize + 1);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    jobCards.add(extractJobCardFromResultSet(rs));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting job cards page", e);
+            }
+            
+            return Page.of(jobCards, pageSize, jobCard -> CursorCodec.encode(
+                    jobCard.getOpenDate().toString(), String.valueOf(jobCard.getJobCardId())));
+        });
+    }
+    
+    /**
+     * Stream job cards, newest first, without loading them all into memory.
+     * The stream holds a database connection until it is closed, so use it in a
+     * try-with-resources block.
+     * @param status Status to filter by, or null for all job cards
+     * @return Stream of JobCard objects; empty if the query fails
+     */
+    public Stream<JobCard> streamJobCards(String status) {
+        return Metrics.timed("JobCardDAO.streamJobCards", () -> {
+            String sql = status == null
+                    ? "SELECT * FROM job_cards ORDER BY open_date DESC, job_card_id DESC"
+                    : "SELECT * FROM job_cards WHERE status = ? ORDER BY open_date DESC, job_card_id DESC";
+            
+            try {
+                return JdbcStreams.stream(sql, stmt -> {
+                    if (status != null) {
+                        stmt.setString(1, status);
+                    }
+                }, this::extractJobCardFromResultSet);
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error streaming job cards", e);
+            }
+            
+            return Stream.empty();
+        });
+    }
+    
+    /**
+     * Pass each job card, newest first, to a consumer as it is read
+     * @param status Status to filter by, or null for all job cards
+     * @param action Consumer receiving each JobCard
+     * @return number of job cards processed, or -1 if the query failed
+     */
+    public int forEachJobCard(String status, Consumer<? super JobCard> action) {
+        return Metrics.timed("JobCardDAO.forEachJobCard", () -> {
+            String sql = status == null
+                    ? "SELECT * FROM job_cards ORDER BY open_date DESC, job_card_id DESC"
+                    : "SELECT * FROM job_cards WHERE status = ? ORDER BY open_date DESC, job_card_id DESC";
+            
+            try {
+                return JdbcStreams.forEach(sql, stmt -> {
+                    if (status != null) {
+                        stmt.setString(1, status);
+                    }
+                }, this::extractJobCardFromResultSet, action);
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error processing job cards", e);
+            }
+            
+            return -1;
+        });
+    }
+    
+    /**
+     * Pass one page of job cards, newest first, to a consumer as rows are read, using
+     * keyset pagination, so a page of any size is handled without collecting it in memory
+     * @param status Status to filter by, or null for all job cards
+     * @param vehicleId Vehicle to filter by, or 0 for all vehicles
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param pageSize Maximum number of job cards to pass on
+     * @param action Consumer receiving each JobCard
+     * @return Page holding only the next cursor, or null if the query failed
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Page<JobCard> forEachJobCardOnPage(String status, int vehicleId, String cursor, int pageSize,
+                                              Consumer<? super JobCard> action) {
+        return Metrics.timed("JobCardDAO.forEachJobCardOnPage", () -> {
+            StringBuilder sql = new StringBuilder("SELECT * FROM job_cards WHERE 1 = 1");
+            if (status != null) {
+                sql.append(" AND status = ?");
+            }
+            if (vehicleId > 0) {
+                sql.append(" AND vehicle_id = ?");
+            }
+            
+            Timestamp afterOpenDate = null;
+            int afterJobCardId = 0;
+            if (cursor != null) {
+                String[] key = CursorCodec.decode(cursor, 2);
+                try {
+                    afterOpenDate = Timestamp.valueOf(LocalDateTime.parse(key[0]));
+                    afterJobCardId = Integer.parseInt(key[1]);
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                sql.append(" AND open_date <= ? AND (open_date < ? OR job_card_id < ?)");
+            }
+            sql.append(" ORDER BY open_date DESC, job_card_id DESC LIMIT ?");
+            
+            final Timestamp openDate = afterOpenDate;
+            final int afterId = afterJobCardId;
+            try {
+                String nextCursor = JdbcStreams.forEachInPage(sql.toString(), stmt -> {
+                    int index = 1;
+                    if (status != null) {
+                        stmt.setString(index++, status);
+                    }
+                    if (vehicleId > 0) {
+                        stmt.setInt(index++, vehicleId);
+                    }
+                    if (openDate != null) {
+                        stmt.setTimestamp(index++, openDate);
+                        stmt.setTimestamp(index++, openDate);
+                        stmt.setInt(index++, afterId);
+                    }
+                    stmt.setInt(index, pageSize + 1);
+                }, this::extractJobCardFromResultSet, pageSize, jobCard -> CursorCodec.encode(
+                        jobCard.getOpenDate().toString(), String.valueOf(jobCard.getJobCardId())), action);
+                return Page.streamed(nextCursor);
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error processing job cards page", e);
+            }
+            
+            return null;
+        });
     }
     
     /**
@@ -174,23 +530,26 @@ public class JobCardDAO {
      * @return List of JobCard objects
      */
     public List<JobCard> getJobCardsByStatus(String status) {
-        List<JobCard> jobCards = new ArrayList<>();
-        String sql = "SELECT * FROM job_cards WHERE status = ? ORDER BY open_date DESC";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, status);
+        return Metrics.timed("JobCardDAO.getJobCardsByStatus", () -> {
+            List<JobCard> jobCards = new ArrayList<>();
+            String sql = "SELECT * FROM job_cards WHERE status = ? ORDER BY open_date DESC";
             
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                jobCards.add(extractJobCardFromResultSet(rs));
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, status);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    jobCards.add(extractJobCardFromResultSet(rs));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting job cards by status", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error getting job cards by status: " + e.getMessage());
-        }
-        
-        return jobCards;
+            return jobCards;
+        });
     }
     
     /**
@@ -199,23 +558,26 @@ public class JobCardDAO {
      * @return List of JobCard objects
      */
     public List<JobCard> getJobCardsByVehicleId(int vehicleId) {
-        List<JobCard> jobCards = new ArrayList<>();
-        String sql = "SELECT * FROM job_cards WHERE vehicle_id = ? ORDER BY open_date DESC";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, vehicleId);
-            
-            ResultSet rs = stmt.executeQuery();
+        return Metrics.timed("JobCardDAO.getJobCardsByVehicleId", () -> {
+            List<JobCard> jobCards = new ArrayList<>();
+            String sql = "SELECT * FROM job_cards WHERE vehicle_id = ? ORDER BY open_date DESC";
             
-            while (rs.next()) {
-                jobCards.add(extractJobCardFromResultSet(rs));
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, vehicleId);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    jobCards.add(extractJobCardFromResultSet(rs));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting job cards by vehicle ID", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error getting job cards by vehicle ID: " + e.getMessage());
-        }
-        
-        return jobCards;
+            return jobCards;
+        });
     }
     
     /**
@@ -225,36 +587,176 @@ public class JobCardDAO {
      * @return true if successful, false otherwise
      */
     public boolean addServiceToJobCard(int jobCardId, int serviceId) {
-        // First, get the service details to get the standard price
-        String serviceSql = "SELECT * FROM services WHERE service_id = ?";
-        
-        try (PreparedStatement serviceStmt = connection.prepareStatement(serviceSql)) {
-            serviceStmt.setInt(1, serviceId);
+        return Metrics.timed("JobCardDAO.addServiceToJobCard", () -> {
+            // First, get the service details to get the standard price
+            String serviceSql = "SELECT * FROM services WHERE service_id = ?";
             
-            ResultSet serviceRs = serviceStmt.executeQuery();
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement serviceStmt = connection.prepareStatement(serviceSql)) {
+                serviceStmt.setInt(1, serviceId);
+                
+                ResultSet serviceRs = serviceStmt.executeQuery();
+                
+                if (serviceRs.next()) {
+                    double standardPrice = serviceRs.getDouble("standard_price");
+                    
+                    // Now add the service to the job card
+                    String sql = "INSERT INTO job_services (job_card_id, service_id, actual_price, status) " +
+                                 "VALUES (?, ?, ?, 'PENDING')";
+                    
+                    try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                        stmt.setInt(1, jobCardId);
+                        stmt.setInt(2, serviceId);
+                        stmt.setDouble(3, standardPrice);
+                        
+                        int rowsAffected = stmt.executeUpdate();
+                        EntityVersions.bump(Entity.JOB_SERVICES);
+                        return rowsAffected > 0;
+                    }
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error adding service to job card", e);
+            }
             
-            if (serviceRs.next()) {
-                double standardPrice = serviceRs.getDouble("standard_price");
+            return false;
+        });
+    }
+    
+    /**
+     * Add a service to a job card at a known standard price, without looking the service up
+     * @param jobCardId ID of the job card
+     * @param serviceId ID of the service
+     * @param standardPrice Standard price of the service
+     * @return true if successful, false otherwise
+     */
+    public boolean addServiceToJobCard(int jobCardId, int serviceId, BigDecimal standardPrice) {
+        return Metrics.timed("JobCardDAO.addServiceToJobCard", () -> {
+            String sql = "INSERT INTO job_services (job_card_id, service_id, actual_price, status) " +
+                         "VALUES (?, ?, ?, 'PENDING')";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, jobCardId);
+                stmt.setInt(2, serviceId);
+                stmt.setBigDecimal(3, standardPrice);
                 
-                // Now add the service to the job card
-                String sql = "INSERT INTO job_services (job_card_id, service_id, actual_price, status) " +
-                             "VALUES (?, ?, ?, 'PENDING')";
+                int rowsAffected = stmt.executeUpdate();
+                EntityVersions.bump(Entity.JOB_SERVICES);
+                return rowsAffected > 0;
                 
-                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                    stmt.setInt(1, jobCardId);
-                    stmt.setInt(2, serviceId);
-                    stmt.setDouble(3, standardPrice);
+            } catch (SQLException e) {
+                Metrics.recordError("Error adding service to job card", e);
+            }
+            
+            return false;
+        });
+    }
+    
+    /**
+     * Add several services to a job card. Standard prices are read in one query and all
+     * rows are inserted as one batch in a single transaction, so either every service
+     * is added or none is.
+     * @param jobCardId ID of the job card
+     * @param serviceIds IDs of the services, in the order they should be added
+     * @return true if successful, false if any service does not exist or the insert fails
+     */
+    public boolean addServicesToJobCard(int jobCardId, List<Integer> serviceIds) {
+        return Metrics.timed("JobCardDAO.addServicesToJobCard", () -> {
+            if (serviceIds.isEmpty()) {
+                return true;
+            }
+            
+            try (Connection connection = DBConnectionUtil.getConnection()) {
+                Map<Integer, BigDecimal> standardPrices = new HashMap<>();
+                
+                for (List<Integer> chunk : SqlUtil.chunkIds(serviceIds)) {
+                    String sql = "SELECT service_id, standard_price FROM services WHERE service_id IN (" +
+                                 SqlUtil.placeholders(chunk.size()) + ")";
                     
-                    int rowsAffected = stmt.executeUpdate();
-                    return rowsAffected > 0;
+                    try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            stmt.setInt(i + 1, chunk.get(i));
+                        }
+                        
+                        ResultSet rs = stmt.executeQuery();
+                        
+                        while (rs.next()) {
+                            standardPrices.put(rs.getInt("service_id"), rs.getBigDecimal("standard_price"));
+                        }
+                    }
                 }
+                
+                return insertJobServices(connection, jobCardId, serviceIds, standardPrices);
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error adding services to job card", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error adding service to job card: " + e.getMessage());
+            return false;
+        });
+    }
+    
+    /**
+     * Add several services to a job card at known standard prices, as one batch
+     * in a single transaction
+     * @param jobCardId ID of the job card
+     * @param serviceIds IDs of the services, in the order they should be added
+     * @param standardPrices Standard price of each service by service ID
+     * @return true if successful, false if a price is missing or the insert fails
+     */
+    public boolean addServicesToJobCard(int jobCardId, List<Integer> serviceIds, Map<Integer, BigDecimal> standardPrices) {
+        return Metrics.timed("JobCardDAO.addServicesToJobCard", () -> {
+            if (serviceIds.isEmpty()) {
+                return true;
+            }
+            
+            try (Connection connection = DBConnectionUtil.getConnection()) {
+                return insertJobServices(connection, jobCardId, serviceIds, standardPrices);
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error adding services to job card", e);
+            }
+            
+            return false;
+        });
+    }
+    
+    /**
+     * Insert job_services rows as one batch in one transaction on the given connection
+     */
+    private boolean insertJobServices(Connection connection, int jobCardId, List<Integer> serviceIds,
+                                      Map<Integer, BigDecimal> standardPrices) throws SQLException {
+        for (Integer serviceId : serviceIds) {
+            if (standardPrices.get(serviceId) == null) {
+                return false;
+            }
         }
         
-        return false;
+        String sql = "INSERT INTO job_services (job_card_id, service_id, actual_price, status) " +
+                     "VALUES (?, ?, ?, 'PENDING')";
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (Integer serviceId : serviceIds) {
+                stmt.setInt(1, jobCardId);
+                stmt.setInt(2, serviceId);
+                stmt.setBigDecimal(3, standardPrices.get(serviceId));
+                stmt.addBatch();
+            }
+            
+            stmt.executeBatch();
+            connection.commit();
+            EntityVersions.bump(Entity.JOB_SERVICES);
+            return true;
+            
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
     }
     
     /**
@@ -263,38 +765,28 @@ public class JobCardDAO {
      * @return List of JobService objects
      */
     public List<JobService> getServicesForJobCard(int jobCardId) {
-        List<JobService> jobServices = new ArrayList<>();
-        String sql = "SELECT js.*, s.service_name, s.description FROM job_services js " +
-                     "JOIN services s ON js.service_id = s.service_id " +
-                     "WHERE js.job_card_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, jobCardId);
+        return Metrics.timed("JobCardDAO.getServicesForJobCard", () -> {
+            List<JobService> jobServices = new ArrayList<>();
+            String sql = "SELECT js.*, s.service_name, s.description FROM job_services js " +
+                         "JOIN services s ON js.service_id = s.service_id " +
+                         "WHERE js.job_card_id = ?";
             
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                JobService jobService = new JobService();
-                jobService.setJobServiceId(rs.getInt("job_service_id"));
-                jobService.setJobCardId(rs.getInt("job_card_id"));
-                jobService.setServiceId(rs.getInt("service_id"));
-                jobService.setActualPrice(rs.getDouble("actual_price"));
-                jobService.setActualHours(rs.getDouble("actual_hours"));
-                jobService.setNotes(rs.getString("notes"));
-                jobService.setStatus(rs.getString("status"));
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, jobCardId);
                 
-                // Add service details
-                jobService.setServiceName(rs.getString("service_name"));
-                jobService.setDescription(rs.getString("description"));
+                ResultSet rs = stmt.executeQuery();
                 
-                jobServices.add(jobService);
+                while (rs.next()) {
+                    jobServices.add(extractJobServiceFromResultSet(rs, "status"));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting services for job card", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error getting services for job card: " + e.getMessage());
-        }
-        
-        return jobServices;
+            return jobServices;
+        });
     }
     
     /**
@@ -304,20 +796,48 @@ public class JobCardDAO {
      * @return true if successful, false otherwise
      */
     public boolean updateJobServiceStatus(int jobServiceId, String status) {
-        String sql = "UPDATE job_services SET status = ? WHERE job_service_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, status);
-            stmt.setInt(2, jobServiceId);
+        return Metrics.timed("JobCardDAO.updateJobServiceStatus", () -> {
+            String sql = "UPDATE job_services SET status = ? WHERE job_service_id = ?";
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, status);
+                stmt.setInt(2, jobServiceId);
+                
+                int rowsAffected = stmt.executeUpdate();
+                EntityVersions.bump(Entity.JOB_SERVICES);
+                return rowsAffected > 0;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error updating job service status", e);
+            }
             
-        } catch (SQLException e) {
-            System.err.println("Error updating job service status: " + e.getMessage());
-        }
+            return false;
+        });
+    }
+    
+    /**
+     * Helper method to extract a JobService object, with its service details, from a ResultSet
+     * @param rs ResultSet containing job service and service data
+     * @param statusColumn label of the job service status column
+     * @return JobService object
+     * @throws SQLException if there's an error accessing the ResultSet
+     */
+    private JobService extractJobServiceFromResultSet(ResultSet rs, String statusColumn) throws SQLException {
+        JobService jobService = new JobService();
+        jobService.setJobServiceId(rs.getInt("job_service_id"));
+        jobService.setJobCardId(rs.getInt("job_card_id"));
+        jobService.setServiceId(rs.getInt("service_id"));
+        jobService.setActualPrice(rs.getDouble("actual_price"));
+        jobService.setActualHours(rs.getDouble("actual_hours"));
+        jobService.setNotes(rs.getString("notes"));
+        jobService.setStatus(rs.getString(statusColumn));
+        
+        // Add service details
+        jobService.setServiceName(rs.getString("service_name"));
+        jobService.setDescription(rs.getString("description"));
         
-        return false;
+        return jobService;
     }
     
     /**
@@ -0,0 +1,383 @@
+package com.automobile.service.dao;
+
+import com.automobile.service.model.Part;
+import com.automobile.service.model.PartUsage;
+import com.automobile.service.util.DBConnectionUtil;
+import com.automobile.service.util.EntityVersions;
+import com.automobile.service.util.EntityVersions.Entity;
+import com.automobile.service.util.Metrics;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PartDAO class for handling database operations related to Part and PartUsage
+ */
+public class PartDAO {
+    
+    /**
+     * Add a new part to the database
+     * @param part Part object to add
+     * @return true if successful, false otherwise
+     */
+    public boolean addPart(Part part) {
+        return Metrics.timed("PartDAO.addPart", () -> {
+            String sql = "INSERT INTO parts (part_name, part_number, description, unit_price, quantity_in_stock) " +
+                         "VALUES (?, ?, ?, ?, ?)";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, part.getPartName());
+                stmt.setString(2, part.getPartNumber());
+                stmt.setString(3, part.getDescription());
+                stmt.setBigDecimal(4, part.getUnitPrice());
+                stmt.setInt(5, part.getQuantityInStock());
+                
+                int rowsAffected = stmt.executeUpdate();
+                EntityVersions.bump(Entity.PARTS);
+                
+                if (rowsAffected > 0) {
+                    // Get the generated part ID
+                    ResultSet rs = stmt.getGeneratedKeys();
+                    if (rs.next()) {
+                        part.setPartId(rs.getInt(1));
+                    }
+                    return true;
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error adding part", e);
+            }
+            
+            return false;
+        });
+    }
+    
+    /**
+     * Update a part's details. Stock levels are changed only through applyStockDeltas.
+     * @param part Part object with updated information
+     * @return true if successful, false otherwise
+     */
+    public boolean updatePart(Part part) {
+        return Metrics.timed("PartDAO.updatePart", () -> {
+            String sql = "UPDATE parts SET part_name = ?, part_number = ?, description = ?, unit_price = ? " +
+                         "WHERE part_id = ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, part.getPartName());
+                stmt.setString(2, part.getPartNumber());
+                stmt.setString(3, part.getDescription());
+                stmt.setBigDecimal(4, part.getUnitPrice());
+                stmt.setInt(5, part.getPartId());
+                
+                int rowsAffected = stmt.executeUpdate();
+                EntityVersions.bump(Entity.PARTS);
+                return rowsAffected > 0;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error updating part", e);
+            }
+            
+            return false;
+        });
+    }
+    
+    /**
+     * Get a part by ID
+     * @param partId ID of the part to retrieve
+     * @return Part object if found, null otherwise
+     */
+    public Part getPartById(int partId) {
+        return Metrics.timed("PartDAO.getPartById", () -> {
+            String sql = "SELECT * FROM parts WHERE part_id = ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, partId);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                if (rs.next()) {
+                    return extractPartFromResultSet(rs);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting part", e);
+            }
+            
+            return null;
+        });
+    }
+    
+    /**
+     * Get all parts
+     * @return List of Part objects
+     */
+    public List<Part> getAllParts() {
+        return Metrics.timed("PartDAO.getAllParts", () -> {
+            List<Part> parts = new ArrayList<>();
+            String sql = "SELECT * FROM parts ORDER BY part_name";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                ResultSet rs = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    parts.add(extractPartFromResultSet(rs));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting all parts", e);
+            }
+            
+            return parts;
+        });
+    }
+    
+    /**
+     * Get the stored stock level of a part
+     * @param partId ID of the part
+     * @return quantity in stock, or null if the part does not exist or the query fails
+     */
+    public Integer getStockLevel(int partId) {
+        return Metrics.timed("PartDAO.getStockLevel", () -> {
+            String sql = "SELECT quantity_in_stock FROM parts WHERE part_id = ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, partId);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                if (rs.next()) {
+                    return rs.getInt("quantity_in_stock");
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting part stock level", e);
+            }
+            
+            return null;
+        });
+    }
+    
+    /**
+     * Add signed quantities to the stock of several parts as one batch in one transaction.
+     * Each update is relative, so it is never based on a stale read.
+     * @param deltas Map of part ID to quantity to add (negative to remove)
+     * @return true if successful, false otherwise
+     */
+    public boolean applyStockDeltas(Map<Integer, Integer> deltas) {
+        return Metrics.timed("PartDAO.applyStockDeltas", () -> {
+            if (deltas.isEmpty()) {
+                return true;
+            }
+            
+            String sql = "UPDATE parts SET quantity_in_stock = quantity_in_stock + ? WHERE part_id = ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection()) {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    for (Map.Entry<Integer, Integer> delta : deltas.entrySet()) {
+                        stmt.setInt(1, delta.getValue());
+                        stmt.setInt(2, delta.getKey());
+                        stmt.addBatch();
+                    }
+                    
+                    stmt.executeBatch();
+                    connection.commit();
+                    EntityVersions.bump(Entity.PARTS);
+                    return true;
+                    
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error applying part stock changes", e);
+            }
+            
+            return false;
+        });
+    }
+    
+    /**
+     * Record parts used on job services as one batch in one transaction. Either all
+     * usages are added or none are. Generated IDs are stored in the PartUsage objects.
+     * @param usages PartUsage objects to add
+     * @return true if successful, false otherwise
+     */
+    public boolean addPartUsages(List<PartUsage> usages) {
+        return Metrics.timed("PartDAO.addPartUsages", () -> {
+            if (usages.isEmpty()) {
+                return true;
+            }
+            
+            String sql = "INSERT INTO parts_used (job_service_id, part_id, quantity, price_per_unit) VALUES (?, ?, ?, ?)";
+            
+            try (Connection connection = DBConnectionUtil.getConnection()) {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                
+                try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    for (PartUsage usage : usages) {
+                        stmt.setInt(1, usage.getJobServiceId());
+                        stmt.setInt(2, usage.getPartId());
+                        stmt.setInt(3, usage.getQuantity());
+                        stmt.setBigDecimal(4, usage.getPricePerUnit());
+                        stmt.addBatch();
+                    }
+                    
+                    stmt.executeBatch();
+                    connection.commit();
+                    EntityVersions.bump(Entity.PARTS_USED);
+                    
+                    // Get the generated IDs, returned in insert order
+                    ResultSet rs = stmt.getGeneratedKeys();
+                    for (int i = 0; i < usages.size() && rs.next(); i++) {
+                        usages.get(i).setPartsUsedId(rs.getInt(1));
+                    }
+                    return true;
+                    
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error adding part usages", e);
+            }
+            
+            return false;
+        });
+    }
+    
+    /**
+     * Get a part usage by ID
+     * @param partsUsedId ID of the part usage
+     * @return PartUsage object if found, null otherwise
+     */
+    public PartUsage getPartUsageById(int partsUsedId) {
+        return Metrics.timed("PartDAO.getPartUsageById", () -> {
+            String sql = "SELECT pu.*, p.part_name, p.part_number FROM parts_used pu " +
+                         "JOIN parts p ON pu.part_id = p.part_id WHERE pu.parts_used_id = ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, partsUsedId);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                if (rs.next()) {
+                    return extractPartUsageFromResultSet(rs);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting part usage", e);
+            }
+            
+            return null;
+        });
+    }
+    
+    /**
+     * Get the parts used on every service of a job card
+     * @param jobCardId ID of the job card
+     * @return List of PartUsage objects
+     */
+    public List<PartUsage> getPartUsagesForJobCard(int jobCardId) {
+        return Metrics.timed("PartDAO.getPartUsagesForJobCard", () -> {
+            List<PartUsage> usages = new ArrayList<>();
+            String sql = "SELECT pu.*, p.part_name, p.part_number FROM parts_used pu " +
+                         "JOIN job_services js ON pu.job_service_id = js.job_service_id " +
+                         "JOIN parts p ON pu.part_id = p.part_id " +
+                         "WHERE js.job_card_id = ? ORDER BY pu.parts_used_id";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, jobCardId);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    usages.add(extractPartUsageFromResultSet(rs));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting part usages for job card", e);
+            }
+            
+            return usages;
+        });
+    }
+    
+    /**
+     * Delete a part usage
+     * @param partsUsedId ID of the part usage to delete
+     * @return true if successful, false otherwise
+     */
+    public boolean deletePartUsage(int partsUsedId) {
+        return Metrics.timed("PartDAO.deletePartUsage", () -> {
+            String sql = "DELETE FROM parts_used WHERE parts_used_id = ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, partsUsedId);
+                
+                int rowsAffected = stmt.executeUpdate();
+                EntityVersions.bump(Entity.PARTS_USED);
+                return rowsAffected > 0;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error deleting part usage", e);
+            }
+            
+            return false;
+        });
+    }
+    
+    /**
+     * Helper method to extract a Part object from a ResultSet
+     * @param rs ResultSet containing part data
+     * @return Part object
+     * @throws SQLException if a database access error occurs
+     */
+    private Part extractPartFromResultSet(ResultSet rs) throws SQLException {
+        Part part = new Part();
+        part.setPartId(rs.getInt("part_id"));
+        part.setPartName(rs.getString("part_name"));
+        part.setPartNumber(rs.getString("part_number"));
+        part.setDescription(rs.getString("description"));
+        part.setUnitPrice(rs.getBigDecimal("unit_price"));
+        part.setQuantityInStock(rs.getInt("quantity_in_stock"));
+        return part;
+    }
+    
+    /**
+     * Helper method to extract a PartUsage object from a ResultSet
+     * @param rs ResultSet containing part usage data
+     * @return PartUsage object
+     * @throws SQLException if a database access error occurs
+     */
+    static PartUsage extractPartUsageFromResultSet(ResultSet rs) throws SQLException {
+        PartUsage usage = new PartUsage();
+        usage.setPartsUsedId(rs.getInt("parts_used_id"));
+        usage.setJobServiceId(rs.getInt("job_service_id"));
+        usage.setPartId(rs.getInt("part_id"));
+        usage.setQuantity(rs.getInt("quantity"));
+        usage.setPricePerUnit(rs.getBigDecimal("price_per_unit"));
+        usage.setPartName(rs.getString("part_name"));
+        usage.setPartNumber(rs.getString("part_number"));
+        return usage;
+    }
+}
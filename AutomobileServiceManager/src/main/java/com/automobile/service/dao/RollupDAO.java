@@ -0,0 +1,259 @@
+package com.automobile.service.dao;
+
+import com.automobile.service.model.Rollup;
+import com.automobile.service.util.DBConnectionUtil;
+import com.automobile.service.util.Metrics;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * RollupDAO class for handling database operations related to the daily_rollups table
+ */
+public class RollupDAO {
+    
+    private static final String TOTALS_COLUMNS =
+            "SUM(jobs_opened) AS jobs_opened, SUM(jobs_closed) AS jobs_closed, SUM(bills_created) AS bills_created, " +
+            "SUM(service_revenue) AS service_revenue, SUM(parts_revenue) AS parts_revenue, " +
+            "SUM(tax_collected) AS tax_collected, SUM(discounts_given) AS discounts_given, " +
+            "SUM(grand_total) AS grand_total ";
+    
+    // Per-day totals of one date range, computed from the source tables. Each branch
+    // is a range scan on an index of its date column.
+    private static final String REBUILD_SQL =
+            "INSERT INTO daily_rollups (rollup_date, jobs_opened, jobs_closed, bills_created, service_revenue, " +
+            "parts_revenue, tax_collected, discounts_given, grand_total) " +
+            "SELECT day, " + TOTALS_COLUMNS + "FROM (" +
+            "  SELECT DATE(open_date) AS day, COUNT(*) AS jobs_opened, 0 AS jobs_closed, 0 AS bills_created, " +
+            "         0 AS service_revenue, 0 AS parts_revenue, 0 AS tax_collected, 0 AS discounts_given, 0 AS grand_total " +
+            "  FROM job_cards WHERE open_date >= ? AND open_date < ? GROUP BY DATE(open_date) " +
+            "  UNION ALL " +
+            "  SELECT DATE(close_date), 0, COUNT(*), 0, 0, 0, 0, 0, 0 " +
+            "  FROM job_cards WHERE close_date >= ? AND close_date < ? GROUP BY DATE(close_date) " +
+            "  UNION ALL " +
+            "  SELECT DATE(bill_date), 0, 0, COUNT(*), SUM(total_service_cost), SUM(total_parts_cost), " +
+            "         SUM(tax_amount), SUM(COALESCE(discount_amount, 0)), SUM(grand_total) " +
+            "  FROM billing WHERE bill_date >= ? AND bill_date < ? GROUP BY DATE(bill_date) " +
+            ") source GROUP BY day";
+    
+    /**
+     * Add totals to the rollup rows of their days in one batched transaction,
+     * creating rows for days that have none yet
+     * @param deltas Rollup objects whose periodStart is the day to add to
+     * @return true if successful, false otherwise
+     */
+    public boolean addToDailyRollups(Collection<Rollup> deltas) {
+        return Metrics.timed("RollupDAO.addToDailyRollups", () -> {
+            if (deltas.isEmpty()) {
+                return true;
+            }
+            
+            String sql = "INSERT INTO daily_rollups (rollup_date, jobs_opened, jobs_closed, bills_created, service_revenue, " +
+                         "parts_revenue, tax_collected, discounts_given, grand_total) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                         "ON DUPLICATE KEY UPDATE jobs_opened = jobs_opened + VALUES(jobs_opened), " +
+                         "jobs_closed = jobs_closed + VALUES(jobs_closed), " +
+                         "bills_created = bills_created + VALUES(bills_created), " +
+                         "service_revenue = service_revenue + VALUES(service_revenue), " +
+                         "parts_revenue = parts_revenue + VALUES(parts_revenue), " +
+                         "tax_collected = tax_collected + VALUES(tax_collected), " +
+                         "discounts_given = discounts_given + VALUES(discounts_given), " +
+                         "grand_total = grand_total + VALUES(grand_total)";
+            
+            try (Connection connection = DBConnectionUtil.getConnection()) {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    for (Rollup delta : deltas) {
+                        stmt.setDate(1, Date.valueOf(delta.getPeriodStart()));
+                        stmt.setInt(2, delta.getJobsOpened());
+                        stmt.setInt(3, delta.getJobsClosed());
+                        stmt.setInt(4, delta.getBillsCreated());
+                        stmt.setBigDecimal(5, delta.getServiceRevenue());
+                        stmt.setBigDecimal(6, delta.getPartsRevenue());
+                        stmt.setBigDecimal(7, delta.getTaxCollected());
+                        stmt.setBigDecimal(8, delta.getDiscountsGiven());
+                        stmt.setBigDecimal(9, delta.getGrandTotal());
+                        stmt.addBatch();
+                    }
+                    
+                    stmt.executeBatch();
+                    connection.commit();
+                    return true;
+                    
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error updating daily rollups", e);
+            }
+            
+            return false;
+        });
+    }
+    
+    /**
+     * Recompute the rollup rows of a date range from job_cards and billing in one transaction
+     * @param from first day to recompute
+     * @param to day after the last day to recompute
+     * @return number of days with activity, or -1 if failed
+     */
+    public int rebuildDailyRollups(LocalDate from, LocalDate to) {
+        return Metrics.timed("RollupDAO.rebuildDailyRollups", () -> {
+            String deleteSql = "DELETE FROM daily_rollups WHERE rollup_date >= ? AND rollup_date < ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection()) {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                
+                try (PreparedStatement deleteStmt = connection.prepareStatement(deleteSql);
+                     PreparedStatement insertStmt = connection.prepareStatement(REBUILD_SQL)) {
+                    deleteStmt.setDate(1, Date.valueOf(from));
+                    deleteStmt.setDate(2, Date.valueOf(to));
+                    deleteStmt.executeUpdate();
+                    
+                    Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+                    Timestamp end = Timestamp.valueOf(to.atStartOfDay());
+                    for (int i = 1; i <= 6; i += 2) {
+                        insertStmt.setTimestamp(i, start);
+                        insertStmt.setTimestamp(i + 1, end);
+                    }
+                    
+                    int days = insertStmt.executeUpdate();
+                    connection.commit();
+                    return days;
+                    
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error rebuilding daily rollups", e);
+            }
+            
+            return -1;
+        });
+    }
+    
+    /**
+     * Get the earliest day with a job card or bill
+     * @return earliest day, or null if there is no activity or the query fails
+     */
+    public LocalDate getFirstActivityDate() {
+        return Metrics.timed("RollupDAO.getFirstActivityDate", () -> {
+            String sql = "SELECT MIN(first_date) AS first_date FROM (" +
+                         "SELECT MIN(open_date) AS first_date FROM job_cards " +
+                         "UNION ALL SELECT MIN(bill_date) FROM billing) dates";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                ResultSet rs = stmt.executeQuery();
+                
+                if (rs.next()) {
+                    Timestamp firstDate = rs.getTimestamp("first_date");
+                    return firstDate != null ? firstDate.toLocalDateTime().toLocalDate() : null;
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting first activity date", e);
+            }
+            
+            return null;
+        });
+    }
+    
+    /**
+     * Get the rollup rows of a date range
+     * @param from first day
+     * @param to day after the last day
+     * @return List of Rollup objects, one per day with activity, in date order
+     */
+    public List<Rollup> getDailyRollups(LocalDate from, LocalDate to) {
+        return Metrics.timed("RollupDAO.getDailyRollups", () -> {
+            String sql = "SELECT rollup_date AS period_start, jobs_opened, jobs_closed, bills_created, service_revenue, " +
+                         "parts_revenue, tax_collected, discounts_given, grand_total FROM daily_rollups " +
+                         "WHERE rollup_date >= ? AND rollup_date < ? ORDER BY rollup_date";
+            return queryRollups(sql, from, to);
+        });
+    }
+    
+    /**
+     * Get totals per month of a date range, summed from the daily rollup rows
+     * @param from first day
+     * @param to day after the last day
+     * @return List of Rollup objects, one per month with activity, in date order
+     */
+    public List<Rollup> getMonthlyRollups(LocalDate from, LocalDate to) {
+        return Metrics.timed("RollupDAO.getMonthlyRollups", () -> {
+            String sql = "SELECT DATE_SUB(rollup_date, INTERVAL DAYOFMONTH(rollup_date) - 1 DAY) AS period_start, " +
+                         TOTALS_COLUMNS + "FROM daily_rollups WHERE rollup_date >= ? AND rollup_date < ? " +
+                         "GROUP BY period_start ORDER BY period_start";
+            return queryRollups(sql, from, to);
+        });
+    }
+    
+    /**
+     * Get totals per year of a date range, summed from the daily rollup rows
+     * @param from first day
+     * @param to day after the last day
+     * @return List of Rollup objects, one per year with activity, in date order
+     */
+    public List<Rollup> getYearlyRollups(LocalDate from, LocalDate to) {
+        return Metrics.timed("RollupDAO.getYearlyRollups", () -> {
+            String sql = "SELECT MAKEDATE(YEAR(rollup_date), 1) AS period_start, " +
+                         TOTALS_COLUMNS + "FROM daily_rollups WHERE rollup_date >= ? AND rollup_date < ? " +
+                         "GROUP BY period_start ORDER BY period_start";
+            return queryRollups(sql, from, to);
+        });
+    }
+    
+    private List<Rollup> queryRollups(String sql, LocalDate from, LocalDate to) {
+        List<Rollup> rollups = new ArrayList<>();
+        
+        try (Connection connection = DBConnectionUtil.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(to));
+            
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                rollups.add(extractRollupFromResultSet(rs));
+            }
+            
+        } catch (SQLException e) {
+            Metrics.recordError("Error getting rollups", e);
+        }
+        
+        return rollups;
+    }
+    
+    /**
+     * Helper method to extract a Rollup object from a ResultSet
+     * @param rs ResultSet containing rollup data
+     * @return Rollup object
+     * @throws SQLException if a database access error occurs
+     */
+    private Rollup extractRollupFromResultSet(ResultSet rs) throws SQLException {
+        Rollup rollup = new Rollup(rs.getDate("period_start").toLocalDate());
+        rollup.setJobsOpened(rs.getInt("jobs_opened"));
+        rollup.setJobsClosed(rs.getInt("jobs_closed"));
+        rollup.setBillsCreated(rs.getInt("bills_created"));
+        rollup.setServiceRevenue(rs.getBigDecimal("service_revenue"));
+        rollup.setPartsRevenue(rs.getBigDecimal("parts_revenue"));
+        rollup.setTaxCollected(rs.getBigDecimal("tax_collected"));
+        rollup.setDiscountsGiven(rs.getBigDecimal("discounts_given"));
+        rollup.setGrandTotal(rs.getBigDecimal("grand_total"));
+        return rollup;
+    }
+}
@@ -1,59 +1,60 @@
 package com.automobile.service.dao;
 
+import com.automobile.service.model.Page;
 import com.automobile.service.model.Service;
+import com.automobile.service.util.CursorCodec;
 import com.automobile.service.util.DBConnectionUtil;
+import com.automobile.service.util.EntityVersions;
+import com.automobile.service.util.EntityVersions.Entity;
+import com.automobile.service.util.JdbcStreams;
+import com.automobile.service.util.Metrics;
 
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * ServiceDAO class for handling database operations related to Service
  */
 public class ServiceDAO {
     
-    private Connection connection;
-    
-    public ServiceDAO() {
-        try {
-            this.connection = DBConnectionUtil.getConnection();
-        } catch (SQLException e) {
-            System.err.println("Error initializing ServiceDAO: " + e.getMessage());
-        }
-    }
-    
     /**
      * Add a new service to the database
      * @param service Service object to add
      * @return true if successful, false otherwise
      */
     public boolean addService(Service service) {
-        String sql = "INSERT INTO services (service_name, description, standard_price, estimated_hours) " +
-                     "VALUES (?, ?, ?, ?)";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setString(1, service.getServiceName());
-            stmt.setString(2, service.getDescription());
-            stmt.setBigDecimal(3, service.getStandardPrice());
-            stmt.setBigDecimal(4, service.getEstimatedHours());
+        return Metrics.timed("ServiceDAO.addService", () -> {
+            String sql = "INSERT INTO services (service_name, description, standard_price, estimated_hours) " +
+                         "VALUES (?, ?, ?, ?)";
             
-            int rowsAffected = stmt.executeUpdate();
-            
-            if (rowsAffected > 0) {
-                // Get the generated service ID
-                ResultSet rs = stmt.getGeneratedKeys();
-                if (rs.next()) {
-                    service.setServiceId(rs.getInt(1));
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, service.getServiceName());
+                stmt.setString(2, service.getDescription());
+                stmt.setBigDecimal(3, service.getStandardPrice());
+                stmt.setBigDecimal(4, service.getEstimatedHours());
+                
+                int rowsAffected = stmt.executeUpdate();
+                EntityVersions.bump(Entity.SERVICES);
+                
+                if (rowsAffected > 0) {
+                    // Get the generated service ID
+                    ResultSet rs = stmt.getGeneratedKeys();
+                    if (rs.next()) {
+                        service.setServiceId(rs.getInt(1));
+                    }
+                    return true;
                 }
-                return true;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error adding service", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error adding service: " + e.getMessage());
-        }
-        
-        return false;
+            return false;
+        });
     }
     
     /**
@@ -62,25 +63,29 @@ public class ServiceDAO {
      * @return true if successful, false otherwise
      */
     public boolean updateService(Service service) {
-        String sql = "UPDATE services SET service_name = ?, description = ?, " +
-                     "standard_price = ?, estimated_hours = ? " +
-                     "WHERE service_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, service.getServiceName());
-            stmt.setString(2, service.getDescription());
-            stmt.setBigDecimal(3, service.getStandardPrice());
-            stmt.setBigDecimal(4, service.getEstimatedHours());
-            stmt.setInt(5, service.getServiceId());
-            
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
-            
-        } catch (SQLException e) {
-            System.err.println("Error updating service: " + e.getMessage());
-        }
-        
-        return false;
+        return Metrics.timed("ServiceDAO.updateService", () -> {
+            String sql = "UPDATE services SET service_name = ?, description = ?, " +
+                         "standard_price = ?, estimated_hours = ? " +
+                         "WHERE service_id = ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, service.getServiceName());
+                stmt.setString(2, service.getDescription());
+                stmt.setBigDecimal(3, service.getStandardPrice());
+                stmt.setBigDecimal(4, service.getEstimatedHours());
+                stmt.setInt(5, service.getServiceId());
+                
+                int rowsAffected = stmt.executeUpdate();
+                EntityVersions.bump(Entity.SERVICES);
+                return rowsAffected > 0;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error updating service", e);
+            }
+            
+            return false;
+        });
     }
     
     /**
@@ -89,19 +94,23 @@ public class ServiceDAO {
      * @return true if successful, false otherwise
      */
     public boolean deleteService(int serviceId) {
-        String sql = "DELETE FROM services WHERE service_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, serviceId);
+        return Metrics.timed("ServiceDAO.deleteService", () -> {
+            String sql = "DELETE FROM services WHERE service_id = ?";
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, serviceId);
+                
+                int rowsAffected = stmt.executeUpdate();
+                EntityVersions.bump(Entity.SERVICES);
+                return rowsAffected > 0;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error deleting service", e);
+            }
             
-        } catch (SQLException e) {
-            System.err.println("Error deleting service: " + e.getMessage());
-        }
-        
-        return false;
+            return false;
+        });
     }
     
     /**
@@ -110,22 +119,25 @@ public class ServiceDAO {
      * @return Service object if found, null otherwise
      */
     public Service getServiceById(int serviceId) {
-        String sql = "SELECT * FROM services WHERE service_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, serviceId);
-            
-            ResultSet rs = stmt.executeQuery();
+        return Metrics.timed("ServiceDAO.getServiceById", () -> {
+            String sql = "SELECT * FROM services WHERE service_id = ?";
             
-            if (rs.next()) {
-                return extractServiceFromResultSet(rs);
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, serviceId);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                if (rs.next()) {
+                    return extractServiceFromResultSet(rs);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting service by ID", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error getting service by ID: " + e.getMessage());
-        }
-        
-        return null;
+            return null;
+        });
     }
     
     /**
@@ -133,21 +145,136 @@ public class ServiceDAO {
      * @return List of Service objects
      */
     public List<Service> getAllServices() {
-        List<Service> services = new ArrayList<>();
-        String sql = "SELECT * FROM services ORDER BY service_name";
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        return Metrics.timed("ServiceDAO.getAllServices", () -> {
+            List<Service> services = new ArrayList<>();
+            String sql = "SELECT * FROM services ORDER BY service_name";
             
-            while (rs.next()) {
-                services.add(extractServiceFromResultSet(rs));
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                
+                while (rs.next()) {
+                    services.add(extractServiceFromResultSet(rs));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting all services", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error getting all services: " + e.getMessage());
-        }
-        
-        return services;
+            return services;
+        });
+    }
+    
+    /**
+     * Get one page of services ordered by name, using keyset pagination.
+     * Each page seeks past the last row of the previous one, so page N costs the same as page 1.
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param pageSize Maximum number of services to return
+     * @return Page of Service objects
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Page<Service> getServicesPage(String cursor, int pageSize) {
+        return Metrics.timed("ServiceDAO.getServicesPage", () -> {
+            List<Service> services = new ArrayList<>();
+            
+            String[] key = null;
+            int afterServiceId = 0;
+            if (cursor != null) {
+                key = CursorCodec.decode(cursor, 2);
+                try {
+                    afterServiceId = Integer.parseInt(key[1]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+            }
+            
+            String sql = cursor == null
+                    ? "SELECT * FROM services ORDER BY service_name, service_id LIMIT ?"
+                    : "SELECT * FROM services WHERE service_name >= ? AND " +
+                      "(service_name > ? OR service_id > ?) ORDER BY service_name, service_id LIMIT ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                int index = 1;
+                if (key != null) {
+                    stmt.setString(index++, key[0]);
+                    stmt.setString(index++, key[0]);
+                    stmt.setInt(index++, afterServiceId);
+                }
+                stmt.setInt(index, pageSize + 1);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    services.add(extractServiceFromResultSet(rs));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting services page", e);
+            }
+            
+            return Page.of(services, pageSize, service -> CursorCodec.encode(
+                    service.getServiceName(), String.valueOf(service.getServiceId())));
+        });
+    }
+    
+    /**
+     * Pass one page of services ordered by name to a consumer as rows are read, using
+     * keyset pagination, so a page of any size is handled without collecting it in memory
+     * @param name Text the service name must contain, or null for any name
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param pageSize Maximum number of services to pass on
+     * @param action Consumer receiving each Service
+     * @return Page holding only the next cursor, or null if the query failed
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Page<Service> forEachServiceOnPage(String name, String cursor, int pageSize,
+                                              Consumer<? super Service> action) {
+        return Metrics.timed("ServiceDAO.forEachServiceOnPage", () -> {
+            String[] key = null;
+            int afterServiceId = 0;
+            if (cursor != null) {
+                key = CursorCodec.decode(cursor, 2);
+                try {
+                    afterServiceId = Integer.parseInt(key[1]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+            }
+            
+            StringBuilder sql = new StringBuilder("SELECT * FROM services WHERE 1 = 1");
+            if (name != null) {
+                sql.append(" AND service_name LIKE ?");
+            }
+            if (key != null) {
+                sql.append(" AND service_name >= ? AND (service_name > ? OR service_id > ?)");
+            }
+            sql.append(" ORDER BY service_name, service_id LIMIT ?");
+            
+            final String[] afterKey = key;
+            final int afterId = afterServiceId;
+            try {
+                String nextCursor = JdbcStreams.forEachInPage(sql.toString(), stmt -> {
+                    int index = 1;
+                    if (name != null) {
+                        stmt.setString(index++, "%" + name + "%");
+                    }
+                    if (afterKey != null) {
+                        stmt.setString(index++, afterKey[0]);
+                        stmt.setString(index++, afterKey[0]);
+                        stmt.setInt(index++, afterId);
+                    }
+                    stmt.setInt(index, pageSize + 1);
+                }, this::extractServiceFromResultSet, pageSize, service -> CursorCodec.encode(
+                        service.getServiceName(), String.valueOf(service.getServiceId())), action);
+                return Page.streamed(nextCursor);
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error processing services page", e);
+            }
+            
+            return null;
+        });
     }
     
     /**
@@ -156,23 +283,26 @@ public class ServiceDAO {
      * @return List of matching Service objects
      */
     public List<Service> searchServicesByName(String name) {
-        List<Service> services = new ArrayList<>();
-        String sql = "SELECT * FROM services WHERE service_name LIKE ? ORDER BY service_name";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, "%" + name + "%");
+        return Metrics.timed("ServiceDAO.searchServicesByName", () -> {
+            List<Service> services = new ArrayList<>();
+            String sql = "SELECT * FROM services WHERE service_name LIKE ? ORDER BY service_name";
             
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                services.add(extractServiceFromResultSet(rs));
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, "%" + name + "%");
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    services.add(extractServiceFromResultSet(rs));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error searching services by name", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error searching services by name: " + e.getMessage());
-        }
-        
-        return services;
+            return services;
+        });
     }
     
     /**
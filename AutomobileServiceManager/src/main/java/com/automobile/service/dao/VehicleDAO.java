@@ -1,63 +1,107 @@
 package com.automobile.service.dao;
 
+import com.automobile.service.model.Page;
 import com.automobile.service.model.Vehicle;
+import com.automobile.service.util.CursorCodec;
 import com.automobile.service.util.DBConnectionUtil;
+import com.automobile.service.util.EntityVersions;
+import com.automobile.service.util.EntityVersions.Entity;
+import com.automobile.service.util.JdbcBatches;
+import com.automobile.service.util.JdbcStreams;
+import com.automobile.service.util.Metrics;
+import com.automobile.service.util.SqlUtil;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * VehicleDAO class for handling database operations related to Vehicle
  */
 public class VehicleDAO {
     
-    private Connection connection;
-    
-    public VehicleDAO() {
-        try {
-            this.connection = DBConnectionUtil.getConnection();
-        } catch (SQLException e) {
-            System.err.println("Error initializing VehicleDAO: " + e.getMessage());
-        }
-    }
-    
     /**
      * Add a new vehicle to the database
      * @param vehicle Vehicle object to add
      * @return true if successful, false otherwise
      */
     public boolean addVehicle(Vehicle vehicle) {
-        String sql = "INSERT INTO vehicles (customer_id, make, model, year, license_plate, vin, color, mileage) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setInt(1, vehicle.getCustomerId());
-            stmt.setString(2, vehicle.getMake());
-            stmt.setString(3, vehicle.getModel());
-            stmt.setInt(4, vehicle.getYear());
-            stmt.setString(5, vehicle.getLicensePlate());
-            stmt.setString(6, vehicle.getVin());
-            stmt.setString(7, vehicle.getColor());
-            stmt.setInt(8, vehicle.getMileage());
-            
-            int rowsAffected = stmt.executeUpdate();
-            
-            if (rowsAffected > 0) {
-                // Get the generated vehicle ID
-                ResultSet rs = stmt.getGeneratedKeys();
-                if (rs.next()) {
-                    vehicle.setVehicleId(rs.getInt(1));
+        return Metrics.timed("VehicleDAO.addVehicle", () -> {
+            String sql = "INSERT INTO vehicles (customer_id, make, model, year, license_plate, vin, color, mileage) " +
+                         "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setInt(1, vehicle.getCustomerId());
+                stmt.setString(2, vehicle.getMake());
+                stmt.setString(3, vehicle.getModel());
+                stmt.setInt(4, vehicle.getYear());
+                stmt.setString(5, vehicle.getLicensePlate());
+                stmt.setString(6, vehicle.getVin());
+                stmt.setString(7, vehicle.getColor());
+                stmt.setInt(8, vehicle.getMileage());
+                
+                int rowsAffected = stmt.executeUpdate();
+                EntityVersions.bump(Entity.VEHICLES);
+                
+                if (rowsAffected > 0) {
+                    // Get the generated vehicle ID
+                    ResultSet rs = stmt.getGeneratedKeys();
+                    if (rs.next()) {
+                        vehicle.setVehicleId(rs.getInt(1));
+                    }
+                    return true;
                 }
-                return true;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error adding vehicle", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error adding vehicle: " + e.getMessage());
-        }
-        
-        return false;
+            return false;
+        });
+    }
+    
+    /**
+     * Add several vehicles in one batched transaction. Generated IDs are stored in
+     * the Vehicle objects that were inserted.
+     * @param vehicles Vehicle objects to add
+     * @return Map of list index to error message for vehicles that were not added
+     */
+    public Map<Integer, String> addVehicles(List<Vehicle> vehicles) {
+        return Metrics.timed("VehicleDAO.addVehicles", () -> {
+            String sql = "INSERT INTO vehicles (customer_id, make, model, year, license_plate, vin, color, mileage) " +
+                         "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+            
+            try {
+                Map<Integer, String> failures = JdbcBatches.insert(sql, vehicles, (stmt, vehicle) -> {
+                    stmt.setInt(1, vehicle.getCustomerId());
+                    stmt.setString(2, vehicle.getMake());
+                    stmt.setString(3, vehicle.getModel());
+                    stmt.setInt(4, vehicle.getYear());
+                    stmt.setString(5, vehicle.getLicensePlate());
+                    stmt.setString(6, vehicle.getVin());
+                    stmt.setString(7, vehicle.getColor());
+                    stmt.setInt(8, vehicle.getMileage());
+                }, Vehicle::setVehicleId);
+                EntityVersions.bump(Entity.VEHICLES);
+                return failures;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error adding vehicles", e);
+                
+                Map<Integer, String> failures = new HashMap<>();
+                for (int i = 0; i < vehicles.size(); i++) {
+                    failures.put(i, e.getMessage());
+                }
+                return failures;
+            }
+        });
     }
     
     /**
@@ -66,36 +110,40 @@ public class VehicleDAO {
      * @return true if successful, false otherwise
      */
     public boolean updateVehicle(Vehicle vehicle) {
-        String sql = "UPDATE vehicles SET customer_id = ?, make = ?, model = ?, year = ?, " +
-                     "license_plate = ?, vin = ?, color = ?, mileage = ?, last_service_date = ? " +
-                     "WHERE vehicle_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, vehicle.getCustomerId());
-            stmt.setString(2, vehicle.getMake());
-            stmt.setString(3, vehicle.getModel());
-            stmt.setInt(4, vehicle.getYear());
-            stmt.setString(5, vehicle.getLicensePlate());
-            stmt.setString(6, vehicle.getVin());
-            stmt.setString(7, vehicle.getColor());
-            stmt.setInt(8, vehicle.getMileage());
-            
-            if (vehicle.getLastServiceDate() != null) {
-                stmt.setDate(9, Date.valueOf(vehicle.getLastServiceDate()));
-            } else {
-                stmt.setNull(9, Types.DATE);
-            }
-            
-            stmt.setInt(10, vehicle.getVehicleId());
+        return Metrics.timed("VehicleDAO.updateVehicle", () -> {
+            String sql = "UPDATE vehicles SET customer_id = ?, make = ?, model = ?, year = ?, " +
+                         "license_plate = ?, vin = ?, color = ?, mileage = ?, last_service_date = ? " +
+                         "WHERE vehicle_id = ?";
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, vehicle.getCustomerId());
+                stmt.setString(2, vehicle.getMake());
+                stmt.setString(3, vehicle.getModel());
+                stmt.setInt(4, vehicle.getYear());
+                stmt.setString(5, vehicle.getLicensePlate());
+                stmt.setString(6, vehicle.getVin());
+                stmt.setString(7, vehicle.getColor());
+                stmt.setInt(8, vehicle.getMileage());
+                
+                if (vehicle.getLastServiceDate() != null) {
+                    stmt.setDate(9, Date.valueOf(vehicle.getLastServiceDate()));
+                } else {
+                    stmt.setNull(9, Types.DATE);
+                }
+                
+                stmt.setInt(10, vehicle.getVehicleId());
+                
+                int rowsAffected = stmt.executeUpdate();
+                EntityVersions.bump(Entity.VEHICLES);
+                return rowsAffected > 0;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error updating vehicle", e);
+            }
             
-        } catch (SQLException e) {
-            System.err.println("Error updating vehicle: " + e.getMessage());
-        }
-        
-        return false;
+            return false;
+        });
     }
     
     /**
@@ -104,19 +152,24 @@ public class VehicleDAO {
      * @return true if successful, false otherwise
      */
     public boolean deleteVehicle(int vehicleId) {
-        String sql = "DELETE FROM vehicles WHERE vehicle_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, vehicleId);
+        return Metrics.timed("VehicleDAO.deleteVehicle", () -> {
+            String sql = "DELETE FROM vehicles WHERE vehicle_id = ?";
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, vehicleId);
+                
+                int rowsAffected = stmt.executeUpdate();
+                // The delete cascades to the vehicle's job cards and everything recorded on them
+                EntityVersions.bump(Entity.VEHICLES, Entity.JOB_CARDS, Entity.JOB_SERVICES, Entity.PARTS_USED, Entity.BILLING);
+                return rowsAffected > 0;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error deleting vehicle", e);
+            }
             
-        } catch (SQLException e) {
-            System.err.println("Error deleting vehicle: " + e.getMessage());
-        }
-        
-        return false;
+            return false;
+        });
     }
     
     /**
@@ -125,22 +178,64 @@ public class VehicleDAO {
      * @return Vehicle object if found, null otherwise
      */
     public Vehicle getVehicleById(int vehicleId) {
-        String sql = "SELECT * FROM vehicles WHERE vehicle_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, vehicleId);
+        return Metrics.timed("VehicleDAO.getVehicleById", () -> {
+            String sql = "SELECT * FROM vehicles WHERE vehicle_id = ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, vehicleId);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                if (rs.next()) {
+                    return extractVehicleFromResultSet(rs);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting vehicle by ID", e);
+            }
             
-            ResultSet rs = stmt.executeQuery();
+            return null;
+        });
+    }
+    
+    /**
+     * Get vehicles for a set of IDs using chunked IN-list queries on one connection
+     * @param vehicleIds IDs of the vehicles to retrieve
+     * @return Map of vehicle ID to Vehicle object; IDs that were not found are absent
+     */
+    public Map<Integer, Vehicle> getVehiclesByIds(Collection<Integer> vehicleIds) {
+        return Metrics.timed("VehicleDAO.getVehiclesByIds", () -> {
+            Map<Integer, Vehicle> vehicles = new HashMap<>();
+            List<List<Integer>> chunks = SqlUtil.chunkIds(vehicleIds);
+            if (chunks.isEmpty()) {
+                return vehicles;
+            }
             
-            if (rs.next()) {
-                return extractVehicleFromResultSet(rs);
+            try (Connection connection = DBConnectionUtil.getConnection()) {
+                for (List<Integer> chunk : chunks) {
+                    String sql = "SELECT * FROM vehicles WHERE vehicle_id IN (" + SqlUtil.placeholders(chunk.size()) + ")";
+                    
+                    try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            stmt.setInt(i + 1, chunk.get(i));
+                        }
+                        
+                        ResultSet rs = stmt.executeQuery();
+                        
+                        while (rs.next()) {
+                            Vehicle vehicle = extractVehicleFromResultSet(rs);
+                            vehicles.put(vehicle.getVehicleId(), vehicle);
+                        }
+                    }
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting vehicles by IDs", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error getting vehicle by ID: " + e.getMessage());
-        }
-        
-        return null;
+            return vehicles;
+        });
     }
     
     /**
@@ -149,22 +244,80 @@ public class VehicleDAO {
      * @return Vehicle object if found, null otherwise
      */
     public Vehicle getVehicleByLicensePlate(String licensePlate) {
-        String sql = "SELECT * FROM vehicles WHERE license_plate = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, licensePlate);
+        return Metrics.timed("VehicleDAO.getVehicleByLicensePlate", () -> {
+            String sql = "SELECT * FROM vehicles WHERE license_plate = ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, licensePlate);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                if (rs.next()) {
+                    return extractVehicleFromResultSet(rs);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting vehicle by license plate", e);
+            }
             
-            ResultSet rs = stmt.executeQuery();
+            return null;
+        });
+    }
+    
+    /**
+     * Get a vehicle by normalized license plate, ignoring spaces, dashes and case.
+     * plate_key is unique, so at most one vehicle matches.
+     * @param plateKey License plate normalized with VehicleIdentifiers.normalizePlate
+     * @return Vehicle object if found, null otherwise
+     */
+    public Vehicle getVehicleByPlateKey(String plateKey) {
+        return Metrics.timed("VehicleDAO.getVehicleByPlateKey", () -> {
+            String sql = "SELECT * FROM vehicles WHERE plate_key = ?";
             
-            if (rs.next()) {
-                return extractVehicleFromResultSet(rs);
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, plateKey);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                if (rs.next()) {
+                    return extractVehicleFromResultSet(rs);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting vehicle by plate key", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error getting vehicle by license plate: " + e.getMessage());
-        }
-        
-        return null;
+            return null;
+        });
+    }
+    
+    /**
+     * Get a vehicle by VIN
+     * @param vin VIN to search for
+     * @return Vehicle object if found, null otherwise
+     */
+    public Vehicle getVehicleByVin(String vin) {
+        return Metrics.timed("VehicleDAO.getVehicleByVin", () -> {
+            String sql = "SELECT * FROM vehicles WHERE vin = ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, vin);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                if (rs.next()) {
+                    return extractVehicleFromResultSet(rs);
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting vehicle by VIN", e);
+            }
+            
+            return null;
+        });
     }
     
     /**
@@ -173,23 +326,26 @@ public class VehicleDAO {
      * @return List of Vehicle objects
      */
     public List<Vehicle> getVehiclesByCustomerId(int customerId) {
-        List<Vehicle> vehicles = new ArrayList<>();
-        String sql = "SELECT * FROM vehicles WHERE customer_id = ? ORDER BY year DESC, make, model";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, customerId);
-            
-            ResultSet rs = stmt.executeQuery();
+        return Metrics.timed("VehicleDAO.getVehiclesByCustomerId", () -> {
+            List<Vehicle> vehicles = new ArrayList<>();
+            String sql = "SELECT * FROM vehicles WHERE customer_id = ? ORDER BY year DESC, make, model";
             
-            while (rs.next()) {
-                vehicles.add(extractVehicleFromResultSet(rs));
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, customerId);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    vehicles.add(extractVehicleFromResultSet(rs));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting vehicles by customer ID", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error getting vehicles by customer ID: " + e.getMessage());
-        }
-        
-        return vehicles;
+            return vehicles;
+        });
     }
     
     /**
@@ -197,21 +353,199 @@ public class VehicleDAO {
      * @return List of Vehicle objects
      */
     public List<Vehicle> getAllVehicles() {
-        List<Vehicle> vehicles = new ArrayList<>();
-        String sql = "SELECT * FROM vehicles ORDER BY make, model, year DESC";
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        return Metrics.timed("VehicleDAO.getAllVehicles", () -> {
+            List<Vehicle> vehicles = new ArrayList<>();
+            String sql = "SELECT * FROM vehicles ORDER BY make, model, year DESC";
             
-            while (rs.next()) {
-                vehicles.add(extractVehicleFromResultSet(rs));
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                
+                while (rs.next()) {
+                    vehicles.add(extractVehicleFromResultSet(rs));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting all vehicles", e);
             }
             
-        } catch (SQLException e) {
-            System.err.println("Error getting all vehicles: " + e.getMessage());
-        }
-        
-        return vehicles;
+            return vehicles;
+        });
+    }
+    
+    /**
+     * Get one page of vehicles ordered by make, model and newest year, using keyset pagination.
+     * Each page seeks past the last row of the previous one, so page N costs the same as page 1.
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param pageSize Maximum number of vehicles to return
+     * @return Page of Vehicle objects
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Page<Vehicle> getVehiclesPage(String cursor, int pageSize) {
+        return Metrics.timed("VehicleDAO.getVehiclesPage", () -> {
+            List<Vehicle> vehicles = new ArrayList<>();
+            
+            String[] key = null;
+            int afterYear = 0;
+            int afterVehicleId = 0;
+            if (cursor != null) {
+                key = CursorCodec.decode(cursor, 4);
+                try {
+                    afterYear = Integer.parseInt(key[2]);
+                    afterVehicleId = Integer.parseInt(key[3]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+            }
+            
+            String sql = cursor == null
+                    ? "SELECT * FROM vehicles ORDER BY make, model, year DESC, vehicle_id LIMIT ?"
+                    : "SELECT * FROM vehicles WHERE make >= ? AND (make > ? OR model > ? OR " +
+                      "(model = ? AND (year < ? OR (year = ? AND vehicle_id > ?)))) " +
+                      "ORDER BY make, model, year DESC, vehicle_id LIMIT ?";
+            
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                int index = 1;
+                if (key != null) {
+                    stmt.setString(index++, key[0]);
+                    stmt.setString(index++, key[0]);
+                    stmt.setString(index++, key[1]);
+                    stmt.setString(index++, key[1]);
+                    stmt.setInt(index++, afterYear);
+                    stmt.setInt(index++, afterYear);
+                    stmt.setInt(index++, afterVehicleId);
+                }
+                stmt.setInt(index, pageSize + 1);
+                
+                ResultSet rs = stmt.executeQuery();
+                
+                while (rs.next()) {
+                    vehicles.add(extractVehicleFromResultSet(rs));
+                }
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error getting vehicles page", e);
+            }
+            
+            return Page.of(vehicles, pageSize, vehicle -> CursorCodec.encode(vehicle.getMake(), vehicle.getModel(),
+                    String.valueOf(vehicle.getYear()), String.valueOf(vehicle.getVehicleId())));
+        });
+    }
+    
+    /**
+     * Stream all vehicles without loading them all into memory.
+     * The stream holds a database connection until it is closed, so use it in a
+     * try-with-resources block.
+     * @return Stream of Vehicle objects; empty if the query fails
+     */
+    public Stream<Vehicle> streamAllVehicles() {
+        return Metrics.timed("VehicleDAO.streamAllVehicles", () -> {
+            String sql = "SELECT * FROM vehicles ORDER BY make, model, year DESC, vehicle_id";
+            
+            try {
+                return JdbcStreams.stream(sql, stmt -> { }, VehicleDAO::extractVehicleFromResultSet);
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error streaming vehicles", e);
+            }
+            
+            return Stream.empty();
+        });
+    }
+    
+    /**
+     * Pass each vehicle to a consumer as it is read
+     * @param action Consumer receiving each Vehicle
+     * @return number of vehicles processed, or -1 if the query failed
+     */
+    public int forEachVehicle(Consumer<? super Vehicle> action) {
+        return Metrics.timed("VehicleDAO.forEachVehicle", () -> {
+            String sql = "SELECT * FROM vehicles ORDER BY make, model, year DESC, vehicle_id";
+            
+            try {
+                return JdbcStreams.forEach(sql, stmt -> { }, VehicleDAO::extractVehicleFromResultSet, action);
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error processing vehicles", e);
+            }
+            
+            return -1;
+        });
+    }
+    
+    /**
+     * Pass one page of vehicles ordered by make, model and newest year to a consumer as rows
+     * are read, using keyset pagination, so a page of any size is handled without collecting it
+     * @param customerId Owner to filter by, or 0 for all owners
+     * @param make Make to filter by, or null for all makes
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param pageSize Maximum number of vehicles to pass on
+     * @param action Consumer receiving each Vehicle
+     * @return Page holding only the next cursor, or null if the query failed
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Page<Vehicle> forEachVehicleOnPage(int customerId, String make, String cursor, int pageSize,
+                                              Consumer<? super Vehicle> action) {
+        return Metrics.timed("VehicleDAO.forEachVehicleOnPage", () -> {
+            String[] key = null;
+            int afterYear = 0;
+            int afterVehicleId = 0;
+            if (cursor != null) {
+                key = CursorCodec.decode(cursor, 4);
+                try {
+                    afterYear = Integer.parseInt(key[2]);
+                    afterVehicleId = Integer.parseInt(key[3]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+            }
+            
+            StringBuilder sql = new StringBuilder("SELECT * FROM vehicles WHERE 1 = 1");
+            if (customerId > 0) {
+                sql.append(" AND customer_id = ?");
+            }
+            if (make != null) {
+                sql.append(" AND make = ?");
+            }
+            if (key != null) {
+                sql.append(" AND make >= ? AND (make > ? OR model > ? OR " +
+                           "(model = ? AND (year < ? OR (year = ? AND vehicle_id > ?))))");
+            }
+            sql.append(" ORDER BY make, model, year DESC, vehicle_id LIMIT ?");
+            
+            final String[] afterKey = key;
+            final int year = afterYear;
+            final int afterId = afterVehicleId;
+            try {
+                String nextCursor = JdbcStreams.forEachInPage(sql.toString(), stmt -> {
+                    int index = 1;
+                    if (customerId > 0) {
+                        stmt.setInt(index++, customerId);
+                    }
+                    if (make != null) {
+                        stmt.setString(index++, make);
+                    }
+                    if (afterKey != null) {
+                        stmt.setString(index++, afterKey[0]);
+                        stmt.setString(index++, afterKey[0]);
+                        stmt.setString(index++, afterKey[1]);
+                        stmt.setString(index++, afterKey[1]);
+                        stmt.setInt(index++, year);
+                        stmt.setInt(index++, year);
+                        stmt.setInt(index++, afterId);
+                    }
+                    stmt.setInt(index, pageSize + 1);
+                }, VehicleDAO::extractVehicleFromResultSet, pageSize, vehicle -> CursorCodec.encode(vehicle.getMake(),
+                        vehicle.getModel(), String.valueOf(vehicle.getYear()), String.valueOf(vehicle.getVehicleId())), action);
+                return Page.streamed(nextCursor);
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error processing vehicles page", e);
+            }
+            
+            return null;
+        });
     }
     
     /**
@@ -221,25 +555,29 @@ public class VehicleDAO {
      * @return true if successful, false otherwise
      */
     public boolean updateLastServiceDate(int vehicleId, LocalDate lastServiceDate) {
-        String sql = "UPDATE vehicles SET last_service_date = ? WHERE vehicle_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            if (lastServiceDate != null) {
-                stmt.setDate(1, Date.valueOf(lastServiceDate));
-            } else {
-                stmt.setNull(1, Types.DATE);
-            }
+        return Metrics.timed("VehicleDAO.updateLastServiceDate", () -> {
+            String sql = "UPDATE vehicles SET last_service_date = ? WHERE vehicle_id = ?";
             
-            stmt.setInt(2, vehicleId);
-            
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            try (Connection connection = DBConnectionUtil.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(sql)) {
+                if (lastServiceDate != null) {
+                    stmt.setDate(1, Date.valueOf(lastServiceDate));
+                } else {
+                    stmt.setNull(1, Types.DATE);
+                }
+                
+                stmt.setInt(2, vehicleId);
+                
+                int rowsAffected = stmt.executeUpdate();
+                EntityVersions.bump(Entity.VEHICLES);
+                return rowsAffected > 0;
+                
+            } catch (SQLException e) {
+                Metrics.recordError("Error updating last service date", e);
+            }
             
-        } catch (SQLException e) {
-            System.err.println("Error updating last service date: " + e.getMessage());
-        }
-        
-        return false;
+            return false;
+        });
     }
     
     /**
@@ -248,7 +586,7 @@ public class VehicleDAO {
      * @return Vehicle object
      * @throws SQLException if there's an error accessing the ResultSet
      */
-    private Vehicle extractVehicleFromResultSet(ResultSet rs) throws SQLException {
+    static Vehicle extractVehicleFromResultSet(ResultSet rs) throws SQLException {
         Vehicle vehicle = new Vehicle();
         vehicle.setVehicleId(rs.getInt("vehicle_id"));
         vehicle.setCustomerId(rs.getInt("customer_id"));
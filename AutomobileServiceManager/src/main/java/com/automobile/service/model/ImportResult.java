@@ -0,0 +1,96 @@
+package com.automobile.service.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ImportResult model class summarizing a CSV import: how many rows were read and
+ * imported, and why each rejected row was rejected
+ */
+public class ImportResult {
+    
+    // Only the first errors are kept so a badly broken file cannot exhaust memory
+    public static final int MAX_REPORTED_ERRORS = 1000;
+    
+    private int rowsRead;
+    private int rowsImported;
+    private int errorCount;
+    private List<RowError> errors;
+    
+    // Default constructor
+    public ImportResult() {
+        this.errors = new ArrayList<>();
+    }
+    
+    /**
+     * Record a rejected row
+     * @param lineNumber line of the CSV file on which the row starts
+     * @param message reason the row was rejected
+     */
+    public void addError(int lineNumber, String message) {
+        errorCount++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(lineNumber, message));
+        }
+    }
+    
+    public void incrementRowsRead() {
+        rowsRead++;
+    }
+    
+    public void addRowsImported(int count) {
+        rowsImported += count;
+    }
+    
+    // Getters
+    public int getRowsRead() {
+        return rowsRead;
+    }
+    
+    public int getRowsImported() {
+        return rowsImported;
+    }
+    
+    public int getErrorCount() {
+        return errorCount;
+    }
+    
+    public List<RowError> getErrors() {
+        return errors;
+    }
+    
+    @Override
+    public String toString() {
+        return "ImportResult{" +
+                "rowsRead=" + rowsRead +
+                ", rowsImported=" + rowsImported +
+                ", errorCount=" + errorCount +
+                '}';
+    }
+    
+    /**
+     * A row that could not be imported
+     */
+    public static class RowError {
+        private final int lineNumber;
+        private final String message;
+        
+        public RowError(int lineNumber, String message) {
+            this.lineNumber = lineNumber;
+            this.message = message;
+        }
+        
+        public int getLineNumber() {
+            return lineNumber;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+        
+        @Override
+        public String toString() {
+            return "line " + lineNumber + ": " + message;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.automobile.service.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JobCardDetail model class aggregating a job card with its vehicle, the vehicle's
+ * owner, the services performed and the parts used on them, as loaded for the job
+ * card view and edit screens
+ */
+public class JobCardDetail {
+    private JobCard jobCard;
+    private Vehicle vehicle;
+    private Customer customer;
+    private List<JobService> jobServices;
+    private List<PartUsage> partUsages;
+    
+    // Default constructor
+    public JobCardDetail() {
+        this.jobServices = new ArrayList<>();
+        this.partUsages = new ArrayList<>();
+    }
+    
+    // Full constructor
+    public JobCardDetail(JobCard jobCard, Vehicle vehicle, Customer customer, List<JobService> jobServices) {
+        this.jobCard = jobCard;
+        this.vehicle = vehicle;
+        this.customer = customer;
+        this.jobServices = jobServices;
+        this.partUsages = new ArrayList<>();
+    }
+    
+    // Getters and Setters
+    public JobCard getJobCard() {
+        return jobCard;
+    }
+    
+    public void setJobCard(JobCard jobCard) {
+        this.jobCard = jobCard;
+    }
+    
+    public Vehicle getVehicle() {
+        return vehicle;
+    }
+    
+    public void setVehicle(Vehicle vehicle) {
+        this.vehicle = vehicle;
+    }
+    
+    public Customer getCustomer() {
+        return customer;
+    }
+    
+    public void setCustomer(Customer customer) {
+        this.customer = customer;
+    }
+    
+    public List<JobService> getJobServices() {
+        return jobServices;
+    }
+    
+    public void setJobServices(List<JobService> jobServices) {
+        this.jobServices = jobServices;
+    }
+    
+    public List<PartUsage> getPartUsages() {
+        return partUsages;
+    }
+    
+    public void setPartUsages(List<PartUsage> partUsages) {
+        this.partUsages = partUsages;
+    }
+    
+    @Override
+    public String toString() {
+        return "JobCardDetail{" +
+                "jobCard=" + jobCard +
+                ", vehicle=" + vehicle +
+                ", customer=" + customer +
+                ", jobServices=" + jobServices +
+                ", partUsages=" + partUsages +
+                '}';
+    }
+}
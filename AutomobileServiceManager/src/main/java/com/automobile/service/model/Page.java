@@ -0,0 +1,95 @@
+package com.automobile.service.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page model class representing one page of a keyset-paginated list.
+ * The next cursor is an opaque token identifying the last row of this page.
+ */
+public class Page<T> {
+    
+    public static final int DEFAULT_SIZE = 25;
+    public static final int MAX_SIZE = 200;
+    // Pages passed to a consumer row by row are not held in memory, so they may be larger
+    public static final int MAX_STREAMED_SIZE = 5000;
+    
+    private final List<T> items;
+    private final String nextCursor;
+    
+    // Full constructor
+    public Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+    
+    /**
+     * Build a page from rows fetched with LIMIT pageSize + 1. The extra row, if present,
+     * is dropped and only signals that another page exists.
+     * @param rows rows read from the database
+     * @param pageSize requested page size
+     * @param cursorOf function producing the cursor token for a row
+     * @return Page object
+     */
+    public static <T> Page<T> of(List<T> rows, int pageSize, Function<T, String> cursorOf) {
+        if (rows.size() > pageSize) {
+            List<T> items = rows.subList(0, pageSize);
+            return new Page<>(items, cursorOf.apply(items.get(pageSize - 1)));
+        }
+        return new Page<>(rows, null);
+    }
+    
+    /**
+     * Build a page whose rows were passed to a consumer as they were read instead of
+     * being collected, so it carries only the cursor of the next page
+     * @param nextCursor cursor of the next page, or null if this was the last page
+     * @return Page object with no items
+     */
+    public static <T> Page<T> streamed(String nextCursor) {
+        return new Page<>(Collections.<T>emptyList(), nextCursor);
+    }
+    
+    /**
+     * Clamp a requested page size to the allowed range
+     * @param requested requested page size, or 0 for the default
+     * @return page size between 1 and MAX_SIZE
+     */
+    public static int clampSize(int requested) {
+        return clampSize(requested, MAX_SIZE);
+    }
+    
+    /**
+     * Clamp a requested page size to a given maximum
+     * @param requested requested page size, or 0 for the default
+     * @param max largest allowed page size
+     * @return page size between 1 and max
+     */
+    public static int clampSize(int requested, int max) {
+        if (requested <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(requested, max);
+    }
+    
+    // Getters
+    public List<T> getItems() {
+        return items;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+    
+    @Override
+    public String toString() {
+        return "Page{" +
+                "items=" + items.size() +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,99 @@
+package com.automobile.service.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Part model class representing a stocked part in the Automobile Service Manager
+ */
+public class Part {
+    private int partId;
+    private String partName;
+    private String partNumber;
+    private String description;
+    private BigDecimal unitPrice;
+    private int quantityInStock;
+    
+    // Default constructor
+    public Part() {
+    }
+    
+    // Parameterized constructor
+    public Part(String partName, String partNumber, String description, BigDecimal unitPrice, int quantityInStock) {
+        this.partName = partName;
+        this.partNumber = partNumber;
+        this.description = description;
+        this.unitPrice = unitPrice;
+        this.quantityInStock = quantityInStock;
+    }
+    
+    // Full constructor
+    public Part(int partId, String partName, String partNumber, String description,
+                BigDecimal unitPrice, int quantityInStock) {
+        this.partId = partId;
+        this.partName = partName;
+        this.partNumber = partNumber;
+        this.description = description;
+        this.unitPrice = unitPrice;
+        this.quantityInStock = quantityInStock;
+    }
+    
+    // Getters and Setters
+    public int getPartId() {
+        return partId;
+    }
+    
+    public void setPartId(int partId) {
+        this.partId = partId;
+    }
+    
+    public String getPartName() {
+        return partName;
+    }
+    
+    public void setPartName(String partName) {
+        this.partName = partName;
+    }
+    
+    public String getPartNumber() {
+        return partNumber;
+    }
+    
+    public void setPartNumber(String partNumber) {
+        this.partNumber = partNumber;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public void setDescription(String description) {
+        this.description = description;
+    }
+    
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+    
+    public void setUnitPrice(BigDecimal unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+    
+    public int getQuantityInStock() {
+        return quantityInStock;
+    }
+    
+    public void setQuantityInStock(int quantityInStock) {
+        this.quantityInStock = quantityInStock;
+    }
+    
+    @Override
+    public String toString() {
+        return "Part{" +
+                "partId=" + partId +
+                ", partName='" + partName + '\'' +
+                ", partNumber='" + partNumber + '\'' +
+                ", unitPrice=" + unitPrice +
+                ", quantityInStock=" + quantityInStock +
+                '}';
+    }
+}
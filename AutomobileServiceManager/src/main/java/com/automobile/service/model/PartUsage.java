@@ -0,0 +1,104 @@
+package com.automobile.service.model;
+
+import java.math.BigDecimal;
+
+/**
+ * PartUsage model class representing parts used while performing a service on a job card
+ */
+public class PartUsage {
+    private int partsUsedId;
+    private int jobServiceId;
+    private int partId;
+    private int quantity;
+    private BigDecimal pricePerUnit;
+    
+    // Additional fields for part details
+    private String partName;
+    private String partNumber;
+    
+    // Default constructor
+    public PartUsage() {
+    }
+    
+    // Parameterized constructor
+    public PartUsage(int jobServiceId, int partId, int quantity, BigDecimal pricePerUnit) {
+        this.jobServiceId = jobServiceId;
+        this.partId = partId;
+        this.quantity = quantity;
+        this.pricePerUnit = pricePerUnit;
+    }
+    
+    // Getters and Setters
+    public int getPartsUsedId() {
+        return partsUsedId;
+    }
+    
+    public void setPartsUsedId(int partsUsedId) {
+        this.partsUsedId = partsUsedId;
+    }
+    
+    public int getJobServiceId() {
+        return jobServiceId;
+    }
+    
+    public void setJobServiceId(int jobServiceId) {
+        this.jobServiceId = jobServiceId;
+    }
+    
+    public int getPartId() {
+        return partId;
+    }
+    
+    public void setPartId(int partId) {
+        this.partId = partId;
+    }
+    
+    public int getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+    
+    public BigDecimal getPricePerUnit() {
+        return pricePerUnit;
+    }
+    
+    public void setPricePerUnit(BigDecimal pricePerUnit) {
+        this.pricePerUnit = pricePerUnit;
+    }
+    
+    public String getPartName() {
+        return partName;
+    }
+    
+    public void setPartName(String partName) {
+        this.partName = partName;
+    }
+    
+    public String getPartNumber() {
+        return partNumber;
+    }
+    
+    public void setPartNumber(String partNumber) {
+        this.partNumber = partNumber;
+    }
+    
+    // Calculate total price for this usage
+    public BigDecimal getTotalPrice() {
+        return pricePerUnit != null ? pricePerUnit.multiply(BigDecimal.valueOf(quantity)) : BigDecimal.ZERO;
+    }
+    
+    @Override
+    public String toString() {
+        return "PartUsage{" +
+                "partsUsedId=" + partsUsedId +
+                ", jobServiceId=" + jobServiceId +
+                ", partId=" + partId +
+                ", quantity=" + quantity +
+                ", pricePerUnit=" + pricePerUnit +
+                ", partName='" + partName + '\'' +
+                '}';
+    }
+}
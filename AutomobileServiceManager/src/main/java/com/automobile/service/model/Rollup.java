@@ -0,0 +1,122 @@
+package com.automobile.service.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Rollup model class holding job and revenue totals for a day, month or year
+ */
+public class Rollup {
+    private LocalDate periodStart; // first day of the day, month or year covered
+    private int jobsOpened;
+    private int jobsClosed;
+    private int billsCreated;
+    private BigDecimal serviceRevenue;
+    private BigDecimal partsRevenue;
+    private BigDecimal taxCollected;
+    private BigDecimal discountsGiven;
+    private BigDecimal grandTotal;
+    
+    // Default constructor
+    public Rollup() {
+        this(null);
+    }
+    
+    // Parameterized constructor with all totals at zero
+    public Rollup(LocalDate periodStart) {
+        this.periodStart = periodStart;
+        this.serviceRevenue = BigDecimal.ZERO;
+        this.partsRevenue = BigDecimal.ZERO;
+        this.taxCollected = BigDecimal.ZERO;
+        this.discountsGiven = BigDecimal.ZERO;
+        this.grandTotal = BigDecimal.ZERO;
+    }
+    
+    // Getters and Setters
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+    
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+    
+    public int getJobsOpened() {
+        return jobsOpened;
+    }
+    
+    public void setJobsOpened(int jobsOpened) {
+        this.jobsOpened = jobsOpened;
+    }
+    
+    public int getJobsClosed() {
+        return jobsClosed;
+    }
+    
+    public void setJobsClosed(int jobsClosed) {
+        this.jobsClosed = jobsClosed;
+    }
+    
+    public int getBillsCreated() {
+        return billsCreated;
+    }
+    
+    public void setBillsCreated(int billsCreated) {
+        this.billsCreated = billsCreated;
+    }
+    
+    public BigDecimal getServiceRevenue() {
+        return serviceRevenue;
+    }
+    
+    public void setServiceRevenue(BigDecimal serviceRevenue) {
+        this.serviceRevenue = serviceRevenue;
+    }
+    
+    public BigDecimal getPartsRevenue() {
+        return partsRevenue;
+    }
+    
+    public void setPartsRevenue(BigDecimal partsRevenue) {
+        this.partsRevenue = partsRevenue;
+    }
+    
+    public BigDecimal getTaxCollected() {
+        return taxCollected;
+    }
+    
+    public void setTaxCollected(BigDecimal taxCollected) {
+        this.taxCollected = taxCollected;
+    }
+    
+    public BigDecimal getDiscountsGiven() {
+        return discountsGiven;
+    }
+    
+    public void setDiscountsGiven(BigDecimal discountsGiven) {
+        this.discountsGiven = discountsGiven;
+    }
+    
+    public BigDecimal getGrandTotal() {
+        return grandTotal;
+    }
+    
+    public void setGrandTotal(BigDecimal grandTotal) {
+        this.grandTotal = grandTotal;
+    }
+    
+    @Override
+    public String toString() {
+        return "Rollup{" +
+                "periodStart=" + periodStart +
+                ", jobsOpened=" + jobsOpened +
+                ", jobsClosed=" + jobsClosed +
+                ", billsCreated=" + billsCreated +
+                ", serviceRevenue=" + serviceRevenue +
+                ", partsRevenue=" + partsRevenue +
+                ", taxCollected=" + taxCollected +
+                ", discountsGiven=" + discountsGiven +
+                ", grandTotal=" + grandTotal +
+                '}';
+    }
+}
@@ -0,0 +1,230 @@
+package com.automobile.service.service;
+
+import com.automobile.service.dao.BillingDAO;
+import com.automobile.service.dao.JobCardDAO;
+import com.automobile.service.model.Billing;
+import com.automobile.service.model.JobCard;
+import com.automobile.service.util.DBConnectionUtil;
+import com.automobile.service.util.Metrics;
+import com.automobile.service.util.SqlUtil;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * BillingService class for computing and recording bills for job cards
+ */
+public class BillingService {
+    
+    // Sales tax applied to the bill after discount
+    public static final BigDecimal TAX_RATE = new BigDecimal("0.08");
+    
+    private BillingDAO billingDAO;
+    private JobCardDAO jobCardDAO;
+    private RollupService rollupService;
+    
+    public BillingService() {
+        this.billingDAO = new BillingDAO();
+        this.jobCardDAO = new JobCardDAO();
+        this.rollupService = new RollupService();
+    }
+    
+    /**
+     * Compute the bill for a job card without saving it
+     * @param jobCardId ID of the job card
+     * @param discountAmount Discount to apply, or null for none
+     * @return Billing object with all amounts set, or null if the job card does not exist
+     */
+    public Billing calculateBill(int jobCardId, BigDecimal discountAmount) {
+        return Metrics.timed("BillingService.calculateBill", () -> {
+            Billing billing = billingDAO.calculateTotals(jobCardId);
+            if (billing == null) {
+                return null;
+            }
+            
+            applyCharges(billing, discountAmount);
+            return billing;
+        });
+    }
+    
+    /**
+     * Compute and save the bill for a completed or delivered job card
+     * @param jobCardId ID of the job card
+     * @param discountAmount Discount to apply, or null for none
+     * @return the saved Billing object, or null if the job card cannot be billed
+     */
+    public Billing createBill(int jobCardId, BigDecimal discountAmount) {
+        return Metrics.timed("BillingService.createBill", () -> {
+            JobCard jobCard = jobCardDAO.getJobCardById(jobCardId);
+            if (jobCard == null || !("COMPLETED".equals(jobCard.getStatus()) || "DELIVERED".equals(jobCard.getStatus()))) {
+                return null;
+            }
+            
+            if (discountAmount != null && discountAmount.compareTo(BigDecimal.ZERO) < 0) {
+                return null;
+            }
+            
+            Billing billing = calculateBill(jobCardId, discountAmount);
+            if (billing == null) {
+                return null;
+            }
+            
+            // The unique key on billing.job_card_id rejects a second bill for the same job card
+            if (!billingDAO.addBilling(billing)) {
+                return null;
+            }
+            
+            rollupService.recordBills(Collections.singletonList(billing));
+            return billing;
+        });
+    }
+    
+    /**
+     * Bill every completed or delivered job card that has no bill yet. Job cards are processed in chunks
+     * on several threads; each chunk costs one aggregate query and one batched insert.
+     * @return number of bills created
+     */
+    public int runEndOfDayBilling() {
+        return Metrics.timed("BillingService.runEndOfDayBilling", () -> {
+            List<Integer> jobCardIds = billingDAO.getUnbilledJobCardIds();
+            if (jobCardIds.isEmpty()) {
+                return 0;
+            }
+            
+            List<List<Integer>> chunks = SqlUtil.chunkIds(jobCardIds);
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(chunks.size(), batchParallelism()));
+            int billed = 0;
+            
+            try {
+                List<Future<Integer>> results = new ArrayList<>();
+                for (List<Integer> chunk : chunks) {
+                    results.add(executor.submit(() -> billChunk(chunk)));
+                }
+                
+                for (Future<Integer> result : results) {
+                    try {
+                        billed += result.get();
+                    } catch (ExecutionException e) {
+                        System.err.println("Error in end-of-day billing: " + e.getCause());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                executor.shutdownNow();
+            }
+            
+            return billed;
+        });
+    }
+    
+    /**
+     * Get a bill by ID
+     * @param billId ID of the bill to retrieve
+     * @return Billing object if found, null otherwise
+     */
+    public Billing getBillingById(int billId) {
+        return Metrics.timed("BillingService.getBillingById", () -> {
+            return billingDAO.getBillingById(billId);
+        });
+    }
+    
+    /**
+     * Get the bill for a job card
+     * @param jobCardId ID of the job card
+     * @return Billing object if found, null otherwise
+     */
+    public Billing getBillingByJobCardId(int jobCardId) {
+        return Metrics.timed("BillingService.getBillingByJobCardId", () -> {
+            return billingDAO.getBillingByJobCardId(jobCardId);
+        });
+    }
+    
+    /**
+     * Record a payment against a bill
+     * @param billId ID of the bill
+     * @param paymentStatus New payment status (PENDING, PARTIAL, PAID)
+     * @param paymentMethod Payment method
+     * @return true if successful, false otherwise
+     */
+    public boolean recordPayment(int billId, String paymentStatus, String paymentMethod) {
+        return Metrics.timed("BillingService.recordPayment", () -> {
+            if (!"PENDING".equals(paymentStatus) && !"PARTIAL".equals(paymentStatus) && !"PAID".equals(paymentStatus)) {
+                return false;
+            }
+            
+            return billingDAO.updatePayment(billId, paymentStatus, paymentMethod);
+        });
+    }
+    
+    private int billChunk(List<Integer> jobCardIds) {
+        Map<Integer, Billing> totals = billingDAO.calculateTotals(jobCardIds);
+        
+        List<Billing> bills = new ArrayList<>(totals.size());
+        for (Integer jobCardId : jobCardIds) {
+            Billing billing = totals.get(jobCardId);
+            if (billing != null) {
+                applyCharges(billing, null);
+                bills.add(billing);
+            }
+        }
+        
+        Map<Integer, String> failures = billingDAO.addBillings(bills);
+        for (Map.Entry<Integer, String> failure : failures.entrySet()) {
+            System.err.println("Error billing job card " + bills.get(failure.getKey()).getJobCardId() +
+                               ": " + failure.getValue());
+        }
+        
+        List<Billing> created = new ArrayList<>(bills.size() - failures.size());
+        for (int i = 0; i < bills.size(); i++) {
+            if (!failures.containsKey(i)) {
+                created.add(bills.get(i));
+            }
+        }
+        rollupService.recordBills(created);
+        
+        return created.size();
+    }
+    
+    /**
+     * Fill in discount, tax and grand total from the service and parts totals.
+     * The discount is capped at the subtotal; tax is charged on the discounted subtotal.
+     */
+    private void applyCharges(Billing billing, BigDecimal discountAmount) {
+        BigDecimal subtotal = billing.getTotalServiceCost().add(billing.getTotalPartsCost());
+        
+        BigDecimal discount = discountAmount != null ? discountAmount.max(BigDecimal.ZERO).min(subtotal) : BigDecimal.ZERO;
+        BigDecimal taxable = subtotal.subtract(discount);
+        BigDecimal tax = taxable.multiply(TAX_RATE).setScale(2, RoundingMode.HALF_UP);
+        
+        billing.setDiscountAmount(discount.setScale(2, RoundingMode.HALF_UP));
+        billing.setTaxAmount(tax);
+        billing.setGrandTotal(taxable.add(tax).setScale(2, RoundingMode.HALF_UP));
+        billing.setPaymentStatus("PENDING");
+        billing.setBillDate(LocalDateTime.now());
+    }
+    
+    /**
+     * Use at most half of the connection pool so interactive requests keep working
+     */
+    private int batchParallelism() {
+        int poolSize;
+        try {
+            poolSize = DBConnectionUtil.getPool().getMaxSize();
+        } catch (SQLException e) {
+            poolSize = 2;
+        }
+        
+        return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), poolSize / 2));
+    }
+}
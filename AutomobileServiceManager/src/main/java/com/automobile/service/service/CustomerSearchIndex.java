@@ -0,0 +1,414 @@
+package com.automobile.service.service;
+
+import com.automobile.service.dao.CustomerDAO;
+import com.automobile.service.model.Customer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory n-gram index over customer name, phone and email used for front-desk search.
+ * Every field is indexed by its trigrams, so search terms of three or more characters
+ * match anywhere in a field, and by its one- and two-character prefixes, so shorter
+ * terms match the start of a field. Matches are verified against the indexed values
+ * and ranked; the database is only used to load the matched customers.
+ */
+public class CustomerSearchIndex {
+    
+    private static final CustomerSearchIndex INSTANCE = new CustomerSearchIndex(new CustomerDAO());
+    
+    // Gram keys pack up to three 16-bit chars; the top bits mark one- and two-char prefix grams
+    private static final long PREFIX1_MARK = 1L << 48;
+    private static final long PREFIX2_MARK = 2L << 48;
+    
+    private final CustomerDAO customerDAO;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Only one build runs at a time
+    private final Object buildLock = new Object();
+    private final AtomicBoolean buildStarted = new AtomicBoolean();
+    private volatile boolean ready;
+    
+    // Guarded by lock
+    private Index index = new Index();
+    // Latest write to each customer made while a build reads the customers table, null
+    // for a removal; the map itself is null when no build is running
+    private Map<Integer, Customer> pendingWrites;
+    
+    public CustomerSearchIndex(CustomerDAO customerDAO) {
+        this.customerDAO = customerDAO;
+    }
+    
+    /**
+     * Get the index shared by the application
+     * @return CustomerSearchIndex instance
+     */
+    public static CustomerSearchIndex getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Check whether the index has been built. The first call starts building it
+     * in the background from the customers table.
+     * @return true if search() can be used
+     */
+    public boolean isReady() {
+        if (!ready && buildStarted.compareAndSet(false, true)) {
+            Thread builder = new Thread(this::build, "customer-index-builder");
+            builder.setDaemon(true);
+            builder.start();
+        }
+        return ready;
+    }
+    
+    /**
+     * Load every customer into a new index and swap it in. The customers table is read
+     * without holding the lock, so writes are not blocked by the scan; writes made
+     * during the scan are recorded and replayed on the new index before the swap, so
+     * none are lost.
+     */
+    public void build() {
+        synchronized (buildLock) {
+            lock.writeLock().lock();
+            try {
+                pendingWrites = new HashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            
+            Index fresh = new Index();
+            int rows = customerDAO.forEachCustomer(fresh::insert);
+            
+            lock.writeLock().lock();
+            try {
+                if (rows >= 0) {
+                    // A recorded write is at least as recent as the row the scan read
+                    for (Map.Entry<Integer, Customer> write : pendingWrites.entrySet()) {
+                        fresh.remove(write.getKey());
+                        if (write.getValue() != null) {
+                            fresh.insert(write.getValue());
+                        }
+                    }
+                    index = fresh;
+                    ready = true;
+                } else {
+                    // Allow a later search to retry the build
+                    buildStarted.set(false);
+                }
+                pendingWrites = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+    
+    /**
+     * Add a customer to the index, or re-index it if it is already present
+     * @param customer Customer object to index
+     */
+    public void addCustomer(Customer customer) {
+        lock.writeLock().lock();
+        try {
+            index.remove(customer.getCustomerId());
+            index.insert(customer);
+            if (pendingWrites != null) {
+                pendingWrites.put(customer.getCustomerId(), customer);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Re-index a customer after an update
+     * @param customer Customer object with updated information
+     */
+    public void updateCustomer(Customer customer) {
+        addCustomer(customer);
+    }
+    
+    /**
+     * Remove a customer from the index
+     * @param customerId ID of the customer to remove
+     */
+    public void removeCustomer(int customerId) {
+        lock.writeLock().lock();
+        try {
+            index.remove(customerId);
+            if (pendingWrites != null) {
+                pendingWrites.put(customerId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Search for customers whose name, phone or email match every term of the query
+     * @param query search text; terms are separated by whitespace
+     * @param limit maximum number of IDs to return
+     * @return customer IDs, best match first
+     */
+    public List<Integer> search(String query, int limit) {
+        List<String> terms = normalizeQuery(query);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        lock.readLock().lock();
+        try {
+            // Candidates come from the shortest posting list among all the query's grams
+            IntList candidates = null;
+            for (String term : terms) {
+                for (long gram : queryGrams(term)) {
+                    IntList posting = index.postings.get(gram);
+                    if (posting == null) {
+                        return Collections.emptyList();
+                    }
+                    if (candidates == null || posting.size < candidates.size) {
+                        candidates = posting;
+                    }
+                }
+            }
+            
+            Map<Integer, Integer> scores = new HashMap<>();
+            for (int i = 0; i < candidates.size; i++) {
+                int customerId = candidates.values[i];
+                IndexedCustomer entry = index.customers.get(customerId);
+                if (entry == null || scores.containsKey(customerId)) {
+                    continue;
+                }
+                
+                int score = entry.score(terms);
+                if (score > 0) {
+                    scores.put(customerId, score);
+                }
+            }
+            
+            List<Integer> ranked = new ArrayList<>(scores.keySet());
+            Map<Integer, IndexedCustomer> customers = index.customers;
+            ranked.sort((a, b) -> {
+                int byScore = Integer.compare(scores.get(b), scores.get(a));
+                return byScore != 0 ? byScore : customers.get(a).sortKey.compareTo(customers.get(b).sortKey);
+            });
+            
+            return ranked.size() > limit ? new ArrayList<>(ranked.subList(0, limit)) : ranked;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * @return number of customers in the index
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.customers.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Split a query into normalized terms. Terms without letters are treated as phone
+     * numbers and reduced to their digits.
+     */
+    private static List<String> normalizeQuery(String query) {
+        List<String> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        
+        for (String raw : query.trim().toLowerCase().split("\\s+")) {
+            String term = isPhoneTerm(raw) ? raw.replaceAll("[^0-9]", "") : raw;
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+    
+    private static boolean isPhoneTerm(String term) {
+        boolean hasDigit = false;
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (Character.isLetter(c) || c == '@') {
+                return false;
+            }
+            hasDigit |= Character.isDigit(c);
+        }
+        return hasDigit;
+    }
+    
+    private static long[] queryGrams(String term) {
+        if (term.length() == 1) {
+            return new long[] { PREFIX1_MARK | term.charAt(0) };
+        }
+        if (term.length() == 2) {
+            return new long[] { PREFIX2_MARK | ((long) term.charAt(0) << 16) | term.charAt(1) };
+        }
+        
+        long[] grams = new long[term.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = trigram(term, i);
+        }
+        return grams;
+    }
+    
+    private static long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+    
+    /**
+     * Indexed customers and the posting list of each gram. The shared index is guarded
+     * by the lock; an index being built is used by one thread only.
+     */
+    private static final class Index {
+        private final Map<Integer, IndexedCustomer> customers = new HashMap<>();
+        private final Map<Long, IntList> postings = new HashMap<>();
+        // Postings still holding IDs of removed or re-indexed customers
+        private int staleEntries;
+        
+        private void insert(Customer customer) {
+            IndexedCustomer entry = new IndexedCustomer(customer);
+            customers.put(customer.getCustomerId(), entry);
+            addPostings(customer.getCustomerId(), entry);
+        }
+        
+        // Postings are cleaned up lazily by compaction
+        private void remove(int customerId) {
+            if (customers.remove(customerId) == null) {
+                return;
+            }
+            
+            staleEntries++;
+            if (staleEntries > 1000 && staleEntries > customers.size()) {
+                compact();
+            }
+        }
+        
+        private void compact() {
+            postings.clear();
+            staleEntries = 0;
+            
+            for (Map.Entry<Integer, IndexedCustomer> e : customers.entrySet()) {
+                addPostings(e.getKey(), e.getValue());
+            }
+        }
+        
+        private void addPostings(int customerId, IndexedCustomer entry) {
+            for (long gram : entry.grams()) {
+                IntList posting = postings.get(gram);
+                if (posting == null) {
+                    posting = new IntList();
+                    postings.put(gram, posting);
+                }
+                posting.add(customerId);
+            }
+        }
+    }
+    
+    /**
+     * Normalized, searchable copy of a customer's fields
+     */
+    private static final class IndexedCustomer {
+        private final String[] fields;
+        private final String sortKey;
+        
+        private IndexedCustomer(Customer customer) {
+            this.fields = new String[] {
+                normalize(customer.getFirstName()),
+                normalize(customer.getLastName()),
+                normalize(customer.getEmail()),
+                customer.getPhone() == null ? "" : customer.getPhone().replaceAll("[^0-9]", "")
+            };
+            this.sortKey = fields[1] + '\u0000' + fields[0];
+        }
+        
+        private static String normalize(String value) {
+            return value == null ? "" : value.trim().toLowerCase();
+        }
+        
+        private long[] grams() {
+            long[] grams = new long[64];
+            int count = 0;
+            
+            for (String field : fields) {
+                int needed = count + 2 + Math.max(0, field.length() - 2);
+                if (needed > grams.length) {
+                    grams = Arrays.copyOf(grams, Math.max(needed, grams.length * 2));
+                }
+                
+                if (field.length() >= 1) {
+                    grams[count++] = PREFIX1_MARK | field.charAt(0);
+                }
+                if (field.length() >= 2) {
+                    grams[count++] = PREFIX2_MARK | ((long) field.charAt(0) << 16) | field.charAt(1);
+                }
+                for (int i = 0; i + 2 < field.length(); i++) {
+                    grams[count++] = trigram(field, i);
+                }
+            }
+            
+            // Each customer appears at most once in a posting list
+            long[] distinct = Arrays.copyOf(grams, count);
+            Arrays.sort(distinct);
+            int unique = 0;
+            for (int i = 0; i < distinct.length; i++) {
+                if (i == 0 || distinct[i] != distinct[i - 1]) {
+                    distinct[unique++] = distinct[i];
+                }
+            }
+            return Arrays.copyOf(distinct, unique);
+        }
+        
+        /**
+         * Score how well the customer matches every term: an exact field match scores
+         * highest, then a prefix match, then a match inside the field
+         * @return score, or 0 if any term does not match
+         */
+        private int score(List<String> terms) {
+            int total = 0;
+            
+            for (String term : terms) {
+                int best = 0;
+                for (String field : fields) {
+                    if (field.equals(term)) {
+                        best = Math.max(best, 3);
+                    } else if (field.startsWith(term)) {
+                        best = Math.max(best, 2);
+                    } else if (term.length() >= 3 && field.contains(term)) {
+                        best = Math.max(best, 1);
+                    }
+                }
+                if (best == 0) {
+                    return 0;
+                }
+                total += best;
+            }
+            
+            return total;
+        }
+    }
+    
+    /**
+     * Growable list of customer IDs
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+        
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
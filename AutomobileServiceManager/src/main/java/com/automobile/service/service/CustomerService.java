@@ -2,18 +2,32 @@ package com.automobile.service.service;
 
 import com.automobile.service.dao.CustomerDAO;
 import com.automobile.service.model.Customer;
+import com.automobile.service.model.Page;
+import com.automobile.service.util.Metrics;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * CustomerService class for handling business logic related to Customer operations
  */
 public class CustomerService {
     
+    // Maximum number of matches returned by a name search
+    private static final int SEARCH_LIMIT = 100;
+    
     private CustomerDAO customerDAO;
+    private CustomerSearchIndex searchIndex;
+    private JobCardStatusCounters statusCounters;
     
     public CustomerService() {
         this.customerDAO = new CustomerDAO();
+        this.searchIndex = CustomerSearchIndex.getInstance();
+        this.statusCounters = JobCardStatusCounters.getInstance();
     }
     
     /**
@@ -22,12 +36,19 @@ public class CustomerService {
      * @return true if successful, false otherwise
      */
     public boolean addCustomer(Customer customer) {
-        // Validate customer data
-        if (!validateCustomer(customer)) {
-            return false;
-        }
-        
-        return customerDAO.addCustomer(customer);
+        return Metrics.timed("CustomerService.addCustomer", () -> {
+            // Validate customer data
+            if (!validateCustomer(customer)) {
+                return false;
+            }
+            
+            if (!customerDAO.addCustomer(customer)) {
+                return false;
+            }
+            
+            searchIndex.addCustomer(customer);
+            return true;
+        });
     }
     
     /**
@@ -36,12 +57,19 @@ public class CustomerService {
      * @return true if successful, false otherwise
      */
     public boolean updateCustomer(Customer customer) {
-        // Validate customer data
-        if (!validateCustomer(customer)) {
-            return false;
-        }
-        
-        return customerDAO.updateCustomer(customer);
+        return Metrics.timed("CustomerService.updateCustomer", () -> {
+            // Validate customer data
+            if (!validateCustomer(customer)) {
+                return false;
+            }
+            
+            if (!customerDAO.updateCustomer(customer)) {
+                return false;
+            }
+            
+            searchIndex.updateCustomer(customer);
+            return true;
+        });
     }
     
     /**
@@ -50,7 +78,16 @@ public class CustomerService {
      * @return true if successful, false otherwise
      */
     public boolean deleteCustomer(int customerId) {
-        return customerDAO.deleteCustomer(customerId);
+        return Metrics.timed("CustomerService.deleteCustomer", () -> {
+            if (!customerDAO.deleteCustomer(customerId)) {
+                return false;
+            }
+            
+            searchIndex.removeCustomer(customerId);
+            // The customer's job cards were deleted with their vehicles
+            statusCounters.invalidate();
+            return true;
+        });
     }
     
     /**
@@ -59,7 +96,20 @@ public class CustomerService {
      * @return Customer object if found, null otherwise
      */
     public Customer getCustomerById(int customerId) {
-        return customerDAO.getCustomerById(customerId);
+        return Metrics.timed("CustomerService.getCustomerById", () -> {
+            return customerDAO.getCustomerById(customerId);
+        });
+    }
+    
+    /**
+     * Get customers for a set of IDs in as few queries as possible
+     * @param customerIds IDs of the customers to retrieve
+     * @return Map of customer ID to Customer object
+     */
+    public Map<Integer, Customer> getCustomersByIds(Collection<Integer> customerIds) {
+        return Metrics.timed("CustomerService.getCustomersByIds", () -> {
+            return customerDAO.getCustomersByIds(customerIds);
+        });
     }
     
     /**
@@ -68,7 +118,9 @@ public class CustomerService {
      * @return Customer object if found, null otherwise
      */
     public Customer getCustomerByPhone(String phone) {
-        return customerDAO.getCustomerByPhone(phone);
+        return Metrics.timed("CustomerService.getCustomerByPhone", () -> {
+            return customerDAO.getCustomerByPhone(phone);
+        });
     }
     
     /**
@@ -77,7 +129,9 @@ public class CustomerService {
      * @return Customer object if found, null otherwise
      */
     public Customer getCustomerByEmail(String email) {
-        return customerDAO.getCustomerByEmail(email);
+        return Metrics.timed("CustomerService.getCustomerByEmail", () -> {
+            return customerDAO.getCustomerByEmail(email);
+        });
     }
     
     /**
@@ -85,16 +139,88 @@ public class CustomerService {
      * @return List of Customer objects
      */
     public List<Customer> getAllCustomers() {
-        return customerDAO.getAllCustomers();
+        return Metrics.timed("CustomerService.getAllCustomers", () -> {
+            return customerDAO.getAllCustomers();
+        });
+    }
+    
+    /**
+     * Get one page of customers ordered by name
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param pageSize Requested page size; clamped to Page.MAX_SIZE
+     * @return Page of Customer objects
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Page<Customer> getCustomersPage(String cursor, int pageSize) {
+        return Metrics.timed("CustomerService.getCustomersPage", () -> {
+            return customerDAO.getCustomersPage(cursor, Page.clampSize(pageSize));
+        });
     }
     
     /**
-     * Search for customers by name
+     * Stream all customers ordered by name; close the stream when done
+     * @return Stream of Customer objects
+     */
+    public Stream<Customer> streamAllCustomers() {
+        return Metrics.timed("CustomerService.streamAllCustomers", () -> {
+            return customerDAO.streamAllCustomers();
+        });
+    }
+    
+    /**
+     * Pass each customer, ordered by name, to a consumer as it is read
+     * @param action Consumer receiving each Customer
+     * @return number of customers processed, or -1 if the query failed
+     */
+    public int forEachCustomer(Consumer<? super Customer> action) {
+        return Metrics.timed("CustomerService.forEachCustomer", () -> {
+            return customerDAO.forEachCustomer(action);
+        });
+    }
+    
+    /**
+     * Pass one page of customers, ordered by name, to a consumer as it is read
+     * @param name Text the first or last name must contain, or null for any name
+     * @param city City to filter by, or null for all cities
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param pageSize Requested page size; clamped to Page.MAX_STREAMED_SIZE
+     * @param action Consumer receiving each Customer
+     * @return Page holding only the next cursor, or null if the query failed
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Page<Customer> forEachCustomerOnPage(String name, String city, String cursor, int pageSize,
+                                                Consumer<? super Customer> action) {
+        return Metrics.timed("CustomerService.forEachCustomerOnPage", () -> {
+            return customerDAO.forEachCustomerOnPage(name, city, cursor,
+                    Page.clampSize(pageSize, Page.MAX_STREAMED_SIZE), action);
+        });
+    }
+    
+    /**
+     * Search for customers by name, phone or email, best match first.
+     * Uses the in-memory search index once it is built and the database until then.
      * @param name Name to search for
      * @return List of matching Customer objects
      */
     public List<Customer> searchCustomersByName(String name) {
-        return customerDAO.searchCustomersByName(name);
+        return Metrics.timed("CustomerService.searchCustomersByName", () -> {
+            if (!searchIndex.isReady()) {
+                return customerDAO.searchCustomersByName(name);
+            }
+            
+            List<Integer> customerIds = searchIndex.search(name, SEARCH_LIMIT);
+            Map<Integer, Customer> customersById = customerDAO.getCustomersByIds(customerIds);
+            
+            // Keep the index's ranking; skip IDs deleted since the search
+            List<Customer> customers = new ArrayList<>(customerIds.size());
+            for (Integer customerId : customerIds) {
+                Customer customer = customersById.get(customerId);
+                if (customer != null) {
+                    customers.add(customer);
+                }
+            }
+            return customers;
+        });
     }
     
     /**
@@ -102,7 +228,7 @@ public class CustomerService {
      * @param customer Customer object to validate
      * @return true if valid, false otherwise
      */
-    private boolean validateCustomer(Customer customer) {
+    boolean validateCustomer(Customer customer) {
         // Check for required fields
         if (customer.getFirstName() == null || customer.getFirstName().trim().isEmpty()) {
             return false;
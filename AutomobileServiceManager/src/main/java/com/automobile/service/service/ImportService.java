@@ -0,0 +1,265 @@
+package com.automobile.service.service;
+
+import com.automobile.service.dao.CustomerDAO;
+import com.automobile.service.dao.VehicleDAO;
+import com.automobile.service.model.Customer;
+import com.automobile.service.model.ImportResult;
+import com.automobile.service.model.Vehicle;
+import com.automobile.service.util.CsvReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * ImportService class for bulk-loading customers and vehicles from CSV files.
+ * Rows are parsed as a stream, validated with the same rules as the entry forms,
+ * and written in chunks of batched inserts, one transaction per chunk.
+ */
+public class ImportService {
+    
+    // Rows written per batch and transaction
+    private static final int CHUNK_SIZE = 1000;
+    
+    private CustomerDAO customerDAO;
+    private VehicleDAO vehicleDAO;
+    private CustomerService customerService;
+    private VehicleService vehicleService;
+    private CustomerSearchIndex searchIndex;
+    
+    public ImportService() {
+        this.customerDAO = new CustomerDAO();
+        this.vehicleDAO = new VehicleDAO();
+        this.customerService = new CustomerService();
+        this.vehicleService = new VehicleService();
+        this.searchIndex = CustomerSearchIndex.getInstance();
+    }
+    
+    /**
+     * Import customers from CSV. The header row must name the columns first_name,
+     * last_name and phone; email, address, city, state and zip_code are optional.
+     * @param input CSV text
+     * @return ImportResult with counts and per-row errors
+     * @throws IOException if the input cannot be read
+     * @throws IllegalArgumentException if the header row is missing or lacks a required column
+     */
+    public ImportResult importCustomers(Reader input) throws IOException {
+        ImportResult result = new ImportResult();
+        List<Customer> chunk = new ArrayList<>(CHUNK_SIZE);
+        List<Integer> lines = new ArrayList<>(CHUNK_SIZE);
+        
+        try (CsvReader csv = new CsvReader(input)) {
+            Map<String, Integer> columns = readHeader(csv, "first_name", "last_name", "phone");
+            
+            List<String> record;
+            while ((record = csv.readRecord()) != null) {
+                if (isBlank(record)) {
+                    continue;
+                }
+                result.incrementRowsRead();
+                
+                Customer customer = new Customer();
+                customer.setFirstName(field(record, columns, "first_name"));
+                customer.setLastName(field(record, columns, "last_name"));
+                customer.setPhone(field(record, columns, "phone"));
+                customer.setEmail(field(record, columns, "email"));
+                customer.setAddress(field(record, columns, "address"));
+                customer.setCity(field(record, columns, "city"));
+                customer.setState(field(record, columns, "state"));
+                customer.setZipCode(field(record, columns, "zip_code"));
+                
+                if (!customerService.validateCustomer(customer)) {
+                    result.addError(csv.getRecordLineNumber(),
+                            "Invalid customer: first name, last name and a 10-digit phone are required, and the email must be valid");
+                    continue;
+                }
+                
+                chunk.add(customer);
+                lines.add(csv.getRecordLineNumber());
+                if (chunk.size() == CHUNK_SIZE) {
+                    flushCustomers(chunk, lines, result);
+                }
+            }
+        }
+        
+        flushCustomers(chunk, lines, result);
+        return result;
+    }
+    
+    /**
+     * Import vehicles from CSV. The header row must name the columns make, model, year,
+     * license_plate and either customer_id or customer_phone; vin, color and mileage are optional.
+     * @param input CSV text
+     * @return ImportResult with counts and per-row errors
+     * @throws IOException if the input cannot be read
+     * @throws IllegalArgumentException if the header row is missing or lacks a required column
+     */
+    public ImportResult importVehicles(Reader input) throws IOException {
+        ImportResult result = new ImportResult();
+        List<Vehicle> chunk = new ArrayList<>(CHUNK_SIZE);
+        List<Integer> lines = new ArrayList<>(CHUNK_SIZE);
+        
+        // Owners looked up by phone during this import
+        Map<String, Integer> customerIdsByPhone = new HashMap<>();
+        
+        try (CsvReader csv = new CsvReader(input)) {
+            Map<String, Integer> columns = readHeader(csv, "make", "model", "year", "license_plate");
+            if (!columns.containsKey("customer_id") && !columns.containsKey("customer_phone")) {
+                throw new IllegalArgumentException("Missing column: customer_id or customer_phone");
+            }
+            
+            List<String> record;
+            while ((record = csv.readRecord()) != null) {
+                if (isBlank(record)) {
+                    continue;
+                }
+                result.incrementRowsRead();
+                int line = csv.getRecordLineNumber();
+                
+                Vehicle vehicle = new Vehicle();
+                try {
+                    vehicle.setCustomerId(resolveCustomerId(record, columns, customerIdsByPhone));
+                    vehicle.setYear(Integer.parseInt(field(record, columns, "year")));
+                    String mileage = field(record, columns, "mileage");
+                    vehicle.setMileage(mileage != null ? Integer.parseInt(mileage) : 0);
+                } catch (NumberFormatException e) {
+                    result.addError(line, "Invalid number: " + e.getMessage());
+                    continue;
+                }
+                vehicle.setMake(field(record, columns, "make"));
+                vehicle.setModel(field(record, columns, "model"));
+                vehicle.setLicensePlate(field(record, columns, "license_plate"));
+                vehicle.setVin(field(record, columns, "vin"));
+                vehicle.setColor(field(record, columns, "color"));
+                vehicleService.normalizeVin(vehicle);
+                
+                if (vehicle.getCustomerId() <= 0) {
+                    result.addError(line, "Unknown customer");
+                    continue;
+                }
+                if (!vehicleService.validateVehicle(vehicle)) {
+                    result.addError(line,
+                            "Invalid vehicle: make, model, year and license plate are required, and a VIN must have 17 characters");
+                    continue;
+                }
+                
+                chunk.add(vehicle);
+                lines.add(line);
+                if (chunk.size() == CHUNK_SIZE) {
+                    flushVehicles(chunk, lines, result);
+                }
+            }
+        }
+        
+        flushVehicles(chunk, lines, result);
+        return result;
+    }
+    
+    private void flushCustomers(List<Customer> chunk, List<Integer> lines, ImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        
+        Map<Integer, String> failures = customerDAO.addCustomers(chunk);
+        for (int i = 0; i < chunk.size(); i++) {
+            String failure = failures.get(i);
+            if (failure != null) {
+                result.addError(lines.get(i), failure);
+            } else {
+                searchIndex.addCustomer(chunk.get(i));
+            }
+        }
+        
+        result.addRowsImported(chunk.size() - failures.size());
+        chunk.clear();
+        lines.clear();
+    }
+    
+    private void flushVehicles(List<Vehicle> chunk, List<Integer> lines, ImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        
+        Map<Integer, String> failures = vehicleDAO.addVehicles(chunk);
+        for (int i = 0; i < chunk.size(); i++) {
+            String failure = failures.get(i);
+            if (failure != null) {
+                result.addError(lines.get(i), failure);
+            } else {
+                vehicleService.invalidateLookups(chunk.get(i));
+            }
+        }
+        
+        result.addRowsImported(chunk.size() - failures.size());
+        chunk.clear();
+        lines.clear();
+    }
+    
+    /**
+     * Get the vehicle owner's ID from the customer_id column, or by looking up customer_phone
+     * @return customer ID, or 0 if the owner cannot be found
+     */
+    private int resolveCustomerId(List<String> record, Map<String, Integer> columns,
+                                  Map<String, Integer> customerIdsByPhone) {
+        String customerId = field(record, columns, "customer_id");
+        if (customerId != null) {
+            return Integer.parseInt(customerId);
+        }
+        
+        String phone = field(record, columns, "customer_phone");
+        if (phone == null) {
+            return 0;
+        }
+        
+        Integer cached = customerIdsByPhone.get(phone);
+        if (cached == null) {
+            Customer customer = customerDAO.getCustomerByPhone(phone);
+            cached = customer != null ? customer.getCustomerId() : 0;
+            customerIdsByPhone.put(phone, cached);
+        }
+        return cached;
+    }
+    
+    /**
+     * Read the header row and map each lower-case column name to its position
+     */
+    private Map<String, Integer> readHeader(CsvReader csv, String... requiredColumns) throws IOException {
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty");
+        }
+        
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        
+        for (String column : requiredColumns) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("Missing column: " + column);
+            }
+        }
+        return columns;
+    }
+    
+    /**
+     * Get a trimmed field value; a missing or blank field is null
+     */
+    private String field(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+    
+    private boolean isBlank(List<String> record) {
+        return record.size() == 1 && record.get(0).trim().isEmpty();
+    }
+}
@@ -2,10 +2,19 @@ package com.automobile.service.service;
 
 import com.automobile.service.dao.JobCardDAO;
 import com.automobile.service.model.JobCard;
+import com.automobile.service.model.JobCardDetail;
 import com.automobile.service.model.JobService;
+import com.automobile.service.model.Page;
+import com.automobile.service.util.Metrics;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * JobCardService class for handling business logic related to JobCard operations
@@ -13,9 +22,15 @@ import java.util.List;
 public class JobCardService {
     
     private JobCardDAO jobCardDAO;
+    private ServiceCatalogCache catalogCache;
+    private JobCardStatusCounters statusCounters;
+    private RollupService rollupService;
     
     public JobCardService() {
         this.jobCardDAO = new JobCardDAO();
+        this.catalogCache = ServiceCatalogCache.getInstance();
+        this.statusCounters = JobCardStatusCounters.getInstance();
+        this.rollupService = new RollupService();
     }
     
     /**
@@ -24,16 +39,22 @@ public class JobCardService {
      * @return ID of the newly created job card, or -1 if failed
      */
     public int addJobCard(JobCard jobCard) {
-        // Validate job card data
-        if (!validateJobCard(jobCard)) {
-            return -1;
-        }
-        
-        // Set default values for new job card
-        jobCard.setStatus("OPEN");
-        jobCard.setOpenDate(LocalDateTime.now());
-        
-        return jobCardDAO.addJobCard(jobCard);
+        return Metrics.timed("JobCardService.addJobCard", () -> {
+            // Validate job card data
+            if (!validateJobCard(jobCard)) {
+                return -1;
+            }
+            
+            // Set default values for new job card
+            jobCard.setStatus("OPEN");
+            jobCard.setOpenDate(LocalDateTime.now());
+            
+            int jobCardId = statusCounters.countInsert(() -> jobCardDAO.addJobCard(jobCard), jobCard.getStatus());
+            if (jobCardId > 0) {
+                rollupService.recordJobOpened(jobCard.getOpenDate());
+            }
+            return jobCardId;
+        });
     }
     
     /**
@@ -42,12 +63,14 @@ public class JobCardService {
      * @return true if successful, false otherwise
      */
     public boolean updateJobCard(JobCard jobCard) {
-        // Validate job card data
-        if (!validateJobCard(jobCard)) {
-            return false;
-        }
-        
-        return jobCardDAO.updateJobCard(jobCard);
+        return Metrics.timed("JobCardService.updateJobCard", () -> {
+            // Validate job card data
+            if (!validateJobCard(jobCard)) {
+                return false;
+            }
+            
+            return jobCardDAO.updateJobCard(jobCard);
+        });
     }
     
     /**
@@ -57,18 +80,24 @@ public class JobCardService {
      * @return true if successful, false otherwise
      */
     public boolean updateJobCardStatus(int jobCardId, String status) {
-        // Validate status
-        if (!isValidStatus(status)) {
-            return false;
-        }
-        
-        // If status is COMPLETED, set close date
-        LocalDateTime closeDate = null;
-        if (status.equals("COMPLETED") || status.equals("DELIVERED")) {
-            closeDate = LocalDateTime.now();
-        }
-        
-        return jobCardDAO.updateJobCardStatus(jobCardId, status, closeDate);
+        return Metrics.timed("JobCardService.updateJobCardStatus", () -> {
+            // Validate status
+            if (!isValidStatus(status)) {
+                return false;
+            }
+            
+            // If status is COMPLETED, set close date
+            LocalDateTime closeDate = status.equals("COMPLETED") || status.equals("DELIVERED") ? LocalDateTime.now() : null;
+            
+            JobCard previous = statusCounters.countStatusChange(
+                    () -> jobCardDAO.updateJobCardStatus(jobCardId, status, closeDate), status);
+            if (previous == null) {
+                return false;
+            }
+            
+            rollupService.recordJobCloseDateChanged(previous.getCloseDate(), closeDate);
+            return true;
+        });
     }
     
     /**
@@ -77,7 +106,40 @@ public class JobCardService {
      * @return JobCard object if found, null otherwise
      */
     public JobCard getJobCardById(int jobCardId) {
-        return jobCardDAO.getJobCardById(jobCardId);
+        return Metrics.timed("JobCardService.getJobCardById", () -> {
+            return jobCardDAO.getJobCardById(jobCardId);
+        });
+    }
+    
+    /**
+     * Get the job card a job service belongs to
+     * @param jobServiceId ID of the job service
+     * @return JobCard object if found, null otherwise
+     */
+    public JobCard getJobCardForJobService(int jobServiceId) {
+        return Metrics.timed("JobCardService.getJobCardForJobService", () -> {
+            return jobCardDAO.getJobCardForJobService(jobServiceId);
+        });
+    }
+    
+    /**
+     * Check whether work, and the parts it uses, can still be recorded on a job card
+     * @param jobCard JobCard to check
+     * @return true if the job card is OPEN or IN_PROGRESS
+     */
+    public boolean isOpenForWork(JobCard jobCard) {
+        return "OPEN".equals(jobCard.getStatus()) || "IN_PROGRESS".equals(jobCard.getStatus());
+    }
+    
+    /**
+     * Get a job card with its vehicle, customer and services in one database round trip
+     * @param jobCardId ID of the job card to retrieve
+     * @return JobCardDetail object if found, null otherwise
+     */
+    public JobCardDetail getJobCardDetail(int jobCardId) {
+        return Metrics.timed("JobCardService.getJobCardDetail", () -> {
+            return jobCardDAO.getJobCardDetail(jobCardId);
+        });
     }
     
     /**
@@ -85,7 +147,82 @@ public class JobCardService {
      * @return List of JobCard objects
      */
     public List<JobCard> getAllJobCards() {
-        return jobCardDAO.getAllJobCards();
+        return Metrics.timed("JobCardService.getAllJobCards", () -> {
+            return jobCardDAO.getAllJobCards();
+        });
+    }
+    
+    /**
+     * Get one page of job cards, newest first
+     * @param status Status to filter by, or null for all job cards
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param pageSize Requested page size; clamped to Page.MAX_SIZE
+     * @return Page of JobCard objects
+     * @throws IllegalArgumentException if the status or cursor is invalid
+     */
+    public Page<JobCard> getJobCardsPage(String status, String cursor, int pageSize) {
+        return Metrics.timed("JobCardService.getJobCardsPage", () -> {
+            if (status != null && !isValidStatus(status)) {
+                throw new IllegalArgumentException("Invalid status: " + status);
+            }
+            
+            return jobCardDAO.getJobCardsPage(status, cursor, Page.clampSize(pageSize));
+        });
+    }
+    
+    /**
+     * Stream job cards, newest first; close the stream when done
+     * @param status Status to filter by, or null for all job cards
+     * @return Stream of JobCard objects
+     */
+    public Stream<JobCard> streamJobCards(String status) {
+        return Metrics.timed("JobCardService.streamJobCards", () -> {
+            return jobCardDAO.streamJobCards(status);
+        });
+    }
+    
+    /**
+     * Pass each job card, newest first, to a consumer as it is read
+     * @param status Status to filter by, or null for all job cards
+     * @param action Consumer receiving each JobCard
+     * @return number of job cards processed, or -1 if the query failed
+     */
+    public int forEachJobCard(String status, Consumer<? super JobCard> action) {
+        return Metrics.timed("JobCardService.forEachJobCard", () -> {
+            return jobCardDAO.forEachJobCard(status, action);
+        });
+    }
+    
+    /**
+     * Pass one page of job cards, newest first, to a consumer as it is read
+     * @param status Status to filter by, or null for all job cards
+     * @param vehicleId Vehicle to filter by, or 0 for all vehicles
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param pageSize Requested page size; clamped to Page.MAX_STREAMED_SIZE
+     * @param action Consumer receiving each JobCard
+     * @return Page holding only the next cursor, or null if the query failed
+     * @throws IllegalArgumentException if the status or cursor is invalid
+     */
+    public Page<JobCard> forEachJobCardOnPage(String status, int vehicleId, String cursor, int pageSize,
+                                              Consumer<? super JobCard> action) {
+        return Metrics.timed("JobCardService.forEachJobCardOnPage", () -> {
+            if (status != null && !isValidStatus(status)) {
+                throw new IllegalArgumentException("Invalid status: " + status);
+            }
+            
+            return jobCardDAO.forEachJobCardOnPage(status, vehicleId, cursor,
+                    Page.clampSize(pageSize, Page.MAX_STREAMED_SIZE), action);
+        });
+    }
+    
+    /**
+     * Get the number of job cards in each status without querying the job cards
+     * @return Map of status to count in status order, or null if the counts cannot be loaded
+     */
+    public Map<String, Long> getStatusCounts() {
+        return Metrics.timed("JobCardService.getStatusCounts", () -> {
+            return statusCounters.getCounts();
+        });
     }
     
     /**
@@ -94,7 +231,9 @@ public class JobCardService {
      * @return List of JobCard objects
      */
     public List<JobCard> getJobCardsByStatus(String status) {
-        return jobCardDAO.getJobCardsByStatus(status);
+        return Metrics.timed("JobCardService.getJobCardsByStatus", () -> {
+            return jobCardDAO.getJobCardsByStatus(status);
+        });
     }
     
     /**
@@ -103,7 +242,9 @@ public class JobCardService {
      * @return List of JobCard objects
      */
     public List<JobCard> getJobCardsByVehicleId(int vehicleId) {
-        return jobCardDAO.getJobCardsByVehicleId(vehicleId);
+        return Metrics.timed("JobCardService.getJobCardsByVehicleId", () -> {
+            return jobCardDAO.getJobCardsByVehicleId(vehicleId);
+        });
     }
     
     /**
@@ -113,7 +254,55 @@ public class JobCardService {
      * @return true if successful, false otherwise
      */
     public boolean addServiceToJobCard(int jobCardId, int serviceId) {
-        return jobCardDAO.addServiceToJobCard(jobCardId, serviceId);
+        return Metrics.timed("JobCardService.addServiceToJobCard", () -> {
+            // Standard prices come from the catalog cache rather than a query per service
+            BigDecimal standardPrice = catalogCache.getStandardPrice(serviceId);
+            if (standardPrice == null) {
+                return false;
+            }
+            
+            return jobCardDAO.addServiceToJobCard(jobCardId, serviceId, standardPrice);
+        });
+    }
+    
+    /**
+     * Add several services to a job card in one batched transaction, with standard
+     * prices taken from the catalog cache
+     * @param jobCardId ID of the job card
+     * @param serviceIds IDs of the services to add
+     * @return true if every service was added, false if any service is unknown or the insert fails
+     */
+    public boolean addServicesToJobCard(int jobCardId, List<Integer> serviceIds) {
+        return Metrics.timed("JobCardService.addServicesToJobCard", () -> {
+            Map<Integer, BigDecimal> standardPrices = new HashMap<>();
+            for (Integer serviceId : serviceIds) {
+                BigDecimal standardPrice = serviceId != null ? catalogCache.getStandardPrice(serviceId) : null;
+                if (standardPrice == null) {
+                    return false;
+                }
+                standardPrices.put(serviceId, standardPrice);
+            }
+            
+            return jobCardDAO.addServicesToJobCard(jobCardId, serviceIds, standardPrices);
+        });
+    }
+    
+    /**
+     * Find the services that are not in the catalog, for example because they were
+     * deleted while a form listing them was open
+     * @param serviceIds IDs of the services to check
+     * @return IDs not found in the catalog cache, in the order given
+     */
+    public List<Integer> getUnknownServiceIds(List<Integer> serviceIds) {
+        return Metrics.timed("JobCardService.getUnknownServiceIds", () -> {
+            List<Integer> unknown = new ArrayList<>();
+            for (Integer serviceId : serviceIds) {
+                if (serviceId == null || catalogCache.getStandardPrice(serviceId) == null) {
+                    unknown.add(serviceId);
+                }
+            }
+            return unknown;
+        });
     }
     
     /**
@@ -122,7 +311,9 @@ public class JobCardService {
      * @return List of JobService objects
      */
     public List<JobService> getServicesForJobCard(int jobCardId) {
-        return jobCardDAO.getServicesForJobCard(jobCardId);
+        return Metrics.timed("JobCardService.getServicesForJobCard", () -> {
+            return jobCardDAO.getServicesForJobCard(jobCardId);
+        });
     }
     
     /**
@@ -132,12 +323,14 @@ public class JobCardService {
      * @return true if successful, false otherwise
      */
     public boolean updateJobServiceStatus(int jobServiceId, String status) {
-        // Validate status
-        if (!isValidJobServiceStatus(status)) {
-            return false;
-        }
-        
-        return jobCardDAO.updateJobServiceStatus(jobServiceId, status);
+        return Metrics.timed("JobCardService.updateJobServiceStatus", () -> {
+            // Validate status
+            if (!isValidJobServiceStatus(status)) {
+                return false;
+            }
+            
+            return jobCardDAO.updateJobServiceStatus(jobServiceId, status);
+        });
     }
     
     /**
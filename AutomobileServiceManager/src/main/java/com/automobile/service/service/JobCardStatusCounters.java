@@ -0,0 +1,149 @@
+package com.automobile.service.service;
+
+import com.automobile.service.dao.JobCardDAO;
+import com.automobile.service.model.JobCard;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Number of job cards in each status, kept in memory for the dashboard. The counters are
+ * seeded with one GROUP BY query and then moved by every job card insert and status change
+ * made through JobCardService, so reading them never touches the database.
+ * Changes run under the read lock and seeding under the write lock, so a change is either
+ * already in the seeding query or applied to the seeded counters, never both or neither.
+ */
+public class JobCardStatusCounters {
+    
+    public static final String[] STATUSES = {"OPEN", "IN_PROGRESS", "COMPLETED", "DELIVERED", "CANCELLED"};
+    
+    private static final JobCardStatusCounters INSTANCE = new JobCardStatusCounters(new JobCardDAO());
+    
+    private final JobCardDAO jobCardDAO;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, AtomicLong> counts = new LinkedHashMap<>();
+    private volatile boolean seeded;
+    
+    public JobCardStatusCounters(JobCardDAO jobCardDAO) {
+        this.jobCardDAO = jobCardDAO;
+        for (String status : STATUSES) {
+            counts.put(status, new AtomicLong());
+        }
+    }
+    
+    /**
+     * Get the counters shared by the application
+     * @return JobCardStatusCounters instance
+     */
+    public static JobCardStatusCounters getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Get the number of job cards in each status, seeding the counters on first use
+     * @return unmodifiable Map of status to count in status order, or null if seeding failed
+     */
+    public Map<String, Long> getCounts() {
+        if (!seeded && !seed()) {
+            return null;
+        }
+        
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        for (Map.Entry<String, AtomicLong> count : counts.entrySet()) {
+            snapshot.put(count.getKey(), count.getValue().get());
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+    
+    /**
+     * Insert a job card and count it
+     * @param insert inserts the job card and returns its ID, or -1 if it failed
+     * @param status status of the new job card
+     * @return the value returned by insert
+     */
+    public int countInsert(IntSupplier insert, String status) {
+        lock.readLock().lock();
+        try {
+            int jobCardId = insert.getAsInt();
+            if (jobCardId > 0 && seeded) {
+                adjust(status, 1);
+            }
+            return jobCardId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Change the status of a job card and move it between counters
+     * @param change updates the status and returns the job card as it was before, or null if it failed
+     * @param status new status
+     * @return the value returned by change
+     */
+    public JobCard countStatusChange(Supplier<JobCard> change, String status) {
+        lock.readLock().lock();
+        try {
+            JobCard previous = change.get();
+            if (previous != null && seeded && !status.equals(previous.getStatus())) {
+                adjust(previous.getStatus(), -1);
+                adjust(status, 1);
+            }
+            return previous;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Discard the counters after job cards were changed outside JobCardService,
+     * e.g. deleted with their vehicle. They are seeded again on the next read.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            seeded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private boolean seed() {
+        lock.writeLock().lock();
+        try {
+            if (seeded) {
+                return true;
+            }
+            
+            Map<String, Integer> stored = jobCardDAO.countJobCardsByStatus();
+            if (stored == null) {
+                return false;
+            }
+            
+            for (Map.Entry<String, AtomicLong> count : counts.entrySet()) {
+                Integer value = stored.get(count.getKey());
+                count.getValue().set(value != null ? value : 0);
+            }
+            seeded = true;
+            return true;
+            
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Move a counter after a change has been committed. Unknown statuses, e.g. rows
+     * written without a status, are not counted.
+     */
+    private void adjust(String status, int delta) {
+        AtomicLong counter = counts.get(status);
+        if (counter != null) {
+            counter.addAndGet(delta);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.automobile.service.service;
+
+import com.automobile.service.dao.PartDAO;
+import com.automobile.service.model.Part;
+import com.automobile.service.model.PartUsage;
+import com.automobile.service.util.Metrics;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * PartsInventoryService class for managing parts and the parts used on job services.
+ * Stock is taken through the shared StockLedger before a usage is recorded, so
+ * concurrent job card updates can never use more of a part than is in stock.
+ */
+public class PartsInventoryService {
+    
+    private PartDAO partDAO;
+    private StockLedger stockLedger;
+    
+    public PartsInventoryService() {
+        this(new PartDAO(), StockLedger.getInstance());
+    }
+    
+    public PartsInventoryService(PartDAO partDAO, StockLedger stockLedger) {
+        this.partDAO = partDAO;
+        this.stockLedger = stockLedger;
+    }
+    
+    /**
+     * Add a new part
+     * @param part Part object to add
+     * @return true if successful, false otherwise
+     */
+    public boolean addPart(Part part) {
+        return Metrics.timed("PartsInventoryService.addPart", () -> {
+            if (!validatePart(part) || part.getQuantityInStock() < 0) {
+                return false;
+            }
+            
+            return partDAO.addPart(part);
+        });
+    }
+    
+    /**
+     * Update a part's details. The stock level is not changed; use restockPart for that.
+     * @param part Part object with updated information
+     * @return true if successful, false otherwise
+     */
+    public boolean updatePart(Part part) {
+        return Metrics.timed("PartsInventoryService.updatePart", () -> {
+            if (!validatePart(part)) {
+                return false;
+            }
+            
+            return partDAO.updatePart(part);
+        });
+    }
+    
+    /**
+     * Get a part by ID with its current stock level
+     * @param partId ID of the part to retrieve
+     * @return Part object if found, null otherwise
+     */
+    public Part getPartById(int partId) {
+        return Metrics.timed("PartsInventoryService.getPartById", () -> {
+            Part part = partDAO.getPartById(partId);
+            if (part != null) {
+                applyLedgerStock(part);
+            }
+            return part;
+        });
+    }
+    
+    /**
+     * Get all parts with their current stock levels
+     * @return List of Part objects
+     */
+    public List<Part> getAllParts() {
+        return Metrics.timed("PartsInventoryService.getAllParts", () -> {
+            List<Part> parts = partDAO.getAllParts();
+            for (Part part : parts) {
+                applyLedgerStock(part);
+            }
+            return parts;
+        });
+    }
+    
+    /**
+     * Get the available stock of a part
+     * @param partId ID of the part
+     * @return available quantity, or null if the part does not exist
+     */
+    public Integer getAvailableStock(int partId) {
+        return Metrics.timed("PartsInventoryService.getAvailableStock", () -> {
+            return stockLedger.getAvailable(partId);
+        });
+    }
+    
+    /**
+     * Add delivered stock of a part
+     * @param partId ID of the part
+     * @param quantity quantity delivered, must be positive
+     * @return true if successful, false otherwise
+     */
+    public boolean restockPart(int partId, int quantity) {
+        return Metrics.timed("PartsInventoryService.restockPart", () -> {
+            return stockLedger.release(partId, quantity);
+        });
+    }
+    
+    /**
+     * Use a part on a job service at its current unit price
+     * @param jobServiceId ID of the job service
+     * @param partId ID of the part
+     * @param quantity quantity used, must be positive
+     * @return the recorded PartUsage, or null if the part does not exist or has too little stock
+     */
+    public PartUsage usePart(int jobServiceId, int partId, int quantity) {
+        return Metrics.timed("PartsInventoryService.usePart", () -> {
+            List<PartUsage> usages = usePartsForJobService(jobServiceId, Collections.singletonMap(partId, quantity));
+            return usages != null ? usages.get(0) : null;
+        });
+    }
+    
+    /**
+     * Use several parts on a job service. Either all parts are used or none are.
+     * @param jobServiceId ID of the job service
+     * @param quantities Map of part ID to quantity used
+     * @return the recorded PartUsage objects, or null if any part does not exist or has too little stock
+     */
+    public List<PartUsage> usePartsForJobService(int jobServiceId, Map<Integer, Integer> quantities) {
+        return Metrics.timed("PartsInventoryService.usePartsForJobService", () -> {
+            if (quantities.isEmpty()) {
+                return null;
+            }
+            
+            List<PartUsage> usages = new ArrayList<>(quantities.size());
+            for (Map.Entry<Integer, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+                Part part = partDAO.getPartById(entry.getKey());
+                if (part == null || entry.getValue() == null || entry.getValue() <= 0) {
+                    return null;
+                }
+                usages.add(new PartUsage(jobServiceId, part.getPartId(), entry.getValue(), part.getUnitPrice()));
+            }
+            
+            // Take the stock first so the usage is only recorded for stock that exists
+            List<PartUsage> reserved = new ArrayList<>(usages.size());
+            for (PartUsage usage : usages) {
+                if (!stockLedger.reserve(usage.getPartId(), usage.getQuantity())) {
+                    releaseAll(reserved);
+                    return null;
+                }
+                reserved.add(usage);
+            }
+            
+            if (!partDAO.addPartUsages(usages)) {
+                releaseAll(reserved);
+                return null;
+            }
+            
+            return usages;
+        });
+    }
+    
+    /**
+     * Remove a part usage and put its quantity back in stock
+     * @param partsUsedId ID of the part usage
+     * @return true if successful, false otherwise
+     */
+    public boolean returnPart(int partsUsedId) {
+        return Metrics.timed("PartsInventoryService.returnPart", () -> {
+            PartUsage usage = partDAO.getPartUsageById(partsUsedId);
+            if (usage == null) {
+                return false;
+            }
+            
+            // Only the request that deletes the row puts the stock back
+            if (!partDAO.deletePartUsage(partsUsedId)) {
+                return false;
+            }
+            
+            return stockLedger.release(usage.getPartId(), usage.getQuantity());
+        });
+    }
+    
+    /**
+     * Get the parts used on every service of a job card
+     * @param jobCardId ID of the job card
+     * @return List of PartUsage objects
+     */
+    public List<PartUsage> getPartUsagesForJobCard(int jobCardId) {
+        return Metrics.timed("PartsInventoryService.getPartUsagesForJobCard", () -> {
+            return partDAO.getPartUsagesForJobCard(jobCardId);
+        });
+    }
+    
+    /**
+     * Write pending stock changes to the database now
+     * @return true if successful, false otherwise
+     */
+    public boolean flushStock() {
+        return Metrics.timed("PartsInventoryService.flushStock", () -> {
+            return stockLedger.flush();
+        });
+    }
+    
+    private void releaseAll(List<PartUsage> reserved) {
+        for (PartUsage usage : reserved) {
+            stockLedger.release(usage.getPartId(), usage.getQuantity());
+        }
+    }
+    
+    /**
+     * Replace the stored stock level with the ledger's, which may not be flushed yet
+     */
+    private void applyLedgerStock(Part part) {
+        Integer available = stockLedger.peekAvailable(part.getPartId());
+        if (available != null) {
+            part.setQuantityInStock(available);
+        }
+    }
+    
+    /**
+     * Validate part data
+     * @param part Part object to validate
+     * @return true if valid, false otherwise
+     */
+    private boolean validatePart(Part part) {
+        if (part.getPartName() == null || part.getPartName().trim().isEmpty()) {
+            return false;
+        }
+        
+        if (part.getUnitPrice() == null || part.getUnitPrice().compareTo(BigDecimal.ZERO) < 0) {
+            return false;
+        }
+        
+        return true;
+    }
+}
@@ -0,0 +1,161 @@
+package com.automobile.service.service;
+
+import com.automobile.service.dao.RollupDAO;
+import com.automobile.service.model.Billing;
+import com.automobile.service.model.Rollup;
+import com.automobile.service.util.Metrics;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * RollupService class for maintaining and reading per-day job and revenue totals.
+ * The daily_rollups rows are updated as job cards open and close and as bills are
+ * created, so reports read one row per day instead of scanning job_cards and billing.
+ * An update that fails is only logged; rebuildDailyRollups recomputes exact values.
+ */
+public class RollupService {
+    
+    private RollupDAO rollupDAO;
+    
+    public RollupService() {
+        this.rollupDAO = new RollupDAO();
+    }
+    
+    /**
+     * Count a job card opened
+     * @param openDate open date of the job card
+     */
+    public void recordJobOpened(LocalDateTime openDate) {
+        Metrics.timed("RollupService.recordJobOpened", () -> {
+            Rollup delta = new Rollup(openDate.toLocalDate());
+            delta.setJobsOpened(1);
+            apply(Collections.singletonList(delta));
+        });
+    }
+    
+    /**
+     * Move a job card's close between days after its close date changed.
+     * A job card counts as closed on the day of its close date, so closing counts it,
+     * reopening uncounts it and closing again moves it to the new day.
+     * @param previousCloseDate close date before the change, or null if it was open
+     * @param closeDate close date after the change, or null if it is open
+     */
+    public void recordJobCloseDateChanged(LocalDateTime previousCloseDate, LocalDateTime closeDate) {
+        Metrics.timed("RollupService.recordJobCloseDateChanged", () -> {
+            LocalDate previousDay = previousCloseDate != null ? previousCloseDate.toLocalDate() : null;
+            LocalDate day = closeDate != null ? closeDate.toLocalDate() : null;
+            if (previousDay == null ? day == null : previousDay.equals(day)) {
+                return;
+            }
+            
+            Map<LocalDate, Rollup> deltas = new TreeMap<>();
+            if (previousDay != null) {
+                deltaFor(deltas, previousDay).setJobsClosed(-1);
+            }
+            if (day != null) {
+                deltaFor(deltas, day).setJobsClosed(1);
+            }
+            apply(deltas.values());
+        });
+    }
+    
+    /**
+     * Add created bills to the totals of their bill days, one row update per day
+     * @param bills Billing objects that were saved
+     */
+    public void recordBills(Collection<Billing> bills) {
+        Metrics.timed("RollupService.recordBills", () -> {
+            Map<LocalDate, Rollup> deltas = new TreeMap<>();
+            for (Billing billing : bills) {
+                LocalDateTime billDate = billing.getBillDate() != null ? billing.getBillDate() : LocalDateTime.now();
+                Rollup delta = deltaFor(deltas, billDate.toLocalDate());
+                delta.setBillsCreated(delta.getBillsCreated() + 1);
+                delta.setServiceRevenue(delta.getServiceRevenue().add(billing.getTotalServiceCost()));
+                delta.setPartsRevenue(delta.getPartsRevenue().add(billing.getTotalPartsCost()));
+                delta.setTaxCollected(delta.getTaxCollected().add(billing.getTaxAmount()));
+                if (billing.getDiscountAmount() != null) {
+                    delta.setDiscountsGiven(delta.getDiscountsGiven().add(billing.getDiscountAmount()));
+                }
+                delta.setGrandTotal(delta.getGrandTotal().add(billing.getGrandTotal()));
+            }
+            apply(deltas.values());
+        });
+    }
+    
+    /**
+     * Recompute the rollups of a date range from job_cards and billing
+     * @param from first day to recompute
+     * @param to last day to recompute
+     * @return number of days with activity, or -1 if failed
+     */
+    public int rebuildDailyRollups(LocalDate from, LocalDate to) {
+        return Metrics.timed("RollupService.rebuildDailyRollups", () -> {
+            if (to.isBefore(from)) {
+                return 0;
+            }
+            
+            return rollupDAO.rebuildDailyRollups(from, to.plusDays(1));
+        });
+    }
+    
+    /**
+     * Get the earliest day with a job card or bill
+     * @return earliest day, or null if there is no activity
+     */
+    public LocalDate getFirstActivityDate() {
+        return Metrics.timed("RollupService.getFirstActivityDate", () -> {
+            return rollupDAO.getFirstActivityDate();
+        });
+    }
+    
+    /**
+     * Get the totals of each day in a date range
+     * @param from first day
+     * @param to last day
+     * @return List of Rollup objects for days with activity, in date order
+     */
+    public List<Rollup> getDailyReport(LocalDate from, LocalDate to) {
+        return Metrics.timed("RollupService.getDailyReport", () -> {
+            return rollupDAO.getDailyRollups(from, to.plusDays(1));
+        });
+    }
+    
+    /**
+     * Get the totals of each month of a year
+     * @param year calendar year
+     * @return List of Rollup objects for months with activity, in date order
+     */
+    public List<Rollup> getMonthlyReport(int year) {
+        return Metrics.timed("RollupService.getMonthlyReport", () -> {
+            return rollupDAO.getMonthlyRollups(LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1));
+        });
+    }
+    
+    /**
+     * Get the totals of each year in a range of years
+     * @param fromYear first calendar year
+     * @param toYear last calendar year
+     * @return List of Rollup objects for years with activity, in date order
+     */
+    public List<Rollup> getYearlyReport(int fromYear, int toYear) {
+        return Metrics.timed("RollupService.getYearlyReport", () -> {
+            return rollupDAO.getYearlyRollups(LocalDate.of(fromYear, 1, 1), LocalDate.of(toYear + 1, 1, 1));
+        });
+    }
+    
+    private void apply(Collection<Rollup> deltas) {
+        if (!rollupDAO.addToDailyRollups(deltas)) {
+            System.err.println("Error recording rollup changes: " + deltas);
+        }
+    }
+    
+    private static Rollup deltaFor(Map<LocalDate, Rollup> deltas, LocalDate day) {
+        return deltas.computeIfAbsent(day, Rollup::new);
+    }
+}
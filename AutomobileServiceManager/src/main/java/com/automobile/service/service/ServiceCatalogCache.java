@@ -0,0 +1,171 @@
+package com.automobile.service.service;
+
+import com.automobile.service.dao.ServiceDAO;
+import com.automobile.service.model.Service;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Read-through, in-memory cache of the service catalog shared by all service classes.
+ * The catalog is loaded once into an immutable snapshot indexed by ID and name, and
+ * reloaded on the next read after any catalog change invalidates it.
+ * Cached Service objects are shared and must not be modified by callers.
+ */
+public class ServiceCatalogCache {
+    
+    private static final ServiceCatalogCache INSTANCE = new ServiceCatalogCache(new ServiceDAO());
+    
+    private final ServiceDAO serviceDAO;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    
+    public ServiceCatalogCache(ServiceDAO serviceDAO) {
+        this.serviceDAO = serviceDAO;
+    }
+    
+    /**
+     * Get the cache shared by the application
+     * @return ServiceCatalogCache instance
+     */
+    public static ServiceCatalogCache getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Get all services ordered by name
+     * @return unmodifiable List of Service objects
+     */
+    public List<Service> getAllServices() {
+        return snapshot().services;
+    }
+    
+    /**
+     * Get a service by ID
+     * @param serviceId ID of the service
+     * @return Service object if found, null otherwise
+     */
+    public Service getServiceById(int serviceId) {
+        return snapshot().byId.get(serviceId);
+    }
+    
+    /**
+     * Get a service by name, ignoring case
+     * @param serviceName name of the service
+     * @return Service object if found, null otherwise
+     */
+    public Service getServiceByName(String serviceName) {
+        return serviceName == null ? null : snapshot().byName.get(serviceName.trim().toLowerCase());
+    }
+    
+    /**
+     * Get the standard price of a service
+     * @param serviceId ID of the service
+     * @return standard price, or null if the service does not exist
+     */
+    public BigDecimal getStandardPrice(int serviceId) {
+        Service service = getServiceById(serviceId);
+        return service != null ? service.getStandardPrice() : null;
+    }
+    
+    /**
+     * Search services by name and description without querying the database
+     * @param query search text; each term matches words it is a prefix of
+     * @param limit maximum number of services to return
+     * @return matching services, most relevant first
+     */
+    public List<Service> search(String query, int limit) {
+        return snapshot().getSearchIndex().search(query, limit);
+    }
+    
+    /**
+     * Get the catalog version. It changes every time the catalog is modified.
+     * @return catalog version
+     */
+    public long getVersion() {
+        return version.get();
+    }
+    
+    /**
+     * Get the current catalog snapshot, loading it from the database if needed
+     * @return Snapshot object
+     */
+    public Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        
+        long loadVersion = version.get();
+        List<Service> services = serviceDAO.getAllServices();
+        snapshot = new Snapshot(loadVersion, services);
+        
+        // An empty list is also what the DAO returns on error, so never pin it in the cache
+        if (!services.isEmpty() && current.compareAndSet(null, snapshot) && version.get() != loadVersion) {
+            // The catalog changed while we were loading; drop what we just installed
+            current.compareAndSet(snapshot, null);
+        }
+        
+        return snapshot;
+    }
+    
+    /**
+     * Discard the cached catalog after a change. The next read reloads it.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        current.set(null);
+    }
+    
+    /**
+     * Immutable view of the catalog at one version
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final List<Service> services;
+        private final Map<Integer, Service> byId;
+        private final Map<String, Service> byName;
+        
+        // Built on the first search of this snapshot
+        private volatile ServiceSearchIndex searchIndex;
+        
+        private Snapshot(long version, List<Service> services) {
+            this.version = version;
+            this.services = Collections.unmodifiableList(services);
+            
+            Map<Integer, Service> idIndex = new HashMap<>();
+            Map<String, Service> nameIndex = new HashMap<>();
+            for (Service service : services) {
+                idIndex.put(service.getServiceId(), service);
+                if (service.getServiceName() != null) {
+                    nameIndex.put(service.getServiceName().trim().toLowerCase(), service);
+                }
+            }
+            this.byId = idIndex;
+            this.byName = nameIndex;
+        }
+        
+        public long getVersion() {
+            return version;
+        }
+        
+        public List<Service> getServices() {
+            return services;
+        }
+        
+        public ServiceSearchIndex getSearchIndex() {
+            ServiceSearchIndex index = searchIndex;
+            if (index == null) {
+                // Building twice under a race is harmless; both indexes are identical
+                index = new ServiceSearchIndex(services);
+                searchIndex = index;
+            }
+            return index;
+        }
+    }
+}
@@ -1,20 +1,28 @@
 package com.automobile.service.service;
 
 import com.automobile.service.dao.ServiceDAO;
+import com.automobile.service.model.Page;
 import com.automobile.service.model.Service;
+import com.automobile.service.util.Metrics;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * ServiceCatalogService class for handling business logic related to Service operations
  */
 public class ServiceCatalogService {
     
+    // Maximum number of services returned by a search
+    private static final int SEARCH_LIMIT = 50;
+    
     private ServiceDAO serviceDAO;
+    private ServiceCatalogCache catalogCache;
     
     public ServiceCatalogService() {
         this.serviceDAO = new ServiceDAO();
+        this.catalogCache = ServiceCatalogCache.getInstance();
     }
     
     /**
@@ -23,12 +31,19 @@ public class ServiceCatalogService {
      * @return true if successful, false otherwise
      */
     public boolean addService(Service service) {
-        // Validate service data
-        if (!validateService(service)) {
+        return Metrics.timed("ServiceCatalogService.addService", () -> {
+            // Validate service data
+            if (!validateService(service)) {
+                return false;
+            }
+            
+            if (serviceDAO.addService(service)) {
+                catalogCache.invalidate();
+                return true;
+            }
+            
             return false;
-        }
-        
-        return serviceDAO.addService(service);
+        });
     }
     
     /**
@@ -37,12 +52,19 @@ public class ServiceCatalogService {
      * @return true if successful, false otherwise
      */
     public boolean updateService(Service service) {
-        // Validate service data
-        if (!validateService(service)) {
+        return Metrics.timed("ServiceCatalogService.updateService", () -> {
+            // Validate service data
+            if (!validateService(service)) {
+                return false;
+            }
+            
+            if (serviceDAO.updateService(service)) {
+                catalogCache.invalidate();
+                return true;
+            }
+            
             return false;
-        }
-        
-        return serviceDAO.updateService(service);
+        });
     }
     
     /**
@@ -51,33 +73,87 @@ public class ServiceCatalogService {
      * @return true if successful, false otherwise
      */
     public boolean deleteService(int serviceId) {
-        return serviceDAO.deleteService(serviceId);
+        return Metrics.timed("ServiceCatalogService.deleteService", () -> {
+            if (serviceDAO.deleteService(serviceId)) {
+                catalogCache.invalidate();
+                return true;
+            }
+            
+            return false;
+        });
     }
     
     /**
-     * Get a service by ID
+     * Get a service by ID from the catalog cache
      * @param serviceId ID of the service to retrieve
      * @return Service object if found, null otherwise
      */
     public Service getServiceById(int serviceId) {
-        return serviceDAO.getServiceById(serviceId);
+        return Metrics.timed("ServiceCatalogService.getServiceById", () -> {
+            return catalogCache.getServiceById(serviceId);
+        });
     }
     
     /**
-     * Get all services
-     * @return List of Service objects
+     * Get all services from the catalog cache
+     * @return unmodifiable List of Service objects
      */
     public List<Service> getAllServices() {
-        return serviceDAO.getAllServices();
+        return Metrics.timed("ServiceCatalogService.getAllServices", () -> {
+            return catalogCache.getAllServices();
+        });
+    }
+    
+    /**
+     * Get one page of services ordered by name
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param pageSize Requested page size; clamped to Page.MAX_SIZE
+     * @return Page of Service objects
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Page<Service> getServicesPage(String cursor, int pageSize) {
+        return Metrics.timed("ServiceCatalogService.getServicesPage", () -> {
+            return serviceDAO.getServicesPage(cursor, Page.clampSize(pageSize));
+        });
+    }
+    
+    /**
+     * Pass one page of services, ordered by name, to a consumer as it is read
+     * @param name Text the service name must contain, or null for any name
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param pageSize Requested page size; clamped to Page.MAX_STREAMED_SIZE
+     * @param action Consumer receiving each Service
+     * @return Page holding only the next cursor, or null if the query failed
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Page<Service> forEachServiceOnPage(String name, String cursor, int pageSize,
+                                              Consumer<? super Service> action) {
+        return Metrics.timed("ServiceCatalogService.forEachServiceOnPage", () -> {
+            return serviceDAO.forEachServiceOnPage(name, cursor, Page.clampSize(pageSize, Page.MAX_STREAMED_SIZE), action);
+        });
+    }
+    
+    /**
+     * Search for services by name or description from the catalog cache.
+     * Each term matches words it is a prefix of, so partial input can be searched as it is typed.
+     * @param query Search text
+     * @return List of matching Service objects, most relevant first
+     */
+    public List<Service> searchServices(String query) {
+        return Metrics.timed("ServiceCatalogService.searchServices", () -> {
+            return catalogCache.search(query, SEARCH_LIMIT);
+        });
     }
     
     /**
-     * Search for services by name
+     * Search for services by name or description
      * @param name Name to search for
      * @return List of matching Service objects
      */
     public List<Service> searchServicesByName(String name) {
-        return serviceDAO.searchServicesByName(name);
+        return Metrics.timed("ServiceCatalogService.searchServicesByName", () -> {
+            return searchServices(name);
+        });
     }
     
     /**
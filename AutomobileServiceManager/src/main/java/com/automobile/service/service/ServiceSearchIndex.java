@@ -0,0 +1,139 @@
+package com.automobile.service.service;
+
+import com.automobile.service.model.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable inverted index over the name and description of every service in one
+ * catalog snapshot. Each query term matches index terms it is a prefix of, so results
+ * can be shown while the user types. A new index is built for every catalog version.
+ */
+public class ServiceSearchIndex {
+    
+    // A term in the service name counts for more than one in the description
+    private static final int NAME_WEIGHT = 4;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    
+    // Bonus multiplier when a query term matches an index term exactly
+    private static final int EXACT_MATCH_FACTOR = 2;
+    
+    private final List<Service> services;
+    private final TreeMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+    
+    /**
+     * Build the index over a list of services
+     * @param services catalog services; positions in this list identify postings
+     */
+    public ServiceSearchIndex(List<Service> services) {
+        this.services = services;
+        
+        for (int i = 0; i < services.size(); i++) {
+            Service service = services.get(i);
+            addTerms(i, service.getServiceName(), NAME_WEIGHT);
+            addTerms(i, service.getDescription(), DESCRIPTION_WEIGHT);
+        }
+    }
+    
+    /**
+     * Search services by name and description. Every query term must match.
+     * @param query search text
+     * @param limit maximum number of services to return
+     * @return matching services, most relevant first
+     */
+    public List<Service> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        Map<Integer, Integer> scores = null;
+        for (String term : terms) {
+            Map<Integer, Integer> termScores = scoreTerm(term);
+            
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                // Keep only services matching every term so far
+                Map<Integer, Integer> combined = new HashMap<>();
+                for (Map.Entry<Integer, Integer> e : scores.entrySet()) {
+                    Integer termScore = termScores.get(e.getKey());
+                    if (termScore != null) {
+                        combined.put(e.getKey(), e.getValue() + termScore);
+                    }
+                }
+                scores = combined;
+            }
+            
+            if (scores.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+        
+        final Map<Integer, Integer> finalScores = scores;
+        List<Integer> ranked = new ArrayList<>(finalScores.keySet());
+        ranked.sort((a, b) -> {
+            int byScore = Integer.compare(finalScores.get(b), finalScores.get(a));
+            return byScore != 0 ? byScore : Integer.compare(a, b);
+        });
+        
+        List<Service> results = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            results.add(services.get(ranked.get(i)));
+        }
+        return results;
+    }
+    
+    /**
+     * Score every service containing an index term that starts with the query term
+     */
+    private Map<Integer, Integer> scoreTerm(String term) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        NavigableMap<String, Map<Integer, Integer>> matches =
+                postings.subMap(term, true, term + Character.MAX_VALUE, false);
+        
+        for (Map.Entry<String, Map<Integer, Integer>> match : matches.entrySet()) {
+            int factor = match.getKey().length() == term.length() ? EXACT_MATCH_FACTOR : 1;
+            for (Map.Entry<Integer, Integer> posting : match.getValue().entrySet()) {
+                // A service matching through several index terms keeps its best match
+                scores.merge(posting.getKey(), posting.getValue() * factor, Math::max);
+            }
+        }
+        
+        return scores;
+    }
+    
+    private void addTerms(int position, String text, int weight) {
+        for (String term : tokenize(text)) {
+            Map<Integer, Integer> posting = postings.get(term);
+            if (posting == null) {
+                posting = new HashMap<>();
+                postings.put(term, posting);
+            }
+            posting.merge(position, weight, Integer::sum);
+        }
+    }
+    
+    /**
+     * Split text into lower-case terms of letters and digits
+     */
+    private static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        
+        for (String term : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+}
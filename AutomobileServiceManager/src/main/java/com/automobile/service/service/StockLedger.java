@@ -0,0 +1,216 @@
+package com.automobile.service.service;
+
+import com.automobile.service.dao.PartDAO;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory stock levels of parts, shared by all requests. Each part has its own atomic
+ * counter, so reservations on different parts never contend and a reservation on the same
+ * part is a compare-and-set that cannot take the stock below zero.
+ * Changes are written to the database behind the counters, as one batch of relative updates
+ * per flush. The ledger must be the only writer of parts.quantity_in_stock while it runs.
+ */
+public class StockLedger {
+    
+    private static final long FLUSH_INTERVAL_MILLIS = 2000;
+    
+    private static final StockLedger INSTANCE = new StockLedger(new PartDAO(), FLUSH_INTERVAL_MILLIS);
+    
+    private final PartDAO partDAO;
+    private final ConcurrentHashMap<Integer, Stock> stocks = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+    
+    /**
+     * @param partDAO DAO used to load and store stock levels
+     * @param flushIntervalMillis delay between background flushes, or 0 to flush only on request
+     */
+    public StockLedger(PartDAO partDAO, long flushIntervalMillis) {
+        this.partDAO = partDAO;
+        
+        if (flushIntervalMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "parts-stock-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                                           TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+    
+    /**
+     * Get the ledger shared by the application
+     * @return StockLedger instance
+     */
+    public static StockLedger getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Take stock of a part if enough is available
+     * @param partId ID of the part
+     * @param quantity quantity to take, must be positive
+     * @return true if the stock was taken, false if the part does not exist or has too little stock
+     */
+    public boolean reserve(int partId, int quantity) {
+        if (quantity <= 0) {
+            return false;
+        }
+        
+        Stock stock = stockFor(partId);
+        if (stock == null) {
+            return false;
+        }
+        
+        int current;
+        do {
+            current = stock.available.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!stock.available.compareAndSet(current, current - quantity));
+        
+        stock.pendingDelta.addAndGet(-quantity);
+        return true;
+    }
+    
+    /**
+     * Put stock of a part back, e.g. a reservation that was not used or a delivery
+     * @param partId ID of the part
+     * @param quantity quantity to add, must be positive
+     * @return true if the stock was added, false if the part does not exist
+     */
+    public boolean release(int partId, int quantity) {
+        if (quantity <= 0) {
+            return false;
+        }
+        
+        Stock stock = stockFor(partId);
+        if (stock == null) {
+            return false;
+        }
+        
+        stock.available.addAndGet(quantity);
+        stock.pendingDelta.addAndGet(quantity);
+        return true;
+    }
+    
+    /**
+     * Get the available stock of a part, loading it from the database if needed
+     * @param partId ID of the part
+     * @return available quantity, or null if the part does not exist
+     */
+    public Integer getAvailable(int partId) {
+        Stock stock = stockFor(partId);
+        return stock != null ? stock.available.get() : null;
+    }
+    
+    /**
+     * Get the available stock of a part only if the ledger has already loaded it
+     * @param partId ID of the part
+     * @return available quantity, or null if the part is not loaded
+     */
+    public Integer peekAvailable(int partId) {
+        Stock stock = stocks.get(partId);
+        return stock != null ? stock.available.get() : null;
+    }
+    
+    /**
+     * Write all pending stock changes to the database in one batch. Changes that fail
+     * to be written are kept and retried on the next flush.
+     * @return true if nothing was pending or the changes were written, false otherwise
+     */
+    public boolean flush() {
+        flushLock.lock();
+        try {
+            Map<Integer, Integer> deltas = new HashMap<>();
+            for (Map.Entry<Integer, Stock> entry : stocks.entrySet()) {
+                int delta = entry.getValue().pendingDelta.getAndSet(0);
+                if (delta != 0) {
+                    deltas.put(entry.getKey(), delta);
+                }
+            }
+            
+            if (deltas.isEmpty() || partDAO.applyStockDeltas(deltas)) {
+                return true;
+            }
+            
+            for (Map.Entry<Integer, Integer> delta : deltas.entrySet()) {
+                stocks.get(delta.getKey()).pendingDelta.addAndGet(delta.getValue());
+            }
+            return false;
+            
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    /**
+     * Stop the background flush and write the remaining changes
+     * @return true if the remaining changes were written, false otherwise
+     */
+    public boolean shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        return flush();
+    }
+    
+    private void flushQuietly() {
+        try {
+            if (!flush()) {
+                System.err.println("Error flushing part stock levels, will retry");
+            }
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; the changes are retried on the next flush
+            System.err.println("Error flushing part stock levels: " + e);
+        }
+    }
+    
+    /**
+     * Get the counters of a part, loading its stored level on first use.
+     * The load runs outside the map so other parts are not blocked by the query.
+     */
+    private Stock stockFor(int partId) {
+        Stock stock = stocks.get(partId);
+        if (stock != null) {
+            return stock;
+        }
+        
+        Integer stored = partDAO.getStockLevel(partId);
+        if (stored == null) {
+            return null;
+        }
+        
+        // Another thread may have loaded the part meanwhile; the first one wins
+        Stock loaded = new Stock(stored);
+        Stock existing = stocks.putIfAbsent(partId, loaded);
+        return existing != null ? existing : loaded;
+    }
+    
+    private static final class Stock {
+        final AtomicInteger available;
+        final AtomicInteger pendingDelta = new AtomicInteger();
+        
+        Stock(int available) {
+            this.available = new AtomicInteger(available);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.automobile.service.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded, least-recently-used cache from normalized license plate or VIN to vehicle ID,
+ * used by check-in lookups. Lookups that found no vehicle are cached too, for a short time,
+ * so repeated misses do not reach the database. Entries are invalidated by VehicleService
+ * writes; callers must still check that a cached vehicle ID loads the vehicle they expect.
+ * A miss is only cached if nothing was invalidated while it was being looked up, so a miss
+ * read just before a vehicle was added cannot hide the new vehicle.
+ */
+public class VehicleLookupCache {
+    
+    /**
+     * Cached value meaning no vehicle has this key
+     */
+    public static final int NOT_FOUND = 0;
+    
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+    private static final long DEFAULT_MISS_TTL_MILLIS = 30000;
+    
+    private static final VehicleLookupCache INSTANCE =
+            new VehicleLookupCache(DEFAULT_MAX_ENTRIES, DEFAULT_MISS_TTL_MILLIS);
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, CachedId> entries;
+    // Keys of the entries that map to each vehicle, so a vehicle's entries are found without a scan
+    private final Map<Integer, Set<String>> keysByVehicle = new HashMap<>();
+    private final long missTtlMillis;
+    // Incremented by every invalidation
+    private long generation;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    public VehicleLookupCache(final int maxEntries, long missTtlMillis) {
+        this.missTtlMillis = missTtlMillis;
+        this.entries = new LinkedHashMap<String, CachedId>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedId> eldest) {
+                if (size() > maxEntries) {
+                    unindex(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * Get the cache shared by the application
+     * @return VehicleLookupCache instance
+     */
+    public static VehicleLookupCache getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Build the cache key for a normalized license plate
+     * @param plateKey normalized license plate
+     * @return cache key
+     */
+    public static String plateKey(String plateKey) {
+        return "P:" + plateKey;
+    }
+    
+    /**
+     * Build the cache key for a normalized VIN
+     * @param vin normalized VIN
+     * @return cache key
+     */
+    public static String vinKey(String vin) {
+        return "V:" + vin;
+    }
+    
+    /**
+     * Look up a key
+     * @param key cache key
+     * @return vehicle ID, NOT_FOUND for a cached miss, or null if the key is not cached
+     */
+    public Integer get(String key) {
+        lock.lock();
+        try {
+            CachedId entry = entries.get(key);
+            if (entry != null && entry.expiresAt != 0 && entry.expiresAt < System.currentTimeMillis()) {
+                entries.remove(key);
+                unindex(key, entry);
+                entry = null;
+            }
+            
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            
+            hits.increment();
+            return entry.vehicleId;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Cache the vehicle found for a key
+     * @param key cache key
+     * @param vehicleId ID of the vehicle
+     */
+    public void put(String key, int vehicleId) {
+        lock.lock();
+        try {
+            store(key, new CachedId(vehicleId, 0));
+            keysByVehicle.computeIfAbsent(vehicleId, id -> new HashSet<>()).add(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Get the current invalidation generation, to be read before a lookup whose miss
+     * will be passed to putMissing
+     * @return generation
+     */
+    public long getGeneration() {
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Cache that no vehicle has a key, unless an invalidation happened since the lookup started
+     * @param key cache key
+     * @param generation value of getGeneration() read before the lookup
+     */
+    public void putMissing(String key, long generation) {
+        lock.lock();
+        try {
+            // A vehicle may have been added after the lookup missed
+            if (generation == this.generation) {
+                store(key, new CachedId(NOT_FOUND, System.currentTimeMillis() + missTtlMillis));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Remove a key
+     * @param key cache key
+     */
+    public void invalidate(String key) {
+        lock.lock();
+        try {
+            generation++;
+            CachedId entry = entries.remove(key);
+            if (entry != null) {
+                unindex(key, entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Remove every key that maps to a vehicle
+     * @param vehicleId ID of the vehicle
+     */
+    public void invalidateVehicle(int vehicleId) {
+        lock.lock();
+        try {
+            generation++;
+            Set<String> keys = keysByVehicle.remove(vehicleId);
+            if (keys != null) {
+                for (String key : keys) {
+                    entries.remove(key);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Remove every entry
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            generation++;
+            entries.clear();
+            keysByVehicle.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Store an entry, dropping the one it replaces from the reverse index. Called with the lock held.
+     */
+    private void store(String key, CachedId entry) {
+        CachedId previous = entries.put(key, entry);
+        if (previous != null) {
+            unindex(key, previous);
+        }
+    }
+    
+    /**
+     * Drop a removed entry from the reverse index. Called with the lock held.
+     */
+    private void unindex(String key, CachedId entry) {
+        if (entry.vehicleId == NOT_FOUND) {
+            return;
+        }
+        Set<String> keys = keysByVehicle.get(entry.vehicleId);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByVehicle.remove(entry.vehicleId);
+            }
+        }
+    }
+    
+    /**
+     * @return number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    /**
+     * @return number of lookups not found in the cache
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    /**
+     * Cached vehicle ID; misses expire, found vehicles stay until invalidated or evicted
+     */
+    private static final class CachedId {
+        private final int vehicleId;
+        private final long expiresAt;
+        
+        private CachedId(int vehicleId, long expiresAt) {
+            this.vehicleId = vehicleId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package com.automobile.service.service;
 
 import com.automobile.service.dao.VehicleDAO;
+import com.automobile.service.model.Page;
 import com.automobile.service.model.Vehicle;
+import com.automobile.service.util.Metrics;
+import com.automobile.service.util.VehicleIdentifiers;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * VehicleService class for handling business logic related to Vehicle operations
@@ -12,9 +20,13 @@ import java.util.List;
 public class VehicleService {
     
     private VehicleDAO vehicleDAO;
+    private VehicleLookupCache lookupCache;
+    private JobCardStatusCounters statusCounters;
     
     public VehicleService() {
         this.vehicleDAO = new VehicleDAO();
+        this.lookupCache = VehicleLookupCache.getInstance();
+        this.statusCounters = JobCardStatusCounters.getInstance();
     }
     
     /**
@@ -23,12 +35,22 @@ public class VehicleService {
      * @return true if successful, false otherwise
      */
     public boolean addVehicle(Vehicle vehicle) {
-        // Validate vehicle data
-        if (!validateVehicle(vehicle)) {
-            return false;
-        }
-        
-        return vehicleDAO.addVehicle(vehicle);
+        return Metrics.timed("VehicleService.addVehicle", () -> {
+            normalizeVin(vehicle);
+            
+            // Validate vehicle data
+            if (!validateVehicle(vehicle)) {
+                return false;
+            }
+            
+            if (!vehicleDAO.addVehicle(vehicle)) {
+                return false;
+            }
+            
+            // Drop cached misses for the new plate and VIN
+            invalidateLookups(vehicle);
+            return true;
+        });
     }
     
     /**
@@ -37,12 +59,23 @@ public class VehicleService {
      * @return true if successful, false otherwise
      */
     public boolean updateVehicle(Vehicle vehicle) {
-        // Validate vehicle data
-        if (!validateVehicle(vehicle)) {
-            return false;
-        }
-        
-        return vehicleDAO.updateVehicle(vehicle);
+        return Metrics.timed("VehicleService.updateVehicle", () -> {
+            normalizeVin(vehicle);
+            
+            // Validate vehicle data
+            if (!validateVehicle(vehicle)) {
+                return false;
+            }
+            
+            if (!vehicleDAO.updateVehicle(vehicle)) {
+                return false;
+            }
+            
+            // The old plate and VIN may no longer belong to this vehicle
+            lookupCache.invalidateVehicle(vehicle.getVehicleId());
+            invalidateLookups(vehicle);
+            return true;
+        });
     }
     
     /**
@@ -51,7 +84,16 @@ public class VehicleService {
      * @return true if successful, false otherwise
      */
     public boolean deleteVehicle(int vehicleId) {
-        return vehicleDAO.deleteVehicle(vehicleId);
+        return Metrics.timed("VehicleService.deleteVehicle", () -> {
+            if (!vehicleDAO.deleteVehicle(vehicleId)) {
+                return false;
+            }
+            
+            lookupCache.invalidateVehicle(vehicleId);
+            // The vehicle's job cards were deleted with it
+            statusCounters.invalidate();
+            return true;
+        });
     }
     
     /**
@@ -60,16 +102,56 @@ public class VehicleService {
      * @return Vehicle object if found, null otherwise
      */
     public Vehicle getVehicleById(int vehicleId) {
-        return vehicleDAO.getVehicleById(vehicleId);
+        return Metrics.timed("VehicleService.getVehicleById", () -> {
+            return vehicleDAO.getVehicleById(vehicleId);
+        });
     }
     
     /**
-     * Get a vehicle by license plate
+     * Get vehicles for a set of IDs in as few queries as possible
+     * @param vehicleIds IDs of the vehicles to retrieve
+     * @return Map of vehicle ID to Vehicle object
+     */
+    public Map<Integer, Vehicle> getVehiclesByIds(Collection<Integer> vehicleIds) {
+        return Metrics.timed("VehicleService.getVehiclesByIds", () -> {
+            return vehicleDAO.getVehiclesByIds(vehicleIds);
+        });
+    }
+    
+    /**
+     * Get a vehicle by license plate, ignoring spaces, dashes and case
      * @param licensePlate License plate to search for
      * @return Vehicle object if found, null otherwise
      */
     public Vehicle getVehicleByLicensePlate(String licensePlate) {
-        return vehicleDAO.getVehicleByLicensePlate(licensePlate);
+        return Metrics.timed("VehicleService.getVehicleByLicensePlate", () -> {
+            String plateKey = VehicleIdentifiers.normalizePlate(licensePlate);
+            if (plateKey.isEmpty()) {
+                return null;
+            }
+            
+            return lookupVehicle(VehicleLookupCache.plateKey(plateKey), plateKey,
+                    v -> VehicleIdentifiers.normalizePlate(v.getLicensePlate()),
+                    vehicleDAO::getVehicleByPlateKey);
+        });
+    }
+    
+    /**
+     * Get a vehicle by VIN, ignoring spaces, dashes and case
+     * @param vin VIN to search for
+     * @return Vehicle object if found, null otherwise
+     */
+    public Vehicle getVehicleByVin(String vin) {
+        return Metrics.timed("VehicleService.getVehicleByVin", () -> {
+            String normalizedVin = VehicleIdentifiers.normalizeVin(vin);
+            if (normalizedVin.isEmpty()) {
+                return null;
+            }
+            
+            return lookupVehicle(VehicleLookupCache.vinKey(normalizedVin), normalizedVin,
+                    v -> VehicleIdentifiers.normalizeVin(v.getVin()),
+                    vehicleDAO::getVehicleByVin);
+        });
     }
     
     /**
@@ -78,7 +160,9 @@ public class VehicleService {
      * @return List of Vehicle objects
      */
     public List<Vehicle> getVehiclesByCustomerId(int customerId) {
-        return vehicleDAO.getVehiclesByCustomerId(customerId);
+        return Metrics.timed("VehicleService.getVehiclesByCustomerId", () -> {
+            return vehicleDAO.getVehiclesByCustomerId(customerId);
+        });
     }
     
     /**
@@ -86,7 +170,61 @@ public class VehicleService {
      * @return List of Vehicle objects
      */
     public List<Vehicle> getAllVehicles() {
-        return vehicleDAO.getAllVehicles();
+        return Metrics.timed("VehicleService.getAllVehicles", () -> {
+            return vehicleDAO.getAllVehicles();
+        });
+    }
+    
+    /**
+     * Get one page of vehicles ordered by make, model and newest year
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param pageSize Requested page size; clamped to Page.MAX_SIZE
+     * @return Page of Vehicle objects
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Page<Vehicle> getVehiclesPage(String cursor, int pageSize) {
+        return Metrics.timed("VehicleService.getVehiclesPage", () -> {
+            return vehicleDAO.getVehiclesPage(cursor, Page.clampSize(pageSize));
+        });
+    }
+    
+    /**
+     * Stream all vehicles; close the stream when done
+     * @return Stream of Vehicle objects
+     */
+    public Stream<Vehicle> streamAllVehicles() {
+        return Metrics.timed("VehicleService.streamAllVehicles", () -> {
+            return vehicleDAO.streamAllVehicles();
+        });
+    }
+    
+    /**
+     * Pass each vehicle to a consumer as it is read
+     * @param action Consumer receiving each Vehicle
+     * @return number of vehicles processed, or -1 if the query failed
+     */
+    public int forEachVehicle(Consumer<? super Vehicle> action) {
+        return Metrics.timed("VehicleService.forEachVehicle", () -> {
+            return vehicleDAO.forEachVehicle(action);
+        });
+    }
+    
+    /**
+     * Pass one page of vehicles, ordered by make, model and newest year, to a consumer as it is read
+     * @param customerId Owner to filter by, or 0 for all owners
+     * @param make Make to filter by, or null for all makes
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param pageSize Requested page size; clamped to Page.MAX_STREAMED_SIZE
+     * @param action Consumer receiving each Vehicle
+     * @return Page holding only the next cursor, or null if the query failed
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Page<Vehicle> forEachVehicleOnPage(int customerId, String make, String cursor, int pageSize,
+                                              Consumer<? super Vehicle> action) {
+        return Metrics.timed("VehicleService.forEachVehicleOnPage", () -> {
+            return vehicleDAO.forEachVehicleOnPage(customerId, make, cursor,
+                    Page.clampSize(pageSize, Page.MAX_STREAMED_SIZE), action);
+        });
     }
     
     /**
@@ -96,7 +234,67 @@ public class VehicleService {
      * @return true if successful, false otherwise
      */
     public boolean updateLastServiceDate(int vehicleId, LocalDate lastServiceDate) {
-        return vehicleDAO.updateLastServiceDate(vehicleId, lastServiceDate);
+        return Metrics.timed("VehicleService.updateLastServiceDate", () -> {
+            return vehicleDAO.updateLastServiceDate(vehicleId, lastServiceDate);
+        });
+    }
+    
+    /**
+     * Resolve a plate or VIN through the lookup cache. A cached vehicle ID is only trusted
+     * if the vehicle still has the identifier; otherwise the entry is dropped and the
+     * database is queried.
+     * @param cacheKey lookup cache key
+     * @param identifier normalized plate or VIN
+     * @param identifierOf reads the normalized identifier from a vehicle
+     * @param loader loads a vehicle by the normalized identifier
+     * @return Vehicle object if found, null otherwise
+     */
+    private Vehicle lookupVehicle(String cacheKey, String identifier,
+                                  Function<Vehicle, String> identifierOf, Function<String, Vehicle> loader) {
+        // Read before the query, so a vehicle added while it runs keeps the miss out of the cache
+        long generation = lookupCache.getGeneration();
+        Integer cachedId = lookupCache.get(cacheKey);
+        if (cachedId != null) {
+            if (cachedId == VehicleLookupCache.NOT_FOUND) {
+                return null;
+            }
+            
+            Vehicle vehicle = vehicleDAO.getVehicleById(cachedId);
+            if (vehicle != null && identifier.equals(identifierOf.apply(vehicle))) {
+                return vehicle;
+            }
+            lookupCache.invalidate(cacheKey);
+            generation = lookupCache.getGeneration();
+        }
+        
+        Vehicle vehicle = loader.apply(identifier);
+        if (vehicle != null) {
+            lookupCache.put(cacheKey, vehicle.getVehicleId());
+        } else {
+            lookupCache.putMissing(cacheKey, generation);
+        }
+        return vehicle;
+    }
+    
+    /**
+     * Drop cached lookups, including cached misses, for a vehicle's plate and VIN
+     * @param vehicle Vehicle object that was written
+     */
+    void invalidateLookups(Vehicle vehicle) {
+        lookupCache.invalidate(VehicleLookupCache.plateKey(VehicleIdentifiers.normalizePlate(vehicle.getLicensePlate())));
+        if (vehicle.getVin() != null && !vehicle.getVin().isEmpty()) {
+            lookupCache.invalidate(VehicleLookupCache.vinKey(vehicle.getVin()));
+        }
+    }
+    
+    /**
+     * Store VINs normalized so that lookups can match them exactly
+     * @param vehicle Vehicle object to normalize
+     */
+    void normalizeVin(Vehicle vehicle) {
+        if (vehicle.getVin() != null && !vehicle.getVin().trim().isEmpty()) {
+            vehicle.setVin(VehicleIdentifiers.normalizeVin(vehicle.getVin()));
+        }
     }
     
     /**
@@ -104,7 +302,7 @@ public class VehicleService {
      * @param vehicle Vehicle object to validate
      * @return true if valid, false otherwise
      */
-    private boolean validateVehicle(Vehicle vehicle) {
+    boolean validateVehicle(Vehicle vehicle) {
         // Check for required fields
         if (vehicle.getCustomerId() <= 0) {
             return false;
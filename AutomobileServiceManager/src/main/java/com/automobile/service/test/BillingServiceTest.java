@@ -0,0 +1,60 @@
+package com.automobile.service.test;
+
+import com.automobile.service.model.Billing;
+import com.automobile.service.service.BillingService;
+import com.automobile.service.service.JobCardService;
+
+import java.math.BigDecimal;
+
+/**
+ * Test class for BillingService
+ */
+public class BillingServiceTest {
+    
+    public static void main(String[] args) {
+        testBillingService();
+    }
+    
+    public static void testBillingService() {
+        BillingService billingService = new BillingService();
+        JobCardService jobCardService = new JobCardService();
+        
+        System.out.println("===== Testing BillingService =====");
+        
+        // Test computing a bill without saving it
+        // Note: This requires a valid job card ID in the database
+        Billing preview = billingService.calculateBill(1, new BigDecimal("10.00")); // Assuming job card ID 1 exists
+        System.out.println("Bill preview: " + preview);
+        
+        if (preview != null) {
+            BigDecimal subtotal = preview.getTotalServiceCost().add(preview.getTotalPartsCost());
+            BigDecimal expected = subtotal.subtract(preview.getDiscountAmount()).add(preview.getTaxAmount());
+            System.out.println("Grand total is consistent: " + (expected.compareTo(preview.getGrandTotal()) == 0));
+            
+            // Test creating a bill for a completed job card
+            jobCardService.updateJobCardStatus(1, "COMPLETED");
+            Billing billing = billingService.createBill(1, null);
+            System.out.println("Create bill result: " + billing);
+            
+            if (billing != null) {
+                // Test a second bill for the same job card is refused
+                Billing duplicate = billingService.createBill(1, null);
+                System.out.println("Duplicate bill refused: " + (duplicate == null));
+                
+                // Test recording a payment
+                boolean paymentResult = billingService.recordPayment(billing.getBillId(), "PAID", "CARD");
+                System.out.println("Record payment result: " + paymentResult);
+                
+                // Test getting bill by job card ID
+                Billing billByJobCard = billingService.getBillingByJobCardId(1);
+                System.out.println("Bill by job card: " + billByJobCard);
+            }
+        }
+        
+        // Test end-of-day billing of all completed or delivered, unbilled job cards
+        int billed = billingService.runEndOfDayBilling();
+        System.out.println("End-of-day bills created: " + billed);
+        
+        System.out.println("===== BillingService Test Complete =====");
+    }
+}
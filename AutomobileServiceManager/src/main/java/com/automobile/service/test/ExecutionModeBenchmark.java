@@ -0,0 +1,100 @@
+package com.automobile.service.test;
+
+import com.automobile.service.controller.RequestExecutor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmark comparing RequestExecutor's platform-thread and virtual-thread modes.
+ * A burst of simulated requests is submitted at once; each waits on blocking I/O and then
+ * runs a query while holding one of a pool-sized set of permits, as requests do with
+ * the connection pool. Reports accepted and refused requests, elapsed time, throughput
+ * and the peak number of live threads. Virtual mode is skipped before Java 21.
+ *
+ * Usage: ExecutionModeBenchmark [requests] [poolSize] [ioMillis] [queryMillis]
+ */
+public class ExecutionModeBenchmark {
+    
+    private static final String ROUTE = "ExecutionModeBenchmark GET /";
+    
+    public static void main(String[] args) throws InterruptedException {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int poolSize = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long ioMillis = args.length > 2 ? Long.parseLong(args[2]) : 50;
+        long queryMillis = args.length > 3 ? Long.parseLong(args[3]) : 1;
+        
+        System.out.println("===== " + requests + " concurrent requests, " + poolSize + " connections, " +
+                ioMillis + " ms I/O, " + queryMillis + " ms query =====");
+        
+        // Warm up thread creation and class loading before measuring
+        run("warm-up", new RequestExecutor(RequestExecutor.DEFAULT_THREADS, requests, requests),
+                requests / 10, poolSize, ioMillis, queryMillis, false);
+        
+        run("platform, default limits", new RequestExecutor(RequestExecutor.DEFAULT_THREADS,
+                RequestExecutor.DEFAULT_QUEUE_SIZE, RequestExecutor.DEFAULT_ROUTE_LIMIT),
+                requests, poolSize, ioMillis, queryMillis, true);
+        
+        run("platform, queue sized to the burst", new RequestExecutor(RequestExecutor.DEFAULT_THREADS,
+                requests, requests), requests, poolSize, ioMillis, queryMillis, true);
+        
+        RequestExecutor virtual = RequestExecutor.virtual(RequestExecutor.DEFAULT_MAX_IN_FLIGHT, requests);
+        if (virtual == null) {
+            System.out.println("virtual: skipped, virtual threads need Java 21 or later (running "
+                    + System.getProperty("java.version") + ")");
+        } else {
+            run("virtual", virtual, requests, poolSize, ioMillis, queryMillis, true);
+        }
+    }
+    
+    private static void run(String name, RequestExecutor executor, int requests, int poolSize,
+                            long ioMillis, long queryMillis, boolean report) throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Semaphore connections = new Semaphore(poolSize, true);
+        CountDownLatch done = new CountDownLatch(requests);
+        AtomicInteger refused = new AtomicInteger();
+        
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+        
+        for (int i = 0; i < requests; i++) {
+            boolean accepted = executor.submit(ROUTE, () -> {
+                try {
+                    Thread.sleep(ioMillis);
+                    connections.acquire();
+                    try {
+                        Thread.sleep(queryMillis);
+                    } finally {
+                        connections.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            if (!accepted) {
+                refused.incrementAndGet();
+                done.countDown();
+            }
+        }
+        
+        done.await();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int peakThreads = threads.getPeakThreadCount();
+        executor.shutdown();
+        
+        if (report) {
+            int completed = requests - refused.get();
+            System.out.println(name + ":");
+            System.out.println("  completed " + completed + ", refused " + refused.get());
+            System.out.println("  elapsed " + elapsedMillis + " ms, " +
+                    (elapsedMillis > 0 ? completed * 1000L / elapsedMillis : completed) + " requests/s");
+            System.out.println("  peak live threads " + peakThreads);
+        }
+    }
+}
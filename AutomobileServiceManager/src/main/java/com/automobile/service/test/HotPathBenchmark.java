@@ -0,0 +1,467 @@
+package com.automobile.service.test;
+
+import com.automobile.service.dao.CustomerDAO;
+import com.automobile.service.dao.JobCardDAO;
+import com.automobile.service.dao.ServiceDAO;
+import com.automobile.service.dao.VehicleDAO;
+import com.automobile.service.model.Customer;
+import com.automobile.service.model.JobCard;
+import com.automobile.service.model.Service;
+import com.automobile.service.model.Vehicle;
+import com.automobile.service.service.CustomerSearchIndex;
+import com.automobile.service.service.CustomerService;
+import com.automobile.service.service.JobCardService;
+import com.automobile.service.service.ServiceCatalogService;
+import com.automobile.service.service.VehicleService;
+import com.automobile.service.util.DBConnectionUtil;
+import com.automobile.service.util.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmark of the DAO, mapping and validation hot paths, for comparing releases.
+ * Each benchmark is warmed up, then timed over a number of rounds; a round's score is its
+ * average time per operation. Results are printed as a table and, with --json, written
+ * in JMH's JSON result format so existing JMH tooling can compare two runs.
+ *
+ * The mapping and validation benchmarks need no database: rows come from an in-memory
+ * ResultSet. The database benchmarks use the database configured by db.properties and are
+ * skipped when it cannot be reached. They add a fixture customer, vehicle and job card and
+ * delete them afterwards, but job card creation also counts towards the daily rollups, so
+ * run them against a copy of the data, never production. Database timings depend on the
+ * volume loaded, so the row counts are recorded with each result.
+ *
+ * Usage: HotPathBenchmark [--rounds n] [--warmup-millis ms] [--round-millis ms] [--search term]
+ *                         [--json file] [--no-db]
+ */
+public class HotPathBenchmark {
+    
+    private static final double CONFIDENCE_Z = 3.291;  // 99.9% two-sided, as JMH reports
+    
+    // Results are folded in here so the JIT cannot drop an operation as dead code
+    private static volatile int sink;
+    
+    private static int rounds = 10;
+    private static long warmupMillis = 2000;
+    private static long roundMillis = 1000;
+    
+    private static final List<Result> RESULTS = new ArrayList<>();
+    
+    /**
+     * An operation to benchmark
+     */
+    private interface Operation {
+        Object run() throws Throwable;
+    }
+    
+    public static void main(String[] args) throws Throwable {
+        String jsonFile = null;
+        String search = "Smith";
+        boolean database = true;
+        
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--rounds")) {
+                rounds = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--warmup-millis")) {
+                warmupMillis = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--round-millis")) {
+                roundMillis = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--search")) {
+                search = args[++i];
+            } else if (args[i].equals("--json")) {
+                jsonFile = args[++i];
+            } else if (args[i].equals("--no-db")) {
+                database = false;
+            } else {
+                System.err.println("Unknown option: " + args[i]);
+                System.exit(2);
+            }
+        }
+        
+        System.out.println("===== Hot path benchmark: " + rounds + " rounds of " + roundMillis + " ms after "
+                + warmupMillis + " ms warm-up, Java " + System.getProperty("java.version") + " =====");
+        
+        benchmarkMapping();
+        benchmarkValidation();
+        
+        if (!database) {
+            System.out.println("Database benchmarks: skipped (--no-db)");
+        } else if (!isDatabaseReachable()) {
+            System.out.println("Database benchmarks: skipped, database not reachable");
+        } else {
+            benchmarkDatabase(search);
+        }
+        
+        if (jsonFile != null) {
+            writeJson(jsonFile);
+            System.out.println("Results written to " + jsonFile);
+        }
+    }
+    
+    /**
+     * Mapping of one result set row to an entity, for each entity read on the hot paths
+     */
+    private static void benchmarkMapping() throws Throwable {
+        Map<String, Object> customer = new HashMap<>();
+        customer.put("customer_id", 1042);
+        customer.put("first_name", "Margaret");
+        customer.put("last_name", "Henderson");
+        customer.put("phone", "(555) 123-4567");
+        customer.put("email", "margaret.henderson@example.com");
+        customer.put("address", "1234 Elm Street, Apt 5");
+        customer.put("city", "Springfield");
+        customer.put("state", "IL");
+        customer.put("zip_code", "62704");
+        customer.put("registration_date", Date.valueOf(LocalDate.of(2021, 3, 14)));
+        ResultSet customerRow = row(customer);
+        MethodHandle customerMapper = mapper(CustomerDAO.class, "extractCustomerFromResultSet", new CustomerDAO());
+        run("mapping.customer", () -> customerMapper.invoke(customerRow));
+        
+        Map<String, Object> vehicle = new HashMap<>();
+        vehicle.put("vehicle_id", 2077);
+        vehicle.put("customer_id", 1042);
+        vehicle.put("make", "Toyota");
+        vehicle.put("model", "Camry");
+        vehicle.put("year", 2019);
+        vehicle.put("license_plate", "ABC1234");
+        vehicle.put("vin", "4T1B11HK5KU123456");
+        vehicle.put("color", "Silver");
+        vehicle.put("mileage", 48210);
+        vehicle.put("last_service_date", Date.valueOf(LocalDate.of(2024, 11, 2)));
+        ResultSet vehicleRow = row(vehicle);
+        MethodHandle vehicleMapper = mapper(VehicleDAO.class, "extractVehicleFromResultSet", new VehicleDAO());
+        run("mapping.vehicle", () -> vehicleMapper.invoke(vehicleRow));
+        
+        Map<String, Object> jobCard = new HashMap<>();
+        jobCard.put("job_card_id", 50311);
+        jobCard.put("vehicle_id", 2077);
+        jobCard.put("open_date", Timestamp.valueOf(LocalDateTime.of(2025, 1, 6, 9, 30)));
+        jobCard.put("close_date", Timestamp.valueOf(LocalDateTime.of(2025, 1, 7, 16, 45)));
+        jobCard.put("status", "COMPLETED");
+        jobCard.put("technician_notes", "Replaced front pads and rotors; road tested.");
+        jobCard.put("customer_complaints", "Grinding noise when braking.");
+        ResultSet jobCardRow = row(jobCard);
+        MethodHandle jobCardMapper = mapper(JobCardDAO.class, "extractJobCardFromResultSet", new JobCardDAO());
+        run("mapping.jobCard", () -> jobCardMapper.invoke(jobCardRow));
+        
+        Map<String, Object> service = new HashMap<>();
+        service.put("service_id", 7);
+        service.put("service_name", "Brake Pad Replacement");
+        service.put("description", "Replace front or rear brake pads");
+        service.put("standard_price", new BigDecimal("149.99"));
+        service.put("estimated_hours", new BigDecimal("1.50"));
+        ResultSet serviceRow = row(service);
+        MethodHandle serviceMapper = mapper(ServiceDAO.class, "extractServiceFromResultSet", new ServiceDAO());
+        run("mapping.service", () -> serviceMapper.invoke(serviceRow));
+    }
+    
+    /**
+     * Customer validation, whose phone and email checks use regular expressions
+     */
+    private static void benchmarkValidation() throws Throwable {
+        Method method = CustomerService.class.getDeclaredMethod("validateCustomer", Customer.class);
+        method.setAccessible(true);
+        MethodHandle validate = MethodHandles.lookup().unreflect(method).bindTo(new CustomerService());
+        
+        Customer valid = customer("(555) 123-4567", "margaret.henderson@example.com");
+        run("validateCustomer.valid", () -> validate.invoke(valid));
+        
+        // Fails the phone pattern and passes the digits-only fallback
+        Customer reformatted = customer("555.123.4567", "margaret.henderson@example.com");
+        run("validateCustomer.otherPhoneFormat", () -> validate.invoke(reformatted));
+        
+        Customer invalid = customer("(555) 123-4567", "not an email");
+        run("validateCustomer.invalidEmail", () -> validate.invoke(invalid));
+    }
+    
+    /**
+     * Customer search, job card services and job card creation against the live database
+     */
+    private static void benchmarkDatabase(String search) throws Throwable {
+        Map<String, String> volume = countRows("customers", "vehicles", "job_cards", "job_services");
+        System.out.println("Database volume: " + volume);
+        
+        CustomerService customerService = new CustomerService();
+        VehicleService vehicleService = new VehicleService();
+        JobCardService jobCardService = new JobCardService();
+        CustomerDAO customerDAO = new CustomerDAO();
+        
+        // Fixture: a customer with one vehicle and a job card holding a few services
+        Customer customer = customer("(555) 010-9999", "hotpath.benchmark@example.com");
+        customer.setLastName("Benchmark");
+        if (!customerService.addCustomer(customer)) {
+            System.out.println("Database benchmarks: skipped, could not add the fixture customer");
+            return;
+        }
+        
+        try {
+            Vehicle vehicle = new Vehicle();
+            vehicle.setCustomerId(customer.getCustomerId());
+            vehicle.setMake("Toyota");
+            vehicle.setModel("Camry");
+            vehicle.setYear(2019);
+            vehicle.setLicensePlate("BENCH" + (System.currentTimeMillis() % 100000));
+            if (!vehicleService.addVehicle(vehicle)) {
+                System.out.println("Database benchmarks: skipped, could not add the fixture vehicle");
+                return;
+            }
+            
+            JobCard fixture = new JobCard();
+            fixture.setVehicleId(vehicle.getVehicleId());
+            int jobCardId = jobCardService.addJobCard(fixture);
+            if (jobCardId <= 0) {
+                System.out.println("Database benchmarks: skipped, could not add the fixture job card");
+                return;
+            }
+            
+            List<Integer> serviceIds = new ArrayList<>();
+            for (Service service : new ServiceCatalogService().getAllServices()) {
+                if (serviceIds.size() == 5) {
+                    break;
+                }
+                serviceIds.add(service.getServiceId());
+            }
+            jobCardService.addServicesToJobCard(jobCardId, serviceIds);
+            
+            run("CustomerDAO.searchCustomersByName", volume, () -> customerDAO.searchCustomersByName(search));
+            
+            CustomerSearchIndex.getInstance().build();
+            run("CustomerService.searchCustomersByName", volume, () -> customerService.searchCustomersByName(search));
+            
+            run("JobCardService.getServicesForJobCard", volume, () -> jobCardService.getServicesForJobCard(jobCardId));
+            
+            run("JobCardService.addJobCard", volume, () -> {
+                JobCard jobCard = new JobCard();
+                jobCard.setVehicleId(vehicle.getVehicleId());
+                jobCard.setCustomerComplaints("Benchmark");
+                return jobCardService.addJobCard(jobCard);
+            });
+        } finally {
+            // Cascades to the fixture's vehicle, job cards and job services
+            customerService.deleteCustomer(customer.getCustomerId());
+        }
+    }
+    
+    private static void run(String name, Operation operation) throws Throwable {
+        run(name, new LinkedHashMap<>(), operation);
+    }
+    
+    /**
+     * Warm an operation up, size the rounds from the warm-up rate and time them
+     */
+    private static void run(String name, Map<String, String> params, Operation operation) throws Throwable {
+        int folded = 0;
+        long warmupOps = 0;
+        long warmupEnd = System.nanoTime() + warmupMillis * 1000000;
+        long warmupStart = System.nanoTime();
+        do {
+            folded += System.identityHashCode(operation.run());
+            warmupOps++;
+        } while (System.nanoTime() < warmupEnd);
+        long warmupNanos = System.nanoTime() - warmupStart;
+        
+        long opsPerRound = Math.max(1, warmupOps * roundMillis * 1000000 / Math.max(1, warmupNanos));
+        double[] scores = new double[rounds];
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            for (long i = 0; i < opsPerRound; i++) {
+                folded += System.identityHashCode(operation.run());
+            }
+            scores[round] = (double) (System.nanoTime() - start) / opsPerRound;
+        }
+        sink = folded;
+        
+        Result result = new Result(name, params, scores);
+        RESULTS.add(result);
+        System.out.println(String.format("%-42s %14.1f +/- %10.1f ns/op  (%d ops/round)",
+                name, result.score(), result.error(), opsPerRound));
+    }
+    
+    /**
+     * Write the results as a JMH JSON result file
+     */
+    private static void writeJson(String file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
+            JsonWriter json = new JsonWriter(out);
+            json.beginArray();
+            for (Result result : RESULTS) {
+                json.beginObject()
+                        .name("benchmark").value(HotPathBenchmark.class.getName() + "." + result.name)
+                        .name("mode").value("avgt")
+                        .name("threads").value(1)
+                        .name("forks").value(1)
+                        .name("jdkVersion").value(System.getProperty("java.version"))
+                        .name("vmName").value(System.getProperty("java.vm.name"))
+                        .name("warmupTime").value(warmupMillis + " ms")
+                        .name("measurementIterations").value(rounds)
+                        .name("measurementTime").value(roundMillis + " ms");
+                
+                json.name("params").beginObject();
+                for (Map.Entry<String, String> param : result.params.entrySet()) {
+                    json.name(param.getKey()).value(param.getValue());
+                }
+                json.endObject();
+                
+                json.name("primaryMetric").beginObject()
+                        .name("score").value(decimal(result.score()))
+                        .name("scoreError").value(decimal(result.error()))
+                        .name("scoreConfidence").beginArray()
+                        .value(decimal(result.score() - result.error()))
+                        .value(decimal(result.score() + result.error()))
+                        .endArray()
+                        .name("scoreUnit").value("ns/op")
+                        .name("rawData").beginArray().beginArray();
+                for (double score : result.scores) {
+                    json.value(decimal(score));
+                }
+                json.endArray().endArray().endObject();
+                
+                json.name("secondaryMetrics").beginObject().endObject();
+                json.endObject();
+            }
+            json.endArray();
+            json.flush();
+        }
+    }
+    
+    private static BigDecimal decimal(double value) {
+        return BigDecimal.valueOf(value).setScale(3, RoundingMode.HALF_UP);
+    }
+    
+    /**
+     * Get a handle on a DAO's private row mapper, bound to the DAO unless it is static
+     */
+    private static MethodHandle mapper(Class<?> daoClass, String name, Object dao) throws ReflectiveOperationException {
+        Method method = daoClass.getDeclaredMethod(name, ResultSet.class);
+        method.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        return Modifier.isStatic(method.getModifiers()) ? handle : handle.bindTo(dao);
+    }
+    
+    /**
+     * An in-memory ResultSet positioned on one row. Every getter goes through the proxy,
+     * a fixed cost that is the same in every release compared.
+     */
+    private static ResultSet row(Map<String, Object> values) {
+        boolean[] wasNull = new boolean[1];
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("wasNull")) {
+                        return wasNull[0];
+                    }
+                    if (!name.startsWith("get") || args == null || !(args[0] instanceof String)) {
+                        throw new UnsupportedOperationException(name);
+                    }
+            
+                    Object value = values.get(args[0]);
+                    wasNull[0] = value == null;
+                    if (name.equals("getInt")) {
+                        return value != null ? ((Number) value).intValue() : 0;
+                    } else if (name.equals("getLong")) {
+                        return value != null ? ((Number) value).longValue() : 0L;
+                    } else if (name.equals("getDouble")) {
+                        return value != null ? ((Number) value).doubleValue() : 0.0;
+                    }
+                    return value;
+                });
+    }
+    
+    private static Customer customer(String phone, String email) {
+        Customer customer = new Customer();
+        customer.setFirstName("Margaret");
+        customer.setLastName("Henderson");
+        customer.setPhone(phone);
+        customer.setEmail(email);
+        customer.setAddress("1234 Elm Street, Apt 5");
+        customer.setCity("Springfield");
+        customer.setState("IL");
+        customer.setZipCode("62704");
+        return customer;
+    }
+    
+    private static boolean isDatabaseReachable() {
+        try (Connection connection = DBConnectionUtil.getConnection()) {
+            return connection.isValid(5);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+    
+    private static Map<String, String> countRows(String... tables) throws SQLException {
+        Map<String, String> counts = new LinkedHashMap<>();
+        try (Connection connection = DBConnectionUtil.getConnection();
+             Statement stmt = connection.createStatement()) {
+            for (String table : tables) {
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+                    rs.next();
+                    counts.put(table, Long.toString(rs.getLong(1)));
+                }
+            }
+        }
+        return counts;
+    }
+    
+    /**
+     * Scores of one benchmark, in nanoseconds per operation per round
+     */
+    private static final class Result {
+        private final String name;
+        private final Map<String, String> params;
+        private final double[] scores;
+        
+        private Result(String name, Map<String, String> params, double[] scores) {
+            this.name = name;
+            this.params = params;
+            this.scores = scores;
+        }
+        
+        private double score() {
+            double sum = 0;
+            for (double score : scores) {
+                sum += score;
+            }
+            return sum / scores.length;
+        }
+        
+        /**
+         * Half-width of the confidence interval of the mean
+         */
+        private double error() {
+            if (scores.length < 2) {
+                return 0;
+            }
+            double mean = score();
+            double squares = 0;
+            for (double score : scores) {
+                squares += (score - mean) * (score - mean);
+            }
+            double stdev = Math.sqrt(squares / (scores.length - 1));
+            return CONFIDENCE_Z * stdev / Math.sqrt(scores.length);
+        }
+    }
+}
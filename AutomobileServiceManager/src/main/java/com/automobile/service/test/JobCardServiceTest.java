@@ -5,7 +5,9 @@ import com.automobile.service.model.JobService;
 import com.automobile.service.service.JobCardService;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Test class for JobCardService
@@ -48,6 +50,10 @@ public class JobCardServiceTest {
             System.out.println("Add service 1 result: " + addServiceResult1);
             System.out.println("Add service 2 result: " + addServiceResult2);
             
+            // Test adding several services in one batch
+            boolean addServicesResult = jobCardService.addServicesToJobCard(jobCardId, Arrays.asList(3, 4)); // Assuming service IDs 3 and 4 exist
+            System.out.println("Add services 3 and 4 result: " + addServicesResult);
+            
             // Test getting services for job card
             List<JobService> jobServices = jobCardService.getServicesForJobCard(jobCardId);
             System.out.println("Job services count: " + jobServices.size());
@@ -66,6 +72,12 @@ public class JobCardServiceTest {
             List<JobCard> jobCardsByStatus = jobCardService.getJobCardsByStatus("IN_PROGRESS");
             System.out.println("Job cards by status count: " + jobCardsByStatus.size());
             
+            // Test the in-memory status counts agree with the query
+            Map<String, Long> statusCounts = jobCardService.getStatusCounts();
+            System.out.println("Status counts: " + statusCounts);
+            System.out.println("In-progress count matches query: " +
+                               (statusCounts != null && statusCounts.get("IN_PROGRESS") == jobCardsByStatus.size()));
+            
             // Test getting job cards by vehicle ID
             List<JobCard> jobCardsByVehicleId = jobCardService.getJobCardsByVehicleId(1);
             System.out.println("Job cards by vehicle ID count: " + jobCardsByVehicleId.size());
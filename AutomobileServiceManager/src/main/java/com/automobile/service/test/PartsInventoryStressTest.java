@@ -0,0 +1,152 @@
+package com.automobile.service.test;
+
+import com.automobile.service.dao.PartDAO;
+import com.automobile.service.service.StockLedger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stress test for StockLedger. Many threads reserve and release stock of a few parts
+ * while flushes run, against an in-memory PartDAO that stands in for the database.
+ * Checks that no part is ever oversold and that the flushed stock matches the ledger.
+ */
+public class PartsInventoryStressTest {
+    
+    private static final int PARTS = 8;
+    private static final int INITIAL_STOCK = 500;
+    private static final int THREADS = 64;
+    private static final int OPERATIONS_PER_THREAD = 20000;
+    
+    public static void main(String[] args) throws InterruptedException {
+        testConcurrentReservations();
+    }
+    
+    public static void testConcurrentReservations() throws InterruptedException {
+        InMemoryPartDAO partDAO = new InMemoryPartDAO();
+        for (int partId = 1; partId <= PARTS; partId++) {
+            partDAO.stored.put(partId, INITIAL_STOCK);
+        }
+        
+        StockLedger ledger = new StockLedger(partDAO, 0);
+        AtomicInteger[] held = new AtomicInteger[PARTS + 1];
+        for (int partId = 1; partId <= PARTS; partId++) {
+            held[partId] = new AtomicInteger();
+        }
+        AtomicInteger refused = new AtomicInteger();
+        AtomicInteger negativeSeen = new AtomicInteger();
+        
+        System.out.println("===== Testing StockLedger under " + THREADS + " threads =====");
+        
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        List<Thread> workers = new ArrayList<>();
+        
+        for (int t = 0; t < THREADS; t++) {
+            Thread worker = new Thread(() -> {
+                Random random = ThreadLocalRandom.current();
+                // Quantities this thread holds per part, returned at random
+                int[] mine = new int[PARTS + 1];
+                try {
+                    start.await();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        int partId = 1 + random.nextInt(PARTS);
+                        if (mine[partId] > 0 && random.nextInt(3) == 0) {
+                            int quantity = 1 + random.nextInt(mine[partId]);
+                            ledger.release(partId, quantity);
+                            mine[partId] -= quantity;
+                            held[partId].addAndGet(-quantity);
+                        } else {
+                            int quantity = 1 + random.nextInt(5);
+                            if (ledger.reserve(partId, quantity)) {
+                                mine[partId] += quantity;
+                                held[partId].addAndGet(quantity);
+                            } else {
+                                refused.incrementAndGet();
+                            }
+                        }
+                        if (ledger.getAvailable(partId) < 0) {
+                            negativeSeen.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        
+        // Flush continuously while the workers run, failing every third flush
+        Thread flusher = new Thread(() -> {
+            while (done.getCount() > 0) {
+                partDAO.failNext = partDAO.flushes.get() % 3 == 0;
+                ledger.flush();
+            }
+        });
+        flusher.start();
+        
+        long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        flusher.join();
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        
+        partDAO.failNext = false;
+        boolean flushed = ledger.flush();
+        
+        boolean consistent = true;
+        for (int partId = 1; partId <= PARTS; partId++) {
+            int available = ledger.getAvailable(partId);
+            int stored = partDAO.stored.get(partId);
+            if (available < 0 || available + held[partId].get() != INITIAL_STOCK || stored != available) {
+                consistent = false;
+                System.out.println("Part " + partId + " inconsistent: available=" + available +
+                                   ", held=" + held[partId].get() + ", stored=" + stored);
+            }
+        }
+        
+        System.out.println("Operations: " + (THREADS * OPERATIONS_PER_THREAD) + " in " + elapsedMillis + " ms");
+        System.out.println("Reservations refused for lack of stock: " + refused.get());
+        System.out.println("Database flushes: " + partDAO.flushes.get());
+        System.out.println("Final flush result: " + flushed);
+        System.out.println("Negative stock never observed: " + (negativeSeen.get() == 0));
+        System.out.println("Stock consistent with reservations and database: " + consistent);
+        
+        System.out.println("===== StockLedger Stress Test Complete =====");
+    }
+    
+    /**
+     * PartDAO that keeps stock levels in memory and can be told to fail a flush
+     */
+    private static class InMemoryPartDAO extends PartDAO {
+        final Map<Integer, Integer> stored = new ConcurrentHashMap<>();
+        final AtomicInteger flushes = new AtomicInteger();
+        volatile boolean failNext;
+        
+        @Override
+        public Integer getStockLevel(int partId) {
+            return stored.get(partId);
+        }
+        
+        @Override
+        public boolean applyStockDeltas(Map<Integer, Integer> deltas) {
+            flushes.incrementAndGet();
+            if (failNext) {
+                return false;
+            }
+            for (Map.Entry<Integer, Integer> delta : deltas.entrySet()) {
+                stored.merge(delta.getKey(), delta.getValue(), Integer::sum);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.automobile.service.test;
+
+import com.automobile.service.model.Rollup;
+import com.automobile.service.service.RollupService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Test class for RollupService
+ */
+public class RollupServiceTest {
+    
+    public static void main(String[] args) {
+        testRollupService();
+    }
+    
+    public static void testRollupService() {
+        RollupService rollupService = new RollupService();
+        LocalDate today = LocalDate.now();
+        
+        System.out.println("===== Testing RollupService =====");
+        
+        // Test rebuilding this month's rollups from job cards and bills
+        int days = rollupService.rebuildDailyRollups(today.withDayOfMonth(1), today);
+        System.out.println("Rebuilt days with activity: " + days);
+        
+        // Test the daily report
+        List<Rollup> daily = rollupService.getDailyReport(today.withDayOfMonth(1), today);
+        System.out.println("Daily rollups this month: " + daily.size());
+        
+        // Test the monthly report sums the same days
+        List<Rollup> monthly = rollupService.getMonthlyReport(today.getYear());
+        System.out.println("Monthly rollups this year: " + monthly.size());
+        
+        BigDecimal dailyTotal = BigDecimal.ZERO;
+        for (Rollup rollup : daily) {
+            dailyTotal = dailyTotal.add(rollup.getGrandTotal());
+        }
+        for (Rollup rollup : monthly) {
+            if (rollup.getPeriodStart().equals(today.withDayOfMonth(1))) {
+                System.out.println("Monthly total matches daily totals: " +
+                                   (rollup.getGrandTotal().compareTo(dailyTotal) == 0));
+            }
+        }
+        
+        // Test the yearly report
+        List<Rollup> yearly = rollupService.getYearlyReport(today.getYear() - 1, today.getYear());
+        System.out.println("Yearly rollups: " + yearly);
+        
+        System.out.println("===== RollupService Test Complete =====");
+    }
+}
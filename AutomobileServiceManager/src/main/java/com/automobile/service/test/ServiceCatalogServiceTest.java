@@ -49,6 +49,10 @@ public class ServiceCatalogServiceTest {
             List<Service> servicesByName = serviceCatalogService.searchServicesByName("Test");
             System.out.println("Services by name count: " + servicesByName.size());
             
+            // Test searching services by partial name or description
+            List<Service> servicesByPrefix = serviceCatalogService.searchServices("tes");
+            System.out.println("Services by prefix count: " + servicesByPrefix.size());
+            
             // Test deleting service
             boolean deleteResult = serviceCatalogService.deleteService(service.getServiceId());
             System.out.println("Delete service result: " + deleteResult);
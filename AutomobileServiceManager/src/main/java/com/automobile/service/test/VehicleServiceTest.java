@@ -50,6 +50,12 @@ public class VehicleServiceTest {
             Vehicle vehicleByLicensePlate = vehicleService.getVehicleByLicensePlate("TEST123");
             System.out.println("Vehicle by license plate: " + vehicleByLicensePlate);
             
+            // Test plate and VIN lookups ignore spacing, dashes and case
+            Vehicle vehicleByLoosePlate = vehicleService.getVehicleByLicensePlate("test-12 3");
+            System.out.println("Vehicle by loosely typed plate: " + vehicleByLoosePlate);
+            Vehicle vehicleByVin = vehicleService.getVehicleByVin("1hgcm8263 3a123456");
+            System.out.println("Vehicle by VIN: " + vehicleByVin);
+            
             // Test getting vehicles by customer ID
             List<Vehicle> vehiclesByCustomerId = vehicleService.getVehiclesByCustomerId(1);
             System.out.println("Vehicles by customer ID count: " + vehiclesByCustomerId.size());
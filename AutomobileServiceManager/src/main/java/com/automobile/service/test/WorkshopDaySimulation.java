@@ -0,0 +1,339 @@
+package com.automobile.service.test;
+
+import com.automobile.service.model.Billing;
+import com.automobile.service.model.Customer;
+import com.automobile.service.model.JobCard;
+import com.automobile.service.model.Page;
+import com.automobile.service.model.Service;
+import com.automobile.service.model.Vehicle;
+import com.automobile.service.service.BillingService;
+import com.automobile.service.service.CustomerService;
+import com.automobile.service.service.JobCardService;
+import com.automobile.service.service.ServiceCatalogService;
+import com.automobile.service.service.VehicleService;
+import com.automobile.service.util.Metrics;
+import com.automobile.service.util.Metrics.LatencyHistogram;
+import com.automobile.service.util.Metrics.Stats;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load driver that replays a workshop day against the service layer. Vehicles arrive at
+ * random at a set rate (a Poisson process) and each visit goes through the shop's steps:
+ * check-in by plate, owner lookup and customer search, opening a job card, attaching
+ * services, a glance at the status board, work starting and finishing, and billing with
+ * payment. Visits run on a fixed number of worker threads, the advisors and bays.
+ *
+ * Arrivals are scheduled independently of how fast visits finish, so when the workers
+ * fall behind, the queueing delay shows up in the visit latency instead of being hidden.
+ * Per-operation throughput and latency percentiles are taken from Metrics, which times
+ * every service and DAO method, after a warm-up whose statistics are discarded.
+ *
+ * The database configured by db.properties must already hold customers, vehicles and a
+ * service catalog. Each visit adds a job card, job services and a bill, so run this
+ * against a copy of the data, never production. No embedded database is bundled, so
+ * results also depend on the database server; note it alongside them.
+ *
+ * Usage: WorkshopDaySimulation [--arrivals-per-minute n] [--concurrency n] [--minutes n]
+ *                              [--warmup-minutes n] [--think-millis ms] [--seed n] [--csv file]
+ */
+public class WorkshopDaySimulation {
+    
+    // Prefixes of the operations reported; DAO methods are left out of the summary
+    private static final String[] REPORTED = {
+            "Workshop.", "CustomerService.", "VehicleService.", "JobCardService.", "BillingService."
+    };
+    
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+    
+    private static final int SAMPLE_VEHICLES = 5000;
+    private static final long DRAIN_TIMEOUT_MINUTES = 10;
+    
+    private final CustomerService customerService = new CustomerService();
+    private final VehicleService vehicleService = new VehicleService();
+    private final JobCardService jobCardService = new JobCardService();
+    private final BillingService billingService = new BillingService();
+    
+    private final List<Vehicle> vehicles;
+    private final List<Service> services;
+    private final long thinkMillis;
+    private final AtomicInteger failedVisits = new AtomicInteger();
+    
+    private WorkshopDaySimulation(List<Vehicle> vehicles, List<Service> services, long thinkMillis) {
+        this.vehicles = vehicles;
+        this.services = services;
+        this.thinkMillis = thinkMillis;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        double arrivalsPerMinute = 120;
+        int concurrency = 8;
+        double minutes = 5;
+        double warmupMinutes = 1;
+        long thinkMillis = 0;
+        long seed = 42;
+        String csvFile = null;
+        
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--arrivals-per-minute")) {
+                arrivalsPerMinute = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--concurrency")) {
+                concurrency = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--minutes")) {
+                minutes = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--warmup-minutes")) {
+                warmupMinutes = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--think-millis")) {
+                thinkMillis = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--seed")) {
+                seed = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--csv")) {
+                csvFile = args[++i];
+            } else {
+                System.err.println("Unknown option: " + args[i]);
+                System.exit(2);
+            }
+        }
+        
+        List<Vehicle> vehicles = sampleVehicles(new VehicleService());
+        List<Service> services = new ServiceCatalogService().getAllServices();
+        if (vehicles.isEmpty() || services.isEmpty()) {
+            System.out.println("The database needs vehicles and a service catalog; load some first");
+            return;
+        }
+        
+        System.out.println("===== Workshop day: " + arrivalsPerMinute + " arrivals/min, " + concurrency
+                + " workers, " + minutes + " min after " + warmupMinutes + " min warm-up, "
+                + vehicles.size() + " vehicles sampled, " + services.size() + " services =====");
+        
+        WorkshopDaySimulation simulation = new WorkshopDaySimulation(vehicles, services, thinkMillis);
+        Random arrivals = new Random(seed);
+        
+        if (warmupMinutes > 0) {
+            simulation.run(arrivals, arrivalsPerMinute, concurrency, warmupMinutes);
+        }
+        Metrics.reset();
+        simulation.failedVisits.set(0);
+        
+        long elapsedNanos = simulation.run(arrivals, arrivalsPerMinute, concurrency, minutes);
+        report(elapsedNanos, simulation.failedVisits.get(), csvFile);
+    }
+    
+    /**
+     * Generate arrivals for a number of minutes and wait for every visit to finish
+     * @return nanoseconds from the first arrival until the last visit finished
+     */
+    private long run(Random arrivals, double arrivalsPerMinute, int concurrency, double minutes)
+            throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        double meanGapNanos = TimeUnit.MINUTES.toNanos(1) / arrivalsPerMinute;
+        long start = System.nanoTime();
+        long end = start + (long) (minutes * TimeUnit.MINUTES.toNanos(1));
+        
+        long arrival = start;
+        while (true) {
+            // Exponential gaps between arrivals
+            arrival += (long) (-Math.log(1 - arrivals.nextDouble()) * meanGapNanos);
+            if (arrival >= end) {
+                break;
+            }
+            long wait = arrival - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            
+            long scheduledAt = arrival;
+            workers.execute(() -> visit(scheduledAt));
+        }
+        
+        workers.shutdown();
+        if (!workers.awaitTermination(DRAIN_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+            System.out.println("Visits still running after " + DRAIN_TIMEOUT_MINUTES + " minutes; stopping");
+            workers.shutdownNow();
+        }
+        return System.nanoTime() - start;
+    }
+    
+    /**
+     * One vehicle's visit, from check-in to payment
+     * @param scheduledAt time the vehicle arrived, from System.nanoTime()
+     */
+    private void visit(long scheduledAt) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean completed = false;
+        
+        try {
+            Vehicle sampled = vehicles.get(random.nextInt(vehicles.size()));
+            
+            Vehicle vehicle = Metrics.timed("Workshop.checkIn",
+                    () -> vehicleService.getVehicleByLicensePlate(sampled.getLicensePlate()));
+            if (vehicle == null) {
+                return;
+            }
+            think();
+            
+            // The advisor finds the owner's record the way they would at the desk, by name
+            Metrics.timed("Workshop.findCustomer", () -> {
+                Customer owner = customerService.getCustomerById(vehicle.getCustomerId());
+                return owner != null ? customerService.searchCustomersByName(owner.getLastName()) : null;
+            });
+            think();
+            
+            JobCard jobCard = new JobCard();
+            jobCard.setVehicleId(vehicle.getVehicleId());
+            jobCard.setCustomerComplaints("Scheduled service");
+            int jobCardId = Metrics.timed("Workshop.openJobCard", () -> jobCardService.addJobCard(jobCard));
+            if (jobCardId <= 0) {
+                return;
+            }
+            
+            List<Integer> serviceIds = pickServices(random);
+            if (!Metrics.timed("Workshop.attachServices", () -> jobCardService.addServicesToJobCard(jobCardId, serviceIds))) {
+                return;
+            }
+            think();
+            
+            Metrics.timed("Workshop.statusBoard", () -> {
+                jobCardService.getStatusCounts();
+                return jobCardService.getJobCardsPage("OPEN", null, Page.DEFAULT_SIZE);
+            });
+            
+            if (!Metrics.timed("Workshop.startWork", () -> jobCardService.updateJobCardStatus(jobCardId, "IN_PROGRESS"))) {
+                return;
+            }
+            think();
+            
+            if (!Metrics.timed("Workshop.finishWork", () -> {
+                jobCardService.getServicesForJobCard(jobCardId);
+                return jobCardService.updateJobCardStatus(jobCardId, "COMPLETED");
+            })) {
+                return;
+            }
+            think();
+            
+            completed = Metrics.timed("Workshop.bill", () -> {
+                Billing bill = billingService.createBill(jobCardId, BigDecimal.ZERO);
+                return bill != null && billingService.recordPayment(bill.getBillId(), "PAID", "CARD");
+            });
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.err.println("Visit failed: " + e);
+        } finally {
+            if (!completed) {
+                failedVisits.incrementAndGet();
+            }
+            // From arrival, so time spent queued for a free worker counts
+            Metrics.recordLatency("Workshop.visit", System.nanoTime() - scheduledAt);
+        }
+    }
+    
+    /**
+     * One to three distinct services, the first catalog entries being the most common
+     */
+    private List<Integer> pickServices(ThreadLocalRandom random) {
+        int count = 1 + random.nextInt(Math.min(3, services.size()));
+        List<Integer> serviceIds = new ArrayList<>(count);
+        while (serviceIds.size() < count) {
+            // Squaring skews the choice towards the start of the catalog
+            double skewed = random.nextDouble() * random.nextDouble();
+            int serviceId = services.get((int) (skewed * services.size())).getServiceId();
+            if (!serviceIds.contains(serviceId)) {
+                serviceIds.add(serviceId);
+            }
+        }
+        return serviceIds;
+    }
+    
+    private void think() throws InterruptedException {
+        if (thinkMillis > 0) {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(thinkMillis * 2 + 1));
+        }
+    }
+    
+    private static List<Vehicle> sampleVehicles(VehicleService vehicleService) {
+        List<Vehicle> vehicles = new ArrayList<>();
+        String cursor = null;
+        do {
+            Page<Vehicle> page = vehicleService.getVehiclesPage(cursor, Page.MAX_SIZE);
+            if (page == null) {
+                break;
+            }
+            vehicles.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null && vehicles.size() < SAMPLE_VEHICLES);
+        return Collections.unmodifiableList(vehicles);
+    }
+    
+    /**
+     * Print throughput and latency percentiles of each reported operation, optionally also as CSV
+     */
+    private static void report(long elapsedNanos, int failedVisits, String csvFile) throws IOException {
+        double seconds = elapsedNanos / 1e9;
+        System.out.println(String.format("Elapsed %.1f s, %d visits not completed", seconds, failedVisits));
+        System.out.println(String.format("%-40s %8s %7s %9s %9s %9s %9s %9s %9s",
+                "operation", "calls", "errors", "per s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        
+        List<String> csv = new ArrayList<>();
+        csv.add("operation,calls,errors,per_second,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+        
+        for (Map.Entry<String, Stats> entry : Metrics.snapshot().entrySet()) {
+            if (!isReported(entry.getKey())) {
+                continue;
+            }
+            Stats stats = entry.getValue();
+            LatencyHistogram latency = stats.getLatency();
+            
+            StringBuilder line = new StringBuilder(String.format("%-40s %8d %7d %9.2f",
+                    entry.getKey(), stats.getCalls(), stats.getErrors(), stats.getCalls() / seconds));
+            StringBuilder row = new StringBuilder(String.format(Locale.ROOT, "%s,%d,%d,%.3f",
+                    entry.getKey(), stats.getCalls(), stats.getErrors(), stats.getCalls() / seconds));
+            for (double percentile : PERCENTILES) {
+                double millis = latency.valueAtQuantile(percentile) / 1000.0;
+                line.append(String.format(" %9.3f", millis));
+                row.append(String.format(Locale.ROOT, ",%.3f", millis));
+            }
+            double maxMillis = latency.valueAtQuantile(1.0) / 1000.0;
+            line.append(String.format(" %9.3f", maxMillis));
+            row.append(String.format(Locale.ROOT, ",%.3f", maxMillis));
+            
+            System.out.println(line);
+            csv.add(row.toString());
+        }
+        
+        if (csvFile != null) {
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(csvFile), StandardCharsets.UTF_8))) {
+                for (String row : csv) {
+                    out.println(row);
+                }
+            }
+            System.out.println("Results written to " + csvFile);
+        }
+    }
+    
+    private static boolean isReported(String operation) {
+        for (String prefix : REPORTED) {
+            if (operation.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
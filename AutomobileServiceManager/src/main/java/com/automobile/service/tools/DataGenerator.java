@@ -0,0 +1,747 @@
+package com.automobile.service.tools;
+
+import com.automobile.service.service.BillingService;
+import com.automobile.service.util.DBConnectionUtil;
+import com.automobile.service.util.VehicleIdentifiers;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Command-line tool that fills the schema in database_schema.sql with a synthetic but
+ * realistic dataset for scale testing: customers, vehicles with valid-looking plates and
+ * VINs, years of job cards, job services whose popularity follows a Zipf distribution
+ * over the service catalog, parts usage and bills.
+ *
+ * The output depends only on the options, so the same seed and end date give the same
+ * rows. IDs are assigned here, continuing after the largest ID already in each table, and
+ * rows are written either through batched inserts, committed every chunk of customers,
+ * or to tab-separated files with a load.sql script of LOAD DATA statements, the fastest
+ * way to load millions of rows. The service and parts catalogs are read from the database
+ * in both modes; stock levels are left as they are.
+ *
+ * The daily_rollups table is not updated; run RollupBackfill once the data is loaded.
+ *
+ * Usage: DataGenerator [--customers n] [--years n] [--visits-per-year n] [--end-date yyyy-MM-dd]
+ *                      [--seed n] [--zipf s] [--chunk customers] [--out directory]
+ */
+public class DataGenerator {
+    
+    private static final DateTimeFormatter SQL_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    private static final String[] FIRST_NAMES = {
+            "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David", "Elizabeth",
+            "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen",
+            "Christopher", "Lisa", "Daniel", "Nancy", "Matthew", "Betty", "Anthony", "Margaret", "Mark", "Sandra",
+            "Donald", "Ashley", "Steven", "Kimberly", "Paul", "Emily", "Andrew", "Donna", "Joshua", "Michelle",
+            "Kenneth", "Carol", "Kevin", "Amanda", "Brian", "Melissa", "George", "Deborah", "Timothy", "Stephanie",
+            "Ronald", "Rebecca", "Jason", "Laura", "Edward", "Sharon", "Jeffrey", "Cynthia", "Ryan", "Kathleen",
+            "Priya", "Wei", "Carlos", "Fatima", "Hiroshi", "Olga", "Ahmed", "Sofia", "Raj", "Mei"
+    };
+    
+    // Ordered roughly by frequency; drawn with a Zipf distribution, so searches hit realistic result sizes
+    private static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+            "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+            "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez", "Lewis", "Robinson",
+            "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen", "Hill", "Flores",
+            "Green", "Adams", "Nelson", "Baker", "Hall", "Rivera", "Campbell", "Mitchell", "Carter", "Roberts",
+            "Patel", "Kim", "Chen", "Singh", "Murphy", "O'Brien", "Cook", "Rogers", "Morgan", "Peterson",
+            "Cooper", "Reed", "Bailey", "Bell", "Gomez", "Kelly", "Howard", "Ward", "Cox", "Diaz",
+            "Richardson", "Wood", "Watson", "Brooks", "Bennett", "Gray", "James", "Reyes", "Cruz", "Hughes"
+    };
+    
+    private static final String[][] CITIES = {
+            {"Springfield", "IL", "627"}, {"Columbus", "OH", "432"}, {"Austin", "TX", "787"},
+            {"Portland", "OR", "972"}, {"Denver", "CO", "802"}, {"Madison", "WI", "537"},
+            {"Raleigh", "NC", "276"}, {"Phoenix", "AZ", "850"}, {"Nashville", "TN", "372"},
+            {"Sacramento", "CA", "958"}, {"Tampa", "FL", "336"}, {"Pittsburgh", "PA", "152"}
+    };
+    
+    private static final String[] STREETS = {
+            "Main St", "Oak Ave", "Maple Dr", "Cedar Ln", "Elm St", "Pine Rd", "Washington Blvd", "Lake View Dr",
+            "Hillcrest Ave", "Park Pl", "Sunset Blvd", "River Rd", "Church St", "Highland Ave", "Meadow Ln"
+    };
+    
+    // Make, world manufacturer identifier (VIN positions 1-3), models
+    private static final String[][] MAKES = {
+            {"Toyota", "4T1", "Camry", "Corolla", "RAV4", "Highlander", "Tacoma"},
+            {"Honda", "1HG", "Civic", "Accord", "CR-V", "Pilot", "Odyssey"},
+            {"Ford", "1FA", "F-150", "Escape", "Explorer", "Focus", "Mustang"},
+            {"Chevrolet", "1G1", "Silverado", "Malibu", "Equinox", "Tahoe", "Impala"},
+            {"Nissan", "1N4", "Altima", "Sentra", "Rogue", "Pathfinder"},
+            {"Hyundai", "KMH", "Elantra", "Sonata", "Tucson", "Santa Fe"},
+            {"Subaru", "4S3", "Outback", "Forester", "Impreza", "Crosstrek"},
+            {"Volkswagen", "3VW", "Jetta", "Passat", "Tiguan", "Golf"},
+            {"BMW", "WBA", "3 Series", "5 Series", "X3", "X5"},
+            {"Tesla", "5YJ", "Model 3", "Model Y", "Model S"}
+    };
+    
+    private static final String[] COLORS = {"White", "Black", "Silver", "Gray", "Blue", "Red", "Green", "Brown", "Beige"};
+    
+    private static final String[] COMPLAINTS = {
+            "Scheduled maintenance", "Check engine light on", "Grinding noise when braking", "Pulls to the left",
+            "Battery keeps dying", "Vibration at highway speed", "AC not blowing cold", "Oil leak under the car",
+            "Squeaking from the front suspension", "Due for inspection", null
+    };
+    
+    private static final String[] TECHNICIAN_NOTES = {
+            "Work completed as requested", "Road tested, no issues found", "Recommend follow-up in 6 months",
+            "Customer declined additional work", "Parts replaced under warranty", null
+    };
+    
+    private static final String[] PAYMENT_METHODS = {"CARD", "CARD", "CARD", "CASH", "CHECK", "FINANCING"};
+    
+    // Letters allowed in a VIN, used for the generated VIN positions
+    private static final String VIN_ALPHABET = "0123456789ABCDEFGHJKLMNPRSTUVWXYZ";
+    private static final String VIN_YEAR_CODES = "ABCDEFGHJKLMNPRSTVWXY123456789";
+    
+    // Plates are three letters and four digits; the vehicle number is scrambled into one
+    private static final long PLATE_SPACE = 26L * 26 * 26 * 10000;
+    
+    private final SplittableRandom random;
+    private final LocalDateTime historyStart;
+    private final LocalDateTime end;
+    private final double visitsPerYear;
+    private final long plateMultiplier;
+    
+    private final List<CatalogItem> services;
+    private final List<CatalogItem> parts;
+    private final ZipfSampler servicePopularity;
+    private final ZipfSampler partPopularity;
+    private final ZipfSampler lastNames;
+    
+    private long nextCustomerId;
+    private long nextVehicleId;
+    private long nextJobCardId;
+    private long nextJobServiceId;
+    private long nextPartsUsedId;
+    private long nextBillId;
+    
+    private final long[] rowCounts = new long[Table.values().length];
+    
+    public static void main(String[] args) {
+        long customers = 100000;
+        int years = 3;
+        double visitsPerYear = 2.0;
+        LocalDate endDate = LocalDate.now();
+        long seed = 1;
+        double zipf = 1.1;
+        int chunk = 1000;
+        String outDirectory = null;
+        
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--customers")) {
+                    customers = Long.parseLong(args[++i]);
+                } else if (args[i].equals("--years")) {
+                    years = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--visits-per-year")) {
+                    visitsPerYear = Double.parseDouble(args[++i]);
+                } else if (args[i].equals("--end-date")) {
+                    endDate = LocalDate.parse(args[++i]);
+                } else if (args[i].equals("--seed")) {
+                    seed = Long.parseLong(args[++i]);
+                } else if (args[i].equals("--zipf")) {
+                    zipf = Double.parseDouble(args[++i]);
+                } else if (args[i].equals("--chunk")) {
+                    chunk = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--out")) {
+                    outDirectory = args[++i];
+                } else {
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: DataGenerator [--customers n] [--years n] [--visits-per-year n] "
+                    + "[--end-date yyyy-MM-dd] [--seed n] [--zipf s] [--chunk customers] [--out directory]");
+            System.exit(2);
+            return;
+        }
+        
+        try {
+            DataGenerator generator = new DataGenerator(seed, endDate, years, visitsPerYear, zipf);
+            long start = System.nanoTime();
+            
+            try (RowSink sink = outDirectory != null ? generator.new FileSink(Paths.get(outDirectory)) : generator.new JdbcSink()) {
+                generator.generate(customers, chunk, sink);
+            }
+            
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("Generated %d rows in %.1f s (%.0f rows/s)",
+                    generator.totalRows(), seconds, generator.totalRows() / seconds));
+            if (outDirectory != null) {
+                System.out.println("Load with: mysql --local-infile=1 automobile_service < "
+                        + Paths.get(outDirectory, "load.sql"));
+            }
+            System.out.println("Run RollupBackfill to bring daily_rollups up to date");
+            
+        } catch (SQLException | IOException e) {
+            System.err.println("Data generation failed: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            DBConnectionUtil.closeConnection();
+        }
+    }
+    
+    /**
+     * Read the catalogs and the largest existing IDs from the database
+     */
+    private DataGenerator(long seed, LocalDate endDate, int years, double visitsPerYear, double zipf)
+            throws SQLException {
+        this.random = new SplittableRandom(seed);
+        this.end = endDate.atTime(18, 0);
+        this.historyStart = endDate.minusYears(years).atStartOfDay();
+        this.visitsPerYear = visitsPerYear;
+        this.plateMultiplier = plateMultiplier(seed);
+        
+        try (Connection connection = DBConnectionUtil.getConnection();
+             Statement stmt = connection.createStatement()) {
+            services = readCatalog(stmt, "SELECT service_id, standard_price, estimated_hours FROM services ORDER BY service_id");
+            parts = readCatalog(stmt, "SELECT part_id, unit_price, NULL FROM parts ORDER BY part_id");
+            
+            nextCustomerId = maxId(stmt, "customers", "customer_id") + 1;
+            nextVehicleId = maxId(stmt, "vehicles", "vehicle_id") + 1;
+            nextJobCardId = maxId(stmt, "job_cards", "job_card_id") + 1;
+            nextJobServiceId = maxId(stmt, "job_services", "job_service_id") + 1;
+            nextPartsUsedId = maxId(stmt, "parts_used", "parts_used_id") + 1;
+            nextBillId = maxId(stmt, "billing", "bill_id") + 1;
+        }
+        
+        if (services.isEmpty()) {
+            throw new SQLException("The services table is empty; load the service catalog first");
+        }
+        
+        this.servicePopularity = new ZipfSampler(services.size(), zipf);
+        this.partPopularity = parts.isEmpty() ? null : new ZipfSampler(parts.size(), zipf);
+        this.lastNames = new ZipfSampler(LAST_NAMES.length, 0.8);
+    }
+    
+    /**
+     * Generate customers with everything recorded for them, writing each chunk of
+     * customers before the next is generated
+     */
+    private void generate(long customers, int chunk, RowSink sink) throws SQLException, IOException {
+        long start = System.nanoTime();
+        
+        for (long i = 1; i <= customers; i++) {
+            generateCustomer(sink);
+            
+            if (i % chunk == 0 || i == customers) {
+                sink.flush();
+                if (i % (chunk * 50L) == 0 || i == customers) {
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.println(String.format("%d customers, %d vehicles, %d job cards, %d job services, "
+                                    + "%d bills (%.0f rows/s)", i, count(Table.VEHICLES), count(Table.JOB_CARDS),
+                            count(Table.JOB_SERVICES), count(Table.BILLING), totalRows() / seconds));
+                }
+            }
+        }
+    }
+    
+    private void generateCustomer(RowSink sink) throws SQLException, IOException {
+        long customerId = nextCustomerId++;
+        String firstName = pick(FIRST_NAMES);
+        String lastName = LAST_NAMES[lastNames.sample(random)];
+        String[] city = pick(CITIES);
+        
+        // Unique by construction: the phone number and email address encode the customer ID
+        long number = 2000000000L + customerId;
+        String digits = Long.toString(number);
+        String phone = "(" + digits.substring(0, 3) + ") " + digits.substring(3, 6) + "-" + digits.substring(6, 10);
+        String email = firstName.toLowerCase() + "." + lastName.toLowerCase().replace("'", "") + "." + customerId
+                + "@example.com";
+        
+        // Customers join over the whole history, most of them early on
+        double joined = 1 - Math.sqrt(random.nextDouble());
+        LocalDateTime registered = historyStart.plusSeconds(
+                (long) (joined * ChronoUnit.SECONDS.between(historyStart, end)));
+        
+        sink.row(Table.CUSTOMERS, customerId, firstName, lastName, phone, email,
+                (100 + random.nextInt(9900)) + " " + pick(STREETS), city[0], city[1],
+                city[2] + String.format("%02d", random.nextInt(100)), registered);
+        
+        int vehicles = random.nextInt(10) < 6 ? 1 : random.nextInt(10) < 8 ? 2 : 3;
+        for (int v = 0; v < vehicles; v++) {
+            generateVehicle(sink, customerId, registered);
+        }
+    }
+    
+    private void generateVehicle(RowSink sink, long customerId, LocalDateTime registered)
+            throws SQLException, IOException {
+        long vehicleId = nextVehicleId++;
+        String[] make = pick(MAKES);
+        String model = make[2 + random.nextInt(make.length - 2)];
+        int year = end.getYear() - random.nextInt(20);
+        
+        // Visits from registration to the end date, at random with the configured mean rate
+        List<LocalDateTime> visits = new ArrayList<>();
+        double meanGapSeconds = 365.25 * 86400 / visitsPerYear;
+        LocalDateTime visit = registered;
+        while (true) {
+            visit = visit.plusSeconds((long) (-Math.log(1 - random.nextDouble()) * meanGapSeconds));
+            if (!visit.isBefore(end)) {
+                break;
+            }
+            // Shop hours: 8:00 to 17:00
+            visits.add(visit.toLocalDate().atTime(8, 0).plusMinutes(random.nextInt(9 * 60)));
+        }
+        
+        LocalDateTime lastClosed = null;
+        for (LocalDateTime openDate : visits) {
+            LocalDateTime closed = generateJobCard(sink, vehicleId, openDate);
+            if (closed != null) {
+                lastClosed = closed;
+            }
+        }
+        
+        int age = Math.max(1, end.getYear() - year);
+        sink.row(Table.VEHICLES, vehicleId, customerId, make[0], model, year, plate(vehicleId),
+                vin(make[1], year, vehicleId), pick(COLORS), age * (8000 + random.nextInt(8000)),
+                lastClosed != null ? lastClosed.toLocalDate() : null);
+    }
+    
+    /**
+     * Generate a job card with its services, parts and bill
+     * @return close date, or null if the job card is not closed
+     */
+    private LocalDateTime generateJobCard(RowSink sink, long vehicleId, LocalDateTime openDate)
+            throws SQLException, IOException {
+        long jobCardId = nextJobCardId++;
+        
+        String status;
+        LocalDateTime closeDate = null;
+        if (ChronoUnit.HOURS.between(openDate, end) < 48) {
+            // Still in the shop
+            status = random.nextBoolean() ? "OPEN" : "IN_PROGRESS";
+        } else if (random.nextInt(100) < 4) {
+            status = "CANCELLED";
+        } else {
+            status = random.nextInt(100) < 85 ? "DELIVERED" : "COMPLETED";
+            closeDate = openDate.plusMinutes(60 + random.nextInt(3 * 24 * 60));
+            if (closeDate.isAfter(end)) {
+                closeDate = end;
+            }
+        }
+        
+        BigDecimal serviceCost = BigDecimal.ZERO;
+        BigDecimal partsCost = BigDecimal.ZERO;
+        String serviceStatus = closeDate != null ? "COMPLETED" : status.equals("IN_PROGRESS") ? "IN_PROGRESS" : "PENDING";
+        
+        int serviceCount = 1 + Math.min(3, (int) (-Math.log(1 - random.nextDouble()) * 0.8));
+        List<Integer> used = new ArrayList<>(serviceCount);
+        for (int s = 0; s < serviceCount; s++) {
+            int index = servicePopularity.sample(random);
+            if (used.contains(index)) {
+                continue;
+            }
+            used.add(index);
+            CatalogItem service = services.get(index);
+            
+            long jobServiceId = nextJobServiceId++;
+            // Most jobs are charged the catalog price; some are adjusted by up to 15%
+            BigDecimal price = random.nextInt(10) < 7 ? service.price
+                    : service.price.multiply(BigDecimal.valueOf(0.85 + random.nextDouble() * 0.3)).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal hours = service.hours != null
+                    ? service.hours.multiply(BigDecimal.valueOf(0.75 + random.nextDouble() * 0.5)).setScale(2, RoundingMode.HALF_UP)
+                    : null;
+            
+            sink.row(Table.JOB_SERVICES, jobServiceId, jobCardId, service.id, price, hours, null, serviceStatus);
+            serviceCost = serviceCost.add(price);
+            
+            if (partPopularity != null && random.nextInt(10) < 6) {
+                int partCount = 1 + random.nextInt(2);
+                for (int p = 0; p < partCount; p++) {
+                    CatalogItem part = parts.get(partPopularity.sample(random));
+                    int quantity = 1 + random.nextInt(4);
+                    sink.row(Table.PARTS_USED, nextPartsUsedId++, jobServiceId, part.id, quantity, part.price);
+                    partsCost = partsCost.add(part.price.multiply(BigDecimal.valueOf(quantity)));
+                }
+            }
+        }
+        
+        sink.row(Table.JOB_CARDS, jobCardId, vehicleId, openDate, closeDate, status,
+                closeDate != null ? pick(TECHNICIAN_NOTES) : null, pick(COMPLAINTS));
+        
+        if (closeDate != null) {
+            generateBill(sink, jobCardId, closeDate, status, serviceCost, partsCost);
+        }
+        return closeDate;
+    }
+    
+    /**
+     * Bill a closed job card, with amounts computed as BillingService computes them
+     */
+    private void generateBill(RowSink sink, long jobCardId, LocalDateTime closeDate, String status,
+                              BigDecimal serviceCost, BigDecimal partsCost) throws SQLException, IOException {
+        BigDecimal subtotal = serviceCost.add(partsCost);
+        BigDecimal discount = random.nextInt(10) == 0
+                ? subtotal.multiply(BigDecimal.valueOf(0.1)).setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+        BigDecimal taxable = subtotal.subtract(discount);
+        BigDecimal tax = taxable.multiply(BillingService.TAX_RATE).setScale(2, RoundingMode.HALF_UP);
+        
+        // Delivered vehicles are paid for; completed ones are waiting for their owner
+        String paymentStatus = status.equals("DELIVERED") ? "PAID" : random.nextInt(4) == 0 ? "PARTIAL" : "PENDING";
+        boolean paid = paymentStatus.equals("PAID");
+        
+        sink.row(Table.BILLING, nextBillId++, jobCardId, closeDate, serviceCost.setScale(2, RoundingMode.HALF_UP),
+                partsCost.setScale(2, RoundingMode.HALF_UP), tax, discount.setScale(2, RoundingMode.HALF_UP),
+                taxable.add(tax).setScale(2, RoundingMode.HALF_UP), paymentStatus,
+                paid ? pick(PAYMENT_METHODS) : null, paid ? closeDate.plusMinutes(random.nextInt(120)) : null, null);
+    }
+    
+    /**
+     * A plate of three letters and four digits, unique per vehicle ID
+     */
+    private String plate(long vehicleId) {
+        long n = Math.floorMod(vehicleId * plateMultiplier, PLATE_SPACE);
+        long letters = n / 10000;
+        char[] plate = new char[7];
+        plate[0] = (char) ('A' + letters / (26 * 26));
+        plate[1] = (char) ('A' + letters / 26 % 26);
+        plate[2] = (char) ('A' + letters % 26);
+        String digits = String.format("%04d", n % 10000);
+        digits.getChars(0, 4, plate, 3);
+        return new String(plate);
+    }
+    
+    /**
+     * A 17-character VIN with a valid check digit, unique per vehicle ID: positions 7-8
+     * and the serial number at 12-17 encode the ID
+     */
+    private String vin(String manufacturer, int year, long vehicleId) {
+        char[] vin = new char[17];
+        manufacturer.getChars(0, 3, vin, 0);
+        for (int i = 3; i < 6; i++) {
+            vin[i] = VIN_ALPHABET.charAt(random.nextInt(VIN_ALPHABET.length()));
+        }
+        long high = vehicleId / 1000000;
+        vin[6] = VIN_ALPHABET.charAt((int) (high / VIN_ALPHABET.length() % VIN_ALPHABET.length()));
+        vin[7] = VIN_ALPHABET.charAt((int) (high % VIN_ALPHABET.length()));
+        vin[8] = '0';
+        vin[9] = VIN_YEAR_CODES.charAt(Math.floorMod(year - 1980, VIN_YEAR_CODES.length()));
+        vin[10] = VIN_ALPHABET.charAt(10 + random.nextInt(VIN_ALPHABET.length() - 10));
+        String serial = String.format("%06d", vehicleId % 1000000);
+        serial.getChars(0, 6, vin, 11);
+        
+        String withoutCheck = new String(vin);
+        vin[8] = VehicleIdentifiers.vinCheckDigit(withoutCheck);
+        return new String(vin);
+    }
+    
+    /**
+     * A multiplier that permutes the plate space, so distinct vehicle IDs get distinct
+     * plates: the space is 2^7 * 5^4 * 13^3, so any number not divisible by 2, 5 or 13
+     */
+    private static long plateMultiplier(long seed) {
+        long multiplier = 1000003 + 2 * new SplittableRandom(seed).nextInt(1000000);
+        while (multiplier % 5 == 0 || multiplier % 13 == 0) {
+            multiplier += 2;
+        }
+        return multiplier;
+    }
+    
+    private <T> T pick(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+    
+    private long count(Table table) {
+        return rowCounts[table.ordinal()];
+    }
+    
+    private long totalRows() {
+        long total = 0;
+        for (long count : rowCounts) {
+            total += count;
+        }
+        return total;
+    }
+    
+    private static List<CatalogItem> readCatalog(Statement stmt, String sql) throws SQLException {
+        List<CatalogItem> items = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                items.add(new CatalogItem(rs.getInt(1), rs.getBigDecimal(2), rs.getBigDecimal(3)));
+            }
+        }
+        return items;
+    }
+    
+    private static long maxId(Statement stmt, String table, String column) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(" + column + "), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+    
+    /**
+     * Tables written, in foreign key order, with their columns
+     */
+    private enum Table {
+        CUSTOMERS("customers", "customer_id", "first_name", "last_name", "phone", "email", "address", "city",
+                "state", "zip_code", "registration_date"),
+        VEHICLES("vehicles", "vehicle_id", "customer_id", "make", "model", "year", "license_plate", "vin", "color",
+                "mileage", "last_service_date"),
+        JOB_CARDS("job_cards", "job_card_id", "vehicle_id", "open_date", "close_date", "status",
+                "technician_notes", "customer_complaints"),
+        JOB_SERVICES("job_services", "job_service_id", "job_card_id", "service_id", "actual_price", "actual_hours",
+                "notes", "status"),
+        PARTS_USED("parts_used", "parts_used_id", "job_service_id", "part_id", "quantity", "price_per_unit"),
+        BILLING("billing", "bill_id", "job_card_id", "bill_date", "total_service_cost", "total_parts_cost",
+                "tax_amount", "discount_amount", "grand_total", "payment_status", "payment_method", "payment_date",
+                "notes");
+        
+        private final String name;
+        private final String[] columns;
+        
+        Table(String name, String... columns) {
+            this.name = name;
+            this.columns = columns;
+        }
+        
+        private String insertSql() {
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(name).append(" (")
+                    .append(String.join(", ", columns)).append(") VALUES (");
+            for (int i = 0; i < columns.length; i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            return sql.append(')').toString();
+        }
+    }
+    
+    /**
+     * Destination of the generated rows. Rows of a table may be held back until flush(),
+     * which writes every table in foreign key order.
+     */
+    private interface RowSink extends AutoCloseable {
+        void row(Table table, Object... values) throws SQLException, IOException;
+        
+        void flush() throws SQLException, IOException;
+        
+        @Override
+        void close() throws SQLException, IOException;
+    }
+    
+    /**
+     * Writes rows with batched inserts, one transaction per flush
+     */
+    private final class JdbcSink implements RowSink {
+        private final Connection connection;
+        private final PreparedStatement[] statements = new PreparedStatement[Table.values().length];
+        
+        private JdbcSink() throws SQLException {
+            connection = DBConnectionUtil.getConnection();
+            try {
+                connection.setAutoCommit(false);
+                for (Table table : Table.values()) {
+                    statements[table.ordinal()] = connection.prepareStatement(table.insertSql());
+                }
+            } catch (SQLException e) {
+                close();
+                throw e;
+            }
+        }
+        
+        @Override
+        public void row(Table table, Object... values) throws SQLException {
+            PreparedStatement stmt = statements[table.ordinal()];
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value instanceof LocalDateTime) {
+                    value = Timestamp.valueOf((LocalDateTime) value);
+                } else if (value instanceof LocalDate) {
+                    value = java.sql.Date.valueOf((LocalDate) value);
+                }
+                stmt.setObject(i + 1, value);
+            }
+            stmt.addBatch();
+            rowCounts[table.ordinal()]++;
+        }
+        
+        @Override
+        public void flush() throws SQLException {
+            try {
+                for (PreparedStatement stmt : statements) {
+                    stmt.executeBatch();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+        
+        @Override
+        public void close() throws SQLException {
+            for (PreparedStatement stmt : statements) {
+                if (stmt != null) {
+                    stmt.close();
+                }
+            }
+            connection.setAutoCommit(true);
+            connection.close();
+        }
+    }
+    
+    /**
+     * Writes rows to one tab-separated file per table, in the default format of LOAD DATA,
+     * and a load.sql script that loads them in foreign key order
+     */
+    private final class FileSink implements RowSink {
+        private final Path directory;
+        private final BufferedWriter[] writers = new BufferedWriter[Table.values().length];
+        
+        private FileSink(Path directory) throws IOException {
+            this.directory = directory;
+            Files.createDirectories(directory);
+            for (Table table : Table.values()) {
+                writers[table.ordinal()] = Files.newBufferedWriter(file(table), StandardCharsets.UTF_8);
+            }
+        }
+        
+        @Override
+        public void row(Table table, Object... values) throws IOException {
+            BufferedWriter writer = writers[table.ordinal()];
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write('\t');
+                }
+                writeField(writer, values[i]);
+            }
+            writer.write('\n');
+            rowCounts[table.ordinal()]++;
+        }
+        
+        @Override
+        public void flush() {
+            // Files are loaded as a whole; nothing to do per chunk
+        }
+        
+        @Override
+        public void close() throws IOException {
+            for (BufferedWriter writer : writers) {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+            
+            try (PrintWriter script = new PrintWriter(Files.newBufferedWriter(directory.resolve("load.sql"),
+                    StandardCharsets.UTF_8))) {
+                script.println("-- Generated by DataGenerator; run with mysql --local-infile=1");
+                script.println("SET unique_checks = 0;");
+                script.println("SET foreign_key_checks = 0;");
+                for (Table table : Table.values()) {
+                    String path = file(table).toAbsolutePath().toString().replace("\\", "\\\\").replace("'", "\\'");
+                    script.println("LOAD DATA LOCAL INFILE '" + path + "' INTO TABLE " + table.name
+                            + " CHARACTER SET utf8mb4 (" + String.join(", ", table.columns) + ");");
+                }
+                script.println("SET foreign_key_checks = 1;");
+                script.println("SET unique_checks = 1;");
+            }
+        }
+        
+        private Path file(Table table) {
+            return directory.resolve(table.name + ".tsv");
+        }
+        
+        private void writeField(BufferedWriter writer, Object value) throws IOException {
+            if (value == null) {
+                writer.write("\\N");
+                return;
+            }
+            
+            String text;
+            if (value instanceof LocalDateTime) {
+                text = SQL_DATE_TIME.format((LocalDateTime) value);
+            } else if (value instanceof BigDecimal) {
+                text = ((BigDecimal) value).toPlainString();
+            } else {
+                text = value.toString();
+            }
+            
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '\t') {
+                    writer.write("\\t");
+                } else if (c == '\n') {
+                    writer.write("\\n");
+                } else if (c == '\\') {
+                    writer.write("\\\\");
+                } else {
+                    writer.write(c);
+                }
+            }
+        }
+    }
+    
+    /**
+     * A catalog service or part: ID, price and, for services, estimated hours
+     */
+    private static final class CatalogItem {
+        private final int id;
+        private final BigDecimal price;
+        private final BigDecimal hours;
+        
+        private CatalogItem(int id, BigDecimal price, BigDecimal hours) {
+            this.id = id;
+            this.price = price;
+            this.hours = hours;
+        }
+    }
+    
+    /**
+     * Draws ranks 0..n-1 with probability proportional to 1 / (rank + 1)^s
+     */
+    private static final class ZipfSampler {
+        private final double[] cumulative;
+        
+        private ZipfSampler(int n, double s) {
+            cumulative = new double[n];
+            double total = 0;
+            for (int k = 0; k < n; k++) {
+                total += 1 / Math.pow(k + 1, s);
+                cumulative[k] = total;
+            }
+            for (int k = 0; k < n; k++) {
+                cumulative[k] /= total;
+            }
+        }
+        
+        private int sample(SplittableRandom random) {
+            double u = random.nextDouble();
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
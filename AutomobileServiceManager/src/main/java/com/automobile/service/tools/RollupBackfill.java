@@ -0,0 +1,68 @@
+package com.automobile.service.tools;
+
+import com.automobile.service.service.RollupService;
+import com.automobile.service.util.DBConnectionUtil;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Command-line tool that recomputes the daily_rollups table from job_cards and billing,
+ * one month per transaction. Run it once after creating the table, or for a range whose
+ * rollups may have drifted. Days that change while they are rebuilt may be counted twice,
+ * so rebuild today only while the application is stopped.
+ *
+ * Usage: RollupBackfill [from-date [to-date]]   (dates as yyyy-MM-dd; defaults to all history)
+ */
+public class RollupBackfill {
+    
+    public static void main(String[] args) {
+        RollupService rollupService = new RollupService();
+        
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = args.length > 0 ? LocalDate.parse(args[0]) : rollupService.getFirstActivityDate();
+            to = args.length > 1 ? LocalDate.parse(args[1]) : LocalDate.now();
+        } catch (DateTimeParseException e) {
+            System.err.println("Usage: RollupBackfill [from-date [to-date]] with dates as yyyy-MM-dd");
+            System.exit(2);
+            return;
+        }
+        
+        if (from == null) {
+            System.out.println("No job cards or bills to roll up");
+            return;
+        }
+        
+        int totalDays = 0;
+        boolean failed = false;
+        
+        try {
+            for (LocalDate monthStart = from.withDayOfMonth(1); !monthStart.isAfter(to); monthStart = monthStart.plusMonths(1)) {
+                LocalDate first = monthStart.isBefore(from) ? from : monthStart;
+                LocalDate last = monthStart.plusMonths(1).minusDays(1);
+                if (last.isAfter(to)) {
+                    last = to;
+                }
+                
+                int days = rollupService.rebuildDailyRollups(first, last);
+                if (days < 0) {
+                    System.err.println("Failed to rebuild " + first + " to " + last);
+                    failed = true;
+                    continue;
+                }
+                
+                totalDays += days;
+                System.out.println("Rebuilt " + first + " to " + last + ": " + days + " days with activity");
+            }
+        } finally {
+            DBConnectionUtil.closeConnection();
+        }
+        
+        System.out.println("Backfill complete: " + totalDays + " days with activity from " + from + " to " + to);
+        if (failed) {
+            System.exit(1);
+        }
+    }
+}
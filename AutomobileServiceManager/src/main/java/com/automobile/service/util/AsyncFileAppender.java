@@ -0,0 +1,144 @@
+package com.automobile.service.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appends lines to a file from a background thread, so callers never wait on disk I/O.
+ * Lines are queued in a bounded queue; when it is full they are dropped and counted
+ * rather than blocking the caller. The file is opened on the first line written.
+ */
+public class AsyncFileAppender {
+    
+    private static final long CLOSE_TIMEOUT_MILLIS = 2000;
+    // How often an idle writer thread checks whether the appender was closed
+    private static final long POLL_MILLIS = 100;
+    
+    private final Path path;
+    private final BlockingQueue<String> queue;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writerThread;
+    private volatile boolean closed;
+    
+    /**
+     * Create an appender and start its writer thread
+     * @param path file to append to; missing parent directories are created
+     * @param capacity maximum number of lines waiting to be written
+     * @param threadName name of the writer thread
+     */
+    public AsyncFileAppender(Path path, int capacity, String threadName) {
+        this.path = path;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writerThread = new Thread(this::writeLoop, threadName);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+    
+    /**
+     * Queue a line to be written
+     * @param line text without a line terminator
+     * @return true if queued, false if the queue is full or the appender is closed
+     */
+    public boolean append(String line) {
+        if (closed || !queue.offer(line)) {
+            dropped.increment();
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * @return number of lines dropped because the queue was full or the file could not be written
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+    
+    /**
+     * @return file the lines are appended to
+     */
+    public Path getPath() {
+        return path;
+    }
+    
+    /**
+     * Stop accepting lines, write those already queued and close the file
+     */
+    public void close() {
+        // Not interrupted: an interrupt during a write would close the file channel
+        closed = true;
+        try {
+            writerThread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void writeLoop() {
+        BufferedWriter writer = null;
+        try {
+            while (!closed || !queue.isEmpty()) {
+                String line;
+                try {
+                    line = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (line == null) {
+                    continue;
+                }
+                
+                if (writer == null) {
+                    writer = open();
+                    if (writer == null) {
+                        dropped.add(1 + queue.size());
+                        queue.clear();
+                        continue;
+                    }
+                }
+                
+                try {
+                    writer.write(line);
+                    writer.newLine();
+                    // Flush once the burst is written, not after every line
+                    if (queue.isEmpty()) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    System.err.println("Error writing to " + path + ": " + e.getMessage());
+                    dropped.increment();
+                }
+            }
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing " + path + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    private BufferedWriter open() {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            return Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Error opening " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package com.automobile.service.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe JDBC connection pool for the Automobile Service Manager.
+ * Callers borrow a connection per operation and return it by calling close() on it,
+ * which is what try-with-resources in the DAO classes does.
+ * When given a SqlTracer, statements prepared on its connections are traced.
+ */
+public class ConnectionPool {
+    
+    // Connections used within this window are handed out without a validation round trip
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+    private static final long HOUSEKEEPING_INTERVAL_MILLIS = 30000;
+    
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakDetectionThresholdMillis;
+    private final int statementCacheSize;
+    private final SqlTracer tracer;
+    
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowedConnections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+    
+    /**
+     * Create a pool and open its minimum number of connections
+     * @param url JDBC URL
+     * @param user database user
+     * @param password database password
+     * @param minSize number of connections kept open while idle
+     * @param maxSize maximum number of connections open at once
+     * @param acquireTimeoutMillis how long a caller waits for a free connection
+     * @param idleTimeoutMillis how long a connection above minSize may sit idle before it is closed
+     * @param leakDetectionThresholdMillis how long a connection may stay borrowed before a leak is reported, 0 to disable
+     * @param statementCacheSize prepared statements cached per connection, 0 to disable
+     * @param tracer tracer for the statements run on the pool's connections, or null to disable tracing
+     */
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                          long acquireTimeoutMillis, long idleTimeoutMillis, long leakDetectionThresholdMillis,
+                          int statementCacheSize, SqlTracer tracer) {
+        if (maxSize <= 0 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.tracer = tracer;
+        this.permits = new Semaphore(maxSize, true);
+        
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::housekeep,
+                HOUSEKEEPING_INTERVAL_MILLIS, HOUSEKEEPING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        
+        fillToMinimum();
+    }
+    
+    /**
+     * Borrow a connection from the pool, waiting up to the acquire timeout for one to become free
+     * @return Connection that returns itself to the pool when closed
+     * @throws SQLException if the pool is closed, the wait times out, or a new connection cannot be opened
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + acquireTimeoutMillis +
+                                       " ms waiting for a database connection (" + maxSize + " in use)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection");
+        }
+        
+        try {
+            PooledConnection pooled = takeValidIdleConnection();
+            if (pooled == null) {
+                pooled = openConnection();
+            }
+            
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrowTrace = leakDetectionThresholdMillis > 0 ? new Throwable("Connection borrowed here") : null;
+            pooled.leakReported = false;
+            borrowedConnections.add(pooled);
+            
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, new ConnectionHandle(pooled));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+    
+    /**
+     * Close all idle connections and stop accepting new borrowers.
+     * Connections still borrowed are closed as they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            discard(pooled);
+        }
+        
+        if (tracer != null) {
+            tracer.close();
+        }
+    }
+    
+    /**
+     * @return maximum number of connections the pool opens at once
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+    
+    /**
+     * @return number of connections currently borrowed
+     */
+    public int getActiveConnections() {
+        return borrowedConnections.size();
+    }
+    
+    /**
+     * @return number of open connections waiting in the pool
+     */
+    public int getIdleConnections() {
+        return idleConnections.size();
+    }
+    
+    /**
+     * @return number of open physical connections, borrowed or idle
+     */
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+    
+    /**
+     * @return number of callers currently waiting for a connection
+     */
+    public int getWaitingThreads() {
+        return permits.getQueueLength();
+    }
+    
+    /**
+     * @return tracer of the statements run on the pool's connections, or null if tracing is disabled
+     */
+    public SqlTracer getSqlTracer() {
+        return tracer;
+    }
+    
+    /**
+     * @return number of prepareStatement calls served from a connection's statement cache
+     */
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+    
+    /**
+     * @return number of prepareStatement calls that prepared a new statement
+     */
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+    
+    /**
+     * Take the most recently used idle connection, discarding any that fail validation
+     * @return a usable idle connection, or null if none is idle
+     */
+    private PooledConnection takeValidIdleConnection() {
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            if (isUsable(pooled)) {
+                return pooled;
+            }
+            discard(pooled);
+        }
+        return null;
+    }
+    
+    private boolean isUsable(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.lastReturnedAt < VALIDATION_BYPASS_MILLIS) {
+            return true;
+        }
+        
+        try {
+            return pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+    
+    private PooledConnection openConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        totalConnections.incrementAndGet();
+        return new PooledConnection(physical,
+                new StatementCache(statementCacheSize, statementCacheHits, statementCacheMisses));
+    }
+    
+    /**
+     * Return a borrowed connection to the pool, or close it if it can no longer be reused
+     * @param pooled connection being returned
+     */
+    private void release(PooledConnection pooled) {
+        borrowedConnections.remove(pooled);
+        
+        try {
+            if (closed || pooled.broken || pooled.physical.isClosed()) {
+                discard(pooled);
+                return;
+            }
+            
+            // Never hand the next borrower someone else's open transaction
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            
+            pooled.lastReturnedAt = System.currentTimeMillis();
+            pooled.borrowTrace = null;
+            idleConnections.offerFirst(pooled);
+            
+        } catch (SQLException e) {
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+    
+    private void discard(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        try {
+            pooled.statementCache.closeAll();
+            pooled.physical.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Periodic maintenance: evict connections idle past the timeout, top the pool back up
+     * to its minimum size and report connections that look leaked.
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        
+        // The deque is ordered most-recently-used first, so stale connections sit at the tail
+        for (PooledConnection pooled : idleConnections.toArray(new PooledConnection[0])) {
+            if (totalConnections.get() <= minSize) {
+                break;
+            }
+            if (now - pooled.lastReturnedAt > idleTimeoutMillis && idleConnections.remove(pooled)) {
+                discard(pooled);
+            }
+        }
+        
+        fillToMinimum();
+        
+        if (leakDetectionThresholdMillis > 0) {
+            for (PooledConnection pooled : borrowedConnections) {
+                Throwable trace = pooled.borrowTrace;
+                if (!pooled.leakReported && trace != null && now - pooled.borrowedAt > leakDetectionThresholdMillis) {
+                    pooled.leakReported = true;
+                    System.err.println("Possible connection leak: connection borrowed " +
+                                       (now - pooled.borrowedAt) + " ms ago has not been closed");
+                    trace.printStackTrace();
+                }
+            }
+        }
+    }
+    
+    private void fillToMinimum() {
+        while (!closed && totalConnections.get() < minSize) {
+            try {
+                PooledConnection pooled = openConnection();
+                pooled.lastReturnedAt = System.currentTimeMillis();
+                idleConnections.offerLast(pooled);
+            } catch (SQLException e) {
+                System.err.println("Error opening pooled connection: " + e.getMessage());
+                return;
+            }
+        }
+    }
+    
+    /**
+     * A physical connection together with its pool bookkeeping
+     */
+    private static final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statementCache;
+        private volatile long lastReturnedAt;
+        private volatile long borrowedAt;
+        private volatile Throwable borrowTrace;
+        private volatile boolean leakReported;
+        private volatile boolean broken;
+        
+        private PooledConnection(Connection physical, StatementCache statementCache) {
+            this.physical = physical;
+            this.statementCache = statementCache;
+        }
+    }
+    
+    /**
+     * The Connection handed to a borrower. Each borrow gets its own handle, so closing
+     * a handle twice, or using it after close, cannot affect the next borrower.
+     */
+    private final class ConnectionHandle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean handleClosed;
+        
+        private ConnectionHandle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            
+            if (name.equals("close")) {
+                if (!handleClosed) {
+                    handleClosed = true;
+                    release(pooled);
+                }
+                return null;
+            } else if (name.equals("isClosed")) {
+                return handleClosed || pooled.physical.isClosed();
+            } else if (name.equals("equals")) {
+                return proxy == args[0];
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (name.equals("toString")) {
+                return "Pooled[" + pooled.physical + "]";
+            }
+            
+            if (handleClosed) {
+                throw new SQLException("Connection is closed");
+            }
+            
+            try {
+                if (name.equals("prepareStatement") && args.length <= 2
+                        && (args.length == 1 || args[1] instanceof Integer)) {
+                    // prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) go through the statement cache
+                    int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : PreparedStatement.NO_GENERATED_KEYS;
+                    PreparedStatement statement = pooled.statementCache.prepare(pooled.physical, (Connection) proxy,
+                            (String) args[0], autoGeneratedKeys);
+                    return tracer != null ? tracer.trace(statement, (String) args[0]) : statement;
+                }
+                
+                Object result = method.invoke(pooled.physical, args);
+                if (tracer != null && method.getReturnType() == PreparedStatement.class) {
+                    // Other prepareStatement overloads; prepareCall statements are not traced
+                    return tracer.trace((PreparedStatement) result, (String) args[0]);
+                } else if (tracer != null && method.getReturnType() == Statement.class) {
+                    return tracer.trace((Statement) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    String sqlState = ((SQLException) cause).getSQLState();
+                    // SQLState class 08 is a connection exception; do not return this connection to the pool
+                    if (sqlState != null && sqlState.startsWith("08")) {
+                        pooled.broken = true;
+                    }
+                }
+                throw cause;
+            }
+        }
+    }
+}
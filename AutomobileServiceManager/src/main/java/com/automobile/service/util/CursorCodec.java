@@ -0,0 +1,52 @@
+package com.automobile.service.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque cursor tokens used for keyset pagination.
+ * A cursor carries the sort-key values of the last row on a page.
+ */
+public class CursorCodec {
+    
+    private static final String SEPARATOR = "\u0000";
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private CursorCodec() {
+        // Private constructor to prevent instantiation
+    }
+    
+    /**
+     * Encode sort-key values into a URL-safe cursor token
+     * @param values sort-key values of the last row on a page
+     * @return cursor token
+     */
+    public static String encode(String... values) {
+        String joined = String.join(SEPARATOR, values);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decode a cursor token back into its sort-key values
+     * @param cursor cursor token
+     * @param expectedValues number of values the cursor must contain
+     * @return sort-key values
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static String[] decode(String cursor, int expectedValues) {
+        String[] values;
+        try {
+            String joined = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            values = joined.split(SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        
+        if (values.length != expectedValues) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return values;
+    }
+}
@@ -1,108 +1,244 @@
 package com.automobile.service.util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Paths;
 
 /**
  * Database connection utility class for the Automobile Service Manager
- * Provides methods to establish and manage database connections
+ * Provides methods to establish and manage database connections.
+ * Connections are borrowed from a shared ConnectionPool and must be closed
+ * by the caller, which returns them to the pool.
  */
 public class DBConnectionUtil {
     
     // Default database configuration
     private static final String DEFAULT_DRIVER = "com.mysql.cj.jdbc.Driver";
-    private static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/automobile_service";
+    private static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/automobile_service?useCursorFetch=true&rewriteBatchedStatements=true";
     private static final String DEFAULT_USER = "root";
     private static final String DEFAULT_PASSWORD = "password";
     
-    // Connection instance for singleton pattern
-    private static Connection connection = null;
+    // Default pool configuration
+    private static final int DEFAULT_POOL_MIN_SIZE = 2;
+    private static final int DEFAULT_POOL_MAX_SIZE = 10;
+    private static final long DEFAULT_ACQUIRE_TIMEOUT_MILLIS = 30000;
+    private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 600000;
+    private static final long DEFAULT_LEAK_DETECTION_MILLIS = 60000;
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    
+    // Default statement tracing configuration
+    private static final long DEFAULT_SLOW_QUERY_MILLIS = 1000;
+    private static final String DEFAULT_SLOW_QUERY_LOG =
+            Paths.get(System.getProperty("java.io.tmpdir"), "automobile-service-slow-queries.log").toString();
+    private static final int DEFAULT_TRACED_STATEMENTS = 500;
+    
+    // Rows fetched per round trip by streaming queries
+    private static final int DEFAULT_STREAM_FETCH_SIZE = 1000;
+    
+    // Optional classpath resource used when no properties file is given
+    private static final String DEFAULT_PROPERTIES_RESOURCE = "/db.properties";
+    
+    // Shared pool, created on first use. Guarded by a lock rather than synchronized so a
+    // virtual thread opening the pool's first connections does not pin its carrier thread.
+    private static final ReentrantLock POOL_LOCK = new ReentrantLock();
+    private static volatile ConnectionPool pool = null;
+    private static volatile int streamFetchSize = DEFAULT_STREAM_FETCH_SIZE;
     
     /**
      * Private constructor to prevent instantiation
      */
     private DBConnectionUtil() {
-        // Private constructor to enforce singleton pattern
+        // Private constructor to prevent instantiation
     }
     
     /**
-     * Get a database connection using default credentials
-     * @return Connection object
+     * Borrow a database connection from the pool. The pool is configured from
+     * db.properties on the classpath if present, otherwise from the default credentials.
+     * @return Connection object; close it to return it to the pool
      * @throws SQLException if connection fails
      */
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            try {
-                // Load the JDBC driver
-                Class.forName(DEFAULT_DRIVER);
-                
-                // Create the connection
-                connection = DriverManager.getConnection(
-                    DEFAULT_URL, 
-                    DEFAULT_USER, 
-                    DEFAULT_PASSWORD
-                );
-            } catch (ClassNotFoundException e) {
-                throw new SQLException("Database driver not found: " + e.getMessage());
-            }
+        ConnectionPool current = pool;
+        if (current == null) {
+            current = initPool(loadDefaultProperties());
         }
-        return connection;
+        return current.getConnection();
     }
     
     /**
-     * Get a database connection using properties file
+     * Borrow a database connection, configuring the pool from a properties file if
+     * it has not been created yet
      * @param propertiesFilePath path to the properties file
-     * @return Connection object
+     * @return Connection object; close it to return it to the pool
      * @throws SQLException if connection fails
      */
     public static Connection getConnection(String propertiesFilePath) throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            Properties props = new Properties();
-            
-            try (InputStream input = new FileInputStream(propertiesFilePath)) {
-                // Load properties file
-                props.load(input);
-                
-                // Get properties
-                String driver = props.getProperty("jdbc.driver", DEFAULT_DRIVER);
-                String url = props.getProperty("jdbc.url", DEFAULT_URL);
-                String user = props.getProperty("jdbc.user", DEFAULT_USER);
-                String password = props.getProperty("jdbc.password", DEFAULT_PASSWORD);
-                
-                // Load the JDBC driver
-                Class.forName(driver);
-                
-                // Create the connection
-                connection = DriverManager.getConnection(url, user, password);
-                
-            } catch (IOException e) {
-                throw new SQLException("Error loading database properties: " + e.getMessage());
-            } catch (ClassNotFoundException e) {
-                throw new SQLException("Database driver not found: " + e.getMessage());
+        ConnectionPool current = pool;
+        if (current == null) {
+            current = initPool(loadProperties(propertiesFilePath));
+        }
+        return current.getConnection();
+    }
+    
+    /**
+     * Replace the pool with one configured from a properties file.
+     * Recognised keys: jdbc.driver, jdbc.url, jdbc.user, jdbc.password,
+     * jdbc.pool.minSize, jdbc.pool.maxSize, jdbc.pool.acquireTimeoutMillis,
+     * jdbc.pool.idleTimeoutMillis, jdbc.pool.leakDetectionMillis, jdbc.pool.statementCacheSize,
+     * jdbc.streamFetchSize, jdbc.trace.enabled, jdbc.trace.slowQueryMillis (negative to disable
+     * the slow-query log), jdbc.trace.slowQueryLog, jdbc.trace.maxStatements
+     * @param propertiesFilePath path to the properties file
+     * @throws SQLException if the file cannot be read or the driver is missing
+     */
+    public static void configure(String propertiesFilePath) throws SQLException {
+        configure(loadProperties(propertiesFilePath));
+    }
+    
+    /**
+     * Replace the pool with one configured from the given properties
+     * @param props database and pool properties
+     * @throws SQLException if the driver is missing
+     */
+    public static void configure(Properties props) throws SQLException {
+        POOL_LOCK.lock();
+        try {
+            ConnectionPool previous = pool;
+            pool = createPool(props);
+            if (previous != null) {
+                previous.close();
             }
+        } finally {
+            POOL_LOCK.unlock();
         }
-        return connection;
     }
     
     /**
-     * Close the database connection
+     * Get the shared connection pool, creating it if necessary
+     * @return ConnectionPool instance
+     * @throws SQLException if the pool cannot be created
+     */
+    public static ConnectionPool getPool() throws SQLException {
+        ConnectionPool current = pool;
+        return current != null ? current : initPool(loadDefaultProperties());
+    }
+    
+    /**
+     * Get the statement tracer of the shared pool, without creating the pool
+     * @return SqlTracer, or null if the pool is not created yet or tracing is disabled
+     */
+    public static SqlTracer getSqlTracer() {
+        ConnectionPool current = pool;
+        return current != null ? current.getSqlTracer() : null;
+    }
+    
+    /**
+     * Get the number of rows streaming queries fetch per round trip
+     * @return fetch size
+     */
+    public static int getStreamFetchSize() {
+        return streamFetchSize;
+    }
+    
+    /**
+     * Close the connection pool and all idle connections
      */
     public static void closeConnection() {
-        if (connection != null) {
-            try {
-                if (!connection.isClosed()) {
-                    connection.close();
-                }
-            } catch (SQLException e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
-            } finally {
-                connection = null;
+        POOL_LOCK.lock();
+        try {
+            if (pool != null) {
+                pool.close();
+                pool = null;
+            }
+        } finally {
+            POOL_LOCK.unlock();
+        }
+    }
+    
+    private static ConnectionPool initPool(Properties props) throws SQLException {
+        POOL_LOCK.lock();
+        try {
+            if (pool == null) {
+                pool = createPool(props);
             }
+            return pool;
+        } finally {
+            POOL_LOCK.unlock();
+        }
+    }
+    
+    private static ConnectionPool createPool(Properties props) throws SQLException {
+        String driver = props.getProperty("jdbc.driver", DEFAULT_DRIVER);
+        String url = props.getProperty("jdbc.url", DEFAULT_URL);
+        String user = props.getProperty("jdbc.user", DEFAULT_USER);
+        String password = props.getProperty("jdbc.password", DEFAULT_PASSWORD);
+        
+        try {
+            // Load the JDBC driver
+            Class.forName(driver);
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("Database driver not found: " + e.getMessage());
+        }
+        
+        streamFetchSize = intProperty(props, "jdbc.streamFetchSize", DEFAULT_STREAM_FETCH_SIZE);
+        
+        return new ConnectionPool(url, user, password,
+                intProperty(props, "jdbc.pool.minSize", DEFAULT_POOL_MIN_SIZE),
+                intProperty(props, "jdbc.pool.maxSize", DEFAULT_POOL_MAX_SIZE),
+                longProperty(props, "jdbc.pool.acquireTimeoutMillis", DEFAULT_ACQUIRE_TIMEOUT_MILLIS),
+                longProperty(props, "jdbc.pool.idleTimeoutMillis", DEFAULT_IDLE_TIMEOUT_MILLIS),
+                longProperty(props, "jdbc.pool.leakDetectionMillis", DEFAULT_LEAK_DETECTION_MILLIS),
+                intProperty(props, "jdbc.pool.statementCacheSize", DEFAULT_STATEMENT_CACHE_SIZE),
+                createTracer(props));
+    }
+    
+    private static SqlTracer createTracer(Properties props) {
+        if (!Boolean.parseBoolean(props.getProperty("jdbc.trace.enabled", "true").trim())) {
+            return null;
         }
+        return new SqlTracer(longProperty(props, "jdbc.trace.slowQueryMillis", DEFAULT_SLOW_QUERY_MILLIS),
+                Paths.get(props.getProperty("jdbc.trace.slowQueryLog", DEFAULT_SLOW_QUERY_LOG).trim()),
+                intProperty(props, "jdbc.trace.maxStatements", DEFAULT_TRACED_STATEMENTS));
+    }
+    
+    private static Properties loadProperties(String propertiesFilePath) throws SQLException {
+        Properties props = new Properties();
+        
+        try (InputStream input = new FileInputStream(propertiesFilePath)) {
+            // Load properties file
+            props.load(input);
+        } catch (IOException e) {
+            throw new SQLException("Error loading database properties: " + e.getMessage());
+        }
+        
+        return props;
+    }
+    
+    private static Properties loadDefaultProperties() throws SQLException {
+        Properties props = new Properties();
+        
+        try (InputStream input = DBConnectionUtil.class.getResourceAsStream(DEFAULT_PROPERTIES_RESOURCE)) {
+            if (input != null) {
+                props.load(input);
+            }
+        } catch (IOException e) {
+            throw new SQLException("Error loading database properties: " + e.getMessage());
+        }
+        
+        return props;
+    }
+    
+    static int intProperty(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+    }
+    
+    static long longProperty(Properties props, String key, long defaultValue) {
+        String value = props.getProperty(key);
+        return value != null ? Long.parseLong(value.trim()) : defaultValue;
     }
 }
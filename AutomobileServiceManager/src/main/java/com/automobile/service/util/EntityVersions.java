@@ -0,0 +1,73 @@
+package com.automobile.service.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Version counters per entity type, bumped by every DAO write after it is committed.
+ * A page built from some entity types can be tagged with their versions and served
+ * as unchanged to a client holding the same tag, without querying the database.
+ * Read the versions before querying: a write committed in between then only causes
+ * a needless reload, never a stale page. The counters live in this JVM, so writes
+ * made directly in the database or by another instance are not seen.
+ */
+public class EntityVersions {
+    
+    /**
+     * Entity types, one per table
+     */
+    public enum Entity {
+        CUSTOMERS, VEHICLES, JOB_CARDS, JOB_SERVICES, SERVICES, PARTS, PARTS_USED, BILLING
+    }
+    
+    private static final long STARTED = System.currentTimeMillis();
+    // Distinguishes tags issued before a restart, when the counters start again at zero
+    private static final String EPOCH = Long.toString(STARTED, 36);
+    
+    private static final AtomicLongArray VERSIONS = new AtomicLongArray(Entity.values().length);
+    private static final AtomicLongArray LAST_MODIFIED = new AtomicLongArray(Entity.values().length);
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private EntityVersions() {
+        // Private constructor to prevent instantiation
+    }
+    
+    /**
+     * Record that rows of some entity types changed. Call after the change is committed.
+     * @param entities entity types that changed
+     */
+    public static void bump(Entity... entities) {
+        long now = System.currentTimeMillis();
+        for (Entity entity : entities) {
+            VERSIONS.incrementAndGet(entity.ordinal());
+            LAST_MODIFIED.accumulateAndGet(entity.ordinal(), now, Math::max);
+        }
+    }
+    
+    /**
+     * Build a weak entity tag from the current versions of some entity types
+     * @param entities entity types a response is built from
+     * @return ETag header value
+     */
+    public static String etag(Entity... entities) {
+        StringBuilder tag = new StringBuilder("W/\"").append(EPOCH);
+        for (Entity entity : entities) {
+            tag.append('-').append(Long.toString(VERSIONS.get(entity.ordinal()), 36));
+        }
+        return tag.append('"').toString();
+    }
+    
+    /**
+     * Get the time of the latest change to some entity types
+     * @param entities entity types a response is built from
+     * @return time in milliseconds of the latest change, or of startup if none changed since
+     */
+    public static long lastModified(Entity... entities) {
+        long latest = STARTED;
+        for (Entity entity : entities) {
+            latest = Math.max(latest, LAST_MODIFIED.get(entity.ordinal()));
+        }
+        return latest;
+    }
+}
@@ -0,0 +1,111 @@
+package com.automobile.service.util;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Batched insert helpers. All rows of a call are sent with addBatch/executeBatch in
+ * one transaction; with rewriteBatchedStatements=true on the JDBC URL, MySQL Connector/J
+ * turns the batch into multi-row INSERT statements.
+ */
+public class JdbcBatches {
+    
+    /**
+     * Binds the fields of one row to an insert statement
+     */
+    public interface RowBinder<T> {
+        void bind(PreparedStatement stmt, T row) throws SQLException;
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private JdbcBatches() {
+        // Private constructor to prevent instantiation
+    }
+    
+    /**
+     * Insert rows as one batch in one transaction and store their generated keys.
+     * If the batch fails, it is rolled back and the rows are inserted one at a time
+     * in the same transaction, so that each failing row is reported and the rest are kept.
+     * @param sql single-row INSERT statement
+     * @param rows rows to insert
+     * @param binder binds each row
+     * @param keySetter receives each inserted row and its generated key; may be null
+     * @return Map of list index to error message for rows that were not inserted
+     * @throws SQLException if the connection or transaction fails
+     */
+    public static <T> Map<Integer, String> insert(String sql, List<T> rows, RowBinder<T> binder,
+                                                  ObjIntConsumer<T> keySetter) throws SQLException {
+        Map<Integer, String> failures = new LinkedHashMap<>();
+        if (rows.isEmpty()) {
+            return failures;
+        }
+        
+        int keyMode = keySetter != null ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS;
+        
+        try (Connection connection = DBConnectionUtil.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            
+            try (PreparedStatement stmt = connection.prepareStatement(sql, keyMode)) {
+                try {
+                    for (T row : rows) {
+                        binder.bind(stmt, row);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    readKeys(stmt, rows, 0, keySetter);
+                    connection.commit();
+                    return failures;
+                    
+                } catch (BatchUpdateException e) {
+                    connection.rollback();
+                    stmt.clearBatch();
+                }
+                
+                // A failed INSERT only undoes itself, so the good rows can share one transaction
+                for (int i = 0; i < rows.size(); i++) {
+                    try {
+                        binder.bind(stmt, rows.get(i));
+                        stmt.executeUpdate();
+                        readKeys(stmt, rows, i, keySetter);
+                    } catch (SQLException e) {
+                        failures.put(i, e.getMessage());
+                    }
+                }
+                connection.commit();
+                
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        
+        return failures;
+    }
+    
+    private static <T> void readKeys(PreparedStatement stmt, List<T> rows, int offset,
+                                     ObjIntConsumer<T> keySetter) throws SQLException {
+        if (keySetter == null) {
+            return;
+        }
+        
+        try (ResultSet keys = stmt.getGeneratedKeys()) {
+            int i = offset;
+            while (keys.next() && i < rows.size()) {
+                keySetter.accept(rows.get(i++), keys.getInt(1));
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.automobile.service.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming query helpers for reading large result sets in constant memory.
+ * Rows are fetched from the server in batches of the configured fetch size and
+ * mapped one at a time, instead of being collected into a List first.
+ */
+public class JdbcStreams {
+    
+    /**
+     * Maps the current row of a ResultSet to an object
+     */
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+    
+    /**
+     * Binds parameters to a prepared statement before it is executed
+     */
+    public interface StatementBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+    
+    /**
+     * Thrown by a stream from stream() when a row cannot be read
+     */
+    public static class UncheckedSQLException extends RuntimeException {
+        public UncheckedSQLException(String message, SQLException cause) {
+            super(message, cause);
+        }
+        
+        @Override
+        public synchronized SQLException getCause() {
+            return (SQLException) super.getCause();
+        }
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private JdbcStreams() {
+        // Private constructor to prevent instantiation
+    }
+    
+    /**
+     * Run a query and return its rows as a lazily advancing Stream.
+     * The stream holds a pooled connection until it is closed, so callers must
+     * use it in a try-with-resources block. An error reading a row is thrown from the
+     * stream's terminal operation as an UncheckedSQLException, so a failed read is never
+     * mistaken for the end of the rows.
+     * @param sql query to run
+     * @param binder binds the query parameters
+     * @param mapper maps each row
+     * @return Stream of mapped rows
+     * @throws SQLException if the query cannot be started
+     */
+    public static <T> Stream<T> stream(String sql, StatementBinder binder, RowMapper<T> mapper) throws SQLException {
+        Connection connection = DBConnectionUtil.getConnection();
+        PreparedStatement stmt = null;
+        ResultSet rs;
+        
+        try {
+            stmt = prepareStreaming(connection, sql);
+            binder.bind(stmt);
+            rs = stmt.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(stmt, connection);
+            throw e;
+        }
+        
+        final PreparedStatement openStmt = stmt;
+        return StreamSupport.stream(new ResultSetSpliterator<>(rs, mapper), false)
+                .onClose(() -> closeQuietly(openStmt, connection));
+    }
+    
+    /**
+     * Run a query and pass each mapped row to a consumer as it is read
+     * @param sql query to run
+     * @param binder binds the query parameters
+     * @param mapper maps each row
+     * @param action receives each mapped row
+     * @return number of rows processed
+     * @throws SQLException if the query fails
+     */
+    public static <T> int forEach(String sql, StatementBinder binder, RowMapper<T> mapper,
+                                  Consumer<? super T> action) throws SQLException {
+        int rows = 0;
+        
+        try (Connection connection = DBConnectionUtil.getConnection();
+             PreparedStatement stmt = prepareStreaming(connection, sql)) {
+            binder.bind(stmt);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(mapper.map(rs));
+                    rows++;
+                }
+            }
+        } finally {
+            Metrics.recordRows(rows);
+        }
+        
+        return rows;
+    }
+    
+    /**
+     * Run a keyset page query fetched with LIMIT pageSize + 1 and pass each row of the
+     * page to a consumer as it is read. The extra row, if present, is not passed on and
+     * only signals that another page exists.
+     * @param sql query to run; the binder must bind pageSize + 1 as its limit
+     * @param binder binds the query parameters
+     * @param mapper maps each row
+     * @param pageSize number of rows on a page
+     * @param cursorOf produces the cursor token for a row
+     * @param action receives each mapped row of the page
+     * @return cursor token of the page's last row if another page exists, otherwise null
+     * @throws SQLException if the query fails
+     */
+    public static <T> String forEachInPage(String sql, StatementBinder binder, RowMapper<T> mapper, int pageSize,
+                                           Function<? super T, String> cursorOf,
+                                           Consumer<? super T> action) throws SQLException {
+        T last = null;
+        int rows = 0;
+        
+        try (Connection connection = DBConnectionUtil.getConnection();
+             PreparedStatement stmt = prepareStreaming(connection, sql)) {
+            binder.bind(stmt);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (rows == pageSize) {
+                        return cursorOf.apply(last);
+                    }
+                    last = mapper.map(rs);
+                    action.accept(last);
+                    rows++;
+                }
+            }
+        } finally {
+            Metrics.recordRows(rows);
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Prepare a forward-only, read-only statement that fetches rows in batches.
+     * With MySQL this uses a server-side cursor when the URL sets useCursorFetch=true.
+     */
+    private static PreparedStatement prepareStreaming(Connection connection, String sql) throws SQLException {
+        PreparedStatement stmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        stmt.setFetchSize(DBConnectionUtil.getStreamFetchSize());
+        return stmt;
+    }
+    
+    private static void closeQuietly(PreparedStatement stmt, Connection connection) {
+        try {
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error closing streaming statement: " + e.getMessage());
+        }
+        
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing streaming connection: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Spliterator that advances the ResultSet one row per tryAdvance call
+     */
+    private static final class ResultSetSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+        private final ResultSet rs;
+        private final RowMapper<T> mapper;
+        private boolean done;
+        
+        private ResultSetSpliterator(ResultSet rs, RowMapper<T> mapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.rs = rs;
+            this.mapper = mapper;
+        }
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (done) {
+                return false;
+            }
+            
+            try {
+                if (rs.next()) {
+                    action.accept(mapper.map(rs));
+                    return true;
+                }
+            } catch (SQLException e) {
+                done = true;
+                Metrics.recordError("Error reading streamed row", e);
+                throw new UncheckedSQLException("Error reading streamed row", e);
+            }
+            
+            done = true;
+            return false;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.automobile.service.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * Streaming JSON writer. Values are written to the underlying Writer as they are
+ * added, so a list of any length is serialized in constant memory.
+ * Commas and string escaping are handled here; callers only nest objects and arrays.
+ */
+public class JsonWriter {
+    
+    private static final int MAX_DEPTH = 32;
+    
+    private final Writer out;
+    // Whether the object or array open at each depth already has a member
+    private final boolean[] hasMember = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+    
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+    
+    public JsonWriter beginObject() throws IOException {
+        open('{');
+        return this;
+    }
+    
+    public JsonWriter endObject() throws IOException {
+        close('}');
+        return this;
+    }
+    
+    public JsonWriter beginArray() throws IOException {
+        open('[');
+        return this;
+    }
+    
+    public JsonWriter endArray() throws IOException {
+        close(']');
+        return this;
+    }
+    
+    /**
+     * Write the name of the next object member
+     * @param name member name
+     * @return this writer
+     * @throws IOException if writing fails
+     */
+    public JsonWriter name(String name) throws IOException {
+        separate();
+        writeString(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+    
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        separate();
+        writeString(value);
+        return this;
+    }
+    
+    public JsonWriter value(long value) throws IOException {
+        separate();
+        out.write(Long.toString(value));
+        return this;
+    }
+    
+    public JsonWriter value(boolean value) throws IOException {
+        separate();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+    
+    public JsonWriter value(BigDecimal value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        separate();
+        out.write(value.toPlainString());
+        return this;
+    }
+    
+    /**
+     * Write a date or date-time in ISO-8601 form
+     * @param value date or date-time, or null
+     * @return this writer
+     * @throws IOException if writing fails
+     */
+    public JsonWriter value(TemporalAccessor value) throws IOException {
+        return value(value != null ? value.toString() : null);
+    }
+    
+    public JsonWriter nullValue() throws IOException {
+        separate();
+        out.write("null");
+        return this;
+    }
+    
+    /**
+     * Flush the underlying Writer
+     * @throws IOException if flushing fails
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+    
+    private void open(char bracket) throws IOException {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON nested too deeply");
+        }
+        separate();
+        out.write(bracket);
+        hasMember[depth++] = false;
+    }
+    
+    private void close(char bracket) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("No open JSON object or array");
+        }
+        depth--;
+        out.write(bracket);
+    }
+    
+    /**
+     * Write the comma before a value or member name, unless it follows a name
+     * or is the first in its object or array
+     */
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasMember[depth - 1]) {
+                out.write(',');
+            }
+            hasMember[depth - 1] = true;
+        }
+    }
+    
+    private void writeString(String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String escape = null;
+            if (c == '"') {
+                escape = "\\\"";
+            } else if (c == '\\') {
+                escape = "\\\\";
+            } else if (c == '\n') {
+                escape = "\\n";
+            } else if (c == '\r') {
+                escape = "\\r";
+            } else if (c == '\t') {
+                escape = "\\t";
+            } else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                escape = String.format("\\u%04x", (int) c);
+            }
+            
+            if (escape != null) {
+                out.write(value, start, i - start);
+                out.write(escape);
+                start = i + 1;
+            }
+        }
+        out.write(value, start, length - start);
+        out.write('"');
+    }
+}
@@ -0,0 +1,328 @@
+package com.automobile.service.util;
+
+import com.automobile.service.model.Page;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.BaseStream;
+
+/**
+ * Registry of per-operation call statistics: a latency histogram, and counts of calls,
+ * errors and rows returned. Operations are timed with timed(), which costs two clock
+ * reads, a map lookup and a few atomic increments, so it can stay on in production.
+ * Errors and row counts reported while an operation runs are added to that operation.
+ * At most MAX_OPERATIONS operations get their own statistics; calls of operations first
+ * seen after that are counted together under OTHER_OPERATIONS.
+ */
+public class Metrics {
+    
+    // Statistics entry that counts operations seen after the table is full
+    public static final String OTHER_OPERATIONS = "(other operations)";
+    
+    // Well above the number of DAO methods, service methods and routes
+    public static final int MAX_OPERATIONS = 1000;
+    
+    // Operations timed on the current thread, innermost first
+    private static final ThreadLocal<Call> CURRENT = new ThreadLocal<>();
+    
+    private static final ConcurrentHashMap<String, Stats> STATS = new ConcurrentHashMap<>();
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private Metrics() {
+        // Private constructor to prevent instantiation
+    }
+    
+    /**
+     * Run an operation and record its latency. Rows returned are counted from the result:
+     * the size of a collection, map or page, one for any other object, and none for null,
+     * streams, numbers and booleans, which are IDs or success flags.
+     * @param operation operation name, e.g. "CustomerDAO.getCustomerById"
+     * @param body operation to run
+     * @return the value returned by body
+     */
+    public static <T> T timed(String operation, Supplier<T> body) {
+        Stats stats = stats(operation);
+        Call call = new Call(CURRENT.get(), operation);
+        CURRENT.set(call);
+        long start = System.nanoTime();
+        boolean thrown = true;
+        
+        try {
+            T result = body.get();
+            call.rows += rowsOf(result);
+            thrown = false;
+            return result;
+        } finally {
+            stats.record(System.nanoTime() - start, thrown || call.failed, call.rows);
+            if (call.outer != null) {
+                CURRENT.set(call.outer);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+    
+    /**
+     * Run an operation that returns nothing and record its latency
+     * @param operation operation name
+     * @param body operation to run
+     */
+    public static void timed(String operation, Runnable body) {
+        timed(operation, () -> {
+            body.run();
+            return null;
+        });
+    }
+    
+    /**
+     * Record one call of an operation timed by the caller, for bodies that throw checked
+     * exceptions and so cannot be passed to timed()
+     * @param operation operation name
+     * @param nanos time taken in nanoseconds
+     */
+    public static void recordLatency(String operation, long nanos) {
+        stats(operation).record(nanos, false, 0);
+    }
+    
+    /**
+     * Log an error and count it against the operation running on this thread, if any
+     * @param message description of what failed
+     * @param e exception that caused the failure
+     */
+    public static void recordError(String message, Exception e) {
+        System.err.println(message + ": " + e.getMessage());
+        recordError();
+    }
+    
+    /**
+     * Count an error, already reported, against the operation running on this thread, if any
+     */
+    public static void recordError() {
+        Call call = CURRENT.get();
+        if (call != null) {
+            call.failed = true;
+        }
+    }
+    
+    /**
+     * Count rows passed on by the operation running on this thread, for operations that
+     * hand rows to a consumer instead of returning them
+     * @param rows number of rows
+     */
+    public static void recordRows(long rows) {
+        Call call = CURRENT.get();
+        if (call != null) {
+            call.rows += rows;
+        }
+    }
+    
+    /**
+     * Get the name of the innermost operation running on this thread, such as the DAO
+     * method that issued a statement
+     * @return operation name, or null if no operation is running
+     */
+    public static String currentOperation() {
+        Call call = CURRENT.get();
+        return call != null ? call.operation : null;
+    }
+    
+    /**
+     * Get the statistics of every operation recorded so far
+     * @return Map of operation name to statistics, sorted by name
+     */
+    public static Map<String, Stats> snapshot() {
+        return new TreeMap<>(STATS);
+    }
+    
+    /**
+     * Discard all statistics
+     */
+    public static void reset() {
+        STATS.clear();
+    }
+    
+    private static Stats stats(String operation) {
+        Stats stats = STATS.get(operation);
+        if (stats == null) {
+            String key = STATS.size() < MAX_OPERATIONS ? operation : OTHER_OPERATIONS;
+            stats = STATS.computeIfAbsent(key, name -> new Stats());
+        }
+        return stats;
+    }
+    
+    private static long rowsOf(Object result) {
+        if (result == null || result instanceof Boolean || result instanceof Number || result instanceof BaseStream) {
+            // Streams are read after the operation returns
+            return 0;
+        } else if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        } else if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        } else if (result instanceof Page) {
+            return ((Page<?>) result).getItems().size();
+        }
+        return 1;
+    }
+    
+    /**
+     * One running operation
+     */
+    private static final class Call {
+        private final Call outer;
+        private final String operation;
+        private boolean failed;
+        private long rows;
+        
+        private Call(Call outer, String operation) {
+            this.outer = outer;
+            this.operation = operation;
+        }
+    }
+    
+    /**
+     * Statistics of one operation
+     */
+    public static final class Stats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        
+        private void record(long nanos, boolean failed, long rowCount) {
+            calls.increment();
+            if (failed) {
+                errors.increment();
+            }
+            if (rowCount > 0) {
+                rows.add(rowCount);
+            }
+            totalNanos.add(nanos);
+            latency.record(nanos);
+        }
+        
+        public long getCalls() {
+            return calls.sum();
+        }
+        
+        public long getErrors() {
+            return errors.sum();
+        }
+        
+        public long getRows() {
+            return rows.sum();
+        }
+        
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+        
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+    }
+    
+    /**
+     * Log-linear latency histogram in the style of HdrHistogram. Each power of two of
+     * microseconds is split into 16 equal buckets, so a recorded value is off by at most
+     * 1/16 (6.25%) across the whole range, in a fixed 4.5 KB per histogram.
+     */
+    public static final class LatencyHistogram {
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        // Values up to 2^37 microseconds, about 38 hours; larger ones go in the last bucket
+        private static final int MAX_EXPONENT = 37;
+        private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+        
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        
+        private void record(long nanos) {
+            counts.incrementAndGet(indexOf(Math.max(0, nanos / 1000)));
+        }
+        
+        /**
+         * Get the number of values recorded
+         * @return total count
+         */
+        public long getCount() {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += counts.get(i);
+            }
+            return total;
+        }
+        
+        /**
+         * Get the number of values below a bound. Exact when the bound is a power of two
+         * of microseconds, since buckets never straddle one.
+         * @param micros bound in microseconds
+         * @return number of values in buckets that lie wholly below the bound
+         */
+        public long countBelow(long micros) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS && upperBoundOf(i) < micros; i++) {
+                total += counts.get(i);
+            }
+            return total;
+        }
+        
+        /**
+         * Get the value below which a fraction of the recorded values lie
+         * @param quantile fraction between 0 and 1, e.g. 0.99
+         * @return upper bound in microseconds of the bucket holding the quantile, or 0 if empty
+         */
+        public long valueAtQuantile(double quantile) {
+            long[] snapshot = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return upperBoundOf(i);
+                }
+            }
+            return upperBoundOf(BUCKETS - 1);
+        }
+        
+        private static int indexOf(long micros) {
+            if (micros < SUB_BUCKETS) {
+                return (int) micros;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(micros);
+            if (exponent > MAX_EXPONENT) {
+                return BUCKETS - 1;
+            }
+            int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+        
+        /**
+         * Largest value, in microseconds, that falls in a bucket
+         */
+        private static long upperBoundOf(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            int subBucket = index % SUB_BUCKETS;
+            long width = 1L << (exponent - SUB_BUCKET_BITS);
+            return (1L << exponent) + (subBucket + 1) * width - 1;
+        }
+    }
+}
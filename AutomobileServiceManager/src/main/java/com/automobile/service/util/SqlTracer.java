@@ -0,0 +1,374 @@
+package com.automobile.service.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Traces the statements run on pooled connections. Each execution is timed, counting
+ * the time spent fetching its rows, and attributed to the DAO method running on the
+ * thread (see Metrics). Totals are kept per SQL text in a table bounded to a fixed
+ * number of texts; executions over the slow-query threshold are also written to a
+ * slow-query log on a background thread. Tracing costs a proxy call per statement
+ * method and two clock reads per execution and per row fetched.
+ */
+public class SqlTracer {
+    
+    // Table entry that counts SQL texts seen after the table is full
+    public static final String OTHER_STATEMENTS = "(other statements)";
+    
+    private static final int SLOW_QUERY_LOG_CAPACITY = 10000;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    
+    private final long slowQueryNanos;
+    private final int maxStatements;
+    private final AsyncFileAppender slowQueryLog;
+    private final ConcurrentHashMap<String, SqlStats> statements = new ConcurrentHashMap<>();
+    private final LongAdder slowQueries = new LongAdder();
+    
+    /**
+     * @param slowQueryMillis executions taking at least this long are logged as slow, negative to disable
+     * @param slowQueryLogPath file slow queries are appended to, or null to only count them
+     * @param maxStatements maximum number of distinct SQL texts given their own statistics
+     */
+    public SqlTracer(long slowQueryMillis, Path slowQueryLogPath, int maxStatements) {
+        this.slowQueryNanos = slowQueryMillis >= 0 ? TimeUnit.MILLISECONDS.toNanos(slowQueryMillis) : Long.MAX_VALUE;
+        this.maxStatements = maxStatements;
+        this.slowQueryLog = slowQueryMillis >= 0 && slowQueryLogPath != null
+                ? new AsyncFileAppender(slowQueryLogPath, SLOW_QUERY_LOG_CAPACITY, "slow-query-log") : null;
+    }
+    
+    /**
+     * Wrap a prepared statement so its executions are traced
+     * @param statement statement to trace
+     * @param sql SQL text it was prepared with
+     * @return PreparedStatement that forwards every call to statement
+     */
+    public PreparedStatement trace(PreparedStatement statement, String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, new TracedStatement(statement, sql));
+    }
+    
+    /**
+     * Wrap a plain statement so its executions are traced, taking the SQL from each execute call
+     * @param statement statement to trace
+     * @return Statement that forwards every call to statement
+     */
+    public Statement trace(Statement statement) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[] { Statement.class }, new TracedStatement(statement, null));
+    }
+    
+    /**
+     * Get the statistics of every SQL text traced so far
+     * @return Map of SQL text to statistics, most total time first
+     */
+    public Map<String, SqlStats> snapshot() {
+        List<Map.Entry<String, SqlStats>> entries = new ArrayList<>(statements.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue().getTotalNanos(), a.getValue().getTotalNanos()));
+        
+        Map<String, SqlStats> sorted = new LinkedHashMap<>();
+        for (Map.Entry<String, SqlStats> entry : entries) {
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        return sorted;
+    }
+    
+    /**
+     * @return number of executions that took at least the slow-query threshold
+     */
+    public long getSlowQueries() {
+        return slowQueries.sum();
+    }
+    
+    /**
+     * @return number of slow queries left out of the log because it could not keep up
+     */
+    public long getSlowQueryLogDropped() {
+        return slowQueryLog != null ? slowQueryLog.getDropped() : 0;
+    }
+    
+    /**
+     * Write out the slow queries still queued and close the log
+     */
+    public void close() {
+        if (slowQueryLog != null) {
+            slowQueryLog.close();
+        }
+    }
+    
+    private void record(Execution execution) {
+        if (execution.recorded || execution.sql == null) {
+            return;
+        }
+        execution.recorded = true;
+        
+        SqlStats stats = statements.get(execution.sql);
+        if (stats == null) {
+            String key = statements.size() < maxStatements ? execution.sql : OTHER_STATEMENTS;
+            stats = statements.computeIfAbsent(key, sql -> new SqlStats());
+        }
+        stats.record(execution);
+        
+        if (execution.nanos >= slowQueryNanos) {
+            slowQueries.increment();
+            if (slowQueryLog != null) {
+                slowQueryLog.append(format(execution));
+            }
+        }
+    }
+    
+    private static String format(Execution execution) {
+        return TIMESTAMP.format(LocalDateTime.now())
+                + String.format(" %.3f ms", execution.nanos / 1e6)
+                + " rows=" + execution.rows
+                + " params=" + execution.parameters
+                + " operation=" + execution.operation
+                + (execution.failed ? " failed" : "")
+                + " sql=" + execution.sql.replaceAll("\\s+", " ").trim();
+    }
+    
+    /**
+     * Rows affected, from the result of executeUpdate or executeBatch
+     */
+    private static long rowsAffected(Object result) {
+        long rows = 0;
+        if (result instanceof Number) {
+            rows = ((Number) result).longValue();
+        } else if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                rows += Math.max(0, count);
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                rows += Math.max(0, count);
+            }
+        }
+        return Math.max(0, rows);
+    }
+    
+    /**
+     * Totals for one SQL text
+     */
+    public static final class SqlStats {
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+        
+        private void record(Execution execution) {
+            executions.increment();
+            if (execution.failed) {
+                errors.increment();
+            }
+            rows.add(execution.rows);
+            totalNanos.add(execution.nanos);
+            maxNanos.accumulate(execution.nanos);
+        }
+        
+        public long getExecutions() {
+            return executions.sum();
+        }
+        
+        public long getErrors() {
+            return errors.sum();
+        }
+        
+        public long getRows() {
+            return rows.sum();
+        }
+        
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+        
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+    }
+    
+    /**
+     * One execution of a statement, recorded once its rows are read
+     */
+    private static final class Execution {
+        private final String sql;
+        private final int parameters;
+        private final String operation;
+        private long nanos;
+        private long rows;
+        private boolean failed;
+        private boolean recorded;
+        
+        private Execution(String sql, int parameters, String operation) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.operation = operation;
+        }
+    }
+    
+    /**
+     * The statement handed to callers. Like the statement it wraps it is used by one
+     * thread at a time, so its fields need no synchronization.
+     */
+    private final class TracedStatement implements InvocationHandler {
+        private final Statement target;
+        private final String sql;
+        // Highest parameter index bound since the last clearParameters
+        private int parameters;
+        // Execution whose result set is still being read
+        private Execution open;
+        
+        private TracedStatement(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            
+            if (name.startsWith("execute")) {
+                return execute(proxy, method, args);
+            } else if (name.equals("close")) {
+                finish();
+            } else if (name.equals("clearParameters")) {
+                parameters = 0;
+            } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters = Math.max(parameters, (Integer) args[0]);
+            } else if (name.equals("getResultSet")) {
+                ResultSet rs = (ResultSet) invokeTarget(method, args);
+                return rs != null && open != null ? countRows(rs, open, proxy) : rs;
+            } else if (name.equals("equals")) {
+                return proxy == args[0];
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (name.equals("toString")) {
+                return "Traced[" + target + "]";
+            }
+            return invokeTarget(method, args);
+        }
+        
+        private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+            // Reading a statement's next results closes its previous result set
+            finish();
+            
+            String text = sql != null ? sql : args != null && args.length > 0 ? (String) args[0] : null;
+            Execution execution = new Execution(text, parameters, Metrics.currentOperation());
+            
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                execution.nanos = System.nanoTime() - start;
+                execution.failed = true;
+                record(execution);
+                throw e.getCause();
+            }
+            execution.nanos = System.nanoTime() - start;
+            
+            if (result instanceof ResultSet) {
+                open = execution;
+                return countRows((ResultSet) result, execution, proxy);
+            } else if (method.getName().equals("execute") && Boolean.TRUE.equals(result)) {
+                // The result set is fetched with getResultSet
+                open = execution;
+                return result;
+            }
+            
+            execution.rows = rowsAffected(result);
+            record(execution);
+            return result;
+        }
+        
+        private void finish() {
+            if (open != null) {
+                record(open);
+                open = null;
+            }
+        }
+        
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+    
+    private ResultSet countRows(ResultSet rs, Execution execution, Object statement) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class }, new CountedResultSet(rs, execution, statement));
+    }
+    
+    /**
+     * Result set that adds its fetch time and row count to its execution, and records
+     * the execution when closed
+     */
+    private final class CountedResultSet implements InvocationHandler {
+        private final ResultSet target;
+        private final Execution execution;
+        private final Object statement;
+        
+        private CountedResultSet(ResultSet target, Execution execution, Object statement) {
+            this.target = target;
+            this.execution = execution;
+            this.statement = statement;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            
+            if (name.equals("next")) {
+                long start = System.nanoTime();
+                try {
+                    boolean hasRow = target.next();
+                    if (hasRow) {
+                        execution.rows++;
+                    }
+                    return hasRow;
+                } catch (SQLException e) {
+                    execution.failed = true;
+                    throw e;
+                } finally {
+                    execution.nanos += System.nanoTime() - start;
+                }
+            } else if (name.equals("close")) {
+                record(execution);
+            } else if (name.equals("getStatement")) {
+                return statement;
+            } else if (name.equals("equals")) {
+                return proxy == args[0];
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (name.equals("toString")) {
+                return "Counted[" + target + "]";
+            }
+            
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
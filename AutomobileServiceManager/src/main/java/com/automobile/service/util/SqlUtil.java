@@ -0,0 +1,54 @@
+package com.automobile.service.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * SQL helper methods shared by the DAO classes
+ */
+public class SqlUtil {
+    
+    // Keeps IN-lists well below driver and server placeholder limits
+    public static final int IN_LIST_CHUNK_SIZE = 500;
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private SqlUtil() {
+        // Private constructor to prevent instantiation
+    }
+    
+    /**
+     * Build a comma-separated list of placeholders for an IN clause
+     * @param count number of placeholders
+     * @return placeholder list such as "?, ?, ?"
+     */
+    public static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append('?');
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Remove duplicate and null IDs and split them into chunks for IN-list queries
+     * @param ids IDs to look up
+     * @return chunks of at most IN_LIST_CHUNK_SIZE distinct IDs
+     */
+    public static List<List<Integer>> chunkIds(Collection<Integer> ids) {
+        List<Integer> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.remove(null);
+        
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += IN_LIST_CHUNK_SIZE) {
+            chunks.add(distinct.subList(from, Math.min(from + IN_LIST_CHUNK_SIZE, distinct.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,261 @@
+package com.automobile.service.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of PreparedStatements for a single pooled connection, keyed by SQL text.
+ * Closing a statement obtained from the cache only resets it for reuse; the
+ * underlying statement lives as long as the connection or until it is evicted.
+ * Like the connection it belongs to, a cache is only used by one thread at a time.
+ */
+public class StatementCache {
+    
+    private final int maxSize;
+    private final Map<StatementKey, CachedStatement> statements;
+    private final LongAdder totalHits;
+    private final LongAdder totalMisses;
+    private long hits;
+    private long misses;
+    
+    /**
+     * @param maxSize maximum number of statements kept open for the connection
+     * @param totalHits pool-wide hit counter, also incremented by this cache
+     * @param totalMisses pool-wide miss counter, also incremented by this cache
+     */
+    public StatementCache(final int maxSize, LongAdder totalHits, LongAdder totalMisses) {
+        this.maxSize = maxSize;
+        this.totalHits = totalHits;
+        this.totalMisses = totalMisses;
+        this.statements = new LinkedHashMap<StatementKey, CachedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<StatementKey, CachedStatement> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+    
+    /**
+     * Get a prepared statement for the SQL, reusing a cached one when it is free
+     * @param physical connection that owns the cache
+     * @param owner connection handle returned from Statement.getConnection()
+     * @param sql SQL text
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS or Statement.NO_GENERATED_KEYS
+     * @return PreparedStatement whose close() returns it to the cache
+     * @throws SQLException if the statement cannot be prepared
+     */
+    public PreparedStatement prepare(Connection physical, Connection owner, String sql, int autoGeneratedKeys)
+            throws SQLException {
+        StatementKey key = new StatementKey(sql, autoGeneratedKeys);
+        CachedStatement cached = statements.get(key);
+        
+        if (cached != null && cached.evicted) {
+            // Dropped after a failed reset; prepare it again
+            statements.remove(key);
+            cached = null;
+        }
+        
+        if (cached != null && !cached.inUse) {
+            hits++;
+            totalHits.increment();
+        } else {
+            misses++;
+            totalMisses.increment();
+            PreparedStatement statement = physical.prepareStatement(sql, autoGeneratedKeys);
+            if (cached != null || maxSize <= 0) {
+                // Same SQL already open on this connection (or caching disabled): hand out an uncached statement
+                return statement;
+            }
+            cached = new CachedStatement(statement);
+            statements.put(key, cached);
+        }
+        
+        cached.inUse = true;
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, new StatementHandle(cached, owner));
+    }
+    
+    /**
+     * @return number of prepare calls served from the cache
+     */
+    public long getHits() {
+        return hits;
+    }
+    
+    /**
+     * @return number of prepare calls that had to prepare a new statement
+     */
+    public long getMisses() {
+        return misses;
+    }
+    
+    /**
+     * @return number of statements currently cached
+     */
+    public int size() {
+        return statements.size();
+    }
+    
+    /**
+     * Close every cached statement; called when the owning connection is closed
+     */
+    public void closeAll() {
+        Iterator<CachedStatement> iterator = statements.values().iterator();
+        while (iterator.hasNext()) {
+            iterator.next().evict();
+            iterator.remove();
+        }
+    }
+    
+    /**
+     * Cache key: the same SQL prepared with and without generated keys are different statements
+     */
+    private static final class StatementKey {
+        private final String sql;
+        private final int autoGeneratedKeys;
+        
+        private StatementKey(String sql, int autoGeneratedKeys) {
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StatementKey)) {
+                return false;
+            }
+            StatementKey other = (StatementKey) o;
+            return autoGeneratedKeys == other.autoGeneratedKeys && sql.equals(other.sql);
+        }
+        
+        @Override
+        public int hashCode() {
+            return sql.hashCode() * 31 + autoGeneratedKeys;
+        }
+    }
+    
+    private static final class CachedStatement {
+        private final PreparedStatement statement;
+        private boolean inUse;
+        private boolean evicted;
+        
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+        
+        /**
+         * Close the statement now, or once its current user is done with it
+         */
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly(statement);
+            }
+        }
+    }
+    
+    /**
+     * The PreparedStatement handed to callers. close() releases open result sets,
+     * clears parameters and marks the statement free for the next prepare call.
+     */
+    private static final class StatementHandle implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection owner;
+        private final List<ResultSet> openResults = new ArrayList<>(1);
+        private boolean handleClosed;
+        
+        private StatementHandle(CachedStatement cached, Connection owner) {
+            this.cached = cached;
+            this.owner = owner;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            
+            if (name.equals("close")) {
+                if (!handleClosed) {
+                    handleClosed = true;
+                    release();
+                }
+                return null;
+            } else if (name.equals("isClosed")) {
+                return handleClosed || cached.statement.isClosed();
+            } else if (name.equals("getConnection")) {
+                return owner;
+            } else if (name.equals("equals")) {
+                return proxy == args[0];
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (name.equals("toString")) {
+                return "Cached[" + cached.statement + "]";
+            }
+            
+            if (handleClosed) {
+                throw new SQLException("Statement is closed");
+            }
+            
+            try {
+                Object result = method.invoke(cached.statement, args);
+                if (result instanceof ResultSet) {
+                    openResults.add((ResultSet) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+        
+        private void release() {
+            for (ResultSet rs : openResults) {
+                try {
+                    rs.close();
+                } catch (SQLException e) {
+                    // Ignore; the statement is reset below
+                }
+            }
+            openResults.clear();
+            
+            try {
+                cached.statement.clearParameters();
+                cached.statement.clearBatch();
+            } catch (SQLException e) {
+                // A statement that cannot be reset must not be handed out again
+                cached.evicted = true;
+            }
+            
+            cached.inUse = false;
+            if (cached.evicted) {
+                closeQuietly(cached.statement);
+            }
+        }
+    }
+    
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing cached statement: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.automobile.service.util;
+
+import java.util.Locale;
+
+/**
+ * Normalization of license plates and VINs for lookups, so that "ab 12-cd"
+ * and "AB12CD" identify the same vehicle, and the VIN check digit.
+ */
+public class VehicleIdentifiers {
+    
+    // VIN check digit transliteration of the letters allowed in a VIN, and position weights
+    private static final String VIN_LETTERS = "ABCDEFGHJKLMNPRSTUVWXYZ";
+    private static final int[] VIN_LETTER_VALUES = {1, 2, 3, 4, 5, 6, 7, 8, 1, 2, 3, 4, 5, 7, 9, 2, 3, 4, 5, 6, 7, 8, 9};
+    private static final int[] VIN_WEIGHTS = {8, 7, 6, 5, 4, 3, 2, 10, 0, 9, 8, 7, 6, 5, 4, 3, 2};
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private VehicleIdentifiers() {
+        // Private constructor to prevent instantiation
+    }
+    
+    /**
+     * Normalize a license plate: upper-case with spaces and dashes removed.
+     * Must stay in line with the plate_key column expression in database_schema.sql.
+     * @param licensePlate license plate as entered
+     * @return normalized plate, or an empty string if none was given
+     */
+    public static String normalizePlate(String licensePlate) {
+        return strip(licensePlate);
+    }
+    
+    /**
+     * Normalize a VIN: upper-case with spaces and dashes removed
+     * @param vin VIN as entered
+     * @return normalized VIN, or an empty string if none was given
+     */
+    public static String normalizeVin(String vin) {
+        return strip(vin);
+    }
+    
+    /**
+     * Compute the check digit of a 17-character VIN, the character at position 9,
+     * as defined for North American VINs (49 CFR 565)
+     * @param vin VIN in upper case; the character at position 9 is ignored
+     * @return check digit, '0' to '9' or 'X'
+     * @throws IllegalArgumentException if the VIN is not 17 characters or contains I, O, Q or other invalid characters
+     */
+    public static char vinCheckDigit(String vin) {
+        if (vin == null || vin.length() != 17) {
+            throw new IllegalArgumentException("VIN must have 17 characters");
+        }
+        
+        int sum = 0;
+        for (int i = 0; i < 17; i++) {
+            sum += vinValue(vin.charAt(i)) * VIN_WEIGHTS[i];
+        }
+        int remainder = sum % 11;
+        return remainder == 10 ? 'X' : (char) ('0' + remainder);
+    }
+    
+    private static int vinValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        int index = VIN_LETTERS.indexOf(c);
+        if (index < 0) {
+            throw new IllegalArgumentException("Invalid VIN character: " + c);
+        }
+        return VIN_LETTER_VALUES[index];
+    }
+    
+    private static String strip(String value) {
+        if (value == null) {
+            return "";
+        }
+        
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != ' ' && c != '-') {
+                sb.append(c);
+            }
+        }
+        return sb.toString().toUpperCase(Locale.ROOT);
+    }
+}
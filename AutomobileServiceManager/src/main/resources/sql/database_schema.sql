@@ -22,7 +22,8 @@ CREATE TABLE customers (
     zip_code VARCHAR(10),
     registration_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     UNIQUE KEY unique_email (email),
-    UNIQUE KEY unique_phone (phone)
+    UNIQUE KEY unique_phone (phone),
+    INDEX idx_customers_name (last_name, first_name, customer_id)
 );
 
 -- Create Vehicles table
@@ -37,9 +38,14 @@ CREATE TABLE vehicles (
     color VARCHAR(30),
     mileage INT,
     last_service_date DATE,
+    -- Normalized plate for lookups; keep in line with VehicleIdentifiers.normalizePlate.
+    -- Unique, so "AB 12 CD" cannot be added next to "AB12CD"
+    plate_key VARCHAR(20) AS (UPPER(REPLACE(REPLACE(license_plate, ' ', ''), '-', ''))) STORED,
     FOREIGN KEY (customer_id) REFERENCES customers(customer_id) ON DELETE CASCADE,
     UNIQUE KEY unique_license_plate (license_plate),
-    UNIQUE KEY unique_vin (vin)
+    UNIQUE KEY unique_plate_key (plate_key),
+    UNIQUE KEY unique_vin (vin),
+    INDEX idx_vehicles_listing (make, model, year DESC, vehicle_id)
 );
 
 -- Create Services table (service catalog)
@@ -48,7 +54,8 @@ CREATE TABLE services (
     service_name VARCHAR(100) NOT NULL,
     description TEXT,
     standard_price DECIMAL(10, 2) NOT NULL,
-    estimated_hours DECIMAL(4, 2)
+    estimated_hours DECIMAL(4, 2),
+    INDEX idx_services_name (service_name, service_id)
 );
 
 -- Create Job Cards table
@@ -60,7 +67,10 @@ CREATE TABLE job_cards (
     status ENUM('OPEN', 'IN_PROGRESS', 'COMPLETED', 'DELIVERED', 'CANCELLED') DEFAULT 'OPEN',
     technician_notes TEXT,
     customer_complaints TEXT,
-    FOREIGN KEY (vehicle_id) REFERENCES vehicles(vehicle_id) ON DELETE CASCADE
+    FOREIGN KEY (vehicle_id) REFERENCES vehicles(vehicle_id) ON DELETE CASCADE,
+    INDEX idx_job_cards_open_date (open_date, job_card_id),
+    INDEX idx_job_cards_status_open_date (status, open_date, job_card_id),
+    INDEX idx_job_cards_close_date (close_date)
 );
 
 -- Create Job Services table (services performed in a job card)
@@ -111,7 +121,22 @@ CREATE TABLE billing (
     payment_method VARCHAR(50),
     payment_date TIMESTAMP NULL,
     notes TEXT,
-    FOREIGN KEY (job_card_id) REFERENCES job_cards(job_card_id) ON DELETE CASCADE
+    FOREIGN KEY (job_card_id) REFERENCES job_cards(job_card_id) ON DELETE CASCADE,
+    UNIQUE KEY unique_billing_job_card (job_card_id),
+    INDEX idx_billing_bill_date (bill_date)
+);
+
+-- Create Daily Rollups table (per-day totals kept up to date as job cards and bills change)
+CREATE TABLE daily_rollups (
+    rollup_date DATE PRIMARY KEY,
+    jobs_opened INT NOT NULL DEFAULT 0,
+    jobs_closed INT NOT NULL DEFAULT 0,
+    bills_created INT NOT NULL DEFAULT 0,
+    service_revenue DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    parts_revenue DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    tax_collected DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    discounts_given DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    grand_total DECIMAL(14, 2) NOT NULL DEFAULT 0
 );
 
 -- Create Users table for authentication (optional)